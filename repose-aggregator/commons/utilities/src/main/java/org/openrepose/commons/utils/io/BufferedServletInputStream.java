@@ -51,6 +51,16 @@ public class BufferedServletInputStream extends ServletInputStream {
         return inputStream.read();
     }
 
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        return inputStream.read(b, off, len);
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        return inputStream.skip(n);
+    }
+
     @Override
     public void mark(int readlimit) {
         inputStream.mark(readlimit);
@@ -25,4 +25,9 @@ package org.openrepose.commons.utils.io.buffer;
 public interface ByteArrayProvider {
 
     byte[] allocate(int capacity);
+
+    /**
+     * Hands back an array allocated by this provider once it is no longer used.
+     */
+    void release(byte[] array);
 }
@@ -44,4 +44,9 @@ public interface ByteBuffer extends Cloneable {
     void clear();
 
     ByteBuffer copy();
+
+    /**
+     * Hands the backing storage back to where it was allocated from. The buffer is empty afterwards.
+     */
+    void release();
 }
\ No newline at end of file
@@ -43,6 +43,10 @@ public class CyclicByteBuffer implements ByteBuffer, Cloneable {
         this(byteArrayProvider, DEFAULT_BUFFER_SIZE, 0, 0, false, false);
     }
 
+    public CyclicByteBuffer(ByteArrayProvider byteArrayProvider, int initialSize, boolean lazyAllocate) {
+        this(byteArrayProvider, initialSize, 0, 0, false, lazyAllocate);
+    }
+
     protected CyclicByteBuffer(ByteArrayProvider byteArrayProvider, int allocationSize, int nextWritableIndex, int nextReadableIndex, boolean hasElements, boolean lazyAllocate) {
         this.byteArrayProvider = byteArrayProvider;
         this.nextWritableIndex = nextWritableIndex;
@@ -77,7 +81,8 @@ public class CyclicByteBuffer implements ByteBuffer, Cloneable {
         }
 
         this.nextReadableIndex = 0;
-        this.nextWritableIndex = (readableLength < allocationSize ? readableLength : 0);
+        // The provider may lease a bigger array than asked for, in which case the copy does not fill it
+        this.nextWritableIndex = (buffer != null && readableLength < buffer.length ? readableLength : 0);
         this.hasElements = byteBuffer.available() > 0;
     }
 
@@ -150,6 +155,7 @@ public class CyclicByteBuffer implements ByteBuffer, Cloneable {
         final byte[] newBuffer = byteArrayProvider.allocate(newSize);
 
         final int read = get(newBuffer, 0, newSize);
+        byteArrayProvider.release(buffer);
         buffer = newBuffer;
 
         nextWritableIndex = read;
@@ -234,6 +240,16 @@ public class CyclicByteBuffer implements ByteBuffer, Cloneable {
         return put(b, 0, b.length);
     }
 
+    @Override
+    public void release() {
+        if (buffer != null) {
+            byteArrayProvider.release(buffer);
+            buffer = null;
+        }
+
+        clear();
+    }
+
     @Override
     public ByteBuffer copy() {
         return new CyclicByteBuffer(byteArrayProvider, this);
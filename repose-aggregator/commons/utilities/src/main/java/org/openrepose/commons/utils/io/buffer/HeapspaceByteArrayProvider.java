@@ -41,4 +41,9 @@ public final class HeapspaceByteArrayProvider implements ByteArrayProvider {
 
         return new byte[capacity];
     }
+
+    @Override
+    public void release(byte[] array) {
+        // Left to the garbage collector
+    }
 }
@@ -0,0 +1,241 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.commons.utils.io.buffer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out byte arrays from a pool so that the buffers used for every request do not have to be allocated anew.
+ * <p/>
+ * Arrays come in power of two size classes. Each thread keeps a few of the smaller arrays it has released for its
+ * next request, and the rest are shared between threads up to a limit on the pooled bytes. Arrays larger than the
+ * biggest size class are allocated and dropped as usual.
+ * <p/>
+ * When leak detection is on, an array that is garbage collected without having been released is logged and counted.
+ */
+public class PooledByteArrayProvider implements ByteArrayProvider {
+
+    public static final int MIN_ARRAY_SIZE = 1024;
+    public static final int MAX_ARRAY_SIZE = 1024 * 1024;
+    public static final long DEFAULT_MAX_POOLED_BYTES = 64L * 1024 * 1024;
+    public static final String LEAK_DETECTION_PROPERTY = "repose.buffer.leak-detection";
+
+    private static final Logger LOG = LoggerFactory.getLogger(PooledByteArrayProvider.class);
+    private static final int THREAD_CACHE_ARRAYS = 4;
+    private static final int THREAD_CACHE_MAX_ARRAY_SIZE = 64 * 1024;
+    private static final int SIZE_CLASSES = Integer.numberOfTrailingZeros(MAX_ARRAY_SIZE) -
+            Integer.numberOfTrailingZeros(MIN_ARRAY_SIZE) + 1;
+    private static final PooledByteArrayProvider INSTANCE =
+            new PooledByteArrayProvider(DEFAULT_MAX_POOLED_BYTES, Boolean.getBoolean(LEAK_DETECTION_PROPERTY));
+
+    private final long maxPooledBytes;
+    private final boolean leakDetection;
+    private final Queue<byte[]>[] sharedPools;
+    private final ThreadLocal<ArrayDeque<byte[]>[]> threadCaches;
+    private final AtomicLong pooledBytes = new AtomicLong();
+    private final AtomicLong leasedArrays = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong leaks = new AtomicLong();
+    private final ConcurrentMap<LeaseKey, LeaseKey> leases = new ConcurrentHashMap<>();
+    private final ReferenceQueue<byte[]> collectedLeases = new ReferenceQueue<>();
+
+    @SuppressWarnings("unchecked")
+    public PooledByteArrayProvider(long maxPooledBytes, boolean leakDetection) {
+        this.maxPooledBytes = maxPooledBytes;
+        this.leakDetection = leakDetection;
+
+        sharedPools = new Queue[SIZE_CLASSES];
+        for (int i = 0; i < SIZE_CLASSES; i++) {
+            sharedPools[i] = new ConcurrentLinkedQueue<>();
+        }
+
+        threadCaches = new ThreadLocal<ArrayDeque<byte[]>[]>() {
+            @Override
+            protected ArrayDeque<byte[]>[] initialValue() {
+                final ArrayDeque<byte[]>[] caches = new ArrayDeque[SIZE_CLASSES];
+                for (int i = 0; i < SIZE_CLASSES; i++) {
+                    caches[i] = new ArrayDeque<>(THREAD_CACHE_ARRAYS);
+                }
+                return caches;
+            }
+        };
+    }
+
+    public static PooledByteArrayProvider getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return the size class an array of the given capacity is taken from, or -1 if it is too large to be pooled
+     */
+    private static int sizeClassOf(int capacity) {
+        if (capacity > MAX_ARRAY_SIZE) {
+            return -1;
+        }
+
+        final int size = capacity <= MIN_ARRAY_SIZE ? MIN_ARRAY_SIZE : Integer.highestOneBit(capacity - 1) << 1;
+        return Integer.numberOfTrailingZeros(size) - Integer.numberOfTrailingZeros(MIN_ARRAY_SIZE);
+    }
+
+    private static int sizeOfClass(int sizeClass) {
+        return MIN_ARRAY_SIZE << sizeClass;
+    }
+
+    /**
+     * Returns an array of at least the requested capacity. Pooled arrays are not cleared, so callers must not read
+     * bytes they have not written.
+     */
+    @Override
+    public byte[] allocate(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Byte array capacity must be greater than zero - got " + capacity);
+        }
+
+        final int sizeClass = sizeClassOf(capacity);
+        if (sizeClass < 0) {
+            return new byte[capacity];
+        }
+
+        byte[] array = threadCaches.get()[sizeClass].pollFirst();
+        if (array == null) {
+            array = sharedPools[sizeClass].poll();
+
+            if (array != null) {
+                pooledBytes.addAndGet(-array.length);
+            } else {
+                misses.incrementAndGet();
+                array = new byte[sizeOfClass(sizeClass)];
+            }
+        }
+
+        leasedArrays.incrementAndGet();
+        if (leakDetection) {
+            trackLease(array);
+        }
+
+        return array;
+    }
+
+    @Override
+    public void release(byte[] array) {
+        final int sizeClass = sizeClassOf(array.length);
+        if (sizeClass < 0 || sizeOfClass(sizeClass) != array.length) {
+            return;
+        }
+
+        leasedArrays.decrementAndGet();
+        if (leakDetection) {
+            leases.remove(new LeaseKey(array, null));
+        }
+
+        final ArrayDeque<byte[]> threadCache = threadCaches.get()[sizeClass];
+        if (array.length <= THREAD_CACHE_MAX_ARRAY_SIZE && threadCache.size() < THREAD_CACHE_ARRAYS) {
+            threadCache.addFirst(array);
+        } else if (pooledBytes.addAndGet(array.length) <= maxPooledBytes) {
+            sharedPools[sizeClass].offer(array);
+        } else {
+            pooledBytes.addAndGet(-array.length);
+        }
+    }
+
+    private void trackLease(byte[] array) {
+        final LeaseKey lease = new LeaseKey(array, collectedLeases);
+        leases.put(lease, lease);
+
+        Reference<? extends byte[]> collected;
+        while ((collected = collectedLeases.poll()) != null) {
+            if (leases.remove(collected) != null) {
+                leaks.incrementAndGet();
+                leasedArrays.decrementAndGet();
+                LOG.warn("A pooled buffer was garbage collected without being released - " +
+                        "its request or response was not released after it was committed");
+            }
+        }
+    }
+
+    /**
+     * @return the bytes held in the shared pool, waiting to be handed out
+     */
+    public long getPooledBytes() {
+        return pooledBytes.get();
+    }
+
+    /**
+     * @return the pooled arrays handed out and not yet released
+     */
+    public long getLeasedArrays() {
+        return leasedArrays.get();
+    }
+
+    /**
+     * @return the number of times an array had to be allocated because none was pooled
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return the number of arrays found to have been garbage collected without being released
+     */
+    public long getLeaks() {
+        return leaks.get();
+    }
+
+    /**
+     * Identifies a leased array without keeping it from being garbage collected.
+     */
+    private static final class LeaseKey extends WeakReference<byte[]> {
+        private final int hash;
+
+        LeaseKey(byte[] array, ReferenceQueue<byte[]> queue) {
+            super(array, queue);
+            this.hash = System.identityHashCode(array);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof LeaseKey)) {
+                return false;
+            }
+
+            final byte[] array = get();
+            return array != null && array == ((LeaseKey) o).get();
+        }
+    }
+}
@@ -83,4 +83,9 @@ public class SynchronizedByteBuffer implements ByteBuffer {
     public synchronized int available() {
         return internalBuffer.available();
     }
+
+    @Override
+    public synchronized void release() {
+        internalBuffer.release();
+    }
 }
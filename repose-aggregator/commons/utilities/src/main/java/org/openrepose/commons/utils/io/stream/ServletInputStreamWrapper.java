@@ -38,4 +38,19 @@ public class ServletInputStreamWrapper extends ServletInputStream {
     public int read() throws IOException {
         return is.read();
     }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        return is.read(b, off, len);
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        return is.skip(n);
+    }
+
+    @Override
+    public int available() throws IOException {
+        return is.available();
+    }
 }
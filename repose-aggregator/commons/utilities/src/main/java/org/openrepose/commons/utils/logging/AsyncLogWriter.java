@@ -0,0 +1,233 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.commons.utils.logging;
+
+import org.openrepose.commons.utils.Destroyable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes log events on a thread of its own, so that a slow appender does not hold up the requests being logged.
+ * <p/>
+ * Request threads hand over an event holding everything it needs to be written, which is queued in a buffer of fixed
+ * size along with the request thread's MDC, so that patterns such as %X{traceGuid} still see it when the event is
+ * written. The writer thread takes events from the buffer in batches and writes them. When the buffer is full, events
+ * are either dropped and counted, or the request thread waits for room, as the {@link OverflowPolicy} says.
+ * <p/>
+ * Events still queued when the writer is destroyed are written before it stops, and events handed over after that are
+ * written on the thread handing them over.
+ */
+public class AsyncLogWriter implements Destroyable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncLogWriter.class);
+    private static final long POLL_INTERVAL = 100;
+    private static final long SHUTDOWN_TIMEOUT = 5000;
+
+    private final String name;
+    private final BlockingQueue<QueuedEvent> queue;
+    private final int batchSize;
+    private final OverflowPolicy overflowPolicy;
+    private final AtomicLong droppedEvents = new AtomicLong();
+    private final Thread writerThread;
+    private long reportedDroppedEvents = 0;
+    private volatile boolean shouldContinue = true;
+
+    public AsyncLogWriter(String name, int queueSize, int batchSize, OverflowPolicy overflowPolicy) {
+        if (queueSize < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("The queue and batch sizes of an asynchronous log writer must be positive");
+        }
+
+        this.name = name;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.batchSize = batchSize;
+        this.overflowPolicy = overflowPolicy;
+        this.writerThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writeEvents();
+            }
+        }, name + " Log Writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Queues the event to be written.
+     *
+     * @return false if the event was dropped because the queue was full
+     */
+    public boolean write(LogEvent event) {
+        final QueuedEvent queued = new QueuedEvent(event, MDC.getCopyOfContextMap());
+        if (!shouldContinue) {
+            writeEvent(queued);
+            return true;
+        }
+
+        boolean accepted = false;
+        if (overflowPolicy == OverflowPolicy.BLOCK) {
+            try {
+                queue.put(queued);
+                accepted = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        } else {
+            accepted = queue.offer(queued);
+        }
+
+        if (!accepted) {
+            droppedEvents.incrementAndGet();
+            return false;
+        }
+
+        if (!shouldContinue) {
+            // The writer may have drained the queue and stopped before this event went in, so it is not left behind
+            final List<QueuedEvent> remaining = new ArrayList<>();
+            queue.drainTo(remaining);
+            writeBatch(remaining);
+        }
+
+        return true;
+    }
+
+    /**
+     * @return the number of events dropped since the writer was created
+     */
+    public long getDroppedEvents() {
+        return droppedEvents.get();
+    }
+
+    private void writeEvents() {
+        final List<QueuedEvent> batch = new ArrayList<>(batchSize);
+
+        while (shouldContinue || !queue.isEmpty()) {
+            try {
+                final QueuedEvent first = queue.poll(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    writeBatch(batch);
+                }
+            } catch (InterruptedException e) {
+                LOG.debug("{} log writer interrupted - writing the events still queued", name);
+                Thread.currentThread().interrupt();
+                break;
+            }
+
+            reportDroppedEvents();
+        }
+
+        // Anything queued as the writer was stopped is written rather than lost
+        queue.drainTo(batch);
+        writeBatch(batch);
+        reportDroppedEvents();
+    }
+
+    private void writeBatch(List<QueuedEvent> batch) {
+        for (QueuedEvent queued : batch) {
+            writeEvent(queued);
+        }
+        batch.clear();
+    }
+
+    private void writeEvent(QueuedEvent queued) {
+        final Map<String, String> writerContext = MDC.getCopyOfContextMap();
+        setContext(queued.context);
+
+        try {
+            queued.event.write();
+        } catch (RuntimeException e) {
+            LOG.error("Unable to write a {} log event", name, e);
+        } finally {
+            setContext(writerContext);
+        }
+    }
+
+    private static void setContext(Map<String, String> context) {
+        if (context == null) {
+            MDC.clear();
+        } else {
+            MDC.setContextMap(context);
+        }
+    }
+
+    private void reportDroppedEvents() {
+        final long dropped = droppedEvents.get();
+        if (dropped != reportedDroppedEvents) {
+            LOG.warn("{} log events were dropped because the {} log writer fell behind - {} have been dropped in total",
+                    dropped - reportedDroppedEvents, name, dropped);
+            reportedDroppedEvents = dropped;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        shouldContinue = false;
+
+        try {
+            writerThread.join(SHUTDOWN_TIMEOUT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (writerThread.isAlive()) {
+            LOG.warn("{} log writer did not finish writing its queued events in time", name);
+            writerThread.interrupt();
+        }
+    }
+
+    public enum OverflowPolicy {
+        /**
+         * Events that do not fit in the queue are dropped, and counted.
+         */
+        DROP,
+
+        /**
+         * Request threads wait for room in the queue.
+         */
+        BLOCK
+    }
+
+    /**
+     * An event captured on a request thread, holding everything needed to write it once that request has finished.
+     */
+    public interface LogEvent {
+        void write();
+    }
+
+    private static final class QueuedEvent {
+        private final LogEvent event;
+        private final Map<String, String> context;
+
+        QueuedEvent(LogEvent event, Map<String, String> context) {
+            this.event = event;
+            this.context = context;
+        }
+    }
+}
@@ -27,6 +27,8 @@ import org.openrepose.commons.utils.logging.apache.format.stock.*;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.regex.Matcher;
@@ -35,15 +37,28 @@ import java.util.regex.Pattern;
 import static org.openrepose.commons.utils.StringUtilities.isBlank;
 import static org.openrepose.commons.utils.StringUtilities.isEmpty;
 
+/**
+ * Formats log lines from an Apache style format template. The template is parsed once, into the arguments that each
+ * line is built from, and lines are built in a buffer that each thread keeps, so that formatting a line allocates
+ * little more than the line itself.
+ */
 public class HttpLogFormatter {
 
     private static final Pattern TABS = Pattern.compile("\\\\t+");
     private static final Pattern NEWLINES = Pattern.compile("\\\\n+");
     private static final double RESPONSE_TIME_MULTIPLIER_MICROSEC = 1000;
     private static final double RESPONSE_TIME_MULTIPLIER_SEC = .001;
+    private static final int INITIAL_LINE_CAPACITY = 256;
+    private static final int MAX_RETAINED_LINE_CAPACITY = 16384;
+    private static final ThreadLocal<StringBuilder> LINE_BUILDER = new ThreadLocal<StringBuilder>() {
+        @Override
+        protected StringBuilder initialValue() {
+            return new StringBuilder(INITIAL_LINE_CAPACITY);
+        }
+    };
     private final String formatTemplate;
     private final HttpLogFormatterState httpLogFormatterState;
-    private final List<FormatArgumentHandler> handlerList;
+    private final LogArgumentFormatter[] handlers;
 
     public HttpLogFormatter(String formatTemplate) {
         this(formatTemplate, HttpLogFormatterState.PLAIN);
@@ -51,9 +66,7 @@ public class HttpLogFormatter {
     public HttpLogFormatter(String formatTemplate, HttpLogFormatterState httpLogFormatterState) {
         this.formatTemplate = handleTabsAndNewlines(formatTemplate);
         this.httpLogFormatterState = httpLogFormatterState;
-        handlerList = new LinkedList<>();
-
-        build();
+        this.handlers = build();
     }
 
     @SuppressWarnings("PMD.NcssMethodCount")
@@ -138,7 +151,8 @@ public class HttpLogFormatter {
         return newlinesMatcher.replaceAll("\n");
     }
 
-    private void build() {
+    private LogArgumentFormatter[] build() {
+        final List<LogArgumentFormatter> handlerList = new ArrayList<>();
         final Matcher m = LogArgumentGroupExtractor.LOG_CONSTANTS.PATTERN.matcher(formatTemplate);
 
         int previousTokenEnd = 0;
@@ -150,9 +164,11 @@ public class HttpLogFormatter {
         }
 
         handleStringContent(previousTokenEnd, formatTemplate.length(), handlerList);
+
+        return handlerList.toArray(new LogArgumentFormatter[handlerList.size()]);
     }
 
-    private void handleStringContent(int previousTokenEnd, int currentTokenStart, List<FormatArgumentHandler> argHandlerList) {
+    private void handleStringContent(int previousTokenEnd, int currentTokenStart, List<LogArgumentFormatter> argHandlerList) {
         final String betweenElements = formatTemplate.substring(previousTokenEnd, currentTokenStart);
 
         if (!isEmpty(betweenElements)) {
@@ -173,7 +189,7 @@ public class HttpLogFormatter {
     }
 
     List<FormatArgumentHandler> getHandlerList() {
-        return new LinkedList<>(handlerList);
+        return new LinkedList<FormatArgumentHandler>(Arrays.asList(handlers));
     }
 
     public String format(HttpServletRequest request, HttpServletResponse response) {
@@ -181,12 +197,21 @@ public class HttpLogFormatter {
     }
 
     public String format(String message, HttpServletRequest request, HttpServletResponse response) {
-        final StringBuilder builder = new StringBuilder(message);
+        final StringBuilder builder = LINE_BUILDER.get();
+        builder.setLength(0);
+        builder.append(message);
+
+        for (LogArgumentFormatter formatter : handlers) {
+            formatter.format(builder, request, response);
+        }
+
+        final String line = builder.toString();
 
-        for (FormatArgumentHandler formatter : handlerList) {
-            builder.append(formatter.format(request, response));
+        // Keep the buffer for the next line, unless an unusually long line has left it too big to be worth keeping
+        if (builder.capacity() > MAX_RETAINED_LINE_CAPACITY) {
+            LINE_BUILDER.remove();
         }
 
-        return builder.toString();
+        return line;
     }
 }
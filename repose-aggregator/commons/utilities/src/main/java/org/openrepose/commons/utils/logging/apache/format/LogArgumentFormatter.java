@@ -33,6 +33,21 @@ public class LogArgumentFormatter implements FormatArgumentHandler {
         this.statusCodeConstraint = statusCodeConstraint;
     }
 
+    /**
+     * Writes the argument into the log line being built.
+     */
+    public void format(StringBuilder builder, HttpServletRequest request, HttpServletResponse response) {
+        final FormatterLogic currentLogic = getLogic();
+
+        if (currentLogic == null || (statusCodeConstraint != null && !statusCodeConstraint.pass(response))) {
+            builder.append('-');
+        } else if (currentLogic instanceof AppendingFormatterLogic) {
+            ((AppendingFormatterLogic) currentLogic).append(builder, request, response);
+        } else {
+            builder.append(currentLogic.handle(request, response));
+        }
+    }
+
     @Override
     public String format(HttpServletRequest request, HttpServletResponse response) {
         boolean pass = true;
@@ -64,6 +64,15 @@ public abstract class HeaderHandler {
 
     protected String getValues(Enumeration<String> values) {
         StringBuilder builder = new StringBuilder();
+        appendValues(builder, values);
+        return builder.toString();
+    }
+
+    protected String getValues(Collection<String> values) {
+        return getValues(Collections.enumeration(values));
+    }
+
+    protected void appendValues(StringBuilder builder, Enumeration<String> values) {
         boolean first = true;
 
         while (values != null && values.hasMoreElements()) {
@@ -73,11 +82,18 @@ public abstract class HeaderHandler {
             builder.append(convert(values.nextElement()));
             first = false;
         }
-        return builder.toString();
     }
 
-    protected String getValues(Collection<String> values) {
-        return getValues(Collections.enumeration(values));
+    protected void appendValues(StringBuilder builder, Collection<String> values) {
+        boolean first = true;
+
+        for (String value : values) {
+            if (!first) {
+                builder.append(",");
+            }
+            builder.append(convert(value));
+            first = false;
+        }
     }
 
     public String getHeaderName() {
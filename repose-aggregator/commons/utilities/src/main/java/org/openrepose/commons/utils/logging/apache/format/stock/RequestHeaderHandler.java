@@ -19,13 +19,13 @@
  */
 package org.openrepose.commons.utils.logging.apache.format.stock;
 
-import org.openrepose.commons.utils.logging.apache.format.FormatterLogic;
+import org.openrepose.commons.utils.logging.apache.format.AppendingFormatterLogic;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.util.List;
 
-public class RequestHeaderHandler extends HeaderHandler implements FormatterLogic {
+public class RequestHeaderHandler extends HeaderHandler implements AppendingFormatterLogic {
 
     public RequestHeaderHandler(String headerName, List<String> arguments) {
         super(headerName, arguments);
@@ -36,4 +36,9 @@ public class RequestHeaderHandler extends HeaderHandler implements FormatterLogi
         return getValues(request.getHeaders(getHeaderName()));
     }
 
+    @Override
+    public void append(StringBuilder builder, HttpServletRequest request, HttpServletResponse response) {
+        appendValues(builder, request.getHeaders(getHeaderName()));
+    }
+
 }
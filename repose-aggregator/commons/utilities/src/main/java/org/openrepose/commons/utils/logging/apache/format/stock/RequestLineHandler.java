@@ -19,12 +19,12 @@
  */
 package org.openrepose.commons.utils.logging.apache.format.stock;
 
-import org.openrepose.commons.utils.logging.apache.format.FormatterLogic;
+import org.openrepose.commons.utils.logging.apache.format.AppendingFormatterLogic;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-public class RequestLineHandler implements FormatterLogic {
+public class RequestLineHandler implements AppendingFormatterLogic {
     private static final char SPACE = ' ';
 
     @Override
@@ -33,5 +33,12 @@ public class RequestLineHandler implements FormatterLogic {
                 .append(request.getRequestURI()).append(SPACE)
                 .append(request.getProtocol()).toString();
     }
+
+    @Override
+    public void append(StringBuilder builder, HttpServletRequest request, HttpServletResponse response) {
+        builder.append(request.getMethod()).append(SPACE)
+                .append(request.getRequestURI()).append(SPACE)
+                .append(request.getProtocol());
+    }
 }
 
@@ -19,13 +19,13 @@
  */
 package org.openrepose.commons.utils.logging.apache.format.stock;
 
-import org.openrepose.commons.utils.logging.apache.format.FormatterLogic;
+import org.openrepose.commons.utils.logging.apache.format.AppendingFormatterLogic;
 import org.openrepose.commons.utils.servlet.http.MutableHttpServletResponse;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-public class ResponseBytesClfHandler implements FormatterLogic {
+public class ResponseBytesClfHandler implements AppendingFormatterLogic {
     private static final String NO_DATA = "-";
 
     @Override
@@ -34,4 +34,15 @@ public class ResponseBytesClfHandler implements FormatterLogic {
         long size = mutableResponse.getResponseSize();
         return size == 0 ? NO_DATA : String.valueOf(size);
     }
+
+    @Override
+    public void append(StringBuilder builder, HttpServletRequest request, HttpServletResponse response) {
+        MutableHttpServletResponse mutableResponse = MutableHttpServletResponse.wrap(request, response);
+        long size = mutableResponse.getResponseSize();
+        if (size == 0) {
+            builder.append(NO_DATA);
+        } else {
+            builder.append(size);
+        }
+    }
 }
@@ -19,17 +19,23 @@
  */
 package org.openrepose.commons.utils.logging.apache.format.stock;
 
-import org.openrepose.commons.utils.logging.apache.format.FormatterLogic;
+import org.openrepose.commons.utils.logging.apache.format.AppendingFormatterLogic;
 import org.openrepose.commons.utils.servlet.http.MutableHttpServletResponse;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-public class ResponseBytesHandler implements FormatterLogic {
+public class ResponseBytesHandler implements AppendingFormatterLogic {
 
     @Override
     public String handle(HttpServletRequest request, HttpServletResponse response) {
         MutableHttpServletResponse mutableResponse = MutableHttpServletResponse.wrap(request, response);
         return String.valueOf(mutableResponse.getResponseSize());
     }
+
+    @Override
+    public void append(StringBuilder builder, HttpServletRequest request, HttpServletResponse response) {
+        MutableHttpServletResponse mutableResponse = MutableHttpServletResponse.wrap(request, response);
+        builder.append(mutableResponse.getResponseSize());
+    }
 }
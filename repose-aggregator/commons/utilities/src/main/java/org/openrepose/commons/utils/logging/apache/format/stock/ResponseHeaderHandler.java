@@ -19,13 +19,13 @@
  */
 package org.openrepose.commons.utils.logging.apache.format.stock;
 
-import org.openrepose.commons.utils.logging.apache.format.FormatterLogic;
+import org.openrepose.commons.utils.logging.apache.format.AppendingFormatterLogic;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.util.List;
 
-public class ResponseHeaderHandler extends HeaderHandler implements FormatterLogic {
+public class ResponseHeaderHandler extends HeaderHandler implements AppendingFormatterLogic {
 
     public ResponseHeaderHandler(String headerName, List<String> arguments) {
         super(headerName, arguments);
@@ -35,4 +35,9 @@ public class ResponseHeaderHandler extends HeaderHandler implements FormatterLog
     public String handle(HttpServletRequest request, HttpServletResponse response) {
         return getValues(response.getHeaders(getHeaderName()));
     }
+
+    @Override
+    public void append(StringBuilder builder, HttpServletRequest request, HttpServletResponse response) {
+        appendValues(builder, response.getHeaders(getHeaderName()));
+    }
 }
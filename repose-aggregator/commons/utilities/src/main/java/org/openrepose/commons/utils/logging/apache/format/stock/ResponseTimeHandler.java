@@ -30,7 +30,13 @@ public class ResponseTimeHandler implements FormatterLogic {
 
     private static final String START_TIME_ATTRIBUTE = "org.openrepose.repose.logging.start.time";
     private static final double DEFAULT_MULTIPLIER = 1000;
-    private final DecimalFormat decimalFormat = new DecimalFormat("#.##");
+    // A decimal format is not safe to share between the threads logging at once
+    private static final ThreadLocal<DecimalFormat> DECIMAL_FORMAT = new ThreadLocal<DecimalFormat>() {
+        @Override
+        protected DecimalFormat initialValue() {
+            return new DecimalFormat("#.##");
+        }
+    };
     private double multiplier = DEFAULT_MULTIPLIER;
 
     public ResponseTimeHandler(double multiplier) {
@@ -43,7 +49,7 @@ public class ResponseTimeHandler implements FormatterLogic {
         String responseTime = "";
 
         if (startTime != null) {
-            responseTime = decimalFormat.format((System.currentTimeMillis() - (Long) startTime) * multiplier);
+            responseTime = DECIMAL_FORMAT.get().format((System.currentTimeMillis() - (Long) startTime) * multiplier);
         }
 
         return responseTime;
@@ -19,15 +19,20 @@
  */
 package org.openrepose.commons.utils.logging.apache.format.stock;
 
-import org.openrepose.commons.utils.logging.apache.format.FormatterLogic;
+import org.openrepose.commons.utils.logging.apache.format.AppendingFormatterLogic;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-public class StatusCodeHandler implements FormatterLogic {
+public class StatusCodeHandler implements AppendingFormatterLogic {
 
     @Override
     public String handle(HttpServletRequest request, HttpServletResponse response) {
         return String.valueOf(response.getStatus());
     }
+
+    @Override
+    public void append(StringBuilder builder, HttpServletRequest request, HttpServletResponse response) {
+        builder.append(response.getStatus());
+    }
 }
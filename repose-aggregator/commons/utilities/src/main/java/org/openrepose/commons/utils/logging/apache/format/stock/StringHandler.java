@@ -19,12 +19,12 @@
  */
 package org.openrepose.commons.utils.logging.apache.format.stock;
 
-import org.openrepose.commons.utils.logging.apache.format.FormatterLogic;
+import org.openrepose.commons.utils.logging.apache.format.AppendingFormatterLogic;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-public class StringHandler implements FormatterLogic {
+public class StringHandler implements AppendingFormatterLogic {
 
     private final String staticStringContent;
 
@@ -36,4 +36,9 @@ public class StringHandler implements FormatterLogic {
     public String handle(HttpServletRequest request, HttpServletResponse response) {
         return staticStringContent;
     }
+
+    @Override
+    public void append(StringBuilder builder, HttpServletRequest request, HttpServletResponse response) {
+        builder.append(staticStringContent);
+    }
 }
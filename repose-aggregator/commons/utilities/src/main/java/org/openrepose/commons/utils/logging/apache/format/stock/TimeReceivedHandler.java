@@ -20,28 +20,87 @@
 package org.openrepose.commons.utils.logging.apache.format.stock;
 
 import org.apache.commons.lang3.StringUtils;
-import org.openrepose.commons.utils.logging.apache.format.FormatterLogic;
+import org.openrepose.commons.utils.logging.apache.format.AppendingFormatterLogic;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.text.SimpleDateFormat;
-import java.util.Calendar;
+import java.util.Date;
 
-public class TimeReceivedHandler implements FormatterLogic {
+/**
+ * Writes the time a line is logged. A date format is not safe to share between threads and is costly to build, so each
+ * thread keeps its own, along with the last time it wrote. Lines logged within the same second, or the same millisecond
+ * where the format shows milliseconds, reuse that text.
+ */
+public class TimeReceivedHandler implements AppendingFormatterLogic {
 
     private final static String DEFAULT_DATE_FORMAT = "dd-MM-yyyy-HH:mm:ss.SSS";
+    private static final long MILLIS_PER_SECOND = 1000;
 
     private final String dateFormat;
+    private final long resolution;
+    private final ThreadLocal<CachedTime> cachedTime = new ThreadLocal<CachedTime>() {
+        @Override
+        protected CachedTime initialValue() {
+            return new CachedTime(new SimpleDateFormat(dateFormat));
+        }
+    };
 
     public TimeReceivedHandler(final String dateFormat) {
         this.dateFormat = StringUtils.isEmpty(dateFormat) ? DEFAULT_DATE_FORMAT : dateFormat;
+        this.resolution = showsMilliseconds(this.dateFormat) ? 1 : MILLIS_PER_SECOND;
 
         // build it here so an exception will be thrown during application startup if the pattern is invalid
-        new SimpleDateFormat(dateFormat);
+        new SimpleDateFormat(this.dateFormat);
+    }
+
+    /**
+     * Milliseconds are the only part of a date format finer than a second. Text between single quotes is literal.
+     */
+    static boolean showsMilliseconds(String pattern) {
+        boolean quoted = false;
+        for (int i = 0; i < pattern.length(); i++) {
+            final char c = pattern.charAt(i);
+            if (c == '\'') {
+                quoted = !quoted;
+            } else if (c == 'S' && !quoted) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private String formatNow() {
+        final long now = System.currentTimeMillis();
+        final long period = now / resolution;
+        final CachedTime cached = cachedTime.get();
+
+        if (cached.text == null || cached.period != period) {
+            cached.text = cached.format.format(new Date(now));
+            cached.period = period;
+        }
+
+        return cached.text;
     }
 
     @Override
     public String handle(HttpServletRequest request, HttpServletResponse response) {
-        return new SimpleDateFormat(dateFormat).format(Calendar.getInstance().getTime());
+        return formatNow();
+    }
+
+    @Override
+    public void append(StringBuilder builder, HttpServletRequest request, HttpServletResponse response) {
+        builder.append(formatNow());
+    }
+
+    private static final class CachedTime {
+        private final SimpleDateFormat format;
+        private long period;
+        private String text;
+
+        private CachedTime(SimpleDateFormat format) {
+            this.format = format;
+        }
     }
 }
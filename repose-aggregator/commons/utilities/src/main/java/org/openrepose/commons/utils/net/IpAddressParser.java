@@ -0,0 +1,184 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.commons.utils.net;
+
+/**
+ * Reads IPv4 and IPv6 address literals into their bytes. Unlike {@link java.net.InetAddress#getByName(String)}, a
+ * string that is not a literal is never looked up as a host name, so parsing can not block on DNS.
+ * <p/>
+ * IPv4 addresses are read in dotted decimal form only. IPv6 addresses may be compressed with "::", end in a dotted
+ * IPv4 address, carry a zone after a "%", and be wrapped in brackets. IPv4-mapped IPv6 addresses are read as the IPv4
+ * address they map, as InetAddress reads them.
+ */
+public final class IpAddressParser {
+
+    private static final int IPV4_LENGTH = 4;
+    private static final int IPV6_LENGTH = 16;
+    private static final int IPV6_GROUPS = 8;
+
+    private IpAddressParser() {
+    }
+
+    /**
+     * @return the bytes of the address, four for IPv4 or sixteen for IPv6, or null if the string is not an address
+     * literal
+     */
+    public static byte[] parse(String address) {
+        if (address == null || address.isEmpty()) {
+            return null;
+        }
+
+        int start = 0;
+        int end = address.length();
+        if (address.charAt(0) == '[') {
+            if (address.charAt(end - 1) != ']') {
+                return null;
+            }
+            start++;
+            end--;
+        }
+
+        final int colon = address.indexOf(':', start);
+        if (colon < 0 || colon >= end) {
+            return parseIpv4(address, start, end);
+        }
+
+        final int zone = address.indexOf('%', start);
+        final byte[] ipv6 = parseIpv6(address, start, zone >= 0 && zone < end ? zone : end);
+        return ipv6 != null && isIpv4Mapped(ipv6) ? toIpv4(ipv6) : ipv6;
+    }
+
+    private static byte[] parseIpv4(String address, int start, int end) {
+        final byte[] bytes = new byte[IPV4_LENGTH];
+        int index = start;
+
+        for (int octet = 0; octet < IPV4_LENGTH; octet++) {
+            if (octet > 0) {
+                if (index >= end || address.charAt(index) != '.') {
+                    return null;
+                }
+                index++;
+            }
+
+            final int digitsStart = index;
+            int value = 0;
+            while (index < end && index - digitsStart < 3 && isDigit(address.charAt(index))) {
+                value = value * 10 + address.charAt(index) - '0';
+                index++;
+            }
+
+            if (index == digitsStart || value > 255) {
+                return null;
+            }
+            bytes[octet] = (byte) value;
+        }
+
+        return index == end ? bytes : null;
+    }
+
+    private static byte[] parseIpv6(String address, int start, int end) {
+        final byte[] bytes = new byte[IPV6_LENGTH];
+        int groups = 0;
+        int compressedAt = -1;
+        int index = start;
+
+        if (address.startsWith("::", index)) {
+            compressedAt = 0;
+            index += 2;
+        } else if (index < end && address.charAt(index) == ':') {
+            return null;
+        }
+
+        while (index < end) {
+            final int groupStart = index;
+            int value = 0;
+            while (index < end && index - groupStart < 4 && Character.digit(address.charAt(index), 16) >= 0) {
+                value = (value << 4) | Character.digit(address.charAt(index), 16);
+                index++;
+            }
+
+            if (index < end && address.charAt(index) == '.') {
+                // The last 32 bits written as an IPv4 address
+                final byte[] ipv4 = groups <= IPV6_GROUPS - 2 ? parseIpv4(address, groupStart, end) : null;
+                if (ipv4 == null) {
+                    return null;
+                }
+                System.arraycopy(ipv4, 0, bytes, groups * 2, IPV4_LENGTH);
+                groups += 2;
+                index = end;
+                break;
+            }
+
+            if (index == groupStart || groups == IPV6_GROUPS) {
+                return null;
+            }
+            bytes[groups * 2] = (byte) (value >>> 8);
+            bytes[groups * 2 + 1] = (byte) value;
+            groups++;
+
+            if (index == end) {
+                break;
+            } else if (address.charAt(index) != ':' || ++index == end) {
+                return null;
+            } else if (address.charAt(index) == ':') {
+                if (compressedAt >= 0) {
+                    return null;
+                }
+                compressedAt = groups;
+                index++;
+            }
+        }
+
+        if (compressedAt < 0) {
+            return groups == IPV6_GROUPS ? bytes : null;
+        } else if (groups == IPV6_GROUPS) {
+            return null;
+        }
+
+        // Move the groups after the "::" to the end, leaving zeros in their place
+        final int trailingBytes = (groups - compressedAt) * 2;
+        System.arraycopy(bytes, compressedAt * 2, bytes, IPV6_LENGTH - trailingBytes, trailingBytes);
+        for (int i = compressedAt * 2; i < IPV6_LENGTH - trailingBytes; i++) {
+            bytes[i] = 0;
+        }
+
+        return bytes;
+    }
+
+    private static boolean isIpv4Mapped(byte[] ipv6) {
+        for (int i = 0; i < 10; i++) {
+            if (ipv6[i] != 0) {
+                return false;
+            }
+        }
+
+        return ipv6[10] == (byte) 0xff && ipv6[11] == (byte) 0xff;
+    }
+
+    private static byte[] toIpv4(byte[] ipv6) {
+        final byte[] ipv4 = new byte[IPV4_LENGTH];
+        System.arraycopy(ipv6, IPV6_LENGTH - IPV4_LENGTH, ipv4, 0, IPV4_LENGTH);
+        return ipv4;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
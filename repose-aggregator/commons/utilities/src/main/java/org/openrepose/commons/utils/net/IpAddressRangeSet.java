@@ -0,0 +1,234 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.commons.utils.net;
+
+/**
+ * A set of IPv4 and IPv6 address ranges, in CIDR form, that can be asked whether an address falls in any of them.
+ * <p/>
+ * The ranges are kept in a binary radix trie for each address family, with runs of bits that do not branch held in a
+ * single node. Checking an address walks at most one node for each bit of the address, however many ranges there are.
+ * Addresses are read with {@link IpAddressParser}, so checking one never looks up a host name.
+ * <p/>
+ * Ranges should all be added before the set is shared, as adding a range is not safe while the set is being read.
+ */
+public class IpAddressRangeSet {
+
+    private static final int BYTE_SIZE = 8;
+    private Node ipv4Root;
+    private Node ipv6Root;
+    private int size;
+
+    /**
+     * Adds a range given in CIDR form, such as 192.168.0.0/16 or 2001:db8::/32. An address without a prefix length is
+     * a range of just that address.
+     *
+     * @throws IllegalArgumentException if the range does not start with an address literal, or its prefix length is
+     *                                  not a number
+     */
+    public void add(String cidr) {
+        final int slash = cidr.indexOf('/');
+        final String network = slash < 0 ? cidr : cidr.substring(0, slash);
+        final byte[] address = IpAddressParser.parse(network);
+        if (address == null) {
+            throw new IllegalArgumentException("Not an IP address literal: " + network);
+        }
+
+        final int prefixLength;
+        try {
+            prefixLength = slash < 0 ? address.length * BYTE_SIZE : Integer.parseInt(cidr.substring(slash + 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid prefix length in range: " + cidr, e);
+        }
+
+        add(address, prefixLength);
+    }
+
+    /**
+     * Adds the range of addresses that share their first prefixLength bits with the network. As with
+     * {@link IpAddressRange}, a prefix length longer than the address is taken to be the whole address.
+     */
+    public void add(byte[] network, int prefixLength) {
+        if (prefixLength < 0) {
+            throw new IllegalArgumentException("Negative prefix length: " + prefixLength);
+        }
+
+        final int length = Math.min(prefixLength, network.length * BYTE_SIZE);
+        final byte[] key = mask(network, length);
+        if (network.length == 4) {
+            ipv4Root = insert(ipv4Root, key, length);
+        } else if (network.length == 16) {
+            ipv6Root = insert(ipv6Root, key, length);
+        } else {
+            throw new IllegalArgumentException("Not an IPv4 or IPv6 address: " + network.length + " bytes");
+        }
+    }
+
+    /**
+     * @return true if the address is in one of the ranges, or false if it is not or is not an address literal
+     */
+    public boolean contains(String address) {
+        final byte[] bytes = IpAddressParser.parse(address);
+        return bytes != null && contains(bytes);
+    }
+
+    public boolean contains(byte[] address) {
+        Node node = address.length == 4 ? ipv4Root : address.length == 16 ? ipv6Root : null;
+
+        while (node != null && startsWith(address, node.key, node.length)) {
+            if (node.inSet) {
+                return true;
+            } else if (node.length == address.length * BYTE_SIZE) {
+                return false;
+            }
+            node = node.children[bit(address, node.length)];
+        }
+
+        return false;
+    }
+
+    /**
+     * @return the number of ranges kept, which is less than the number added where some ranges fall inside others
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private Node insert(Node root, byte[] key, int length) {
+        Node parent = null;
+        Node node = root;
+
+        while (node != null) {
+            final int common = commonPrefixLength(node.key, key, Math.min(node.length, length));
+
+            if (common == node.length) {
+                if (node.inSet) {
+                    // Already covered by a range at least as wide
+                    return root;
+                } else if (node.length == length) {
+                    size -= node.clear();
+                    node.inSet = true;
+                    size++;
+                    return root;
+                }
+
+                final int branch = bit(key, node.length);
+                if (node.children[branch] == null) {
+                    node.children[branch] = new Node(key, length);
+                    size++;
+                    return root;
+                }
+                parent = node;
+                node = node.children[branch];
+            } else {
+                final Node replacement;
+                if (common == length) {
+                    // The new range covers everything under this node
+                    size -= node.clear() + (node.inSet ? 1 : 0);
+                    replacement = new Node(key, length);
+                } else {
+                    replacement = new Node(mask(key, common), common, false);
+                    replacement.children[bit(node.key, common)] = node;
+                    replacement.children[bit(key, common)] = new Node(key, length);
+                }
+                size++;
+
+                if (parent == null) {
+                    return replacement;
+                }
+                parent.children[bit(key, parent.length)] = replacement;
+                return root;
+            }
+        }
+
+        size++;
+        return new Node(key, length);
+    }
+
+    private static int bit(byte[] address, int index) {
+        return (address[index / BYTE_SIZE] >>> (BYTE_SIZE - 1 - index % BYTE_SIZE)) & 1;
+    }
+
+    private static boolean startsWith(byte[] address, byte[] prefix, int bits) {
+        return commonPrefixLength(address, prefix, bits) == bits;
+    }
+
+    private static int commonPrefixLength(byte[] first, byte[] second, int bits) {
+        int index = 0;
+        while (index + BYTE_SIZE <= bits && first[index / BYTE_SIZE] == second[index / BYTE_SIZE]) {
+            index += BYTE_SIZE;
+        }
+
+        if (index < bits) {
+            final int difference = (first[index / BYTE_SIZE] ^ second[index / BYTE_SIZE]) & 0xff;
+            index = Math.min(bits, index + Integer.numberOfLeadingZeros(difference) - (Integer.SIZE - BYTE_SIZE));
+        }
+
+        return index;
+    }
+
+    private static byte[] mask(byte[] address, int bits) {
+        final byte[] masked = new byte[address.length];
+        final int wholeBytes = bits / BYTE_SIZE;
+        System.arraycopy(address, 0, masked, 0, wholeBytes);
+        if (bits % BYTE_SIZE != 0) {
+            masked[wholeBytes] = (byte) (address[wholeBytes] & (0xff << (BYTE_SIZE - bits % BYTE_SIZE)));
+        }
+
+        return masked;
+    }
+
+    private static final class Node {
+        private final byte[] key;
+        private final int length;
+        private final Node[] children = new Node[2];
+        private boolean inSet;
+
+        private Node(byte[] key, int length) {
+            this(key, length, true);
+        }
+
+        private Node(byte[] key, int length, boolean inSet) {
+            this.key = key;
+            this.length = length;
+            this.inSet = inSet;
+        }
+
+        /**
+         * Drops the nodes below this one.
+         *
+         * @return the number of ranges dropped
+         */
+        private int clear() {
+            int dropped = 0;
+            for (int i = 0; i < children.length; i++) {
+                if (children[i] != null) {
+                    dropped += children[i].clear() + (children[i].inSet ? 1 : 0);
+                    children[i] = null;
+                }
+            }
+
+            return dropped;
+        }
+    }
+}
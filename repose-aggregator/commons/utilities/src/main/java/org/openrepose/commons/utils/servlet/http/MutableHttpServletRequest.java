@@ -22,10 +22,13 @@ package org.openrepose.commons.utils.servlet.http;
 import org.openrepose.commons.utils.http.header.HeaderValue;
 import org.openrepose.commons.utils.io.BufferedServletInputStream;
 import org.openrepose.commons.utils.io.ByteBufferInputStream;
+import org.openrepose.commons.utils.io.ByteBufferServletOutputStream;
 import org.openrepose.commons.utils.io.RawInputStreamReader;
 import org.openrepose.commons.utils.io.buffer.ByteBuffer;
 import org.openrepose.commons.utils.io.buffer.CyclicByteBuffer;
+import org.openrepose.commons.utils.io.buffer.PooledByteArrayProvider;
 import org.openrepose.commons.utils.io.stream.LimitedReadInputStream;
+import org.openrepose.commons.utils.io.stream.ServletInputStreamWrapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -33,7 +36,6 @@ import javax.servlet.ServletInputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletRequestWrapper;
 import javax.ws.rs.core.HttpHeaders;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.Enumeration;
 import java.util.List;
@@ -52,6 +54,9 @@ public class MutableHttpServletRequest extends HttpServletRequestWrapper {
     private final RequestValues values;
     private final long streamLimit;
     private ServletInputStream inputStream;
+    private boolean bodyPassThrough = false;
+    private boolean bodyReplaced = false;
+    private ByteBuffer bodyBuffer;
     private MutableHttpServletRequest(HttpServletRequest request) {
         this(request, -1);
     }
@@ -126,7 +131,10 @@ public class MutableHttpServletRequest extends HttpServletRequestWrapper {
         synchronized (this) {
             if (inputStream == null) {
 
-                if (streamLimit <= 0) {
+                if (bodyPassThrough) {
+                    inputStream = streamLimit <= 0 ? super.getInputStream() :
+                            new ServletInputStreamWrapper(new LimitedReadInputStream(streamLimit, super.getInputStream()));
+                } else if (streamLimit <= 0) {
                     inputStream = new BufferedServletInputStream(super.getInputStream());
                 } else {
                     inputStream = new BufferedServletInputStream(new LimitedReadInputStream(streamLimit, super.getInputStream()));
@@ -139,13 +147,30 @@ public class MutableHttpServletRequest extends HttpServletRequestWrapper {
     public void setInputStream(ServletInputStream inputStream) {
         synchronized (this) {
             this.inputStream = inputStream;
+            this.bodyReplaced = true;
         }
     }
 
+    /**
+     * Streams the body straight from the container rather than buffering it so that it may be re-read. This should
+     * only be set when nothing that handles the request will inspect the body, and before the body is first read.
+     *
+     * @param bodyPassThrough whether the body is passed through untouched
+     */
+    public void setBodyPassThrough(boolean bodyPassThrough) {
+        synchronized (this) {
+            this.bodyPassThrough = bodyPassThrough;
+        }
+    }
+
+    public boolean isBodyPassThrough() {
+        return bodyPassThrough;
+    }
+
     /**
      * Returns the size of the content body by reading through the input stream.
      * WARNING: This will cause some performance degradation as the request body will be read and
-     * not just streamed through repose.
+     * not just streamed through repose, unless the body is being passed through untouched with a known length.
      *
      * @return Size of content body based off of content within the request servletinputstream
      * @throws IOException
@@ -154,22 +179,42 @@ public class MutableHttpServletRequest extends HttpServletRequestWrapper {
 
         synchronized (this) {
 
-            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            if (bodyPassThrough && !bodyReplaced && getContentLength() >= 0) {
+                return getContentLength();
+            }
 
-            RawInputStreamReader.instance().copyTo(getInputStream(), baos);
+            final ByteBuffer internalBuffer = new CyclicByteBuffer(PooledByteArrayProvider.getInstance());
+            final int length = (int) RawInputStreamReader.instance().copyTo(getInputStream(),
+                    new ByteBufferServletOutputStream(internalBuffer));
 
-            if (baos.toByteArray().length > 0) {
-                final ByteBuffer internalBuffer = new CyclicByteBuffer(baos.toByteArray().length, true);
-                internalBuffer.put(baos.toByteArray());
+            if (length > 0) {
                 this.setInputStream(new ByteBufferInputStream(internalBuffer));
             }
 
-            return baos.toByteArray().length;
+            if (bodyBuffer != null) {
+                bodyBuffer.release();
+            }
+            bodyBuffer = internalBuffer;
+
+            return length;
 
         }
 
     }
 
+    /**
+     * Hands the buffer the body was read into back to the pool. This must only be called once the request has been
+     * sent on, since anything still reading the body would find it empty.
+     */
+    public void releaseBuffers() {
+        synchronized (this) {
+            if (bodyBuffer != null) {
+                bodyBuffer.release();
+                bodyBuffer = null;
+            }
+        }
+    }
+
     @Override
     public String getRequestURI() {
         return values.getRequestURI();
@@ -27,6 +27,7 @@ import org.openrepose.commons.utils.io.ByteBufferServletOutputStream;
 import org.openrepose.commons.utils.io.RawInputStreamReader;
 import org.openrepose.commons.utils.io.buffer.ByteBuffer;
 import org.openrepose.commons.utils.io.buffer.CyclicByteBuffer;
+import org.openrepose.commons.utils.io.buffer.PooledByteArrayProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -51,6 +52,7 @@ public class MutableHttpServletResponse extends HttpServletResponseWrapper imple
     private static final String RESPONSE_ID = "responseId";
     private static final String OUTPUT_STREAM_QUEUE_ATTRIBUTE = "repose.response.output.queue";
     private static final String INPUT_STREAM_ATTRIBUTE = "repose.response.input.stream";
+    private static final String BUFFERS_ATTRIBUTE = "repose.response.buffers";
     private final HttpServletRequest request;
     private final Deque<OutputStreamItem> outputQueue;
     private ByteBuffer internalBuffer;
@@ -121,12 +123,39 @@ public class MutableHttpServletResponse extends HttpServletResponseWrapper imple
 
     private void createInternalBuffer() {
         if (internalBuffer == null) {
-            internalBuffer = new CyclicByteBuffer(DEFAULT_BUFFER_SIZE, true);
+            internalBuffer = new CyclicByteBuffer(PooledByteArrayProvider.getInstance(), DEFAULT_BUFFER_SIZE, true);
+            getBuffers().add(internalBuffer);
             outputStream = new ByteBufferServletOutputStream(internalBuffer);
             outputStreamWriter = new PrintWriter(outputStream);
         }
     }
 
+    private List<ByteBuffer> getBuffers() {
+        List<ByteBuffer> result = (List<ByteBuffer>) request.getAttribute(BUFFERS_ATTRIBUTE);
+
+        if (result == null) {
+            result = new ArrayList<>();
+            request.setAttribute(BUFFERS_ATTRIBUTE, result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Hands the buffers that filters wrote into back to the pool. This must only be called once the response has been
+     * committed, since anything still reading from those buffers would find them empty.
+     */
+    public void releaseBuffers() {
+        final List<ByteBuffer> buffers = (List<ByteBuffer>) request.getAttribute(BUFFERS_ATTRIBUTE);
+
+        if (buffers != null) {
+            for (ByteBuffer buffer : buffers) {
+                buffer.release();
+            }
+            buffers.clear();
+        }
+    }
+
     private boolean bufferedOutput() {
         if (outputStreamWriter != null) {
             outputStreamWriter.flush();
@@ -384,6 +384,22 @@ public class CyclicByteBufferTest {
             assertTrue("Data read from clone should match data written to source", compare(dataRead, dataWritten));
 
         }
+
+        @Test
+        public void shouldWriteAfterCopiedDataWhenLeasedALargerArray() throws IOException {
+            byte[] dataWritten = fill(new byte[DEFAULT_SIZE + 10]);
+            sourceBuffer.put(dataWritten);
+
+            // The pool leases the next power of two up from the size of the copied data
+            CyclicByteBuffer dest = new CyclicByteBuffer(
+                    new PooledByteArrayProvider(PooledByteArrayProvider.DEFAULT_MAX_POOLED_BYTES, false), sourceBuffer);
+            dest.put(new byte[]{1, 2, 3});
+            byte[] dataRead = new byte[dataWritten.length];
+            dest.get(dataRead);
+
+            assertTrue("Data read from copy should match data written to source", compare(dataRead, dataWritten));
+            assertEquals(3, dest.available());
+        }
     }
 
     public static class Regression {
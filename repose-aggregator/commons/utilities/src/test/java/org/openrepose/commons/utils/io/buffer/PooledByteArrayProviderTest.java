@@ -0,0 +1,120 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.commons.utils.io.buffer;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+public class PooledByteArrayProviderTest {
+
+    private PooledByteArrayProvider provider;
+
+    @Before
+    public void setUp() {
+        provider = new PooledByteArrayProvider(PooledByteArrayProvider.DEFAULT_MAX_POOLED_BYTES, false);
+    }
+
+    @Test
+    public void shouldRoundCapacitiesUpToTheirSizeClass() {
+        assertEquals(1024, provider.allocate(1).length);
+        assertEquals(2048, provider.allocate(2048).length);
+        assertEquals(4096, provider.allocate(2049).length);
+        assertEquals(3 * 1024 * 1024, provider.allocate(3 * 1024 * 1024).length);
+    }
+
+    @Test
+    public void shouldHandBackReleasedArrays() {
+        final byte[] array = provider.allocate(2048);
+        provider.release(array);
+
+        assertSame(array, provider.allocate(2000));
+        assertEquals(1, provider.getMisses());
+        assertEquals(1, provider.getLeasedArrays());
+    }
+
+    @Test
+    public void shouldShareArraysBetweenThreadsOnceTheThreadCacheIsFull() throws Exception {
+        final byte[][] arrays = new byte[5][];
+        for (int i = 0; i < arrays.length; i++) {
+            arrays[i] = provider.allocate(1024);
+        }
+        for (byte[] array : arrays) {
+            provider.release(array);
+        }
+        assertEquals(1024, provider.getPooledBytes());
+
+        final byte[][] fromOtherThread = new byte[1][];
+        final CountDownLatch done = new CountDownLatch(1);
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                fromOtherThread[0] = provider.allocate(1024);
+                done.countDown();
+            }
+        }).start();
+        done.await();
+
+        assertSame(arrays[4], fromOtherThread[0]);
+        assertEquals(0, provider.getPooledBytes());
+    }
+
+    @Test
+    public void shouldNotPoolMoreThanTheLimit() {
+        provider = new PooledByteArrayProvider(PooledByteArrayProvider.MAX_ARRAY_SIZE, false);
+
+        final byte[] first = provider.allocate(PooledByteArrayProvider.MAX_ARRAY_SIZE);
+        final byte[] second = provider.allocate(PooledByteArrayProvider.MAX_ARRAY_SIZE);
+        provider.release(first);
+        provider.release(second);
+
+        assertEquals(PooledByteArrayProvider.MAX_ARRAY_SIZE, provider.getPooledBytes());
+    }
+
+    @Test
+    public void shouldReleaseTheOldArrayWhenABufferGrows() throws Exception {
+        final CyclicByteBuffer buffer = new CyclicByteBuffer(provider, 1024, false);
+        buffer.put(new byte[4000]);
+
+        assertEquals(1, provider.getLeasedArrays());
+
+        buffer.release();
+        assertEquals(0, provider.getLeasedArrays());
+        assertEquals(0, buffer.available());
+    }
+
+    @Test
+    public void shouldCountArraysThatAreNeverReleased() throws Exception {
+        provider = new PooledByteArrayProvider(PooledByteArrayProvider.DEFAULT_MAX_POOLED_BYTES, true);
+
+        provider.allocate(1024);
+        for (int i = 0; i < 50 && provider.getLeaks() == 0; i++) {
+            System.gc();
+            Thread.sleep(20);
+            provider.release(provider.allocate(1024));
+        }
+
+        assertEquals(1, provider.getLeaks());
+        assertEquals(0, provider.getLeasedArrays());
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.commons.utils.logging;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.experimental.runners.Enclosed;
+import org.junit.runner.RunWith;
+import org.slf4j.MDC;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+@RunWith(Enclosed.class)
+public class AsyncLogWriterTest {
+
+    private static class RecordingEvent implements AsyncLogWriter.LogEvent {
+        private final List<String> written;
+        private final String text;
+        private volatile Thread writtenBy;
+
+        RecordingEvent(List<String> written, String text) {
+            this.written = written;
+            this.text = text;
+        }
+
+        @Override
+        public void write() {
+            writtenBy = Thread.currentThread();
+            written.add(text);
+        }
+    }
+
+    // Holds up the writer thread until released, so that the queue behind it can be filled
+    private static class BlockingEvent implements AsyncLogWriter.LogEvent {
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public void write() {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public static class WhenWritingEvents {
+        private final List<String> written = new CopyOnWriteArrayList<>();
+        private AsyncLogWriter writer;
+
+        @After
+        public void tearDown() {
+            writer.destroy();
+        }
+
+        @Test
+        public void shouldWriteEventsInOrderOnTheWriterThread() throws Exception {
+            writer = new AsyncLogWriter("test", 16, 4, AsyncLogWriter.OverflowPolicy.DROP);
+            RecordingEvent last = null;
+            for (int i = 0; i < 10; i++) {
+                last = new RecordingEvent(written, "event " + i);
+                assertTrue(writer.write(last));
+            }
+
+            writer.destroy();
+
+            assertEquals(10, written.size());
+            assertEquals("event 0", written.get(0));
+            assertEquals("event 9", written.get(9));
+            assertNotSame(Thread.currentThread(), last.writtenBy);
+        }
+
+        @Test
+        public void shouldDropAndCountEventsWhenTheQueueIsFull() throws Exception {
+            writer = new AsyncLogWriter("test", 2, 1, AsyncLogWriter.OverflowPolicy.DROP);
+            final BlockingEvent blocker = new BlockingEvent();
+            writer.write(blocker);
+            assertTrue(blocker.started.await(5, TimeUnit.SECONDS));
+
+            assertTrue(writer.write(new RecordingEvent(written, "queued 1")));
+            assertTrue(writer.write(new RecordingEvent(written, "queued 2")));
+            assertFalse(writer.write(new RecordingEvent(written, "dropped")));
+
+            blocker.release.countDown();
+            writer.destroy();
+
+            assertEquals(1, writer.getDroppedEvents());
+            assertEquals(2, written.size());
+            assertFalse(written.contains("dropped"));
+        }
+
+        @Test
+        public void shouldWaitForRoomWhenTheQueueIsFullAndBlocking() throws Exception {
+            writer = new AsyncLogWriter("test", 1, 1, AsyncLogWriter.OverflowPolicy.BLOCK);
+            final BlockingEvent blocker = new BlockingEvent();
+            writer.write(blocker);
+            assertTrue(blocker.started.await(5, TimeUnit.SECONDS));
+            writer.write(new RecordingEvent(written, "queued"));
+
+            final Thread requestThread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    writer.write(new RecordingEvent(written, "waited"));
+                }
+            });
+            requestThread.start();
+            requestThread.join(200);
+            assertTrue(requestThread.isAlive());
+
+            blocker.release.countDown();
+            requestThread.join(5000);
+            writer.destroy();
+
+            assertFalse(requestThread.isAlive());
+            assertEquals(0, writer.getDroppedEvents());
+            assertEquals(2, written.size());
+            assertEquals("waited", written.get(1));
+        }
+
+        @Test
+        public void shouldWriteEventsOnTheCallingThreadOnceDestroyed() throws Exception {
+            writer = new AsyncLogWriter("test", 16, 4, AsyncLogWriter.OverflowPolicy.DROP);
+            writer.destroy();
+
+            final RecordingEvent event = new RecordingEvent(written, "late");
+            assertTrue(writer.write(event));
+
+            assertEquals(1, written.size());
+            assertSame(Thread.currentThread(), event.writtenBy);
+        }
+
+        @Test
+        public void shouldWriteEventsWithTheContextOfTheRequestThread() throws Exception {
+            writer = new AsyncLogWriter("test", 16, 4, AsyncLogWriter.OverflowPolicy.DROP);
+            MDC.put("traceGuid", "request-trace");
+            try {
+                writer.write(new AsyncLogWriter.LogEvent() {
+                    @Override
+                    public void write() {
+                        written.add(MDC.get("traceGuid"));
+                    }
+                });
+            } finally {
+                MDC.remove("traceGuid");
+            }
+
+            writer.destroy();
+
+            assertEquals(1, written.size());
+            assertEquals("request-trace", written.get(0));
+        }
+
+        @Test
+        public void shouldKeepWritingAfterAnEventFails() throws Exception {
+            writer = new AsyncLogWriter("test", 16, 4, AsyncLogWriter.OverflowPolicy.DROP);
+            writer.write(new AsyncLogWriter.LogEvent() {
+                @Override
+                public void write() {
+                    throw new IllegalStateException("appender failed");
+                }
+            });
+            writer.write(new RecordingEvent(written, "after"));
+
+            writer.destroy();
+
+            assertEquals(1, written.size());
+        }
+    }
+}
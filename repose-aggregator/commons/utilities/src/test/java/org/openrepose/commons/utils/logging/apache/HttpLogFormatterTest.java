@@ -31,7 +31,14 @@ import org.openrepose.commons.utils.servlet.http.MutableHttpServletResponse;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.regex.Pattern;
 
 import static org.junit.Assert.*;
@@ -417,4 +424,72 @@ public class HttpLogFormatterTest {
             );
         }
     }
+
+    public static class WhenFormattingManyLines {
+
+        public HttpServletResponse response;
+        public HttpServletRequest request;
+
+        @Before
+        public void setup() {
+            request = mock(HttpServletRequest.class);
+            when(request.getRemoteHost()).thenReturn("10.0.0.1");
+            when(request.getMethod()).thenReturn("GET");
+            when(request.getRequestURI()).thenReturn("/index.html");
+            when(request.getProtocol()).thenReturn("HTTP/1.1");
+            when(request.getHeaders("Referer")).thenReturn(new Vector<>(Arrays.asList("http://referer/")).elements());
+            when(request.getHeaders("User-Agent")).thenReturn(new Vector<>(Arrays.asList("agent/1.0")).elements());
+            response = mock(HttpServletResponse.class);
+            when(response.getStatus()).thenReturn(200);
+            when(response.getHeaders("Content-Type")).thenReturn(Arrays.asList("text/plain", "charset=utf-8"));
+        }
+
+        @Test
+        public void shouldFormatTheCombinedLogFormat() {
+            final HttpLogFormatter formatter = new HttpLogFormatter("%h \"%r\" %s \"%{Referer}i\" \"%{User-Agent}i\" %{Content-Type}o");
+
+            assertEquals("10.0.0.1 \"GET /index.html HTTP/1.1\" 200 \"http://referer/\" \"agent/1.0\" text/plain,charset=utf-8",
+                    formatter.format(request, response));
+        }
+
+        @Test
+        public void shouldNotCarryOneLineIntoTheNext() {
+            final HttpLogFormatter first = new HttpLogFormatter("%h %s");
+            final HttpLogFormatter second = new HttpLogFormatter("%r");
+
+            assertEquals("message 10.0.0.1 200", first.format("message ", request, response));
+            assertEquals("GET /index.html HTTP/1.1", second.format(request, response));
+            assertEquals("10.0.0.1 200", first.format(request, response));
+        }
+
+        @Test
+        public void shouldFormatLinesOnManyThreadsAtOnce() throws Exception {
+            final HttpLogFormatter formatter = new HttpLogFormatter("%{yyyy-MM-dd HH:mm:ss}t %{HH:mm:ss.SSS}t %s");
+            final Pattern expected = Pattern.compile("\\d{4}-\\d{2}-\\d{2} \\d{2}:\\d{2}:\\d{2} \\d{2}:\\d{2}:\\d{2}\\.\\d{3} 200");
+            final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+            try {
+                final List<Future<Boolean>> results = new ArrayList<>();
+                for (int i = 0; i < 64; i++) {
+                    results.add(executor.submit(new Callable<Boolean>() {
+                        @Override
+                        public Boolean call() {
+                            for (int line = 0; line < 500; line++) {
+                                if (!expected.matcher(formatter.format(request, response)).matches()) {
+                                    return false;
+                                }
+                            }
+                            return true;
+                        }
+                    }));
+                }
+
+                for (Future<Boolean> result : results) {
+                    assertTrue(result.get());
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
 }
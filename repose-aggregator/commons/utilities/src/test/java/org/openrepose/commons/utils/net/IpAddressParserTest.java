@@ -0,0 +1,101 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.commons.utils.net;
+
+import org.junit.Test;
+import org.junit.experimental.runners.Enclosed;
+import org.junit.runner.RunWith;
+
+import java.net.InetAddress;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNull;
+
+@RunWith(Enclosed.class)
+public class IpAddressParserTest {
+
+    public static class WhenParsingIpv4Addresses {
+
+        @Test
+        public void shouldParseDottedDecimalAddresses() throws Exception {
+            assertArrayEquals(InetAddress.getByName("198.51.100.254").getAddress(), IpAddressParser.parse("198.51.100.254"));
+            assertArrayEquals(new byte[]{0, 0, 0, 0}, IpAddressParser.parse("0.0.0.0"));
+            assertArrayEquals(new byte[]{-1, -1, -1, -1}, IpAddressParser.parse("255.255.255.255"));
+        }
+
+        @Test
+        public void shouldNotParseMalformedAddresses() {
+            assertNull(IpAddressParser.parse("256.1.1.1"));
+            assertNull(IpAddressParser.parse("1.1.1"));
+            assertNull(IpAddressParser.parse("1.1.1.1.1"));
+            assertNull(IpAddressParser.parse("1..1.1"));
+            assertNull(IpAddressParser.parse("1.1.1.1 "));
+            assertNull(IpAddressParser.parse("-1.1.1.1"));
+            assertNull(IpAddressParser.parse(""));
+            assertNull(IpAddressParser.parse(null));
+        }
+
+        @Test
+        public void shouldNotResolveHostNames() {
+            assertNull(IpAddressParser.parse("localhost"));
+            assertNull(IpAddressParser.parse("Invalid"));
+            assertNull(IpAddressParser.parse("www.example.com"));
+        }
+    }
+
+    public static class WhenParsingIpv6Addresses {
+
+        @Test
+        public void shouldParseFullAndCompressedAddresses() throws Exception {
+            final String[] addresses = {"2001:db8:0:0:0:0:0:1", "2001:db8::1", "::1", "::", "2001:db8::", "fe80::1:2:3",
+                    "1:2:3:4:5:6:7::", "::2:3:4:5:6:7:8", "2001:DB8::ABCD", "64:ff9b::192.0.2.33"};
+            for (String address : addresses) {
+                assertArrayEquals(address, InetAddress.getByName(address).getAddress(), IpAddressParser.parse(address));
+            }
+        }
+
+        @Test
+        public void shouldParseBracketedAndZonedAddresses() throws Exception {
+            assertArrayEquals(InetAddress.getByName("::1").getAddress(), IpAddressParser.parse("[::1]"));
+            assertArrayEquals(InetAddress.getByName("fe80::1").getAddress(), IpAddressParser.parse("fe80::1%eth0"));
+        }
+
+        @Test
+        public void shouldReadIpv4MappedAddressesAsIpv4() throws Exception {
+            assertArrayEquals(new byte[]{10, 0, 0, 1}, IpAddressParser.parse("::ffff:10.0.0.1"));
+            assertArrayEquals(new byte[]{10, 0, 0, 1}, IpAddressParser.parse("::ffff:a00:1"));
+        }
+
+        @Test
+        public void shouldNotParseMalformedAddresses() {
+            assertNull(IpAddressParser.parse("2001:db8::1::1"));
+            assertNull(IpAddressParser.parse("1:2:3:4:5:6:7:8:9"));
+            assertNull(IpAddressParser.parse("1:2:3:4:5:6:7"));
+            assertNull(IpAddressParser.parse("1:2:3:4:5:6:7:8::"));
+            assertNull(IpAddressParser.parse("12345::1"));
+            assertNull(IpAddressParser.parse(":1:2:3:4:5:6:7"));
+            assertNull(IpAddressParser.parse("1:2:3:4:5:6:7:"));
+            assertNull(IpAddressParser.parse(":::"));
+            assertNull(IpAddressParser.parse("::g"));
+            assertNull(IpAddressParser.parse("1:2:3:4:5:6:7:1.2.3.4"));
+            assertNull(IpAddressParser.parse("[::1"));
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.commons.utils.net;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.runners.Enclosed;
+import org.junit.runner.RunWith;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+@RunWith(Enclosed.class)
+public class IpAddressRangeSetTest {
+
+    public static class WhenCheckingForAddressesInRanges {
+        private IpAddressRangeSet ranges;
+
+        @Before
+        public void setUp() {
+            ranges = new IpAddressRangeSet();
+            ranges.add("198.51.100.0/22");
+            ranges.add("192.168.1.1");
+            ranges.add("10.0.0.0/8");
+            ranges.add("2001:db8::/48");
+        }
+
+        @Test
+        public void shouldFindAddressesInRange() {
+            assertTrue(ranges.contains("198.51.100.254"));
+            assertTrue(ranges.contains("198.51.103.255"));
+            assertTrue(ranges.contains("10.255.0.1"));
+            assertTrue(ranges.contains("2001:db8::1"));
+            assertTrue(ranges.contains("2001:db8:0:ffff::"));
+        }
+
+        @Test
+        public void shouldNotFindAddressesThatAreNotInRange() {
+            assertFalse(ranges.contains("198.51.104.1"));
+            assertFalse(ranges.contains("11.0.0.1"));
+            assertFalse(ranges.contains("2001:db8:1::1"));
+            assertFalse(ranges.contains("::1"));
+        }
+
+        @Test
+        public void shouldHandleExactAddresses() {
+            assertTrue(ranges.contains("192.168.1.1"));
+            assertFalse(ranges.contains("192.168.1.2"));
+        }
+
+        @Test
+        public void shouldKeepAddressFamiliesApart() {
+            assertFalse(ranges.contains("::a00:1"));
+            assertTrue(ranges.contains("::ffff:10.0.0.1"));
+        }
+
+        @Test
+        public void shouldNotFindAddressesThatAreNotLiterals() {
+            assertFalse(ranges.contains("localhost"));
+            assertFalse(ranges.contains("Invalid"));
+        }
+
+        @Test
+        public void shouldTakeLongPrefixesAsTheWholeAddress() {
+            ranges.add("172.16.0.1/48");
+
+            assertTrue(ranges.contains("172.16.0.1"));
+            assertFalse(ranges.contains("172.16.0.2"));
+        }
+
+        @Test
+        public void shouldMatchEverythingWithAZeroLengthPrefix() {
+            ranges.add("0.0.0.0/0");
+
+            assertTrue(ranges.contains("203.0.113.9"));
+            assertFalse(ranges.contains("2001:db9::1"));
+        }
+
+        @Test(expected = IllegalArgumentException.class)
+        public void shouldRejectHostNames() {
+            ranges.add("localhost/8");
+        }
+
+        @Test(expected = IllegalArgumentException.class)
+        public void shouldRejectInvalidPrefixLengths() {
+            ranges.add("10.0.0.0/eight");
+        }
+    }
+
+    public static class WhenAddingOverlappingRanges {
+        private IpAddressRangeSet ranges;
+
+        @Before
+        public void setUp() {
+            ranges = new IpAddressRangeSet();
+        }
+
+        @Test
+        public void shouldNotKeepRangesInsideWiderOnes() {
+            ranges.add("10.1.2.0/24");
+            ranges.add("10.1.3.0/24");
+            ranges.add("10.1.0.0/16");
+            ranges.add("10.1.4.0/24");
+
+            assertEquals(1, ranges.size());
+            assertTrue(ranges.contains("10.1.3.7"));
+            assertTrue(ranges.contains("10.1.200.7"));
+            assertFalse(ranges.contains("10.2.0.1"));
+        }
+
+        @Test
+        public void shouldKeepSiblingRanges() {
+            ranges.add("10.1.2.0/24");
+            ranges.add("10.1.3.0/24");
+            ranges.add("10.1.2.0/23");
+
+            assertEquals(1, ranges.size());
+            assertTrue(ranges.contains("10.1.2.1"));
+            assertTrue(ranges.contains("10.1.3.1"));
+            assertFalse(ranges.contains("10.1.4.1"));
+        }
+    }
+
+    public static class WhenHoldingManyRanges {
+        private static final int RANGES = 10000;
+        private final Random random = new Random(42);
+        private final List<IpAddressRange> linearRanges = new ArrayList<>();
+        private final IpAddressRangeSet ranges = new IpAddressRangeSet();
+
+        @Before
+        public void setUp() throws Exception {
+            for (int i = 0; i < RANGES; i++) {
+                final byte[] network = new byte[random.nextBoolean() ? 4 : 16];
+                random.nextBytes(network);
+                final int prefixLength = 8 + random.nextInt(network.length * 8 - 7);
+
+                linearRanges.add(new IpAddressRange(InetAddress.getByAddress(network).getHostAddress(), prefixLength));
+                ranges.add(network, prefixLength);
+            }
+        }
+
+        @Test
+        public void shouldAgreeWithCheckingEachRange() throws Exception {
+            for (int i = 0; i < 2000; i++) {
+                final byte[] address = new byte[random.nextBoolean() ? 4 : 16];
+                random.nextBytes(address);
+                if (i % 2 == 0) {
+                    // Half of the addresses are taken from a range, so that most of them match
+                    final byte[] network = linearRanges.get(random.nextInt(RANGES)).getIp();
+                    System.arraycopy(network, 0, address, 0, Math.min(network.length, address.length) - 1);
+                }
+
+                boolean expected = false;
+                for (IpAddressRange range : linearRanges) {
+                    if (range.addressInRange(address)) {
+                        expected = true;
+                        break;
+                    }
+                }
+
+                assertEquals(expected, ranges.contains(address));
+            }
+        }
+    }
+}
@@ -258,6 +258,28 @@ public class MutableHttpServletRequestTest {
             assertTrue("Should return 0 on empty body", realEntitySize == 0);
 
         }
+
+        @Test
+        public void shouldUseTheDeclaredLengthWhenPassingTheBodyThrough() throws IOException {
+            final ServletInputStream in = new ServletInputStreamWrapper(new ByteArrayInputStream(msg.getBytes()));
+            when(request.getInputStream()).thenReturn(in);
+            when(request.getContentLength()).thenReturn(msg.length());
+            wrappedRequest = MutableHttpServletRequest.wrap(request);
+            wrappedRequest.setBodyPassThrough(true);
+
+            assertEquals(msg.length(), wrappedRequest.getRealBodyLength());
+            assertSame("The container stream should be passed through untouched", in, wrappedRequest.getInputStream());
+        }
+
+        @Test
+        public void shouldReadTheBodyWhenItHasBeenReplaced() throws IOException {
+            when(request.getContentLength()).thenReturn(2);
+            wrappedRequest = MutableHttpServletRequest.wrap(request);
+            wrappedRequest.setBodyPassThrough(true);
+            wrappedRequest.setInputStream(new ServletInputStreamWrapper(new ByteArrayInputStream(msg.getBytes())));
+
+            assertEquals(msg.length(), wrappedRequest.getRealBodyLength());
+        }
     }
 
     public static class WhenDealingWithNonSplittableHeaders {
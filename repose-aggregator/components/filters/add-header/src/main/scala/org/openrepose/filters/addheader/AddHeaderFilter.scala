@@ -24,13 +24,14 @@ import javax.servlet._
 
 import com.typesafe.scalalogging.slf4j.LazyLogging
 import org.openrepose.commons.config.manager.UpdateListener
+import org.openrepose.commons.utils.servlet.filter.BodyPassThroughFilter
 import org.openrepose.core.filter.FilterConfigHelper
 import org.openrepose.core.filter.logic.impl.FilterLogicHandlerDelegate
 import org.openrepose.core.services.config.ConfigurationService
 import org.openrepose.filters.addheader.config.AddHeadersConfig
 
 @Named
-class AddHeaderFilter @Inject()(configurationService: ConfigurationService) extends Filter with LazyLogging {
+class AddHeaderFilter @Inject()(configurationService: ConfigurationService) extends BodyPassThroughFilter with LazyLogging {
 
   private final val DEFAULT_CONFIG = "add-header.cfg.xml"
 
@@ -22,7 +22,8 @@ package org.openrepose.filters.ipidentity;
 import org.openrepose.commons.utils.StringUtilities;
 import org.openrepose.commons.utils.http.CommonHttpHeader;
 import org.openrepose.commons.utils.http.PowerApiHeader;
-import org.openrepose.commons.utils.net.IpAddressRange;
+import org.openrepose.commons.utils.net.IpAddressParser;
+import org.openrepose.commons.utils.net.IpAddressRangeSet;
 import org.openrepose.commons.utils.servlet.http.ReadableHttpServletResponse;
 import org.openrepose.core.filter.logic.FilterAction;
 import org.openrepose.core.filter.logic.FilterDirector;
@@ -34,9 +35,6 @@ import org.openrepose.filters.ipidentity.config.WhiteList;
 import org.slf4j.LoggerFactory;
 
 import javax.servlet.http.HttpServletRequest;
-import java.net.InetAddress;
-import java.net.UnknownHostException;
-import java.util.List;
 
 public class IpIdentityHandler extends AbstractFilterLogicHandler {
 
@@ -44,10 +42,10 @@ public class IpIdentityHandler extends AbstractFilterLogicHandler {
     private static final org.slf4j.Logger LOG = LoggerFactory.getLogger(IpIdentityHandler.class);
     private final IpIdentityConfig config;
     private final String quality;
-    private final List<IpAddressRange> whitelistIps;
+    private final IpAddressRangeSet whitelistIps;
     private WhiteList whiteList = new WhiteList();
 
-    public IpIdentityHandler(IpIdentityConfig config, List<IpAddressRange> whitelistIps) {
+    public IpIdentityHandler(IpIdentityConfig config, IpAddressRangeSet whitelistIps) {
         this.config = config;
         this.whiteList = config.getWhiteList() == null ? new WhiteList() : config.getWhiteList();
         this.quality = determineQuality();
@@ -78,13 +76,13 @@ public class IpIdentityHandler extends AbstractFilterLogicHandler {
 
             String q = quality;
             String group = IpIdentityGroup.DEST_GROUP;
-            try {
-                if (onWhiteList(address)) {
-                    group = IpIdentityGroup.DEFAULT_WHITELIST_GROUP;
-                    q = ";q=" + whiteList.getQuality();
-                }
-            } catch (UnknownHostException ex) {
-                LOG.warn("Invalid client IP Address: " + address, ex);
+            // The address is only ever read as a literal, so that a host name here can not hold the request up on DNS
+            final byte[] addressBytes = IpAddressParser.parse(address);
+            if (addressBytes == null) {
+                LOG.warn("Invalid client IP Address: " + address);
+            } else if (whitelistIps.contains(addressBytes)) {
+                group = IpIdentityGroup.DEFAULT_WHITELIST_GROUP;
+                q = ";q=" + whiteList.getQuality();
             }
 
             headerManager.appendHeader(PowerApiHeader.USER.toString(), address + q);
@@ -93,21 +91,6 @@ public class IpIdentityHandler extends AbstractFilterLogicHandler {
         return filterDirector;
     }
 
-    private boolean onWhiteList(String address) throws UnknownHostException {
-        boolean onList = false;
-
-        byte[] addressBytes = InetAddress.getByName(address).getAddress();
-
-        for (IpAddressRange range : whitelistIps) {
-            if (range.addressInRange(addressBytes)) {
-                onList = true;
-                break;
-            }
-        }
-
-        return onList;
-    }
-
     private String determineQuality() {
         String q = DEFAULT_QUALITY;
 
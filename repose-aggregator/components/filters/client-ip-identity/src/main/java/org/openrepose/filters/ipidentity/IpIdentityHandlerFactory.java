@@ -21,21 +21,20 @@ package org.openrepose.filters.ipidentity;
 
 import org.openrepose.commons.config.manager.UpdateListener;
 import org.openrepose.commons.utils.net.IpAddressRange;
+import org.openrepose.commons.utils.net.IpAddressRangeSet;
 import org.openrepose.core.filter.logic.AbstractConfiguredFilterHandlerFactory;
 import org.openrepose.filters.ipidentity.config.IpIdentityConfig;
 import org.slf4j.LoggerFactory;
 
 import java.net.UnknownHostException;
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 public class IpIdentityHandlerFactory extends AbstractConfiguredFilterHandlerFactory<IpIdentityHandler> {
 
     private static final org.slf4j.Logger LOG = LoggerFactory.getLogger(IpIdentityHandlerFactory.class);
     private IpIdentityConfig config;
-    private List<IpAddressRange> whitelist;
+    private IpAddressRangeSet whitelist;
 
     public IpIdentityHandlerFactory() {
     }
@@ -65,19 +64,30 @@ public class IpIdentityHandlerFactory extends AbstractConfiguredFilterHandlerFac
         @Override
         public void configurationUpdated(IpIdentityConfig configurationObject) {
             config = configurationObject;
-            whitelist = new ArrayList<IpAddressRange>();
+            final IpAddressRangeSet ranges = new IpAddressRangeSet();
             if (config.getWhiteList() != null) {
                 for (String address : config.getWhiteList().getIpAddress()) {
-                    try {
-                        whitelist.add(new IpAddressRange(address));
-                    } catch (UnknownHostException ex) {
-                        LOG.warn("Invalid IP address specified in white list: " + address, ex);
-                    }
+                    addToWhiteList(ranges, address);
                 }
             }
+            whitelist = ranges;
             isInitialized = true;
         }
 
+        // Host names in the white list are still resolved, but only here, as the configuration is loaded
+        private void addToWhiteList(IpAddressRangeSet ranges, String address) {
+            try {
+                ranges.add(address);
+            } catch (IllegalArgumentException notLiteral) {
+                try {
+                    final IpAddressRange range = new IpAddressRange(address);
+                    ranges.add(range.getIp(), range.getMask());
+                } catch (UnknownHostException | IllegalArgumentException ex) {
+                    LOG.warn("Invalid IP address specified in white list: " + address, ex);
+                }
+            }
+        }
+
         @Override
         public boolean isInitialized() {
             return isInitialized;
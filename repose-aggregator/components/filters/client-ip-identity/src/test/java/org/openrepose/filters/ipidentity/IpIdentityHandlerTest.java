@@ -151,4 +151,25 @@ public class IpIdentityHandlerTest {
         assertTrue("Should have Requests Source IP as x-pp-user", director.requestHeaderManager().headersToAdd().get(HeaderName.wrap(PowerApiHeader.USER.toString())).contains(IP + WL_QUALITY_VALUE));
         assertTrue("Should have IP_Standard as a group", director.requestHeaderManager().headersToAdd().get(HeaderName.wrap(PowerApiHeader.GROUPS.toString())).contains(IpIdentityGroup.DEST_GROUP + QUALITY_VALUE));
     }
+
+    @Test
+    public void shouldNotResolveHostNameInXForwardedForHeader() throws Exception {
+        final String HOST = "localhost";
+        final String NETWORK = "127.0.0.0/8";
+        config = new IpIdentityConfig();
+        config.setQuality(QUALITY);
+        WhiteList whiteList = new WhiteList();
+        whiteList.setQuality(WL_QUALITY);
+        whiteList.getIpAddress().add(NETWORK);
+        config.setWhiteList(whiteList);
+        factory.configurationUpdated(config);
+        handler = factory.buildHandler();
+
+        when(request.getHeader(CommonHttpHeader.X_FORWARDED_FOR.toString())).thenReturn(HOST);
+
+        FilterDirector director = handler.handleRequest(request, response);
+
+        assertTrue("Should have the header value as x-pp-user", director.requestHeaderManager().headersToAdd().get(HeaderName.wrap(PowerApiHeader.USER.toString())).contains(HOST + QUALITY_VALUE));
+        assertTrue("Should have IP_Standard as a group", director.requestHeaderManager().headersToAdd().get(HeaderName.wrap(PowerApiHeader.GROUPS.toString())).contains(IpIdentityGroup.DEST_GROUP + QUALITY_VALUE));
+    }
 }
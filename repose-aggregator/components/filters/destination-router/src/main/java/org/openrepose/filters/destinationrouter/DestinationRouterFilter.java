@@ -19,6 +19,7 @@
  */
 package org.openrepose.filters.destinationrouter;
 
+import org.openrepose.commons.utils.servlet.filter.BodyPassThroughFilter;
 import org.openrepose.core.filter.FilterConfigHelper;
 import org.openrepose.core.filter.logic.impl.FilterLogicHandlerDelegate;
 import org.openrepose.core.services.config.ConfigurationService;
@@ -35,7 +36,7 @@ import java.io.IOException;
 import java.net.URL;
 
 @Named
-public class DestinationRouterFilter implements Filter {
+public class DestinationRouterFilter implements BodyPassThroughFilter {
 
     private static final Logger LOG = LoggerFactory.getLogger(DestinationRouterFilter.class);
     private static final String DEFAULT_CONFIG = "destination-router.cfg.xml";
@@ -25,6 +25,7 @@ import javax.servlet.http.HttpServletRequest
 
 import com.rackspace.httpdelegation._
 import com.typesafe.scalalogging.slf4j.LazyLogging
+import org.openrepose.commons.utils.servlet.filter.BodyPassThroughFilter
 import org.openrepose.commons.utils.servlet.http.MutableHttpServletRequest
 
 /**
@@ -32,7 +33,7 @@ import org.openrepose.commons.utils.servlet.http.MutableHttpServletRequest
  * corresponds to the protocol of the request (e.g., http or https).
  */
 @Named
-class ForwardedProtoFilter extends Filter with HttpDelegationManager with LazyLogging {
+class ForwardedProtoFilter extends BodyPassThroughFilter with HttpDelegationManager with LazyLogging {
 
   private final val X_FORWARDED_PROTO = "X-Forwarded-Proto"
 
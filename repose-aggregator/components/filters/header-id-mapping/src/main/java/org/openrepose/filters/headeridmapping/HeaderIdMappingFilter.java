@@ -19,6 +19,7 @@
  */
 package org.openrepose.filters.headeridmapping;
 
+import org.openrepose.commons.utils.servlet.filter.BodyPassThroughFilter;
 import org.openrepose.core.filter.FilterConfigHelper;
 import org.openrepose.core.filter.logic.impl.FilterLogicHandlerDelegate;
 import org.openrepose.core.services.config.ConfigurationService;
@@ -33,7 +34,7 @@ import java.io.IOException;
 import java.net.URL;
 
 @Named
-public class HeaderIdMappingFilter implements Filter {
+public class HeaderIdMappingFilter implements BodyPassThroughFilter {
 
     private static final Logger LOG = LoggerFactory.getLogger(HeaderIdMappingFilter.class);
     private static final String DEFAULT_CONFIG = "header-id-mapping.cfg.xml";
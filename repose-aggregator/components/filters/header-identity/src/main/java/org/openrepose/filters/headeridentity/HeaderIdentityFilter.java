@@ -19,6 +19,7 @@
  */
 package org.openrepose.filters.headeridentity;
 
+import org.openrepose.commons.utils.servlet.filter.BodyPassThroughFilter;
 import org.openrepose.core.filter.FilterConfigHelper;
 import org.openrepose.core.filter.logic.impl.FilterLogicHandlerDelegate;
 import org.openrepose.core.services.config.ConfigurationService;
@@ -33,7 +34,7 @@ import java.io.IOException;
 import java.net.URL;
 
 @Named
-public class HeaderIdentityFilter implements Filter {
+public class HeaderIdentityFilter implements BodyPassThroughFilter {
 
     private static final Logger LOG = LoggerFactory.getLogger(HeaderIdentityFilter.class);
     private static final String DEFAULT_CONFIG = "header-identity.cfg.xml";
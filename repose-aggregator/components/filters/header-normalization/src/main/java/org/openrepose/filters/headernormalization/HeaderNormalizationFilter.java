@@ -19,6 +19,7 @@
  */
 package org.openrepose.filters.headernormalization;
 
+import org.openrepose.commons.utils.servlet.filter.BodyPassThroughFilter;
 import org.openrepose.core.filter.FilterConfigHelper;
 import org.openrepose.core.filter.logic.impl.FilterLogicHandlerDelegate;
 import org.openrepose.core.services.config.ConfigurationService;
@@ -34,7 +35,7 @@ import java.io.IOException;
 import java.net.URL;
 
 @Named
-public class HeaderNormalizationFilter implements Filter {
+public class HeaderNormalizationFilter implements BodyPassThroughFilter {
     private static final Logger LOG = LoggerFactory.getLogger(HeaderNormalizationFilter.class);
     private static final String DEFAULT_CONFIG = "header-normalization.cfg.xml";
     private final ConfigurationService configurationService;
@@ -20,6 +20,7 @@
 package org.openrepose.filters.headertranslation;
 
 
+import org.openrepose.commons.utils.servlet.filter.BodyPassThroughFilter;
 import org.openrepose.core.filter.FilterConfigHelper;
 import org.openrepose.core.filter.logic.impl.FilterLogicHandlerDelegate;
 import org.openrepose.core.services.config.ConfigurationService;
@@ -34,7 +35,7 @@ import java.io.IOException;
 import java.net.URL;
 
 @Named
-public class HeaderTranslationFilter implements Filter {
+public class HeaderTranslationFilter implements BodyPassThroughFilter {
     private static final Logger LOG = LoggerFactory.getLogger(HeaderTranslationFilter.class);
     private static final String DEFAULT_CONFIG = "header-translation.cfg.xml";
     private final ConfigurationService configurationService;
@@ -33,7 +33,7 @@ import com.rackspace.httpdelegation._
 import com.typesafe.scalalogging.slf4j.LazyLogging
 import org.openrepose.commons.config.manager.UpdateListener
 import org.openrepose.commons.utils.http.{CommonHttpHeader, OpenStackServiceHeader}
-import org.openrepose.commons.utils.logging.TracingHeaderHelper
+import org.openrepose.commons.utils.logging.{AsyncLogWriter, TracingHeaderHelper}
 import org.openrepose.core.filter.FilterConfigHelper
 import org.openrepose.core.services.config.ConfigurationService
 import org.openrepose.core.spring.ReposeSpringProperties
@@ -64,6 +64,7 @@ class HerpFilter @Inject()(configurationService: ConfigurationService,
   private var dataCenter: String = _
   private var handlebarsTemplate: Template = _
   private var filtersOut: Iterable[Iterable[(String, Regex)]] = _
+  @volatile private var logWriter: AsyncLogWriter = _
 
   override def init(filterConfig: FilterConfig): Unit = {
     logger.trace("HERP filter initializing ...")
@@ -155,16 +156,33 @@ class HerpFilter @Inject()(configurationService: ConfigurationService,
         .getOrElse(httpServletRequest.getRemoteAddr)
     )
 
-    val templateOutput: StringWriter = new StringWriter
-    handlebarsTemplate.apply(eventValues.asJava, templateOutput)
+    // The event values are all that is read from the request, so the rest can be done once the request is finished,
+    // but with the configuration that was in place while it was handled
+    val template = handlebarsTemplate
+    val eventPreLogger = preLogger
+    val eventPostLogger = postLogger
+    val eventFiltersOut = filtersOut
 
-    preLogger.info(templateOutput.toString)
-    if (!doFilterOut(eventValues)) {
-      postLogger.info(templateOutput.toString)
+    def logEvent(): Unit = {
+      val templateOutput: StringWriter = new StringWriter
+      template.apply(eventValues.asJava, templateOutput)
+
+      eventPreLogger.info(templateOutput.toString)
+      if (!doFilterOut(eventValues)) {
+        eventPostLogger.info(templateOutput.toString)
+      }
+    }
+
+    Option(logWriter) match {
+      case Some(writer) =>
+        writer.write(new AsyncLogWriter.LogEvent {
+          override def write(): Unit = logEvent()
+        })
+      case None => logEvent()
     }
 
     def doFilterOut(valuesMap: Map[String, Any]): Boolean = {
-      filtersOut.exists { andFilter =>
+      eventFiltersOut.exists { andFilter =>
         andFilter.forall { case (keyOrig, pattern) =>
           val keySplit = keyOrig.split('.')
           valuesMap.get(keySplit(0)) match {
@@ -196,6 +214,7 @@ class HerpFilter @Inject()(configurationService: ConfigurationService,
   override def destroy(): Unit = {
     logger.trace("HERP filter destroying ...")
     configurationService.unsubscribeFrom(config, this.asInstanceOf[UpdateListener[_]])
+    replaceLogWriter(None)
     logger.trace("HERP filter destroyed.")
   }
 
@@ -223,9 +242,22 @@ class HerpFilter @Inject()(configurationService: ConfigurationService,
         (matcher.getField, matcher.getRegex.r)
       }
     }
+    replaceLogWriter(Option(config.getAsyncLogging).map { asyncLogging =>
+      new AsyncLogWriter("HERP",
+        asyncLogging.getQueueSize,
+        asyncLogging.getBatchSize,
+        AsyncLogWriter.OverflowPolicy.valueOf(asyncLogging.getOverflow.name))
+    })
     initialized = true
   }
 
+  // Events already queued on the writer being replaced are logged as it is destroyed
+  private def replaceLogWriter(newLogWriter: Option[AsyncLogWriter]): Unit = synchronized {
+    val oldLogWriter = Option(logWriter)
+    logWriter = newLogWriter.orNull
+    oldLogWriter.foreach(_.destroy())
+  }
+
   override def isInitialized: Boolean = {
     initialized
   }
@@ -26,9 +26,10 @@ import org.apache.logging.log4j.core.LoggerContext
 import org.apache.logging.log4j.test.appender.ListAppender
 import org.junit.runner.RunWith
 import org.openrepose.core.filter.logic.FilterDirector
-import org.openrepose.filters.herp.config.{FilterOut, HerpConfig, Match, Template}
+import org.openrepose.filters.herp.config.{AsyncLogging, FilterOut, HerpConfig, Match, OverflowPolicy, Template}
 import org.scalatest._
 import org.scalatest.junit.JUnitRunner
+import org.slf4j.MDC
 import org.springframework.http.HttpStatus._
 import org.springframework.mock.web.{MockFilterChain, MockHttpServletRequest, MockHttpServletResponse}
 
@@ -656,6 +657,36 @@ class HerpFilterTest extends FunSpec with BeforeAndAfter with Matchers {
     }
   }
 
+  describe("the doFilter method with asynchronous logging") {
+    it("should log on the writer thread with the MDC of the request") {
+      // given:
+      val asyncLogging = new AsyncLogging
+      asyncLogging.setQueueSize(16)
+      asyncLogging.setBatchSize(4)
+      asyncLogging.setOverflow(OverflowPolicy.DROP)
+      herpConfig.setAsyncLogging(asyncLogging)
+      herpFilter.configurationUpdated(herpConfig)
+
+      // when:
+      MDC.put("traceGuid", "the-trace-guid")
+      try {
+        herpFilter.doFilter(servletRequest, servletResponse, filterChain)
+      } finally {
+        MDC.remove("traceGuid")
+      }
+      // replacing the writer writes everything still queued on it
+      herpConfig.setAsyncLogging(null)
+      herpFilter.configurationUpdated(herpConfig)
+
+      // then:
+      def logEvents = listAppenderPre.getEvents
+      logEvents.size shouldBe 1
+      logEvents.get(0).getContextMap.get("traceGuid") shouldBe "the-trace-guid"
+      logEvents.get(0).getThreadName should not be Thread.currentThread.getName
+      listAppenderPost.getEvents.size shouldBe 1
+    }
+  }
+
   describe("the configurationUpdated method") {
     it("should leave the template alone when crush is false") {
       val template: Template = new Template
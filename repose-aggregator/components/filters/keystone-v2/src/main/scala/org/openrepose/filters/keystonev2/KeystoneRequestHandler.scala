@@ -20,17 +20,20 @@
 package org.openrepose.filters.keystonev2
 
 import java.io.InputStream
+import java.util.concurrent.ExecutionException
 import java.util.{Calendar, GregorianCalendar}
 import javax.servlet.http.HttpServletResponse._
 import javax.ws.rs.core.MediaType
 
 import com.fasterxml.jackson.core.JsonProcessingException
+import com.google.common.util.concurrent.{ListenableFuture, MoreExecutors}
 import com.typesafe.scalalogging.slf4j.LazyLogging
 import org.apache.http.HttpHeaders
 import org.apache.http.client.utils.DateUtils
 import org.joda.time.format.ISODateTimeFormat
 import org.openrepose.commons.utils.http.{CommonHttpHeader, ServiceClientResponse}
-import org.openrepose.core.services.serviceclient.akka.AkkaServiceClient
+import org.openrepose.core.services.reporting.metrics.TimerByCategory
+import org.openrepose.core.services.serviceclient.akka.{AkkaServiceClient, AkkaServiceClientException}
 import play.api.libs.functional.syntax._
 import play.api.libs.json.Reads._
 import play.api.libs.json._
@@ -41,8 +44,14 @@ import scala.util.{Failure, Success, Try}
 
 /**
  * Contains the functions which interact with the Keystone API.
+ *
+ * The send functions return as soon as their call is made, so that calls which do not depend on each other can be
+ * made at the same time. The time each call takes is recorded by the identity timer under the name of its stage.
  */
-class KeystoneRequestHandler(identityServiceUri: String, akkaServiceClient: AkkaServiceClient, traceId: Option[String])
+class KeystoneRequestHandler(identityServiceUri: String,
+                             akkaServiceClient: AkkaServiceClient,
+                             traceId: Option[String],
+                             identityTimer: Option[TimerByCategory] = None)
   extends LazyLogging {
 
   import KeystoneRequestHandler._
@@ -62,13 +71,13 @@ class KeystoneRequestHandler(identityServiceUri: String, akkaServiceClient: Akka
       )
     )
 
-    val akkaResponse = Try(akkaServiceClient.post(ADMIN_TOKEN_KEY,
+    val akkaResponse = awaitResponse(timed(ADMIN_TOKEN_STAGE, akkaServiceClient.postAsync(ADMIN_TOKEN_KEY,
       s"$identityServiceUri$TOKEN_ENDPOINT",
       (Map(CommonHttpHeader.ACCEPT.toString -> MediaType.APPLICATION_JSON)
         ++ traceId.map(CommonHttpHeader.TRACE_GUID.toString -> _)).asJava,
       Json.stringify(authenticationPayload),
       MediaType.APPLICATION_JSON_TYPE
-    ))
+    )))
 
     akkaResponse match {
       case Success(serviceClientResponse) =>
@@ -91,7 +100,10 @@ class KeystoneRequestHandler(identityServiceUri: String, akkaServiceClient: Akka
     }
   }
 
-  final def validateToken(validatingToken: String, validatableToken: String): Try[ValidToken] = {
+  final def validateToken(validatingToken: String, validatableToken: String): Try[ValidToken] =
+    sendValidateToken(validatingToken, validatableToken).result
+
+  final def sendValidateToken(validatingToken: String, validatableToken: String): PendingCall[ValidToken] = {
     def extractUserInformation(keystoneResponse: InputStream): Try[ValidToken] = {
       val input: String = Source.fromInputStream(keystoneResponse).getLines mkString ""
       try {
@@ -129,16 +141,20 @@ class KeystoneRequestHandler(identityServiceUri: String, akkaServiceClient: Akka
       }
     }
 
-    val akkaResponse = Try(akkaServiceClient.get(s"$TOKEN_KEY_PREFIX$validatableToken",
+    val akkaResponse = akkaServiceClient.getAsync(s"$TOKEN_KEY_PREFIX$validatableToken",
       s"$identityServiceUri$TOKEN_ENDPOINT/$validatableToken",
       (Map(CommonHttpHeader.AUTH_TOKEN.toString -> validatingToken,
         CommonHttpHeader.ACCEPT.toString -> MediaType.APPLICATION_JSON)
-        ++ traceId.map(CommonHttpHeader.TRACE_GUID.toString -> _)).asJava))
+        ++ traceId.map(CommonHttpHeader.TRACE_GUID.toString -> _)).asJava)
 
-    handleResponse("validate token", akkaResponse, extractUserInformation)
+    new PendingCall[ValidToken](timed(VALIDATE_TOKEN_STAGE, akkaResponse),
+      handleResponse("validate token", _, extractUserInformation))
   }
 
-  final def getEndpointsForToken(authenticatingToken: String, forToken: String): Try[EndpointsData] = {
+  final def getEndpointsForToken(authenticatingToken: String, forToken: String): Try[EndpointsData] =
+    sendGetEndpointsForToken(authenticatingToken, forToken).result
+
+  final def sendGetEndpointsForToken(authenticatingToken: String, forToken: String): PendingCall[EndpointsData] = {
     def extractEndpointInfo(inputStream: InputStream): Try[EndpointsData] = {
       implicit val endpointsReader = (
         (JsPath \ "region").readNullable[String] and
@@ -160,16 +176,20 @@ class KeystoneRequestHandler(identityServiceUri: String, akkaServiceClient: Akka
       }
     }
 
-    val akkaResponse = Try(akkaServiceClient.get(s"$ENDPOINTS_KEY_PREFIX$forToken",
+    val akkaResponse = akkaServiceClient.getAsync(s"$ENDPOINTS_KEY_PREFIX$forToken",
       s"$identityServiceUri${ENDPOINTS_ENDPOINT(forToken)}",
       (Map(CommonHttpHeader.AUTH_TOKEN.toString -> authenticatingToken,
         CommonHttpHeader.ACCEPT.toString -> MediaType.APPLICATION_JSON)
-        ++ traceId.map(CommonHttpHeader.TRACE_GUID.toString -> _)).asJava))
+        ++ traceId.map(CommonHttpHeader.TRACE_GUID.toString -> _)).asJava)
 
-    handleResponse("endpoints", akkaResponse, extractEndpointInfo)
+    new PendingCall[EndpointsData](timed(ENDPOINTS_STAGE, akkaResponse),
+      handleResponse("endpoints", _, extractEndpointInfo))
   }
 
-  final def getGroups(authenticatingToken: String, forToken: String): Try[Vector[String]] = {
+  final def getGroups(authenticatingToken: String, forToken: String): Try[Vector[String]] =
+    sendGetGroups(authenticatingToken, forToken).result
+
+  final def sendGetGroups(authenticatingToken: String, forToken: String): PendingCall[Vector[String]] = {
     def extractGroupInfo(inputStream: InputStream): Try[Vector[String]] = {
       Try {
         val input: String = Source.fromInputStream(inputStream).getLines mkString ""
@@ -179,13 +199,24 @@ class KeystoneRequestHandler(identityServiceUri: String, akkaServiceClient: Akka
       }
     }
 
-    val akkaResponse = Try(akkaServiceClient.get(s"$GROUPS_KEY_PREFIX$forToken",
+    val akkaResponse = akkaServiceClient.getAsync(s"$GROUPS_KEY_PREFIX$forToken",
       s"$identityServiceUri${GROUPS_ENDPOINT(forToken)}",
       (Map(CommonHttpHeader.AUTH_TOKEN.toString -> authenticatingToken,
         CommonHttpHeader.ACCEPT.toString -> MediaType.APPLICATION_JSON)
-        ++ traceId.map(CommonHttpHeader.TRACE_GUID.toString -> _)).asJava))
+        ++ traceId.map(CommonHttpHeader.TRACE_GUID.toString -> _)).asJava)
 
-    handleResponse("groups", akkaResponse, extractGroupInfo)
+    new PendingCall[Vector[String]](timed(GROUPS_STAGE, akkaResponse),
+      handleResponse("groups", _, extractGroupInfo))
+  }
+
+  private def timed(stage: String, response: ListenableFuture[ServiceClientResponse]): ListenableFuture[ServiceClientResponse] = {
+    identityTimer foreach { timer =>
+      val timerContext = timer.time(stage)
+      response.addListener(new Runnable {
+        override def run(): Unit = timerContext.stop()
+      }, MoreExecutors.directExecutor())
+    }
+    response
   }
 }
 
@@ -198,6 +229,10 @@ object KeystoneRequestHandler {
   final val TOKEN_KEY_PREFIX = "IDENTITY:V2:TOKEN:"
   final val GROUPS_KEY_PREFIX = "IDENTITY:V2:GROUPS:"
   final val ENDPOINTS_KEY_PREFIX = "IDENTITY:V2:ENDPOINTS:"
+  final val ADMIN_TOKEN_STAGE = "admin-token"
+  final val VALIDATE_TOKEN_STAGE = "validate-token"
+  final val ENDPOINTS_STAGE = "endpoints"
+  final val GROUPS_STAGE = "groups"
 
   def iso8601ToRfc1123(iso: String) = {
     val dateTime = ISODateTimeFormat.dateTimeParser().parseDateTime(iso)
@@ -214,6 +249,16 @@ object KeystoneRequestHandler {
     }
   }
 
+  def awaitResponse(response: ListenableFuture[ServiceClientResponse]): Try[ServiceClientResponse] = {
+    Try(response.get()) recoverWith {
+      case e: ExecutionException =>
+        e.getCause match {
+          case akkaException: AkkaServiceClientException => Failure(akkaException)
+          case cause => Failure(new AkkaServiceClientException("Failure waiting for the Identity response", cause))
+        }
+    }
+  }
+
   def handleResponse[T](call: String, response: Try[ServiceClientResponse], onSuccess: InputStream => Try[T]): Try[T] = {
     response match {
       case Success(serviceClientResponse) =>
@@ -234,6 +279,13 @@ object KeystoneRequestHandler {
     }
   }
 
+  /**
+   * A call to Identity that has been sent, whose response is handled the first time its result is asked for.
+   */
+  class PendingCall[T](response: ListenableFuture[ServiceClientResponse], handle: Try[ServiceClientResponse] => Try[T]) {
+    lazy val result: Try[T] = handle(awaitResponse(response))
+  }
+
   case class EndpointsData(json: String, vector: Vector[Endpoint])
 
   trait IdentityException
@@ -36,7 +36,8 @@ import org.openrepose.commons.utils.http._
 import org.openrepose.commons.utils.servlet.http.MutableHttpServletRequest
 import org.openrepose.core.filter.FilterConfigHelper
 import org.openrepose.core.services.config.ConfigurationService
-import org.openrepose.core.services.datastore.{Datastore, DatastoreService}
+import org.openrepose.core.services.datastore.{Datastore, DatastoreService, RefreshAheadCache}
+import org.openrepose.core.services.reporting.metrics.{MetricsService, TimerByCategory}
 import org.openrepose.core.services.serviceclient.akka.{AkkaServiceClient, AkkaServiceClientException}
 import org.openrepose.core.systemmodel.SystemModel
 import org.openrepose.filters.keystonev2.KeystoneRequestHandler._
@@ -49,7 +50,8 @@ import scala.util.{Failure, Random, Success, Try}
 @Named
 class KeystoneV2Filter @Inject()(configurationService: ConfigurationService,
                                  akkaServiceClient: AkkaServiceClient,
-                                 datastoreService: DatastoreService)
+                                 datastoreService: DatastoreService,
+                                 metricsService: MetricsService)
   extends Filter
   with HttpDelegationManager
   with LazyLogging {
@@ -60,8 +62,11 @@ class KeystoneV2Filter @Inject()(configurationService: ConfigurationService,
   private var sendTraceHeader = true
 
   private val datastore: Datastore = datastoreService.getDefaultDatastore //Which happens to be the local datastore
+  private val identityTimer: Option[TimerByCategory] = Option(metricsService.newTimerByCategory(
+    classOf[KeystoneV2Filter], "Identity Latency", TimeUnit.MILLISECONDS, TimeUnit.MILLISECONDS))
 
   var keystoneV2Config: KeystoneV2Config = _
+  private var tokenCache: RefreshAheadCache = _
 
   override def init(filterConfig: FilterConfig): Unit = {
     configurationFile = new FilterConfigHelper(filterConfig).getFilterConfig(DEFAULT_CONFIG)
@@ -92,6 +97,7 @@ class KeystoneV2Filter @Inject()(configurationService: ConfigurationService,
      * STATIC REFERENCE TO CONFIG
      */
     val config = keystoneV2Config
+    val cache = tokenCache
 
     /**
      * DECLARE COMMON VALUES
@@ -101,9 +107,12 @@ class KeystoneV2Filter @Inject()(configurationService: ConfigurationService,
     // we don't need to modify the response from further down the chain
     lazy val response = servletResponse.asInstanceOf[HttpServletResponse]
     lazy val traceId = Option(request.getHeader(CommonHttpHeader.TRACE_GUID.toString)).filter(_ => sendTraceHeader)
-    lazy val requestHandler = new KeystoneRequestHandler(keystoneV2Config.getIdentityService.getUri, akkaServiceClient, traceId)
+    lazy val requestHandler = new KeystoneRequestHandler(keystoneV2Config.getIdentityService.getUri, akkaServiceClient, traceId, identityTimer)
     lazy val isSelfValidating = Option(config.getIdentityService.getUsername).isEmpty ||
       Option(config.getIdentityService.getPassword).isEmpty
+    // Calls sent alongside the token validation, keyed by the token they were sent with, to be read when needed
+    var sentEndpointsCall: Option[(String, PendingCall[EndpointsData])] = None
+    var sentGroupsCall: Option[(String, PendingCall[Vector[String]])] = None
 
     /**
      * BEGIN PROCESSING
@@ -272,30 +281,57 @@ class KeystoneV2Filter @Inject()(configurationService: ConfigurationService,
     def validateToken(authToken: String): Try[ValidToken] = {
       logger.trace(s"Validating token: $authToken")
 
-      Option(datastore.get(s"$TOKEN_KEY_PREFIX$authToken").asInstanceOf[ValidToken]) map { validationResult =>
-        Success(validationResult)
-      } getOrElse {
-        getValidatingToken(authToken, force = false) flatMap { validatingToken =>
-          requestHandler.validateToken(validatingToken, authToken) recoverWith {
-            case _: AdminTokenUnauthorizedException =>
-              // Force acquiring of the admin token, and call the validation function again (retry once)
-              getValidatingToken(authToken, force = true) match {
-                case Success(newValidatingToken) => requestHandler.validateToken(newValidatingToken, authToken)
-                case Failure(x) => Failure(IdentityAdminTokenException("Unable to reacquire admin token", x))
-              }
-          } cacheOnSuccess { validToken =>
-            val cacheSettings = config.getCache.getTimeouts
-            val timeToLive = getTtl(cacheSettings.getToken,
-              cacheSettings.getVariability,
-              Some(validToken))
-            timeToLive foreach { ttl =>
-              datastore.put(s"$TOKEN_KEY_PREFIX$authToken", validToken, ttl, TimeUnit.SECONDS)
+      // The handler reads the request, so it is set up here in case the token is validated again in the background
+      requestHandler
+
+      Try(cache.get(s"$TOKEN_KEY_PREFIX$authToken", new RefreshAheadCache.Loader[ValidToken] {
+        override def load(): ValidToken = fetchValidToken(authToken, withLookups = true).get
+
+        // Nothing is waiting on the endpoints and groups when the token is refreshed in the background
+        override def reload(): ValidToken = fetchValidToken(authToken, withLookups = false).get
+
+        override def ttl(validToken: ValidToken): Int = {
+          val cacheSettings = config.getCache.getTimeouts
+          getTtl(cacheSettings.getToken, cacheSettings.getVariability, Some(validToken)) getOrElse -1
+        }
+
+        // Only Identity saying the token is not valid means the cached token should no longer be used
+        override def isTransient(failure: Exception): Boolean = !failure.isInstanceOf[InvalidTokenException]
+      }))
+    }
+
+    def fetchValidToken(authToken: String, withLookups: Boolean): Try[ValidToken] = {
+      getValidatingToken(authToken, force = false) flatMap { validatingToken =>
+        val validateTokenCall = requestHandler.sendValidateToken(validatingToken, authToken)
+        if (withLookups) sendLookups(validatingToken, authToken)
+        validateTokenCall.result recoverWith {
+          case _: AdminTokenUnauthorizedException =>
+            // Force acquiring of the admin token, and call the validation function again (retry once)
+            getValidatingToken(authToken, force = true) match {
+              case Success(newValidatingToken) => requestHandler.validateToken(newValidatingToken, authToken)
+              case Failure(x) => Failure(IdentityAdminTokenException("Unable to reacquire admin token", x))
             }
-          }
         }
       }
     }
 
+    /**
+     * Sends the endpoints and groups calls along with the validate token call, rather than after it, so that a
+     * request with nothing cached waits on one round trip to Identity instead of three.
+     */
+    def sendLookups(validatingToken: String, authToken: String): Unit = {
+      logger.trace(s"Sending the endpoints and groups calls for: $authToken")
+
+      // The calls are only sent if their results will be needed should the token be valid
+      val needEndpoints = config.getIdentityService.isSetCatalogInHeader || Option(config.getRequireServiceEndpoint).isDefined
+      if (needEndpoints && Option(datastore.get(s"$ENDPOINTS_KEY_PREFIX$authToken")).isEmpty) {
+        sentEndpointsCall = Some(validatingToken -> requestHandler.sendGetEndpointsForToken(validatingToken, authToken))
+      }
+      if (config.getIdentityService.isSetGroupsInHeader && Option(datastore.get(s"$GROUPS_KEY_PREFIX$authToken")).isEmpty) {
+        sentGroupsCall = Some(validatingToken -> requestHandler.sendGetGroups(validatingToken, authToken))
+      }
+    }
+
     def doAuthorizeTenant(validToken: ValidToken): Boolean = {
       Option(config.getTenantHandling.getValidateTenant) exists { validateTenant =>
         Option(config.getPreAuthorizedRoles) forall {
@@ -338,7 +374,10 @@ class KeystoneV2Filter @Inject()(configurationService: ConfigurationService,
         case Some(endpointsData) => Success(endpointsData)
         case None =>
           getValidatingToken(authToken, force = false) flatMap { adminToken =>
-            requestHandler.getEndpointsForToken(adminToken, authToken) recoverWith {
+            val endpointsCall = sentEndpointsCall collect { case (`adminToken`, call) => call } getOrElse {
+              requestHandler.sendGetEndpointsForToken(adminToken, authToken)
+            }
+            endpointsCall.result recoverWith {
               case _: AdminTokenUnauthorizedException =>
                 // Force acquiring of the admin token, and call the endpoints function again (retry once)
                 getValidatingToken(authToken, force = true) match {
@@ -388,7 +427,10 @@ class KeystoneV2Filter @Inject()(configurationService: ConfigurationService,
         case Some(groups) => Success(groups)
         case None =>
           getValidatingToken(authToken, force = false) flatMap { adminToken =>
-            requestHandler.getGroups(adminToken, authToken) recoverWith {
+            val groupsCall = sentGroupsCall collect { case (`adminToken`, call) => call } getOrElse {
+              requestHandler.sendGetGroups(adminToken, authToken)
+            }
+            groupsCall.result recoverWith {
               case _: AdminTokenUnauthorizedException =>
                 // Force acquiring of the admin token, and call the endpoints function again (retry once)
                 getValidatingToken(authToken, force = true) match {
@@ -623,6 +665,10 @@ class KeystoneV2Filter @Inject()(configurationService: ConfigurationService,
 
       keystoneV2Config = fixMyDefaults(configurationObject)
 
+      val cacheSettings = keystoneV2Config.getCache.getTimeouts
+      tokenCache = new RefreshAheadCache(datastore, cacheSettings.getRefreshWindow, cacheSettings.getStaleTimeout,
+        TimeUnit.SECONDS)
+
       // Removes an extra slash at the end of the URI if applicable
       val serviceUri = keystoneV2Config.getIdentityService.getUri
       keystoneV2Config.getIdentityService.setUri(serviceUri.stripSuffix("/"))
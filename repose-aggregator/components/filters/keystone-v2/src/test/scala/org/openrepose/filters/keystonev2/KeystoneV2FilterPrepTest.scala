@@ -7,6 +7,7 @@ import org.junit.runner.RunWith
 import org.mockito.{ArgumentCaptor, Matchers => MockitoMatcher, Mockito}
 import org.openrepose.core.services.config.ConfigurationService
 import org.openrepose.core.services.datastore.{Datastore, DatastoreService}
+import org.openrepose.core.services.reporting.metrics.MetricsService
 import org.openrepose.core.services.serviceclient.akka.AkkaServiceClient
 import org.openrepose.core.systemmodel.SystemModel
 import org.openrepose.filters.keystonev2.config.KeystoneV2Config
@@ -20,6 +21,7 @@ class KeystoneV2FilterPrepTest extends FunSpec with Matchers with MockitoSugar w
   val mockDatastoreService = mock[DatastoreService]
   private val mockDatastore: Datastore = mock[Datastore]
   Mockito.when(mockDatastoreService.getDefaultDatastore).thenReturn(mockDatastore)
+  val mockMetricsService = mock[MetricsService]
   val mockSystemModel = mock[SystemModel]
   Mockito.when(mockSystemModel.isTracingHeader).thenReturn(true, Nil: _*)
 
@@ -31,7 +33,7 @@ class KeystoneV2FilterPrepTest extends FunSpec with Matchers with MockitoSugar w
     it("should initialize the configuration") {
       val mockAkkaServiceClient = mock[AkkaServiceClient]
       val mockConfigService = mock[ConfigurationService]
-      val filter: KeystoneV2Filter = new KeystoneV2Filter(mockConfigService, mockAkkaServiceClient, mockDatastoreService)
+      val filter: KeystoneV2Filter = new KeystoneV2Filter(mockConfigService, mockAkkaServiceClient, mockDatastoreService, mockMetricsService)
 
       val config: MockFilterConfig = new MockFilterConfig
       config.setFilterName("KeystoneV2Filter")
@@ -57,7 +59,7 @@ class KeystoneV2FilterPrepTest extends FunSpec with Matchers with MockitoSugar w
     it("should initialize a configuration with a different name") {
       val mockAkkaServiceClient = mock[AkkaServiceClient]
       val mockConfigService = mock[ConfigurationService]
-      val filter: KeystoneV2Filter = new KeystoneV2Filter(mockConfigService, mockAkkaServiceClient, mockDatastoreService)
+      val filter: KeystoneV2Filter = new KeystoneV2Filter(mockConfigService, mockAkkaServiceClient, mockDatastoreService, mockMetricsService)
 
       val config: MockFilterConfig = new MockFilterConfig
       config.setFilterName("KeystoneV2Filter")
@@ -84,7 +86,7 @@ class KeystoneV2FilterPrepTest extends FunSpec with Matchers with MockitoSugar w
 
   it("deregisters from the configuration service when destroying") {
     val mockConfigService = mock[ConfigurationService]
-    val filter: KeystoneV2Filter = new KeystoneV2Filter(mockConfigService, mock[AkkaServiceClient], mockDatastoreService)
+    val filter: KeystoneV2Filter = new KeystoneV2Filter(mockConfigService, mock[AkkaServiceClient], mockDatastoreService, mockMetricsService)
 
     val config: MockFilterConfig = new MockFilterConfig
     filter.init(config)
@@ -95,7 +97,7 @@ class KeystoneV2FilterPrepTest extends FunSpec with Matchers with MockitoSugar w
 
   describe("when the configuration is updated") {
     it("sets the current configuration on the filter asserting the defaults and initialized is true") {
-      val filter = new KeystoneV2Filter(mock[ConfigurationService], mock[AkkaServiceClient], mockDatastoreService)
+      val filter = new KeystoneV2Filter(mock[ConfigurationService], mock[AkkaServiceClient], mockDatastoreService, mockMetricsService)
       filter.isInitialized shouldNot be(right = true)
 
       val configuration = Marshaller.keystoneV2ConfigFromString(
@@ -132,7 +134,7 @@ class KeystoneV2FilterPrepTest extends FunSpec with Matchers with MockitoSugar w
     }
 
     it("sets the default delegating quality to 0.7") {
-      val filter = new KeystoneV2Filter(mock[ConfigurationService], mock[AkkaServiceClient], mockDatastoreService)
+      val filter = new KeystoneV2Filter(mock[ConfigurationService], mock[AkkaServiceClient], mockDatastoreService, mockMetricsService)
       filter.isInitialized shouldNot be(right = true)
 
       val configuration = Marshaller.keystoneV2ConfigFromString(
@@ -24,8 +24,10 @@ import java.util.concurrent.TimeUnit
 import javax.servlet.http.{HttpServletRequest, HttpServletResponse}
 import javax.servlet.{Servlet, ServletRequest, ServletResponse}
 
+import com.google.common.util.concurrent.Futures
 import com.mockrunner.mock.web.{MockFilterChain, MockFilterConfig, MockHttpServletRequest, MockHttpServletResponse}
 import com.rackspace.httpdelegation.{HttpDelegationHeaderNames, HttpDelegationManager}
+import com.yammer.metrics.core.TimerContext
 import org.apache.commons.codec.binary.Base64
 import org.apache.http.HttpHeaders
 import org.apache.http.client.utils.DateUtils
@@ -36,9 +38,10 @@ import org.mockito.Matchers.{eq => mockitoEq, _}
 import org.mockito.Mockito._
 import org.mockito.invocation.InvocationOnMock
 import org.mockito.stubbing.Answer
-import org.openrepose.commons.utils.http.{CommonHttpHeader, IdentityStatus, OpenStackServiceHeader, PowerApiHeader}
+import org.openrepose.commons.utils.http.{CommonHttpHeader, IdentityStatus, OpenStackServiceHeader, PowerApiHeader, ServiceClientResponse}
 import org.openrepose.core.services.config.ConfigurationService
 import org.openrepose.core.services.datastore.{Datastore, DatastoreService}
+import org.openrepose.core.services.reporting.metrics.{MetricsService, TimerByCategory}
 import org.openrepose.core.services.serviceclient.akka.AkkaServiceClient
 import org.openrepose.core.systemmodel.SystemModel
 import org.openrepose.filters.keystonev2.KeystoneRequestHandler._
@@ -63,6 +66,7 @@ with HttpDelegationManager {
   private val mockDatastore: Datastore = mock[Datastore]
   when(mockDatastoreService.getDefaultDatastore).thenReturn(mockDatastore)
   val mockConfigService = mock[ConfigurationService]
+  val mockMetricsService = mock[MetricsService]
   val mockSystemModel = mock[SystemModel]
   when(mockSystemModel.isTracingHeader).thenReturn(true, Nil: _*)
   private final val dateTime = DateTime.now().plusHours(1)
@@ -78,7 +82,7 @@ with HttpDelegationManager {
   }
 
   describe("Filter lifecycle") {
-    val filter: KeystoneV2Filter = new KeystoneV2Filter(mockConfigService, mockAkkaServiceClient, mockDatastoreService)
+    val filter: KeystoneV2Filter = new KeystoneV2Filter(mockConfigService, mockAkkaServiceClient, mockDatastoreService, mockMetricsService)
     val config: MockFilterConfig = new MockFilterConfig
 
     it("should throw 500 if filter is not initialized") {
@@ -133,7 +137,7 @@ with HttpDelegationManager {
         |</keystone-v2>
       """.stripMargin)
 
-    val filter: KeystoneV2Filter = new KeystoneV2Filter(mockConfigService, mockAkkaServiceClient, mockDatastoreService)
+    val filter: KeystoneV2Filter = new KeystoneV2Filter(mockConfigService, mockAkkaServiceClient, mockDatastoreService, mockMetricsService)
 
     val config: MockFilterConfig = new MockFilterConfig
     filter.init(config)
@@ -167,7 +171,7 @@ with HttpDelegationManager {
 
     it("should handle identity service uri ending with a '/'") {
       val mockAkkaClient = mock[AkkaServiceClient]
-      val keystoneFilter = new KeystoneV2Filter(mockConfigService, mockAkkaClient, mockDatastoreService)
+      val keystoneFilter = new KeystoneV2Filter(mockConfigService, mockAkkaClient, mockDatastoreService, mockMetricsService)
 
       val modifiedConfig = configuration
       modifiedConfig.getIdentityService.setUri("https://some.identity.com/")
@@ -179,8 +183,8 @@ with HttpDelegationManager {
 
       when(mockDatastore.get(ADMIN_TOKEN_KEY)).thenReturn("glibglob", Nil: _*)
 
-      when(mockAkkaClient.get(anyString(), anyString(), anyMapOf(classOf[String], classOf[String])))
-        .thenReturn(AkkaServiceClientResponse(HttpServletResponse.SC_OK, validateTokenResponse()), Nil: _*)
+      when(mockAkkaClient.getAsync(anyString(), anyString(), anyMapOf(classOf[String], classOf[String])))
+        .thenReturn(Futures.immediateFuture[ServiceClientResponse](AkkaServiceClientResponse(HttpServletResponse.SC_OK, validateTokenResponse())), Nil: _*)
 
       val response = new MockHttpServletResponse
       val filterChain = new MockFilterChain()
@@ -188,7 +192,7 @@ with HttpDelegationManager {
 
       filterChain.getLastRequest shouldNot be(null)
       filterChain.getLastResponse shouldNot be(null)
-      verify(mockAkkaClient).get(anyString(), mockitoEq(s"https://some.identity.com$TOKEN_ENDPOINT/$VALID_TOKEN"), any())
+      verify(mockAkkaClient).getAsync(anyString(), mockitoEq(s"https://some.identity.com$TOKEN_ENDPOINT/$VALID_TOKEN"), any())
     }
 
     it("caches the admin token request for 10 minutes") {
@@ -479,7 +483,7 @@ with HttpDelegationManager {
         |</keystone-v2>
       """.stripMargin)
 
-    val filter: KeystoneV2Filter = new KeystoneV2Filter(mockConfigService, mockAkkaServiceClient, mockDatastoreService)
+    val filter: KeystoneV2Filter = new KeystoneV2Filter(mockConfigService, mockAkkaServiceClient, mockDatastoreService, mockMetricsService)
 
     val config: MockFilterConfig = new MockFilterConfig
     filter.init(config)
@@ -848,7 +852,7 @@ with HttpDelegationManager {
         |</keystone-v2>
       """.stripMargin)
 
-    val filter: KeystoneV2Filter = new KeystoneV2Filter(mockConfigService, mockAkkaServiceClient, mockDatastoreService)
+    val filter: KeystoneV2Filter = new KeystoneV2Filter(mockConfigService, mockAkkaServiceClient, mockDatastoreService, mockMetricsService)
 
     val config: MockFilterConfig = new MockFilterConfig
     filter.init(config)
@@ -1035,7 +1039,7 @@ with HttpDelegationManager {
         |</keystone-v2>
       """.stripMargin)
 
-    val filter: KeystoneV2Filter = new KeystoneV2Filter(mockConfigService, mockAkkaServiceClient, mockDatastoreService)
+    val filter: KeystoneV2Filter = new KeystoneV2Filter(mockConfigService, mockAkkaServiceClient, mockDatastoreService, mockMetricsService)
 
     val config: MockFilterConfig = new MockFilterConfig
     filter.init(config)
@@ -1218,7 +1222,7 @@ with HttpDelegationManager {
         |</keystone-v2>
       """.stripMargin)
 
-    val filter: KeystoneV2Filter = new KeystoneV2Filter(mockConfigService, mockAkkaServiceClient, mockDatastoreService)
+    val filter: KeystoneV2Filter = new KeystoneV2Filter(mockConfigService, mockAkkaServiceClient, mockDatastoreService, mockMetricsService)
 
     val config: MockFilterConfig = new MockFilterConfig
     filter.init(config)
@@ -1262,7 +1266,7 @@ with HttpDelegationManager {
         |</keystone-v2>
       """.stripMargin)
 
-    val filter: KeystoneV2Filter = new KeystoneV2Filter(mockConfigService, mockAkkaServiceClient, mockDatastoreService)
+    val filter: KeystoneV2Filter = new KeystoneV2Filter(mockConfigService, mockAkkaServiceClient, mockDatastoreService, mockMetricsService)
 
     val config: MockFilterConfig = new MockFilterConfig
     filter.init(config)
@@ -1350,6 +1354,45 @@ with HttpDelegationManager {
         mockitoEq(TimeUnit.SECONDS))
     }
 
+    it("keeps tokens in the datastore for the stale timeout past their cache timeout") {
+      val modifiedConfig = configuration
+      modifiedConfig.getCache.getTimeouts.setRefreshWindow(30)
+      modifiedConfig.getCache.getTimeouts.setStaleTimeout(120)
+      filter.KeystoneV2ConfigListener.configurationUpdated(modifiedConfig)
+
+      val request = new MockHttpServletRequest()
+      request.addHeader(CommonHttpHeader.AUTH_TOKEN.toString, VALID_TOKEN)
+
+      when(mockDatastore.get(ADMIN_TOKEN_KEY)).thenReturn(null, "glibglob")
+
+      mockAkkaPostResponse(
+        AkkaServiceClientResponse(HttpServletResponse.SC_OK, adminAuthenticationTokenResponse())
+      )
+
+      mockAkkaGetResponse(s"$TOKEN_KEY_PREFIX$VALID_TOKEN")(
+        "glibglob", AkkaServiceClientResponse(HttpServletResponse.SC_OK, validateTokenResponse())
+      )
+
+      mockAkkaGetResponse(s"$ENDPOINTS_KEY_PREFIX$VALID_TOKEN")(
+        "glibglob", AkkaServiceClientResponse(HttpServletResponse.SC_OK, endpointsResponse())
+      )
+
+      mockAkkaGetResponse(s"$GROUPS_KEY_PREFIX$VALID_TOKEN")(
+        "glibglob", AkkaServiceClientResponse(HttpServletResponse.SC_OK, groupsResponse())
+      )
+
+      val response = new MockHttpServletResponse
+      val filterChain = new MockFilterChain()
+      filter.doFilter(request, response, filterChain)
+      filter.KeystoneV2ConfigListener.configurationUpdated(configuration)
+
+      filterChain.getLastRequest shouldNot be(null)
+      filterChain.getLastResponse shouldNot be(null)
+      verify(mockDatastore).put(mockitoEq(s"$TOKEN_KEY_PREFIX$VALID_TOKEN"), any(), mockitoEq(390), mockitoEq(TimeUnit.SECONDS))
+      verify(mockDatastore).put(mockitoEq(s"$ENDPOINTS_KEY_PREFIX$VALID_TOKEN"), any(), mockitoEq(330), mockitoEq(TimeUnit.SECONDS))
+      verify(mockDatastore).put(mockitoEq(s"$GROUPS_KEY_PREFIX$VALID_TOKEN"), any(), mockitoEq(300), mockitoEq(TimeUnit.SECONDS))
+    }
+
     it("tests that configurationUpdated sets timeouts to default if CacheTimeoutType is null") {
       val modifiedConfig = configuration
       modifiedConfig.getCache.setTimeouts(null)
@@ -1414,7 +1457,7 @@ with HttpDelegationManager {
         |</keystone-v2>
       """.stripMargin)
 
-    val filter: KeystoneV2Filter = new KeystoneV2Filter(mockConfigService, mockAkkaServiceClient, mockDatastoreService)
+    val filter: KeystoneV2Filter = new KeystoneV2Filter(mockConfigService, mockAkkaServiceClient, mockDatastoreService, mockMetricsService)
 
     val config: MockFilterConfig = new MockFilterConfig
     filter.init(config)
@@ -1683,7 +1726,7 @@ with HttpDelegationManager {
         |</keystone-v2>
       """.stripMargin)
 
-    val filter: KeystoneV2Filter = new KeystoneV2Filter(mockConfigService, mockAkkaServiceClient, mockDatastoreService)
+    val filter: KeystoneV2Filter = new KeystoneV2Filter(mockConfigService, mockAkkaServiceClient, mockDatastoreService, mockMetricsService)
 
     val config: MockFilterConfig = new MockFilterConfig
     filter.init(config)
@@ -1936,7 +1979,7 @@ with HttpDelegationManager {
         |</keystone-v2>
       """.stripMargin)
 
-    val filter: KeystoneV2Filter = new KeystoneV2Filter(mockConfigService, mockAkkaServiceClient, mockDatastoreService)
+    val filter: KeystoneV2Filter = new KeystoneV2Filter(mockConfigService, mockAkkaServiceClient, mockDatastoreService, mockMetricsService)
 
     val config: MockFilterConfig = new MockFilterConfig
     filter.init(config)
@@ -2020,7 +2063,7 @@ with HttpDelegationManager {
         |</keystone-v2>
       """.stripMargin)
 
-    val filter: KeystoneV2Filter = new KeystoneV2Filter(mockConfigService, mockAkkaServiceClient, mockDatastoreService)
+    val filter: KeystoneV2Filter = new KeystoneV2Filter(mockConfigService, mockAkkaServiceClient, mockDatastoreService, mockMetricsService)
 
     val config: MockFilterConfig = new MockFilterConfig
     filter.init(config)
@@ -2086,6 +2129,116 @@ with HttpDelegationManager {
     }
   }
 
+  describe("Configured to add the catalog and groups headers") {
+    def configuration = Marshaller.keystoneV2ConfigFromString(
+      """<?xml version="1.0" encoding="UTF-8"?>
+        |<keystone-v2 xmlns="http://docs.openrepose.org/repose/keystone-v2/v1.0">
+        |    <identity-service
+        |            username="username"
+        |            password="password"
+        |            uri="https://some.identity.com"
+        |            set-groups-in-header="true"
+        |            set-catalog-in-header="true"
+        |            />
+        |</keystone-v2>
+      """.stripMargin)
+
+    it("sends the endpoints and groups calls without waiting for the token to be validated") {
+      val mockAkkaClient = mock[AkkaServiceClient]
+      val filter = new KeystoneV2Filter(mockConfigService, mockAkkaClient, mockDatastoreService, mockMetricsService)
+      filter.KeystoneV2ConfigListener.configurationUpdated(configuration)
+      filter.SystemModelConfigListener.configurationUpdated(mockSystemModel)
+
+      val request = new MockHttpServletRequest()
+      request.addHeader(CommonHttpHeader.AUTH_TOKEN.toString, VALID_TOKEN)
+
+      when(mockDatastore.get(ADMIN_TOKEN_KEY)).thenReturn("glibglob", Nil: _*)
+
+      when(mockAkkaClient.getAsync(mockitoEq(s"$TOKEN_KEY_PREFIX$VALID_TOKEN"), anyString(), anyMapOf(classOf[String], classOf[String])))
+        .thenReturn(Futures.immediateFuture[ServiceClientResponse](AkkaServiceClientResponse(HttpServletResponse.SC_NOT_FOUND, "")), Nil: _*)
+      when(mockAkkaClient.getAsync(mockitoEq(s"$ENDPOINTS_KEY_PREFIX$VALID_TOKEN"), anyString(), anyMapOf(classOf[String], classOf[String])))
+        .thenReturn(Futures.immediateFuture[ServiceClientResponse](AkkaServiceClientResponse(HttpServletResponse.SC_OK, endpointsResponse())), Nil: _*)
+      when(mockAkkaClient.getAsync(mockitoEq(s"$GROUPS_KEY_PREFIX$VALID_TOKEN"), anyString(), anyMapOf(classOf[String], classOf[String])))
+        .thenReturn(Futures.immediateFuture[ServiceClientResponse](AkkaServiceClientResponse(HttpServletResponse.SC_OK, groupsResponse())), Nil: _*)
+
+      val response = new MockHttpServletResponse
+      val filterChain = new MockFilterChain()
+      filter.doFilter(request, response, filterChain)
+
+      response.getErrorCode shouldBe HttpServletResponse.SC_UNAUTHORIZED
+      verify(mockAkkaClient).getAsync(mockitoEq(s"$ENDPOINTS_KEY_PREFIX$VALID_TOKEN"), anyString(), any())
+      verify(mockAkkaClient).getAsync(mockitoEq(s"$GROUPS_KEY_PREFIX$VALID_TOKEN"), anyString(), any())
+    }
+
+    it("does not send the endpoints and groups calls when they are cached") {
+      val mockAkkaClient = mock[AkkaServiceClient]
+      val filter = new KeystoneV2Filter(mockConfigService, mockAkkaClient, mockDatastoreService, mockMetricsService)
+      filter.KeystoneV2ConfigListener.configurationUpdated(configuration)
+      filter.SystemModelConfigListener.configurationUpdated(mockSystemModel)
+
+      val request = new MockHttpServletRequest()
+      request.addHeader(CommonHttpHeader.AUTH_TOKEN.toString, VALID_TOKEN)
+
+      when(mockDatastore.get(ADMIN_TOKEN_KEY)).thenReturn("glibglob", Nil: _*)
+      when(mockDatastore.get(s"$ENDPOINTS_KEY_PREFIX$VALID_TOKEN")).thenReturn(EndpointsData("", Vector.empty), Nil: _*)
+      when(mockDatastore.get(s"$GROUPS_KEY_PREFIX$VALID_TOKEN")).thenReturn(Vector.empty[String], Nil: _*)
+
+      when(mockAkkaClient.getAsync(mockitoEq(s"$TOKEN_KEY_PREFIX$VALID_TOKEN"), anyString(), anyMapOf(classOf[String], classOf[String])))
+        .thenReturn(Futures.immediateFuture[ServiceClientResponse](AkkaServiceClientResponse(HttpServletResponse.SC_OK, validateTokenResponse())), Nil: _*)
+
+      val response = new MockHttpServletResponse
+      val filterChain = new MockFilterChain()
+      filter.doFilter(request, response, filterChain)
+
+      filterChain.getLastRequest shouldNot be(null)
+      verify(mockAkkaClient, times(1)).getAsync(anyString(), anyString(), any())
+    }
+
+    it("records the time taken by each call to identity") {
+      val metricsService = mock[MetricsService]
+      val identityTimer = mock[TimerByCategory]
+      val timerContext = mock[TimerContext]
+      when(metricsService.newTimerByCategory(any(), anyString(), any(), any())).thenReturn(identityTimer)
+      when(identityTimer.time(anyString())).thenReturn(timerContext)
+
+      val filter = new KeystoneV2Filter(mockConfigService, mockAkkaServiceClient, mockDatastoreService, metricsService)
+      filter.KeystoneV2ConfigListener.configurationUpdated(configuration)
+      filter.SystemModelConfigListener.configurationUpdated(mockSystemModel)
+
+      val request = new MockHttpServletRequest()
+      request.addHeader(CommonHttpHeader.AUTH_TOKEN.toString, VALID_TOKEN)
+
+      when(mockDatastore.get(ADMIN_TOKEN_KEY)).thenReturn(null, "glibglob")
+
+      mockAkkaPostResponse(
+        AkkaServiceClientResponse(HttpServletResponse.SC_OK, adminAuthenticationTokenResponse())
+      )
+
+      mockAkkaGetResponse(s"$TOKEN_KEY_PREFIX$VALID_TOKEN")(
+        "glibglob", AkkaServiceClientResponse(HttpServletResponse.SC_OK, validateTokenResponse())
+      )
+
+      mockAkkaGetResponse(s"$ENDPOINTS_KEY_PREFIX$VALID_TOKEN")(
+        "glibglob", AkkaServiceClientResponse(HttpServletResponse.SC_OK, endpointsResponse())
+      )
+
+      mockAkkaGetResponse(s"$GROUPS_KEY_PREFIX$VALID_TOKEN")(
+        "glibglob", AkkaServiceClientResponse(HttpServletResponse.SC_OK, groupsResponse())
+      )
+
+      val response = new MockHttpServletResponse
+      val filterChain = new MockFilterChain()
+      filter.doFilter(request, response, filterChain)
+
+      filterChain.getLastRequest shouldNot be(null)
+      verify(identityTimer).time(ADMIN_TOKEN_STAGE)
+      verify(identityTimer).time(VALIDATE_TOKEN_STAGE)
+      verify(identityTimer).time(ENDPOINTS_STAGE)
+      verify(identityTimer).time(GROUPS_STAGE)
+      verify(timerContext, times(4)).stop()
+    }
+  }
+
   object TestValidToken {
     def apply(expirationDate: String = "",
               userId: String = "",
@@ -14,6 +14,9 @@ trait MockedAkkaServiceClient {
   import java.util.concurrent.atomic.AtomicBoolean
   import javax.ws.rs.core.MediaType
 
+  import java.util.concurrent.{Callable, TimeUnit}
+
+  import com.google.common.util.concurrent.{ForwardingListenableFuture, ListenableFuture, ListenableFutureTask}
   import com.typesafe.scalalogging.slf4j.LazyLogging
   import org.openrepose.commons.utils.http.ServiceClientResponse
   import org.openrepose.core.services.serviceclient.akka.{AkkaServiceClient, AkkaServiceClientException}
@@ -98,6 +101,38 @@ trait MockedAkkaServiceClient {
         throw new Exception("OVERSTEPPED BOUNDARIES")
       }
     }
+
+    /**
+     * Responses to asynchronous requests are only taken from the mocked responses once they are read, so that requests
+     * the filter sends ahead of time only count against the mocked responses if the filter makes use of them.
+     */
+    override def getAsync(tokenKey: String, uri: String, headers: util.Map[String, String]): ListenableFuture[ServiceClientResponse] =
+      onceRead(get(tokenKey, uri, headers))
+
+    override def postAsync(requestKey: String,
+                           uri: String,
+                           headers: util.Map[String, String],
+                           payload: String,
+                           contentMediaType: MediaType): ListenableFuture[ServiceClientResponse] =
+      onceRead(post(requestKey, uri, headers, payload, contentMediaType))
+
+    private def onceRead(response: => ServiceClientResponse): ListenableFuture[ServiceClientResponse] = {
+      val task = ListenableFutureTask.create(new Callable[ServiceClientResponse] {
+        override def call(): ServiceClientResponse = response
+      })
+
+      new ForwardingListenableFuture.SimpleForwardingListenableFuture[ServiceClientResponse](task) {
+        override def get(): ServiceClientResponse = {
+          task.run()
+          super.get()
+        }
+
+        override def get(timeout: Long, unit: TimeUnit): ServiceClientResponse = {
+          task.run()
+          super.get(timeout, unit)
+        }
+      }
+    }
   }
 
   val mockAkkaServiceClient = new MockAkkaServiceClient
@@ -5,12 +5,13 @@ import javax.servlet._
 
 import com.typesafe.scalalogging.slf4j.LazyLogging
 import org.openrepose.commons.config.manager.UpdateListener
+import org.openrepose.commons.utils.servlet.filter.BodyPassThroughFilter
 import org.openrepose.core.filter.FilterConfigHelper
 import org.openrepose.core.filter.logic.impl.FilterLogicHandlerDelegate
 import org.openrepose.core.services.config.ConfigurationService
 
 @Named
-class MergeHeaderFilter @Inject()(configurationService: ConfigurationService) extends Filter with LazyLogging {
+class MergeHeaderFilter @Inject()(configurationService: ConfigurationService) extends BodyPassThroughFilter with LazyLogging {
   private final val DEFAULT_CONFIG = "merge-header.cfg.xml"
 
   private var config: String = _
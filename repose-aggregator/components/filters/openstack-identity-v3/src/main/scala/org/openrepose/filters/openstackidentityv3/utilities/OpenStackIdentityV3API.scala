@@ -30,7 +30,7 @@ import org.apache.http.Header
 import org.joda.time.DateTime
 import org.openrepose.commons.utils.http.{CommonHttpHeader, HttpDate, ServiceClientResponse}
 import org.openrepose.core.filter.logic.FilterDirector
-import org.openrepose.core.services.datastore.Datastore
+import org.openrepose.core.services.datastore.{Datastore, RefreshAheadCache}
 import org.openrepose.core.services.serviceclient.akka.AkkaServiceClient
 import org.openrepose.filters.openstackidentityv3.config.OpenstackIdentityV3Config
 import org.openrepose.filters.openstackidentityv3.json.spray.IdentityJsonProtocol._
@@ -57,6 +57,8 @@ class OpenStackIdentityV3API(config: OpenstackIdentityV3Config, datastore: Datas
   private val cacheOffset = config.getCacheOffset
   private val tokenCacheTtl = config.getTokenCacheTimeout
   private val groupsCacheTtl = config.getGroupsCacheTimeout
+  private val tokenCache = new RefreshAheadCache(datastore, config.getTokenCacheRefreshWindow,
+    config.getTokenCacheStaleTimeout, TimeUnit.MILLISECONDS)
 
   def getAdminToken(tracingHeader: Option[String] = None, checkCache: Boolean = true): Try[String] = {
     def createAdminAuthRequest() = {
@@ -138,61 +140,66 @@ class OpenStackIdentityV3API(config: OpenstackIdentityV3Config, datastore: Datas
   }
 
   def validateToken(subjectToken: String, tracingHeader: Option[String] = None, checkCache: Boolean = true): Try[AuthenticateResponse] = {
-    getFromCache[AuthenticateResponse](TOKEN_KEY_PREFIX + subjectToken) match {
-      case Some(cachedSubjectTokenObject) =>
-        Success(cachedSubjectTokenObject)
-      case None =>
-        getAdminToken(tracingHeader, checkCache) match {
-          case Success(adminToken) =>
-            val requestTracingHeader = tracingHeader.map(headerValue => Map(CommonHttpHeader.TRACE_GUID.toString -> headerValue))
-              .getOrElse(Map())
-            val headerMap = Map(
-              OpenStackIdentityV3Headers.X_AUTH_TOKEN -> adminToken,
-              OpenStackIdentityV3Headers.X_SUBJECT_TOKEN -> subjectToken,
-              HttpHeaders.ACCEPT -> MediaType.APPLICATION_JSON
-            ) ++ requestTracingHeader
-            val validateTokenResponse = Option(akkaServiceClient.get(
-              TOKEN_KEY_PREFIX + subjectToken,
-              identityServiceUri + TOKEN_ENDPOINT,
-              headerMap.asJava
-            ))
+    Try(tokenCache.get(TOKEN_KEY_PREFIX + subjectToken, new RefreshAheadCache.Loader[AuthenticateResponse] {
+      override def load(): AuthenticateResponse = fetchToken(subjectToken, tracingHeader, checkCache).get
 
-            // Since we *might* get a null back from the akka service client, we have to map it, and then match
-            // because we care to match on the status code of the response, if anything was set.
-            validateTokenResponse.map(response => response.getStatus) match {
-              case Some(statusCode) if statusCode == HttpServletResponse.SC_OK =>
-                val subjectTokenObject = jsonStringToObject[AuthResponse](inputStreamToString(validateTokenResponse.get.getData)).token
+      override def ttl(subjectTokenObject: AuthenticateResponse): Int = {
+        val expiration = new DateTime(subjectTokenObject.expires_at)
+        val identityTtl = safeLongToInt(expiration.getMillis - DateTime.now.getMillis)
+        val offsetConfiguredTtl = offsetTtl(tokenCacheTtl, cacheOffset)
+        // TODO: Come up with a better algorithm to decide the cache TTL and handle negative/0 TTLs
+        val ttl = if (offsetConfiguredTtl < 1) identityTtl else math.max(math.min(offsetConfiguredTtl, identityTtl), 1)
+        logger.debug(s"Caching token '${subjectToken}' with TTL set to: ${ttl}ms")
+        ttl
+      }
 
-                val expiration = new DateTime(subjectTokenObject.expires_at)
-                val identityTtl = safeLongToInt(expiration.getMillis - DateTime.now.getMillis)
-                val offsetConfiguredTtl = offsetTtl(tokenCacheTtl, cacheOffset)
-                // TODO: Come up with a better algorithm to decide the cache TTL and handle negative/0 TTLs
-                val ttl = if (offsetConfiguredTtl < 1) identityTtl else math.max(math.min(offsetConfiguredTtl, identityTtl), 1)
-                logger.debug(s"Caching token '${subjectToken}' with TTL set to: ${ttl}ms")
-                datastore.put(TOKEN_KEY_PREFIX + subjectToken, subjectTokenObject, ttl, TimeUnit.MILLISECONDS)
+      // Only the OpenStack Identity service not finding the token means the cached token should no longer be used
+      override def isTransient(failure: Exception): Boolean = !failure.isInstanceOf[InvalidSubjectTokenException]
+    }))
+  }
 
-                Success(subjectTokenObject)
-              case Some(statusCode) if statusCode == HttpServletResponse.SC_NOT_FOUND =>
-                logger.error("Subject token validation failed. Response Code: 404")
-                Failure(new InvalidSubjectTokenException("Failed to validate subject token"))
-              case Some(statusCode) if statusCode == HttpServletResponse.SC_UNAUTHORIZED && checkCache =>
-                logger.error("Request made with an expired admin token. Fetching a fresh admin token and retrying token validation. Response Code: 401")
-                validateToken(subjectToken, tracingHeader, checkCache = false)
-              case Some(statusCode) if statusCode == HttpServletResponse.SC_UNAUTHORIZED && !checkCache =>
-                logger.error(s"Retry after fetching a new admin token failed. Aborting subject token validation for: '${subjectToken}'")
-                Failure(new IdentityServiceException("Valid admin token could not be fetched"))
-              case Some(statusCode) if statusCode == HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE || statusCode == FilterDirector.SC_TOO_MANY_REQUESTS =>
-                logger.error(s"OpenStack Identity service returned an Over Limit response status code. Response Code: ${statusCode}")
-                Failure(buildIdentityServiceOverLimitException(validateTokenResponse.get))
-              case Some(statusCode) =>
-                logger.error(s"OpenStack Identity service returned an unexpected response status code. Response Code: ${statusCode}")
-                Failure(new IdentityServiceException("Failed to validate subject token"))
-              case None =>
-                logger.error("Unable to validate subject token. Request to OpenStack Identity service timed out.")
-                Failure(new IdentityServiceException("OpenStack Identity service could not be reached to validate subject token"))
-            }
-          case Failure(e) => Failure(e)
+  private def fetchToken(subjectToken: String, tracingHeader: Option[String], checkCache: Boolean): Try[AuthenticateResponse] = {
+    getAdminToken(tracingHeader, checkCache) match {
+      case Success(adminToken) =>
+        val requestTracingHeader = tracingHeader.map(headerValue => Map(CommonHttpHeader.TRACE_GUID.toString -> headerValue))
+          .getOrElse(Map())
+        val headerMap = Map(
+          OpenStackIdentityV3Headers.X_AUTH_TOKEN -> adminToken,
+          OpenStackIdentityV3Headers.X_SUBJECT_TOKEN -> subjectToken,
+          HttpHeaders.ACCEPT -> MediaType.APPLICATION_JSON
+        ) ++ requestTracingHeader
+        val validateTokenResponse = Option(akkaServiceClient.get(
+          TOKEN_KEY_PREFIX + subjectToken,
+          identityServiceUri + TOKEN_ENDPOINT,
+          headerMap.asJava
+        ))
+
+        // Since we *might* get a null back from the akka service client, we have to map it, and then match
+        // because we care to match on the status code of the response, if anything was set.
+        validateTokenResponse.map(response => response.getStatus) match {
+          case Some(statusCode) if statusCode == HttpServletResponse.SC_OK =>
+            val subjectTokenObject = jsonStringToObject[AuthResponse](inputStreamToString(validateTokenResponse.get.getData)).token
+            Success(subjectTokenObject)
+          case Some(statusCode) if statusCode == HttpServletResponse.SC_NOT_FOUND =>
+            logger.error("Subject token validation failed. Response Code: 404")
+            Failure(new InvalidSubjectTokenException("Failed to validate subject token"))
+          case Some(statusCode) if statusCode == HttpServletResponse.SC_UNAUTHORIZED && checkCache =>
+            logger.error("Request made with an expired admin token. Fetching a fresh admin token and retrying token validation. Response Code: 401")
+            fetchToken(subjectToken, tracingHeader, checkCache = false)
+          case Some(statusCode) if statusCode == HttpServletResponse.SC_UNAUTHORIZED && !checkCache =>
+            logger.error(s"Retry after fetching a new admin token failed. Aborting subject token validation for: '${subjectToken}'")
+            Failure(new IdentityServiceException("Valid admin token could not be fetched"))
+          case Some(statusCode) if statusCode == HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE || statusCode == FilterDirector.SC_TOO_MANY_REQUESTS =>
+            logger.error(s"OpenStack Identity service returned an Over Limit response status code. Response Code: ${statusCode}")
+            Failure(buildIdentityServiceOverLimitException(validateTokenResponse.get))
+          case Some(statusCode) =>
+            logger.error(s"OpenStack Identity service returned an unexpected response status code. Response Code: ${statusCode}")
+            Failure(new IdentityServiceException("Failed to validate subject token"))
+          case None =>
+            logger.error("Unable to validate subject token. Request to OpenStack Identity service timed out.")
+            Failure(new IdentityServiceException("OpenStack Identity service could not be reached to validate subject token"))
         }
+      case Failure(e) => Failure(e)
     }
   }
 
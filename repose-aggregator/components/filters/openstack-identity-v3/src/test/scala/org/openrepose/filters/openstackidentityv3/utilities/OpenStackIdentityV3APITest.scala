@@ -27,7 +27,7 @@ import javax.ws.rs.core.MediaType
 
 import org.apache.http.Header
 import org.apache.http.message.BasicHeader
-import org.hamcrest.Matchers.{equalTo, is, lessThanOrEqualTo, theInstance}
+import org.hamcrest.Matchers.{both, equalTo, greaterThan, is, lessThanOrEqualTo, theInstance}
 import org.joda.time.DateTime
 import org.joda.time.format.ISODateTimeFormat
 import org.junit.runner.RunWith
@@ -368,6 +368,28 @@ class OpenStackIdentityV3APITest extends FunSpec with BeforeAndAfter with Matche
       verify(mockDatastore).put(argThat(equalTo("IDENTITY:V3:TOKEN:test-subject-token")), any[Serializable], intThat(lessThanOrEqualTo((expirationTime.getMillis - currentTime.getMillis).toInt)), any[TimeUnit])
     }
 
+    it("should keep a cached token object in the datastore for the stale timeout past its TTL") {
+      identityConfig.setTokenCacheRefreshWindow(10000)
+      identityConfig.setTokenCacheStaleTimeout(60000)
+      identityV3API = new OpenStackIdentityV3API(identityConfig, mockDatastore, mockAkkaServiceClient)
+
+      val mockGetServiceClientResponse = mock[ServiceClientResponse]
+      val currentTime = DateTime.now()
+      val expirationTime = currentTime.plusMillis(100000)
+      val returnJson = "{\"token\":{\"expires_at\":\"" + ISODateTimeFormat.dateTime().print(expirationTime) + "\",\"issued_at\":\"2013-02-27T16:30:59.999999Z\",\"methods\":[\"password\"],\"user\":{\"domain\":{\"id\":\"1789d1\",\"links\":{\"self\":\"http://identity:35357/v3/domains/1789d1\"},\"name\":\"example.com\"},\"id\":\"0ca8f6\",\"links\":{\"self\":\"http://identity:35357/v3/users/0ca8f6\"},\"name\":\"Joe\"}}}"
+
+      when(mockGetServiceClientResponse.getStatus).thenReturn(HttpServletResponse.SC_OK)
+      when(mockGetServiceClientResponse.getData).thenReturn(new ByteArrayInputStream(returnJson.getBytes))
+      when(mockAkkaServiceClient.get(anyString, anyString, anyMap.asInstanceOf[java.util.Map[String, String]])).thenReturn(mockGetServiceClientResponse)
+      when(mockDatastore.get(argThat(equalTo("IDENTITY:V3:ADMIN_TOKEN")))).thenReturn("test-admin-token", Nil: _*)
+
+      identityV3API.validateToken("test-subject-token", None, true) shouldBe a[Success[_]]
+
+      verify(mockDatastore).put(argThat(equalTo("IDENTITY:V3:TOKEN:test-subject-token")), any[Serializable],
+        intThat(both(greaterThan(Int.box(60000))).and(lessThanOrEqualTo(Int.box((expirationTime.getMillis - currentTime.getMillis).toInt + 60000)))),
+        argThat(is(theInstance(TimeUnit.MILLISECONDS))))
+    }
+
     val statusCodes = List(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, FilterDirector.SC_TOO_MANY_REQUESTS)
     statusCodes.foreach { statusCode =>
       describe(s"should return an Exception when receiving $statusCode and") {
@@ -38,13 +38,14 @@ import org.openrepose.core.filter.logic.common.AbstractFilterLogicHandler
 import org.openrepose.core.filter.logic.impl.{FilterDirectorImpl, FilterLogicHandlerDelegate}
 import org.openrepose.core.filter.logic.{FilterAction, FilterDirector}
 import org.openrepose.core.services.config.ConfigurationService
-import org.openrepose.core.services.datastore.DatastoreService
+import org.openrepose.core.services.datastore.{DatastoreService, RefreshAheadCache}
 import org.openrepose.core.services.serviceclient.akka.AkkaServiceClient
 import org.openrepose.filters.rackspaceidentitybasicauth.config.RackspaceIdentityBasicAuthConfig
 import org.springframework.http.HttpHeaders
 
 import scala.collection.JavaConverters._
 import scala.io.Source
+import scala.util.{Failure, Success, Try}
 import scala.xml.XML
 
 @Named
@@ -66,6 +67,7 @@ class RackspaceIdentityBasicAuthFilter @Inject()(configurationService: Configura
   private var config: String = _
   private var identityServiceUri: String = _
   private var tokenCacheTtlMillis: Int = _
+  private var tokenCache: RefreshAheadCache = _
   private var delegationWithQuality: Option[Double] = _
 
   override def init(filterConfig: FilterConfig) {
@@ -85,6 +87,8 @@ class RackspaceIdentityBasicAuthFilter @Inject()(configurationService: Configura
   override def configurationUpdated(config: RackspaceIdentityBasicAuthConfig) {
     identityServiceUri = config.getRackspaceIdentityServiceUri
     tokenCacheTtlMillis = config.getTokenCacheTimeoutMillis
+    tokenCache = new RefreshAheadCache(datastore, config.getTokenCacheRefreshWindowMillis,
+      config.getTokenCacheStaleTimeoutMillis, TimeUnit.MILLISECONDS)
     delegationWithQuality = Option(config.getDelegating).map(_.getQuality)
     initialized = true
   }
@@ -100,6 +104,9 @@ class RackspaceIdentityBasicAuthFilter @Inject()(configurationService: Configura
   override def handleRequest(httpServletRequest: HttpServletRequest, httpServletResponse: ReadableHttpServletResponse): FilterDirector = {
     logger.debug("Handling HTTP Request")
     val filterDirector: FilterDirector = new FilterDirectorImpl()
+    // Read up front, since tokens may be requested again in the background once this request is done
+    val requestTracingHeader = Option(httpServletRequest.getHeader(CommonHttpHeader.TRACE_GUID.toString))
+      .map(guid => Map(CommonHttpHeader.TRACE_GUID.toString -> guid)).getOrElse(Map())
 
     def delegateOrElse(responseCode: Int, message: String)(f: => Any) = {
       delegationWithQuality match {
@@ -176,8 +183,6 @@ class RackspaceIdentityBasicAuthFilter @Inject()(configurationService: Configura
         TokenCreationInfo(HttpServletResponse.SC_UNAUTHORIZED, None, userName)
       } else {
         // Request a User Token based on the extracted User Name/API Key.
-        val requestTracingHeader = Option(httpServletRequest.getHeader(CommonHttpHeader.TRACE_GUID.toString))
-          .map(guid => Map(CommonHttpHeader.TRACE_GUID.toString -> guid)).getOrElse(Map())
         val authTokenResponse = Option(akkaServiceClient.post(authValue,
           identityServiceUri,
           Map[String, String]().++(requestTracingHeader).asJava,
@@ -217,30 +222,40 @@ class RackspaceIdentityBasicAuthFilter @Inject()(configurationService: Configura
       }
     }
 
-    def processNoCachedToken(encodedCredentials: String): Unit = {
-      // request a token
-      getUserToken(encodedCredentials) match {
-        case TokenCreationInfo(_, Some(token), _, _, _) =>
-          val tokenStr = token.toString
-          if (tokenCacheTtlMillis > 0) {
-            datastore.put(TOKEN_KEY_PREFIX + encodedCredentials, tokenStr, tokenCacheTtlMillis, TimeUnit.MILLISECONDS)
+    def getCachedToken(encodedCredentials: String): Try[String] = {
+      Try(tokenCache.get(TOKEN_KEY_PREFIX + encodedCredentials, new RefreshAheadCache.Loader[String] {
+        override def load(): String = {
+          // request a token
+          getUserToken(encodedCredentials) match {
+            case TokenCreationInfo(_, Some(token), _, _, _) => token
+            case failure: TokenCreationInfo => throw TokenCreationException(failure)
           }
-          filterDirector.requestHeaderManager().appendHeader(X_AUTH_TOKEN, tokenStr)
-        case failure: TokenCreationInfo =>
-          processFailedToken(failure, encodedCredentials)
-      }
+        }
+
+        override def ttl(token: String): Int = if (tokenCacheTtlMillis > 0) tokenCacheTtlMillis else -1
+
+        // Identity turning the credentials down means the cached token should no longer be used
+        override def isTransient(failure: Exception): Boolean = {
+          import HttpServletResponse._
+          failure match {
+            case TokenCreationException(TokenCreationInfo(SC_UNAUTHORIZED | SC_BAD_REQUEST | SC_FORBIDDEN | SC_NOT_FOUND, _, _, _, _)) => false
+            case _ => true
+          }
+        }
+      }))
     }
 
     // We need to process the Response unless a couple of specific conditions occur.
     filterDirector.setFilterAction(FilterAction.PROCESS_RESPONSE)
     if (!httpServletRequest.getHeaderNames.asScala.toList.contains(X_AUTH_TOKEN)) {
       withEncodedCredentials(httpServletRequest) { encodedCredentials =>
-        Option(datastore.get(TOKEN_KEY_PREFIX + encodedCredentials)) match {
-          case Some(token) =>
-            val tokenString = token.toString
-            filterDirector.requestHeaderManager().appendHeader(X_AUTH_TOKEN, tokenString)
-          case None =>
-            processNoCachedToken(encodedCredentials)
+        getCachedToken(encodedCredentials) match {
+          case Success(token) =>
+            filterDirector.requestHeaderManager().appendHeader(X_AUTH_TOKEN, token)
+          case Failure(TokenCreationException(failure)) =>
+            processFailedToken(failure, encodedCredentials)
+          case Failure(e) =>
+            throw e
         }
       }
     }
@@ -288,4 +303,10 @@ class RackspaceIdentityBasicAuthFilter @Inject()(configurationService: Configura
    */
   case class TokenCreationInfo(responseCode: Int, userId: Option[String], userName: String, retry: Option[String] = None, responseBody: Option[String] = None)
 
+  /**
+   * Carries a failure to create a token out of the token cache.
+   * @param info The response received from identity
+   */
+  case class TokenCreationException(info: TokenCreationInfo) extends Exception(s"Failed to create a token for ${info.userName}")
+
 }
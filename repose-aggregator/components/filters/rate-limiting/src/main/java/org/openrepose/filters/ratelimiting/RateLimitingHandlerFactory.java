@@ -29,6 +29,7 @@ import org.openrepose.core.services.datastore.DatastoreService;
 import org.openrepose.core.services.event.common.EventService;
 import org.openrepose.core.services.ratelimit.RateLimitingService;
 import org.openrepose.core.services.ratelimit.RateLimitingServiceFactory;
+import org.openrepose.core.services.ratelimit.cache.LocalRateLimitCache;
 import org.openrepose.core.services.ratelimit.cache.ManagedRateLimitCache;
 import org.openrepose.core.services.ratelimit.cache.RateLimitCache;
 import org.openrepose.core.services.ratelimit.config.DatastoreType;
@@ -48,6 +49,8 @@ public class RateLimitingHandlerFactory extends AbstractConfiguredFilterHandlerF
     private static final String DEFAULT_DATASTORE_NAME = "local/default";
     private final DatastoreService datastoreService;
     private RateLimitCache rateLimitCache;
+    // Kept across configuration updates so that local counters survive a reload
+    private LocalRateLimitCache localRateLimitCache;
     //Volatile
     private Optional<Pattern> describeLimitsUriRegex;
     private RateLimitingConfiguration rateLimitingConfig;
@@ -101,6 +104,23 @@ public class RateLimitingHandlerFactory extends AbstractConfiguredFilterHandlerF
         return targetDatastore;
     }
 
+    /**
+     * Limits tracked in the default datastore never leave this node, so they are kept in a dedicated in-memory cache
+     * instead of being serialized into the datastore on every request.
+     */
+    private RateLimitCache getRateLimitCache(DatastoreType datastoreType) {
+        final Datastore datastore = getDatastore(datastoreType);
+
+        if (datastore == datastoreService.getDefaultDatastore()) {
+            if (localRateLimitCache == null) {
+                localRateLimitCache = new LocalRateLimitCache();
+            }
+            return localRateLimitCache;
+        }
+
+        return new ManagedRateLimitCache(datastore);
+    }
+
     @Override
     protected RateLimitingHandler buildHandler() {
 
@@ -127,7 +147,7 @@ public class RateLimitingHandlerFactory extends AbstractConfiguredFilterHandlerF
         @Override
         public void configurationUpdated(RateLimitingConfiguration configurationObject) {
 
-            rateLimitCache = new ManagedRateLimitCache(getDatastore(configurationObject.getDatastore()));
+            rateLimitCache = getRateLimitCache(configurationObject.getDatastore());
 
             service = RateLimitingServiceFactory.createRateLimitingService(rateLimitCache, configurationObject);
 
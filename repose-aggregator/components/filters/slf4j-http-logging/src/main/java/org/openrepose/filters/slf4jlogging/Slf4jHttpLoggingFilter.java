@@ -49,6 +49,7 @@ public class Slf4jHttpLoggingFilter implements Filter {
     @Override
     public void destroy() {
         configurationService.unsubscribeFrom(config, handlerFactory);
+        handlerFactory.destroy();
     }
 
     @Override
@@ -19,21 +19,32 @@
  */
 package org.openrepose.filters.slf4jlogging;
 
+import org.openrepose.commons.utils.logging.AsyncLogWriter;
 import org.openrepose.commons.utils.logging.apache.HttpLogFormatter;
 import org.openrepose.commons.utils.servlet.http.ReadableHttpServletResponse;
 import org.openrepose.core.filter.logic.FilterAction;
 import org.openrepose.core.filter.logic.FilterDirector;
 import org.openrepose.core.filter.logic.common.AbstractFilterLogicHandler;
 import org.openrepose.core.filter.logic.impl.FilterDirectorImpl;
+import org.slf4j.Logger;
 
 import javax.servlet.http.HttpServletRequest;
 import java.util.List;
 
 public class Slf4jHttpLoggingHandler extends AbstractFilterLogicHandler {
     private final List<Slf4jLoggerWrapper> loggers;
+    private final AsyncLogWriter logWriter;
 
     public Slf4jHttpLoggingHandler(List<Slf4jLoggerWrapper> loggers) {
+        this(loggers, null);
+    }
+
+    /**
+     * @param logWriter the writer to hand log lines to, or null to write them as the response is handled
+     */
+    public Slf4jHttpLoggingHandler(List<Slf4jLoggerWrapper> loggers, AsyncLogWriter logWriter) {
         this.loggers = loggers;
+        this.logWriter = logWriter;
     }
 
     @Override
@@ -44,8 +55,14 @@ public class Slf4jHttpLoggingHandler extends AbstractFilterLogicHandler {
 
         for (Slf4jLoggerWrapper wrapper : loggers) {
             //format the string and send it to the logger
+            //the line is always formatted here, as the formatter reads the request and response themselves
             HttpLogFormatter formatter = wrapper.getFormatter();
-            wrapper.getLogger().info(formatter.format(request, response));
+            final String line = formatter.format(request, response);
+            if (logWriter == null) {
+                wrapper.getLogger().info(line);
+            } else {
+                logWriter.write(new LogLineEvent(wrapper.getLogger(), line));
+            }
         }
 
         return filterDirector;
@@ -59,4 +76,19 @@ public class Slf4jHttpLoggingHandler extends AbstractFilterLogicHandler {
         return filterDirector;
 
     }
+
+    private static final class LogLineEvent implements AsyncLogWriter.LogEvent {
+        private final Logger logger;
+        private final String line;
+
+        private LogLineEvent(Logger logger, String line) {
+            this.logger = logger;
+            this.line = line;
+        }
+
+        @Override
+        public void write() {
+            logger.info(line);
+        }
+    }
 }
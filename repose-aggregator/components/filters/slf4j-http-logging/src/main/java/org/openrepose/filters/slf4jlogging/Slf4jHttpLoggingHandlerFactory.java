@@ -21,7 +21,9 @@ package org.openrepose.filters.slf4jlogging;
 
 import org.openrepose.commons.config.manager.UpdateListener;
 import org.openrepose.commons.utils.StringUtilities;
+import org.openrepose.commons.utils.logging.AsyncLogWriter;
 import org.openrepose.core.filter.logic.AbstractConfiguredFilterHandlerFactory;
+import org.openrepose.filters.slf4jlogging.config.AsyncLogging;
 import org.openrepose.filters.slf4jlogging.config.FormatElement;
 import org.openrepose.filters.slf4jlogging.config.Slf4JHttpLog;
 import org.openrepose.filters.slf4jlogging.config.Slf4JHttpLoggingConfig;
@@ -36,6 +38,7 @@ import java.util.concurrent.CopyOnWriteArrayList;
 public class Slf4jHttpLoggingHandlerFactory extends AbstractConfiguredFilterHandlerFactory<Slf4jHttpLoggingHandler> {
 
     private final List<Slf4jLoggerWrapper> loggerWrappers;
+    private volatile AsyncLogWriter logWriter;
 
     public Slf4jHttpLoggingHandlerFactory() {
         loggerWrappers = new CopyOnWriteArrayList<Slf4jLoggerWrapper>();
@@ -60,7 +63,21 @@ public class Slf4jHttpLoggingHandlerFactory extends AbstractConfiguredFilterHand
         if (!this.isInitialized()) {
             return null;
         }
-        return new Slf4jHttpLoggingHandler(new LinkedList<Slf4jLoggerWrapper>(loggerWrappers));
+        return new Slf4jHttpLoggingHandler(new LinkedList<Slf4jLoggerWrapper>(loggerWrappers), logWriter);
+    }
+
+    public void destroy() {
+        replaceLogWriter(null);
+    }
+
+    // Lines already queued on the writer being replaced are written as it is destroyed
+    private synchronized void replaceLogWriter(AsyncLogWriter newLogWriter) {
+        final AsyncLogWriter oldLogWriter = logWriter;
+        logWriter = newLogWriter;
+
+        if (oldLogWriter != null) {
+            oldLogWriter.destroy();
+        }
     }
 
     private class Slf4jHttpLoggingConfigurationListener implements UpdateListener<Slf4JHttpLoggingConfig> {
@@ -101,6 +118,12 @@ public class Slf4jHttpLoggingHandlerFactory extends AbstractConfiguredFilterHand
             loggerWrappers.clear();
             loggerWrappers.addAll(transaction);
 
+            final AsyncLogging asyncLogging = modifiedConfig.getAsyncLogging();
+            replaceLogWriter(asyncLogging == null ? null : new AsyncLogWriter("SLF4J HTTP",
+                    asyncLogging.getQueueSize(),
+                    asyncLogging.getBatchSize(),
+                    AsyncLogWriter.OverflowPolicy.valueOf(asyncLogging.getOverflow().name())));
+
             isInitialized = true;
         }
 
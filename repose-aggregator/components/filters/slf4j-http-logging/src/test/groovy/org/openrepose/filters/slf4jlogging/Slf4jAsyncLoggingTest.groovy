@@ -0,0 +1,93 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.filters.slf4jlogging
+
+import com.mockrunner.mock.web.MockHttpServletRequest
+import org.apache.logging.log4j.LogManager
+import org.apache.logging.log4j.core.LoggerContext
+import org.apache.logging.log4j.test.appender.ListAppender
+import org.openrepose.commons.utils.servlet.http.ReadableHttpServletResponse
+import org.openrepose.filters.slf4jlogging.config.AsyncLogging
+import org.openrepose.filters.slf4jlogging.config.OverflowPolicy
+import org.openrepose.filters.slf4jlogging.config.Slf4JHttpLoggingConfig
+import org.slf4j.MDC
+import spock.lang.Specification
+
+import static org.mockito.Mockito.mock
+
+class Slf4jAsyncLoggingTest extends Specification {
+    ListAppender app
+    Slf4jHttpLoggingHandlerFactory factory
+
+    def setup() {
+        LoggerContext ctx = (LoggerContext) LogManager.getContext(false)
+        app = ((ListAppender) (ctx.getConfiguration().getAppender("List1"))).clear()
+
+        def asyncLogging = new AsyncLogging()
+        asyncLogging.setQueueSize(16)
+        asyncLogging.setBatchSize(4)
+        asyncLogging.setOverflow(OverflowPolicy.DROP)
+
+        def config = new Slf4JHttpLoggingConfig()
+        config.getSlf4JHttpLog().add(Slf4jLoggingFilterTestUtil.logConfig("Logger1", "%m"))
+        config.setAsyncLogging(asyncLogging)
+
+        factory = new Slf4jHttpLoggingHandlerFactory()
+        factory.configurationUpdated(config)
+    }
+
+    def cleanup() {
+        factory.destroy()
+        MDC.clear()
+    }
+
+    def "Log lines written asynchronously keep the MDC of the request that logged them"() {
+        given:
+        def request = new MockHttpServletRequest()
+        request.setMethod("GET")
+        MDC.put("traceGuid", "the-trace-guid")
+
+        when:
+        factory.newHandler().handleResponse(request, mock(ReadableHttpServletResponse))
+        MDC.clear()
+        factory.destroy()
+
+        then:
+        app.getEvents().size() == 1
+        app.getEvents()[0].getMessage().getFormattedMessage() == "GET"
+        app.getEvents()[0].getContextMap().get("traceGuid") == "the-trace-guid"
+        app.getEvents()[0].getThreadName() != Thread.currentThread().getName()
+    }
+
+    def "Log lines handed over after the writer is destroyed are still written"() {
+        given:
+        def handler = factory.newHandler()
+        def request = new MockHttpServletRequest()
+        request.setMethod("PUT")
+
+        when:
+        factory.destroy()
+        handler.handleResponse(request, mock(ReadableHttpServletResponse))
+
+        then:
+        app.getEvents().size() == 1
+        app.getEvents()[0].getMessage().getFormattedMessage() == "PUT"
+    }
+}
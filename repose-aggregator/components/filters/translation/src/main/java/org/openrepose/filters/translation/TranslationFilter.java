@@ -22,6 +22,7 @@ package org.openrepose.filters.translation;
 import org.openrepose.core.filter.FilterConfigHelper;
 import org.openrepose.core.filter.logic.impl.FilterLogicHandlerDelegate;
 import org.openrepose.core.services.config.ConfigurationService;
+import org.openrepose.core.services.reporting.metrics.MetricsService;
 import org.openrepose.core.spring.ReposeSpringProperties;
 import org.openrepose.filters.translation.config.TranslationConfig;
 import org.slf4j.Logger;
@@ -39,14 +40,17 @@ public class TranslationFilter implements Filter {
     private static final Logger LOG = org.slf4j.LoggerFactory.getLogger(TranslationFilter.class);
     private static final String DEFAULT_CONFIG = "translation.cfg.xml";
     private final ConfigurationService configurationService;
+    private final MetricsService metricsService;
     private String config;
     private TranslationHandlerFactory handlerFactory;
     private String configurationRoot;
 
     @Inject
     public TranslationFilter(ConfigurationService configurationService,
+                             MetricsService metricsService,
                              @Value(ReposeSpringProperties.CORE.CONFIG_ROOT) String configurationRoot) {
         this.configurationService = configurationService;
+        this.metricsService = metricsService;
         this.configurationRoot = configurationRoot;
     }
 
@@ -64,7 +68,7 @@ public class TranslationFilter implements Filter {
     public void init(FilterConfig filterConfig) throws ServletException {
         config = new FilterConfigHelper(filterConfig).getFilterConfig(DEFAULT_CONFIG);
         LOG.info("Initializing filter using config " + config);
-        handlerFactory = new TranslationHandlerFactory(configurationService, configurationRoot, config);
+        handlerFactory = new TranslationHandlerFactory(configurationService, configurationRoot, config, metricsService);
         URL xsdURL = getClass().getResource("/META-INF/schema/config/translation-configuration.xsd");
         this.configurationService.subscribeTo(filterConfig.getFilterName(), config, xsdURL, handlerFactory, TranslationConfig.class);
     }
@@ -165,7 +165,7 @@ public class TranslationHandler extends AbstractFilterLogicHandler {
                     for (XmlChainPool pool : pools) {
                         if (in.available() > 0) {
                             result = pool.executePool(
-                                    new TranslationPreProcessor(in, contentType, true).getBodyStream(),
+                                    new TranslationPreProcessor(in, contentType, true).getBodySource(),
                                     filterDirector.getResponseOutputStream(),
                                     getInputParameters(TranslationType.RESPONSE, request, response, result));
 
@@ -215,7 +215,7 @@ public class TranslationHandler extends AbstractFilterLogicHandler {
             for (XmlChainPool pool : pools) {
                 final ByteBuffer internalBuffer = new CyclicByteBuffer(DEFAULT_BUFFER_SIZE, true);
                 result = pool.executePool(
-                        new TranslationPreProcessor(in, contentType, true).getBodyStream(),
+                        new TranslationPreProcessor(in, contentType, true).getBodySource(),
                         new ByteBufferServletOutputStream(internalBuffer),
                         getInputParameters(TranslationType.REQUEST, request, response, result));
 
@@ -20,41 +20,60 @@
 package org.openrepose.filters.translation;
 
 import com.saxonica.config.EnterpriseTransformerFactory;
+import com.yammer.metrics.core.Gauge;
 import org.apache.commons.pool.ObjectPool;
-import org.apache.commons.pool.impl.SoftReferenceObjectPool;
+import org.apache.commons.pool.impl.GenericObjectPool;
 import org.openrepose.commons.config.manager.UpdateListener;
 import org.openrepose.core.filter.logic.AbstractConfiguredFilterHandlerFactory;
 import org.openrepose.core.services.config.ConfigurationService;
+import org.openrepose.core.services.reporting.metrics.MetricsService;
+import org.openrepose.core.services.reporting.metrics.TimerByCategory;
 import org.openrepose.filters.translation.config.*;
 import org.openrepose.filters.translation.xslt.XsltParameter;
 import org.openrepose.filters.translation.xslt.xmlfilterchain.XmlChainPool;
 import org.openrepose.filters.translation.xslt.xmlfilterchain.XmlFilterChain;
 import org.openrepose.filters.translation.xslt.xmlfilterchain.XmlFilterChainBuilder;
 import org.openrepose.filters.translation.xslt.xmlfilterchain.XmlFilterChainFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.sax.SAXTransformerFactory;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 public class TranslationHandlerFactory extends AbstractConfiguredFilterHandlerFactory<TranslationHandler> {
 
     public static final String SAXON_HE_FACTORY_NAME = "net.sf.saxon.TransformerFactoryImpl";
     public static final String SAXON_EE_FACTORY_NAME = "com.saxonica.config.EnterpriseTransformerFactory";
 
+    private static final Logger LOG = LoggerFactory.getLogger(TranslationHandlerFactory.class);
     private final List<XmlChainPool> responseProcessorPools;
     private final List<XmlChainPool> requestProcessorPools;
     private final String configurationRoot;
     private final Object lock = new Object();
     private final XslUpdateListener xslListener;
     private final String config;
+    private final MetricsService metricsService;
+    private final TimerByCategory borrowWaitTimer;
+    private final TimerByCategory transformTimer;
+    private final Set<String> gaugedPools = new HashSet<String>();
+    private volatile Map<String, XmlChainPool> poolsByName = new HashMap<String, XmlChainPool>();
     private SAXTransformerFactory transformerFactory;
     private TranslationConfig configuration;
     private XmlFilterChainBuilder xsltChainBuilder;
 
     public TranslationHandlerFactory(ConfigurationService configService, String configurationRoot, String config) {
+        this(configService, configurationRoot, config, null);
+    }
+
+    public TranslationHandlerFactory(ConfigurationService configService, String configurationRoot, String config,
+                                     MetricsService metricsService) {
 
         transformerFactory = (SAXTransformerFactory) TransformerFactory.newInstance(SAXON_HE_FACTORY_NAME, this.getClass().getClassLoader());
 
@@ -63,6 +82,16 @@ public class TranslationHandlerFactory extends AbstractConfiguredFilterHandlerFa
         this.configurationRoot = configurationRoot;
         this.config = config;
         xslListener = new XslUpdateListener(this, configService, configurationRoot);
+        this.metricsService = metricsService;
+        if (metricsService != null) {
+            borrowWaitTimer = metricsService.newTimerByCategory(TranslationFilter.class, "Chain Borrow Wait",
+                    TimeUnit.MILLISECONDS, TimeUnit.SECONDS);
+            transformTimer = metricsService.newTimerByCategory(TranslationFilter.class, "Transform Time",
+                    TimeUnit.MILLISECONDS, TimeUnit.SECONDS);
+        } else {
+            borrowWaitTimer = null;
+            transformTimer = null;
+        }
     }
 
     @Override
@@ -97,8 +126,85 @@ public class TranslationHandlerFactory extends AbstractConfiguredFilterHandlerFa
         return params;
     }
 
-    private ObjectPool<XmlFilterChain> buildChainPool(final TranslationBase translation) {
-        return new SoftReferenceObjectPool<XmlFilterChain>(new XmlFilterChainFactory(xsltChainBuilder, translation, configurationRoot, config));
+    /**
+     * Builds a pool that grows as requests need more chains, up to its limit, and drops the chains that go unused for
+     * too long. It starts with the chains it keeps when idle already built, so the first requests do not compile them.
+     */
+    private ObjectPool<XmlFilterChain> buildChainPool(final TranslationBase translation, final String name) {
+        final GenericObjectPool.Config poolConfig = new GenericObjectPool.Config();
+        poolConfig.maxActive = configuration.getMaxPooledChains() > 0 ? configuration.getMaxPooledChains() : -1;
+        poolConfig.maxIdle = poolConfig.maxActive;
+        poolConfig.minIdle = Math.max(configuration.getMinIdleChains(), 0);
+        poolConfig.whenExhaustedAction = GenericObjectPool.WHEN_EXHAUSTED_BLOCK;
+        poolConfig.maxWait = configuration.getChainMaxWait() > 0 ? configuration.getChainMaxWait() : -1;
+        if (configuration.getChainIdleTimeout() > 0) {
+            poolConfig.minEvictableIdleTimeMillis = configuration.getChainIdleTimeout();
+            poolConfig.timeBetweenEvictionRunsMillis = Math.max(configuration.getChainIdleTimeout() / 2, 1000);
+            // Every idle chain is checked on each run
+            poolConfig.numTestsPerEvictionRun = -1;
+        } else {
+            poolConfig.timeBetweenEvictionRunsMillis = -1;
+        }
+
+        final ObjectPool<XmlFilterChain> pool = new GenericObjectPool<XmlFilterChain>(
+                new XmlFilterChainFactory(xsltChainBuilder, translation, configurationRoot, config), poolConfig);
+        try {
+            for (int i = 0; i < poolConfig.minIdle; i++) {
+                pool.addObject();
+            }
+        } catch (Exception e) {
+            LOG.warn("Unable to build the XmlFilterChains for {} ahead of requests. Reason: {}", name, e.getLocalizedMessage());
+            LOG.trace("", e);
+        }
+
+        return pool;
+    }
+
+    private XmlChainPool getPool(String name) {
+        return poolsByName.get(name);
+    }
+
+    /**
+     * Reports the chains of the named pool. The gauges outlive the pool, since metrics are only ever registered once,
+     * so they look up whichever pool currently has the name.
+     */
+    private void addGauges(final String name) {
+        if (metricsService == null || !gaugedPools.add(name)) {
+            return;
+        }
+
+        metricsService.newGauge(TranslationFilter.class, "Active Chains", name, new Gauge<Integer>() {
+            @Override
+            public Integer value() {
+                final XmlChainPool pool = getPool(name);
+                return pool != null ? pool.getNumActive() : 0;
+            }
+        });
+        metricsService.newGauge(TranslationFilter.class, "Idle Chains", name, new Gauge<Integer>() {
+            @Override
+            public Integer value() {
+                final XmlChainPool pool = getPool(name);
+                return pool != null ? pool.getNumIdle() : 0;
+            }
+        });
+    }
+
+    private XmlChainPool buildProcessorPool(TranslationBase translation, List<HttpMethod> httpMethods, String codeRegex,
+                                            String poolName) {
+        // Pool names are only unique within a configuration, so the metrics of a pool are scoped by it too
+        final String name = config + "-" + poolName;
+        addGauges(name);
+        return new XmlChainPool(
+                translation.getContentType(),
+                translation.getAccept(),
+                httpMethods,
+                codeRegex,
+                translation.getTranslatedContentType(),
+                buildXslParamList(translation),
+                buildChainPool(translation, name),
+                name,
+                borrowWaitTimer,
+                transformTimer);
     }
 
     private void addStyleSheetsToWatchList(final TranslationBase translation) {
@@ -113,6 +219,8 @@ public class TranslationHandlerFactory extends AbstractConfiguredFilterHandlerFa
 
     public void buildProcessorPools() {
         synchronized (lock) {
+            final List<XmlChainPool> previousPools = new ArrayList<XmlChainPool>(requestProcessorPools);
+            previousPools.addAll(responseProcessorPools);
             requestProcessorPools.clear();
             responseProcessorPools.clear();
 
@@ -128,39 +236,34 @@ public class TranslationHandlerFactory extends AbstractConfiguredFilterHandlerFa
                 }
             }
 
+            int index = 0;
             if (configuration.getResponseTranslations() != null) {
                 for (final ResponseTranslation translation : configuration.getResponseTranslations().getResponseTranslation()) {
-                    List<XsltParameter> params = buildXslParamList(translation);
-                    ObjectPool<XmlFilterChain> pool = buildChainPool(translation);
-
-                    responseProcessorPools.add(new XmlChainPool(
-                            translation.getContentType(),
-                            translation.getAccept(),
-                            null,
-                            translation.getCodeRegex(),
-                            translation.getTranslatedContentType(),
-                            params,
-                            pool));
+                    responseProcessorPools.add(buildProcessorPool(translation, null, translation.getCodeRegex(),
+                            "response-translation-" + index++));
                 }
             }
 
+            index = 0;
             if (configuration.getRequestTranslations() != null) {
                 for (final RequestTranslation translation : configuration.getRequestTranslations().getRequestTranslation()) {
-
-                    List<XsltParameter> params = buildXslParamList(translation);
-                    ObjectPool<XmlFilterChain> pool = buildChainPool(translation);
-
-                    requestProcessorPools.add(new XmlChainPool(
-                            translation.getContentType(),
-                            translation.getAccept(),
-                            translation.getHttpMethods(),
-                            null,
-                            translation.getTranslatedContentType(),
-                            params,
-                            pool));
+                    requestProcessorPools.add(buildProcessorPool(translation, translation.getHttpMethods(), null,
+                            "request-translation-" + index++));
                 }
             }
 
+            final Map<String, XmlChainPool> pools = new HashMap<String, XmlChainPool>();
+            for (XmlChainPool pool : requestProcessorPools) {
+                pools.put(pool.getName(), pool);
+            }
+            for (XmlChainPool pool : responseProcessorPools) {
+                pools.put(pool.getName(), pool);
+            }
+            poolsByName = pools;
+
+            for (XmlChainPool pool : previousPools) {
+                pool.retire();
+            }
         }
     }
 
@@ -24,9 +24,12 @@ import org.openrepose.commons.utils.http.media.MediaType;
 import org.openrepose.filters.translation.httpx.processor.cdata.UnknownContentStreamProcessor;
 import org.openrepose.filters.translation.httpx.processor.common.InputStreamProcessor;
 import org.openrepose.filters.translation.httpx.processor.json.JsonxStreamProcessor;
+import org.openrepose.filters.translation.httpx.processor.json.JsonxXmlReader;
 import org.openrepose.filters.translation.httpx.processor.util.BodyContentMediaType;
+import org.xml.sax.InputSource;
 
 import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXSource;
 import javax.xml.transform.sax.SAXTransformerFactory;
 import java.io.IOException;
 import java.io.InputStream;
@@ -34,6 +37,7 @@ import java.io.InputStream;
 public class TranslationPreProcessor {
 
     private static final SAXTransformerFactory HANDLER_FACTORY = (SAXTransformerFactory) TransformerFactory.newInstance("net.sf.saxon.TransformerFactoryImpl", TranslationPreProcessor.class.getClassLoader());
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
     private final boolean jsonPreprocessing;
     private final MediaType contentType;
     private final InputStream input;
@@ -66,6 +70,23 @@ public class TranslationPreProcessor {
         return result;
     }
 
+    /**
+     * Gets the body as the source of an XML filter chain. A JSON body is parsed straight into the SAX events of its
+     * JSONx form by the source's reader, rather than being written out as XML for the chain to parse again. Any other
+     * body has no reader, and is parsed from the stream given by {@link #getBodyStream()}.
+     */
+    public SAXSource getBodySource() throws IOException {
+        if (jsonPreprocessing && BodyContentMediaType.getMediaType(contentType.getMimeType().getMimeType()) == BodyContentMediaType.JSON) {
+            return new SAXSource(getJsonReader(), new InputSource(input));
+        }
+
+        return new SAXSource(new InputSource(getBodyStream()));
+    }
+
+    protected JsonxXmlReader getJsonReader() {
+        return new JsonxXmlReader(JSON_FACTORY);
+    }
+
     protected InputStreamProcessor getJsonProcessor() {
         return new JsonxStreamProcessor(new JsonFactory(), HANDLER_FACTORY);
     }
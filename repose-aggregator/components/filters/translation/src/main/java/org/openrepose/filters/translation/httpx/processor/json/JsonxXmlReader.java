@@ -0,0 +1,198 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.filters.translation.httpx.processor.json;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import org.openrepose.filters.translation.httpx.processor.common.Element;
+import org.openrepose.filters.translation.httpx.processor.json.elements.ElementFactory;
+import org.xml.sax.*;
+
+import java.io.IOException;
+import java.net.URL;
+
+/**
+ * Parses a JSON document straight into the SAX events of its JSONx form, so that it can be the source of an XML filter
+ * chain without being written out as XML and parsed again. Tokens are passed on as Jackson reads them, so nothing
+ * beyond the current token is held by the reader.
+ */
+public class JsonxXmlReader implements XMLReader {
+
+    private static final String JSON_URI = "http://www.ibm.com/xmlns/prod/2009/jsonx";
+    private static final String XSD_URI = "http://www.w3.org/2001/XMLSchema";
+    private static final String JSON_PREFIX = "json";
+    private static final String XSD_PREFIX = "xsd";
+    private static final String NAMESPACES_FEATURE = "http://xml.org/sax/features/namespaces";
+    private static final String NAMESPACE_PREFIXES_FEATURE = "http://xml.org/sax/features/namespace-prefixes";
+    private final JsonFactory jsonFactory;
+    private ContentHandler contentHandler;
+    private ErrorHandler errorHandler;
+    private DTDHandler dtdHandler;
+    private EntityResolver entityResolver;
+
+    public JsonxXmlReader(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    @Override
+    public void parse(InputSource input) throws IOException, SAXException {
+        final JsonParser jp;
+        if (input.getCharacterStream() != null) {
+            jp = jsonFactory.createJsonParser(input.getCharacterStream());
+        } else if (input.getByteStream() != null) {
+            jp = jsonFactory.createJsonParser(input.getByteStream());
+        } else if (input.getSystemId() != null) {
+            jp = jsonFactory.createJsonParser(new URL(input.getSystemId()));
+        } else {
+            throw new SAXException("No JSON to parse - the input source has neither a stream nor a system id");
+        }
+
+        try {
+            parse(jp, input.getSystemId());
+        } finally {
+            jp.close();
+        }
+    }
+
+    @Override
+    public void parse(String systemId) throws IOException, SAXException {
+        parse(new InputSource(systemId));
+    }
+
+    private void parse(JsonParser jp, String systemId) throws IOException, SAXException {
+        final ContentHandler handler = contentHandler;
+        if (handler == null) {
+            throw new SAXException("No content handler to send the JSON document to");
+        }
+
+        handler.startDocument();
+        handler.startPrefixMapping(JSON_PREFIX, JSON_URI);
+        handler.startPrefixMapping(XSD_PREFIX, XSD_URI);
+
+        try {
+            while (jp.nextToken() != null) {
+                outputItem(jp, handler);
+            }
+        } catch (JsonProcessingException ex) {
+            final JsonLocation location = ex.getLocation();
+            final SAXParseException parseException = location != null ?
+                    new SAXParseException(ex.getOriginalMessage(), null, systemId, location.getLineNr(), location.getColumnNr(), ex) :
+                    new SAXParseException(ex.getOriginalMessage(), null, systemId, -1, -1, ex);
+            if (errorHandler != null) {
+                errorHandler.fatalError(parseException);
+            }
+            throw parseException;
+        }
+
+        handler.endPrefixMapping(XSD_PREFIX);
+        handler.endPrefixMapping(JSON_PREFIX);
+        handler.endDocument();
+    }
+
+    private void outputItem(JsonParser jp, ContentHandler handler) throws IOException, SAXException {
+        JsonToken token = jp.getCurrentToken();
+        String fieldName = jp.getCurrentName();
+
+        if (token.isScalarValue()) {
+            if (token.isNumeric()) {
+                ElementFactory.getScalarElement(token.name(), fieldName, jp.getNumberValue()).outputElement(handler);
+            } else {
+                ElementFactory.getScalarElement(token.name(), fieldName, jp.getText()).outputElement(handler);
+            }
+        } else {
+            Element element = ElementFactory.getElement(token.name(), fieldName);
+            if (element != null) {
+                element.outputElement(handler);
+            }
+        }
+    }
+
+    // The JSONx events always carry namespaces and never carry xmlns attributes, which is what these two features ask
+    @Override
+    public boolean getFeature(String name) throws SAXNotRecognizedException, SAXNotSupportedException {
+        if (NAMESPACES_FEATURE.equals(name)) {
+            return true;
+        } else if (NAMESPACE_PREFIXES_FEATURE.equals(name)) {
+            return false;
+        }
+
+        throw new SAXNotRecognizedException(name);
+    }
+
+    @Override
+    public void setFeature(String name, boolean value) throws SAXNotRecognizedException, SAXNotSupportedException {
+        if (getFeature(name) != value) {
+            throw new SAXNotSupportedException(name + " can not be set to " + value);
+        }
+    }
+
+    @Override
+    public Object getProperty(String name) throws SAXNotRecognizedException, SAXNotSupportedException {
+        throw new SAXNotRecognizedException(name);
+    }
+
+    @Override
+    public void setProperty(String name, Object value) throws SAXNotRecognizedException, SAXNotSupportedException {
+        throw new SAXNotRecognizedException(name);
+    }
+
+    @Override
+    public EntityResolver getEntityResolver() {
+        return entityResolver;
+    }
+
+    @Override
+    public void setEntityResolver(EntityResolver resolver) {
+        this.entityResolver = resolver;
+    }
+
+    @Override
+    public DTDHandler getDTDHandler() {
+        return dtdHandler;
+    }
+
+    @Override
+    public void setDTDHandler(DTDHandler handler) {
+        this.dtdHandler = handler;
+    }
+
+    @Override
+    public ContentHandler getContentHandler() {
+        return contentHandler;
+    }
+
+    @Override
+    public void setContentHandler(ContentHandler handler) {
+        this.contentHandler = handler;
+    }
+
+    @Override
+    public ErrorHandler getErrorHandler() {
+        return errorHandler;
+    }
+
+    @Override
+    public void setErrorHandler(ErrorHandler handler) {
+        this.errorHandler = handler;
+    }
+}
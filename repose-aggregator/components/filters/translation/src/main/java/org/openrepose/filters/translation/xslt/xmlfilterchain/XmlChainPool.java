@@ -20,18 +20,23 @@
 package org.openrepose.filters.translation.xslt.xmlfilterchain;
 
 import org.apache.commons.pool.ObjectPool;
+import org.apache.commons.pool.impl.GenericObjectPool;
 import org.openrepose.commons.utils.StringUtilities;
 import org.openrepose.commons.utils.http.media.MediaType;
 import org.openrepose.commons.utils.http.media.MimeType;
+import org.openrepose.core.services.reporting.metrics.TimerByCategory;
 import org.openrepose.filters.translation.config.HttpMethod;
 import org.openrepose.filters.translation.xslt.XsltException;
 import org.openrepose.filters.translation.xslt.XsltParameter;
+import org.xml.sax.InputSource;
 
+import javax.xml.transform.sax.SAXSource;
 import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
 public class XmlChainPool {
@@ -46,9 +51,22 @@ public class XmlChainPool {
     private final Pattern statusRegex;
     private final List<HttpMethod> httpMethods;
     private final List<XsltParameter> params;
+    private final String name;
+    private final TimerByCategory borrowWaitTimer;
+    private final TimerByCategory transformTimer;
     private boolean allMethods;
 
     public XmlChainPool(String contentType, String accept, List<HttpMethod> httpMethods, String statusRegex, String resultContentType, List<XsltParameter> params, ObjectPool<XmlFilterChain> pool) {
+        this(contentType, accept, httpMethods, statusRegex, resultContentType, params, pool, null, null, null);
+    }
+
+    /**
+     * @param name            the name the metrics of this pool are recorded under
+     * @param borrowWaitTimer records how long requests wait for a chain, or null to not record it
+     * @param transformTimer  records how long chains take to run, or null to not record it
+     */
+    public XmlChainPool(String contentType, String accept, List<HttpMethod> httpMethods, String statusRegex, String resultContentType, List<XsltParameter> params, ObjectPool<XmlFilterChain> pool,
+                        String name, TimerByCategory borrowWaitTimer, TimerByCategory transformTimer) {
         this.contentType = contentType;
         this.acceptAllContentTypes = StringUtilities.nullSafeEqualsIgnoreCase(this.contentType, MimeType.WILDCARD.getMimeType());
         this.accept = accept;
@@ -58,6 +76,9 @@ public class XmlChainPool {
         this.httpMethods = httpMethods != null ? httpMethods : new ArrayList<HttpMethod>();
         this.statusRegex = StringUtilities.isNotBlank(statusRegex) ? Pattern.compile(statusRegex) : null;
         this.params = params;
+        this.name = name;
+        this.borrowWaitTimer = borrowWaitTimer;
+        this.transformTimer = transformTimer;
         if (this.httpMethods.isEmpty()) {
             this.allMethods = true;
         } else {
@@ -95,14 +116,30 @@ public class XmlChainPool {
     }
 
     public TranslationResult executePool(final InputStream in, final OutputStream out, final List<XsltParameter> inputs) {
+        return executePool(new SAXSource(new InputSource(in)), out, inputs);
+    }
+
+    /**
+     * Runs a pooled chain over the given source. A source with a reader, such as that of a JSON body, is fed to the
+     * chain as SAX events; any other source is parsed by the chain itself.
+     */
+    public TranslationResult executePool(final SAXSource in, final OutputStream out, final List<XsltParameter> inputs) {
         TranslationResult rtn = new TranslationResult(false);
         XmlFilterChain pooledObject;
         try {
+            final long borrowStart = System.nanoTime();
             pooledObject = objectPool.borrowObject();
+            recordSince(borrowWaitTimer, borrowStart);
             try {
                 inputs.addAll(params);
                 List<XsltParameter<? extends OutputStream>> outputs = getOutputParameters();
-                pooledObject.executeChain(in, out, inputs, outputs);
+                final long transformStart = System.nanoTime();
+                if (in.getXMLReader() != null) {
+                    pooledObject.executeChain(in, out, inputs, outputs);
+                } else {
+                    pooledObject.executeChain(in.getInputSource().getByteStream(), out, inputs, outputs);
+                }
+                recordSince(transformTimer, transformStart);
                 rtn = new TranslationResult(true, outputs);
             } catch (XsltException e) {
                 objectPool.invalidateObject(pooledObject);
@@ -126,7 +163,49 @@ public class XmlChainPool {
         return rtn;
     }
 
+    private void recordSince(TimerByCategory timer, long start) {
+        if (timer != null) {
+            timer.update(name, System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
     public String getResultContentType() {
         return resultContentType;
     }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the number of chains running a translation
+     */
+    public int getNumActive() {
+        return objectPool.getNumActive();
+    }
+
+    /**
+     * @return the number of chains waiting in the pool
+     */
+    public int getNumIdle() {
+        return objectPool.getNumIdle();
+    }
+
+    /**
+     * Drops the idle chains once the pool has been replaced. Requests that started before then may still use the
+     * pool, so it is left for the garbage collector rather than closed.
+     */
+    @SuppressWarnings("unchecked")
+    public void retire() {
+        try {
+            if (objectPool instanceof GenericObjectPool) {
+                final GenericObjectPool<XmlFilterChain> pool = (GenericObjectPool<XmlFilterChain>) objectPool;
+                pool.setMinIdle(0);
+                pool.setTimeBetweenEvictionRunsMillis(-1);
+            }
+            objectPool.clear();
+        } catch (Exception e) {
+            LOG.warn("Failed to clear the XmlFilterChain pool for {}", name, e);
+        }
+    }
 }
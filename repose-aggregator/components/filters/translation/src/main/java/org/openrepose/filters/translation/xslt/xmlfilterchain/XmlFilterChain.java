@@ -22,6 +22,7 @@ package org.openrepose.filters.translation.xslt.xmlfilterchain;
 import org.openrepose.filters.translation.xslt.XsltException;
 import org.openrepose.filters.translation.xslt.XsltParameter;
 
+import javax.xml.transform.sax.SAXSource;
 import javax.xml.transform.sax.SAXTransformerFactory;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -51,4 +52,11 @@ public class XmlFilterChain {
         }
         new XmlFilterChainExecutor(this).executeChain(in, output, inputs, outputs);
     }
+
+    public void executeChain(SAXSource in, OutputStream output, List<XsltParameter> inputs, List<XsltParameter<? extends OutputStream>> outputs) throws XsltException {
+        if (in == null || output == null) {
+            return;
+        }
+        new XmlFilterChainExecutor(this).executeChain(in, output, inputs, outputs);
+    }
 }
@@ -33,6 +33,7 @@ import org.openrepose.filters.translation.xslt.XsltException;
 import org.openrepose.filters.translation.xslt.XsltParameter;
 import org.slf4j.Logger;
 import org.xml.sax.InputSource;
+import org.xml.sax.XMLFilter;
 import org.xml.sax.XMLReader;
 
 import javax.servlet.http.HttpServletRequest;
@@ -150,6 +151,14 @@ public class XmlFilterChainExecutor {
     }
 
     public void executeChain(InputStream in, OutputStream output, List<XsltParameter> inputs, List<XsltParameter<? extends OutputStream>> outputs) throws XsltException {
+        executeChain(new SAXSource(new InputSource(in)), output, inputs, outputs);
+    }
+
+    /**
+     * Runs the chain over the given source. When the source has a reader, its events are fed to the first stylesheet
+     * in place of those of the chain's XML parser for the length of this call.
+     */
+    public void executeChain(SAXSource in, OutputStream output, List<XsltParameter> inputs, List<XsltParameter<? extends OutputStream>> outputs) throws XsltException {
         List<String> uris = findInputUris(inputs);
         try {
             for (XmlFilterReference filter : chain.getFilters()) {
@@ -178,7 +187,20 @@ public class XmlFilterChainExecutor {
 
             Transformer transformer = chain.getFactory().newTransformer();
             transformer.setOutputProperties(format);
-            transformer.transform(getSAXSource(new InputSource(in)), new StreamResult(output));
+            XMLFilter firstFilter = getFirstFilter();
+            if (in.getXMLReader() != null && firstFilter != null) {
+                XMLReader parser = firstFilter.getParent();
+                firstFilter.setParent(in.getXMLReader());
+                try {
+                    transformer.transform(getSAXSource(in.getInputSource()), new StreamResult(output));
+                } finally {
+                    firstFilter.setParent(parser);
+                }
+            } else if (in.getXMLReader() != null) {
+                transformer.transform(in, new StreamResult(output));
+            } else {
+                transformer.transform(getSAXSource(in.getInputSource()), new StreamResult(output));
+            }
 
             //remove documents from cache
             for (XmlFilterReference filter : chain.getFilters()) {
@@ -223,6 +245,14 @@ public class XmlFilterChainExecutor {
         }
     }
 
+    private XMLFilter getFirstFilter() {
+        if (chain.getFilters().isEmpty() || !(chain.getFilters().get(0).getReader() instanceof XMLFilter)) {
+            return null;
+        }
+
+        return (XMLFilter) chain.getFilters().get(0).getReader();
+    }
+
     protected SAXSource getSAXSource(InputSource source) {
         if (chain.getFilters().isEmpty()) {
             return new SAXSource(source);
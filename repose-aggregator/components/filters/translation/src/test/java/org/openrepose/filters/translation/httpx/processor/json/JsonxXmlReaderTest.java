@@ -0,0 +1,84 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.filters.translation.httpx.processor.json;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXParseException;
+
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.ByteArrayInputStream;
+import java.io.StringWriter;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.junit.Assert.*;
+
+public class JsonxXmlReaderTest {
+
+    private Transformer identity;
+
+    @Before
+    public void setUp() throws Exception {
+        identity = TransformerFactory.newInstance().newTransformer();
+    }
+
+    private String translate(String json) throws TransformerException {
+        StringWriter xml = new StringWriter();
+        identity.transform(new SAXSource(new JsonxXmlReader(new JsonFactory()), new InputSource(new ByteArrayInputStream(json.getBytes()))),
+                new StreamResult(xml));
+        return xml.toString();
+    }
+
+    @Test
+    public void shouldSendTheJsonxFormOfTheDocument() throws Exception {
+        String xml = translate("{\"name\":\"repose\",\"nodes\":[1,true,null]}");
+
+        assertThat(xml, containsString("<json:object xmlns:json=\"http://www.ibm.com/xmlns/prod/2009/jsonx\""));
+        assertThat(xml, containsString("<json:string name=\"name\">repose</json:string>"));
+        assertThat(xml, containsString("<json:array name=\"nodes\"><json:number>1</json:number><json:boolean>true</json:boolean><json:null/></json:array>"));
+    }
+
+    @Test
+    public void shouldFailOnMalformedJson() throws Exception {
+        try {
+            translate("{\"name\":");
+            fail("The malformed document should not have been translated");
+        } catch (TransformerException e) {
+            assertThat(e.getException(), instanceOf(SAXParseException.class));
+        }
+    }
+
+    @Test
+    public void shouldOnlySupportNamespaceAwareParsing() throws Exception {
+        JsonxXmlReader reader = new JsonxXmlReader(new JsonFactory());
+
+        reader.setFeature("http://xml.org/sax/features/namespaces", true);
+        reader.setFeature("http://xml.org/sax/features/namespace-prefixes", false);
+        assertTrue(reader.getFeature("http://xml.org/sax/features/namespaces"));
+        assertFalse(reader.getFeature("http://xml.org/sax/features/namespace-prefixes"));
+    }
+}
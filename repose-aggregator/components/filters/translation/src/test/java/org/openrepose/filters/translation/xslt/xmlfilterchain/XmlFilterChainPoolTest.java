@@ -19,19 +19,27 @@
  */
 package org.openrepose.filters.translation.xslt.xmlfilterchain;
 
+import org.apache.commons.pool.ObjectPool;
+import org.apache.commons.pool.impl.GenericObjectPool;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.experimental.runners.Enclosed;
 import org.junit.runner.RunWith;
 import org.openrepose.commons.utils.http.media.MediaType;
 import org.openrepose.commons.utils.http.media.MimeType;
+import org.openrepose.core.services.reporting.metrics.TimerByCategory;
 import org.openrepose.filters.translation.config.HttpMethod;
+import org.openrepose.filters.translation.xslt.XsltParameter;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.*;
 
 @RunWith(Enclosed.class)
 public class XmlFilterChainPoolTest {
@@ -99,4 +107,57 @@ public class XmlFilterChainPoolTest {
             assertFalse("Should reject invalid method", actual);
         }
     }
+
+    public static class WhenExecutingChains {
+
+        private ObjectPool<XmlFilterChain> objectPool;
+        private XmlFilterChain chain;
+        private TimerByCategory borrowWaitTimer;
+        private TimerByCategory transformTimer;
+        private XmlChainPool pool;
+
+        @Before
+        @SuppressWarnings("unchecked")
+        public void setUp() throws Exception {
+            objectPool = mock(GenericObjectPool.class);
+            chain = mock(XmlFilterChain.class);
+            when(objectPool.borrowObject()).thenReturn(chain);
+            borrowWaitTimer = mock(TimerByCategory.class);
+            transformTimer = mock(TimerByCategory.class);
+            pool = new XmlChainPool("*/*", "*/*", null, null, "", new ArrayList<XsltParameter>(), objectPool,
+                    "request-translation-0", borrowWaitTimer, transformTimer);
+        }
+
+        @Test
+        public void shouldRecordBorrowWaitAndTransformTimes() throws Exception {
+            boolean translated = pool.executePool(new ByteArrayInputStream(new byte[0]), new ByteArrayOutputStream(),
+                    new ArrayList<XsltParameter>()).isSuccess();
+
+            assertTrue("Should translate with the pooled chain", translated);
+            verify(borrowWaitTimer).update(eq("request-translation-0"), anyLong(), eq(TimeUnit.NANOSECONDS));
+            verify(transformTimer).update(eq("request-translation-0"), anyLong(), eq(TimeUnit.NANOSECONDS));
+            verify(objectPool).returnObject(chain);
+        }
+
+        @Test
+        public void shouldNotRecordTransformTimeWhenTheChainFails() throws Exception {
+            doThrow(new RuntimeException("broken")).when(chain).executeChain(any(ByteArrayInputStream.class),
+                    any(ByteArrayOutputStream.class), anyList(), anyList());
+
+            pool.executePool(new ByteArrayInputStream(new byte[0]), new ByteArrayOutputStream(), new ArrayList<XsltParameter>());
+
+            verify(transformTimer, never()).update(anyString(), anyLong(), any(TimeUnit.class));
+            verify(objectPool).invalidateObject(chain);
+        }
+
+        @Test
+        public void shouldStopEvictingAndDropIdleChainsWhenRetired() throws Exception {
+            pool.retire();
+
+            verify((GenericObjectPool<XmlFilterChain>) objectPool).setMinIdle(0);
+            verify((GenericObjectPool<XmlFilterChain>) objectPool).setTimeBetweenEvictionRunsMillis(-1);
+            verify(objectPool).clear();
+            verify(objectPool, never()).close();
+        }
+    }
 }
@@ -20,6 +20,7 @@
 package org.openrepose.filters.uriidentity;
 
 
+import org.openrepose.commons.utils.servlet.filter.BodyPassThroughFilter;
 import org.openrepose.core.filter.FilterConfigHelper;
 import org.openrepose.core.filter.logic.impl.FilterLogicHandlerDelegate;
 import org.openrepose.core.services.config.ConfigurationService;
@@ -34,7 +35,7 @@ import java.io.IOException;
 import java.net.URL;
 
 @Named
-public class UriIdentityFilter implements Filter {
+public class UriIdentityFilter implements BodyPassThroughFilter {
 
     private static final Logger LOG = LoggerFactory.getLogger(UriIdentityFilter.class);
     private static final String DEFAULT_CONFIG = "uri-identity.cfg.xml";
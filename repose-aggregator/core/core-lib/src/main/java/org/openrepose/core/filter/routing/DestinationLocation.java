@@ -19,6 +19,8 @@
  */
 package org.openrepose.core.filter.routing;
 
+import org.openrepose.core.systemmodel.Node;
+
 import java.net.URI;
 import java.net.URL;
 
@@ -26,10 +28,18 @@ public class DestinationLocation {
 
     private final URL url;
     private final URI uri;
+    private final String clusterId;
+    private final Node node;
 
     public DestinationLocation(URL url, URI uri) {
+        this(url, uri, null, null);
+    }
+
+    public DestinationLocation(URL url, URI uri, String clusterId, Node node) {
         this.url = url;
         this.uri = uri;
+        this.clusterId = clusterId;
+        this.node = node;
     }
 
     public URL getUrl() {
@@ -39,4 +49,18 @@ public class DestinationLocation {
     public URI getUri() {
         return uri;
     }
+
+    /**
+     * @return the id of the cluster the request is routed to, or null if it is not routed to a cluster
+     */
+    public String getClusterId() {
+        return clusterId;
+    }
+
+    /**
+     * @return the node of the cluster the request is routed to, or null if it is not routed to a cluster
+     */
+    public Node getNode() {
+        return node;
+    }
 }
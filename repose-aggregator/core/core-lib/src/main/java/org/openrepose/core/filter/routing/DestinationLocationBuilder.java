@@ -52,15 +52,35 @@ public class DestinationLocationBuilder {
             throw new IllegalArgumentException("Destination must be of type DestinationCluster");
         }
         DestinationCluster domain = (DestinationCluster) destination;
-        Node node = routingService.getRoutableNode(domain.getCluster().getId());
+        final String clusterId = domain.getCluster().getId();
+        Node node = routingService.getRoutableNode(clusterId);
         if (node == null) {
             LOG.warn("No routable node for domain: " + domain.getId());
             return null;
         }
-        int port = HTTPS_PROTOCOL.equalsIgnoreCase(domain.getProtocol()) ? node.getHttpsPort() : node.getHttpPort();
-        return new DestinationLocation(
-                new URL(domain.getProtocol(), node.getHostname(), port, domain.getRootPath() + uri),
-                new URI(domain.getProtocol(), null, node.getHostname(), port, domain.getRootPath() + uri, request.getQueryString(), null));
+
+        try {
+            int port = HTTPS_PROTOCOL.equalsIgnoreCase(domain.getProtocol()) ? node.getHttpsPort() : node.getHttpPort();
+            return new DestinationLocation(
+                    new URL(domain.getProtocol(), node.getHostname(), port, domain.getRootPath() + uri),
+                    new URI(domain.getProtocol(), null, node.getHostname(), port, domain.getRootPath() + uri, request.getQueryString(), null),
+                    clusterId,
+                    node);
+        } catch (MalformedURLException | URISyntaxException | RuntimeException e) {
+            // The request will never be sent to the node, which the routing service still needs to hear about
+            routingService.recordResponse(clusterId, node, RoutingService.NOT_SENT, 0);
+            throw e;
+        }
+    }
+
+    /**
+     * Tells the routing service how a request routed to a cluster node went. This must be called once for every
+     * location built for a cluster, once the request is done with.
+     */
+    public void recordResponse(DestinationLocation location, int statusCode, long responseTime) {
+        if (location.getNode() != null) {
+            routingService.recordResponse(location.getClusterId(), location.getNode(), statusCode, responseTime);
+        }
     }
 
     private List<Port> localPortList() {
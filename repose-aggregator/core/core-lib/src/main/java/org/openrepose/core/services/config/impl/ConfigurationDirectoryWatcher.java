@@ -0,0 +1,149 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.core.services.config.impl;
+
+import org.openrepose.commons.config.resource.ConfigurationResource;
+import org.openrepose.commons.utils.Destroyable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Watches the directories that file configuration resources are read from, and has the
+ * {@link ConfigurationResourceWatcher} check a file as soon as the file system reports it was written. Only the files
+ * reported are read again.
+ * <p/>
+ * Where the file system can not be watched, or a directory could not be registered, the files are left to the
+ * resource watcher's poll.
+ */
+public class ConfigurationDirectoryWatcher implements Runnable, Destroyable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ConfigurationDirectoryWatcher.class);
+    private final ConfigurationResourceWatcher resourceWatcher;
+    private final WatchService watchService;
+    private final ConcurrentHashMap<Path, WatchKey> watchedDirectories = new ConcurrentHashMap<>();
+    private volatile boolean shouldContinue = true;
+
+    public ConfigurationDirectoryWatcher(ConfigurationResourceWatcher resourceWatcher) {
+        this.resourceWatcher = resourceWatcher;
+
+        WatchService service = null;
+        try {
+            service = FileSystems.getDefault().newWatchService();
+        } catch (IOException | UnsupportedOperationException e) {
+            LOG.warn("Unable to watch configuration directories - configuration changes will only be found by polling", e);
+        }
+        this.watchService = service;
+    }
+
+    public boolean isAvailable() {
+        return watchService != null;
+    }
+
+    /**
+     * Watches the directory the resource is read from, if it is read from a file.
+     */
+    public void watch(ConfigurationResource resource) {
+        final Path file = ConfigurationResourceWatcher.toPath(resource);
+        if (watchService == null || file == null || file.getParent() == null) {
+            return;
+        }
+
+        final Path directory = file.getParent();
+        synchronized (watchedDirectories) {
+            if (!watchedDirectories.containsKey(directory)) {
+                try {
+                    watchedDirectories.put(directory, directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE));
+                    LOG.debug("Watching {} for configuration changes", directory);
+                } catch (IOException e) {
+                    LOG.warn("Unable to watch {} - configuration changes there will only be found by polling. Reason: {}", directory, e.getMessage());
+                    LOG.trace("", e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        if (watchService == null) {
+            return;
+        }
+
+        while (shouldContinue) {
+            final WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                LOG.debug("Configuration directory watcher stopped", e);
+                break;
+            }
+
+            final Path directory = (Path) key.watchable();
+            // An editor will often raise several events for one save, and the file only needs to be read once
+            final Set<Path> changedFiles = new LinkedHashSet<>();
+            boolean overflowed = false;
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == OVERFLOW) {
+                    overflowed = true;
+                } else {
+                    changedFiles.add(directory.resolve((Path) event.context()));
+                }
+            }
+
+            if (overflowed) {
+                resourceWatcher.checkDirectory(directory);
+            } else {
+                for (Path file : changedFiles) {
+                    resourceWatcher.check(file);
+                }
+            }
+
+            if (!key.reset()) {
+                LOG.warn("{} can no longer be watched - configuration changes there will only be found by polling", directory);
+                watchedDirectories.remove(directory, key);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        shouldContinue = false;
+
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                LOG.warn("Unable to close the configuration directory watch service", e);
+            }
+        }
+    }
+}
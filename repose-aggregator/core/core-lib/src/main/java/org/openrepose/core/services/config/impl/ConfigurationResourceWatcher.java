@@ -25,6 +25,15 @@ import org.openrepose.core.services.event.common.EventService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -37,11 +46,18 @@ import java.util.concurrent.ConcurrentHashMap;
  * into the resources directory and PAPI will begin processing it on the fly. So
  * these "standard" exceptions will be caught but will allow the normal thread
  * processing to continue.
+ * <p/>
+ * Resources that are files are only read again when their size or modification time has changed since the last check.
+ * The {@link ConfigurationDirectoryWatcher} checks a file as soon as it is written, so for files this poll is only a
+ * fallback for changes the file system does not report.
  */
 public class ConfigurationResourceWatcher implements RecurringTask {
 
     private static final Logger LOG = LoggerFactory.getLogger(ConfigurationResourceWatcher.class);
-    private final ConcurrentHashMap<String, ConfigurationResource> watchMap;
+    // Some file systems keep modification times to the second or worse, so a file changed that close to the last check
+    // may have been changed again since without its modification time moving
+    private static final long MODIFIED_TIME_GRANULARITY = 2000;
+    private final ConcurrentHashMap<String, WatchedResource> watchMap;
     private final EventService eventManager;
 
     public ConfigurationResourceWatcher(EventService eventManager) {
@@ -49,31 +65,131 @@ public class ConfigurationResourceWatcher implements RecurringTask {
         watchMap = new ConcurrentHashMap<>();
     }
 
+    /**
+     * @return the file the resource is read from, or null if it is not read from a file
+     */
+    static Path toPath(ConfigurationResource resource) {
+        try {
+            final URL url = new URL(resource.name());
+            if ("file".equals(url.getProtocol())) {
+                return Paths.get(url.toURI()).toAbsolutePath().normalize();
+            }
+        } catch (MalformedURLException | URISyntaxException | IllegalArgumentException | FileSystemNotFoundException e) {
+            LOG.trace("Resource " + resource.name() + " is not a file", e);
+        }
+
+        return null;
+    }
+
     @Override
     public void run() {
-        for (ConfigurationResource resource : watchMap.values()) {
-            try {
-                if (resource.updated()) {
-                    eventManager.newEvent(ConfigurationEvent.UPDATE, resource);
-                    LOG.info("Updated " + resource.name());
-                }
-            } catch (Exception e) {
-                /**
-                 * TODO:Log - Create a logger that is smart enough not to print out errors we don't care about more than once
-                 * Trace logging the exception, because the context knowledge of this exception has been lost. We don't know
-                 * for certain that we can catch the IOException, because we might be relying on this to catch runtime
-                 * exceptions. Bad bad bad.
-                 */
-                LOG.trace("Error updating resource: " + resource.name(), e);
+        for (WatchedResource watched : watchMap.values()) {
+            check(watched, false);
+        }
+    }
+
+    /**
+     * Checks the resources read from the given file, whether or not the file looks to have changed.
+     */
+    public void check(Path file) {
+        for (WatchedResource watched : watchMap.values()) {
+            if (file.equals(watched.path)) {
+                check(watched, true);
+            }
+        }
+    }
+
+    /**
+     * Checks the resources read from files in the given directory, whether or not the files look to have changed.
+     */
+    public void checkDirectory(Path directory) {
+        for (WatchedResource watched : watchMap.values()) {
+            if (watched.path != null && directory.equals(watched.path.getParent())) {
+                check(watched, true);
+            }
+        }
+    }
+
+    private void check(WatchedResource watched, boolean force) {
+        final ConfigurationResource resource = watched.resource;
+
+        try {
+            final boolean fileChanged = watched.fileChanged();
+            if ((force || fileChanged) && resource.updated()) {
+                eventManager.newEvent(ConfigurationEvent.UPDATE, resource);
+                LOG.info("Updated " + resource.name());
             }
+        } catch (Exception e) {
+            // Makes sure the resource is read again on the next check, however little the file has changed
+            watched.forget();
+
+            /**
+             * TODO:Log - Create a logger that is smart enough not to print out errors we don't care about more than once
+             * Trace logging the exception, because the context knowledge of this exception has been lost. We don't know
+             * for certain that we can catch the IOException, because we might be relying on this to catch runtime
+             * exceptions. Bad bad bad.
+             */
+            LOG.trace("Error updating resource: " + resource.name(), e);
         }
     }
 
     public void watch(ConfigurationResource resource) {
-        watchMap.put(resource.name(), resource);
+        watchMap.put(resource.name(), new WatchedResource(resource, toPath(resource)));
     }
 
     public void stopWatching(String resourceName) {
         watchMap.remove(resourceName);
     }
+
+    long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    private final class WatchedResource {
+        private final ConfigurationResource resource;
+        private final Path path;
+        private long lastModified = -1;
+        private long size = -1;
+        private long checkedAt;
+
+        WatchedResource(ConfigurationResource resource, Path path) {
+            this.resource = resource;
+            this.path = path;
+        }
+
+        /**
+         * Tells whether the resource may have changed since it was last checked. Only a file whose size and
+         * modification time are both the same, and was not modified just before the last check, has not.
+         */
+        synchronized boolean fileChanged() {
+            if (path == null) {
+                return true;
+            }
+
+            final BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            } catch (IOException e) {
+                LOG.trace("Unable to read the attributes of " + path, e);
+                forget();
+                return true;
+            }
+
+            final long now = currentTimeMillis();
+            final long modified = attributes.lastModifiedTime().toMillis();
+            final boolean unchanged = modified == lastModified && attributes.size() == size
+                    && lastModified < checkedAt - MODIFIED_TIME_GRANULARITY;
+
+            lastModified = modified;
+            size = attributes.size();
+            checkedAt = now;
+
+            return !unchanged;
+        }
+
+        synchronized void forget() {
+            lastModified = -1;
+            size = -1;
+        }
+    }
 }
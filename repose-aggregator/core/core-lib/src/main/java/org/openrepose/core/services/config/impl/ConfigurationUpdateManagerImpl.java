@@ -29,16 +29,23 @@ import org.openrepose.commons.utils.thread.Poller;
 import org.openrepose.core.services.event.common.Event;
 import org.openrepose.core.services.event.common.EventListener;
 import org.openrepose.core.services.event.common.EventService;
+import org.openrepose.core.services.reporting.metrics.MetricsService;
+import org.openrepose.core.services.reporting.metrics.TimerByCategory;
 import org.openrepose.core.services.threading.ThreadingService;
+import org.openrepose.core.spring.ReposeSpringProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.annotation.Value;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 import javax.inject.Named;
+import javax.inject.Provider;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 @Named
 public class ConfigurationUpdateManagerImpl implements ConfigurationUpdateManager, EventListener<ConfigurationEvent, ConfigurationResource> {
@@ -49,16 +56,29 @@ public class ConfigurationUpdateManagerImpl implements ConfigurationUpdateManage
     private final Object listenerLock = new Object(); //AUGH
     private final EventService eventManager;
     private final ThreadingService threadingService;
+    private final Provider<MetricsService> metricsServiceProvider;
+    private final long pollInterval;
     private ConfigurationResourceWatcher resourceWatcher;
     private DestroyableThreadWrapper resourceWatcherThread;
-
+    private ConfigurationDirectoryWatcher directoryWatcher;
+    private DestroyableThreadWrapper directoryWatcherThread;
+    private volatile TimerByCategory reloadTimer;
+
+    /**
+     * The metrics service subscribes to its own configuration through this manager, so it is only looked up once a
+     * configuration is reloaded.
+     */
     @Inject
     public ConfigurationUpdateManagerImpl(
             EventService eventManager,
-            ThreadingService threadingService
+            ThreadingService threadingService,
+            Provider<MetricsService> metricsServiceProvider,
+            @Value(ReposeSpringProperties.CORE.CONFIG_POLL_INTERVAL) long pollInterval
     ) {
         this.eventManager = eventManager;
         this.threadingService = threadingService;
+        this.metricsServiceProvider = metricsServiceProvider;
+        this.pollInterval = pollInterval;
 
         listenerMap = new ConcurrentHashMap<>();
     }
@@ -68,13 +88,20 @@ public class ConfigurationUpdateManagerImpl implements ConfigurationUpdateManage
         // Initialize the resource watcher
         resourceWatcher = new ConfigurationResourceWatcher(eventManager);
 
-        //TODO: Make this interval configurable
-        final Poller pollerLogic = new Poller(resourceWatcher, 15000);
+        final Poller pollerLogic = new Poller(resourceWatcher, pollInterval);
 
         resourceWatcherThread = new DestroyableThreadWrapper(
                 threadingService.newThread(pollerLogic, "Configuration Watcher Thread"), pollerLogic);
         resourceWatcherThread.start();
 
+        // Picks up changes to configuration files as they are written, leaving the poll as a fallback
+        directoryWatcher = new ConfigurationDirectoryWatcher(resourceWatcher);
+        if (directoryWatcher.isAvailable()) {
+            directoryWatcherThread = new DestroyableThreadWrapper(
+                    threadingService.newThread(directoryWatcher, "Configuration Directory Watcher Thread"), directoryWatcher);
+            directoryWatcherThread.start();
+        }
+
         // Listen for configuration events
         eventManager.listen(this, ConfigurationEvent.class);
     }
@@ -83,6 +110,9 @@ public class ConfigurationUpdateManagerImpl implements ConfigurationUpdateManage
     @Override
     public void destroy() {
         resourceWatcherThread.destroy();
+        if (directoryWatcherThread != null) {
+            directoryWatcherThread.destroy();
+        }
         listenerMap.clear();
     }
 
@@ -96,6 +126,7 @@ public class ConfigurationUpdateManagerImpl implements ConfigurationUpdateManage
 
                 listenerMap.put(resource.name(), resourceListeners);
                 resourceWatcher.watch(resource);
+                directoryWatcher.watch(resource);
             }
 
             resourceListeners.put(listener.hashCode(), new ParserListenerPair(listener, parser, filterName));
@@ -121,6 +152,7 @@ public class ConfigurationUpdateManagerImpl implements ConfigurationUpdateManage
 
     @Override
     public void onEvent(Event<ConfigurationEvent, ConfigurationResource> e) {
+        final long reloadStart = System.nanoTime();
         final String payloadName = e.payload().name();
         Map<Integer, ParserListenerPair> listeners = listenerMap.get(payloadName);
 
@@ -142,6 +174,23 @@ public class ConfigurationUpdateManagerImpl implements ConfigurationUpdateManage
                 LOG.warn("Update listener is null for " + payloadName);
             }
         }
+
+        recordReload(payloadName, System.nanoTime() - reloadStart);
+    }
+
+    private void recordReload(String resourceName, long nanos) {
+        if (reloadTimer == null) {
+            try {
+                reloadTimer = metricsServiceProvider.get().newTimerByCategory(ConfigurationUpdateManager.class,
+                        "Configuration Reload", TimeUnit.MILLISECONDS, TimeUnit.SECONDS);
+            } catch (BeansException ex) {
+                LOG.debug("Unable to record the configuration reload time. Reason: {}", ex.getLocalizedMessage());
+                return;
+            }
+        }
+
+        // Only the file name, since the full URL is not a legal JMX name
+        reloadTimer.update(resourceName.substring(resourceName.lastIndexOf('/') + 1), nanos, TimeUnit.NANOSECONDS);
     }
 
     private void configUpdate(UpdateListener upd, Object cfg) throws UpdateFailedException {
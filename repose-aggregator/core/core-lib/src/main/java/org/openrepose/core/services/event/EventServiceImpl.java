@@ -19,6 +19,9 @@
  */
 package org.openrepose.core.services.event;
 
+import org.openrepose.core.services.config.impl.ConfigurationEvent;
+import org.openrepose.core.services.deploy.ApplicationArtifactEvent;
+import org.openrepose.core.services.deploy.ApplicationDeploymentEvent;
 import org.openrepose.core.services.event.common.Event;
 import org.openrepose.core.services.event.common.EventDispatcher;
 import org.openrepose.core.services.event.common.EventListener;
@@ -26,71 +29,101 @@ import org.openrepose.core.services.event.common.EventService;
 import org.openrepose.core.services.event.common.impl.EventDispatcherImpl;
 import org.openrepose.core.services.event.common.impl.EventListenerDescriptor;
 import org.openrepose.core.services.event.impl.SimpleEvent;
+import org.openrepose.core.spring.ReposeSpringProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 
+import javax.inject.Inject;
 import javax.inject.Named;
 import java.util.*;
-import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Queues events for the event kernel to dispatch.
+ * <p/>
+ * Neither queueing an event nor taking one locks while there are events to take: the queue is a non-blocking queue
+ * bounded by a count of free slots, and only a dispatcher waiting on an empty queue blocks. When the queue is full the
+ * event is dropped, so that a request thread raising an event is never held up. An event keeps its slot until it has
+ * been dispatched, not just taken off the queue, so the bound also covers events waiting their turn for a dispatch
+ * thread. Configuration, deployment and power
+ * filter events are never dropped: they are raised rarely, and only by threads that already recorded the change they
+ * announce, so they bypass the free slots and are always queued. Listeners are kept in copy-on-write
+ * sets, which dispatch reads without locking; registering and removing listeners, which is rare, is serialized.
+ */
 @Named
 public class EventServiceImpl implements EventService {
 
+    public static final int DEFAULT_QUEUE_SIZE = 8192;
     private static final Logger LOG = LoggerFactory.getLogger(EventServiceImpl.class);
+    private static final Set<Class<? extends Enum>> UNDROPPABLE_EVENTS = new HashSet<Class<? extends Enum>>(
+            Arrays.asList(ConfigurationEvent.class, ApplicationArtifactEvent.class, ApplicationDeploymentEvent.class,
+                    PowerFilterEvent.class));
 
-    private final Map<ComparableClassWrapper<Enum>, Set<EventListenerDescriptor>> listenerMap;
-    private final Queue<Event> eventQueue;
-    private final Lock eventQueueLock;
-    private final Condition queueNotEmpty;
+    private final ConcurrentMap<ComparableClassWrapper<Enum>, Set<EventListenerDescriptor>> listenerMap;
+    private final Object listenerLock = new Object();
+    private final Queue<QueuedEvent> eventQueue;
+    private final Semaphore queuedEvents;
+    private final Semaphore freeSlots;
+    private final AtomicInteger undispatchedEvents = new AtomicInteger();
 
     public EventServiceImpl() {
-        listenerMap = new TreeMap<>();
-        eventQueue = new LinkedList<>();
+        this(DEFAULT_QUEUE_SIZE);
+    }
 
-        eventQueueLock = new ReentrantLock();
-        queueNotEmpty = eventQueueLock.newCondition();
+    @Inject
+    public EventServiceImpl(@Value(ReposeSpringProperties.CORE.EVENT_QUEUE_SIZE) int queueSize) {
+        listenerMap = new ConcurrentHashMap<>();
+        eventQueue = new ConcurrentLinkedQueue<>();
+
+        queuedEvents = new Semaphore(0);
+        freeSlots = new Semaphore(queueSize > 0 ? queueSize : DEFAULT_QUEUE_SIZE);
     }
 
     @Override
-    public synchronized EventDispatcher nextDispatcher() throws InterruptedException {
-        final Event e = nextEvent();
+    public EventDispatcher nextDispatcher() throws InterruptedException {
+        final QueuedEvent queued = nextEvent();
 
-        return new EventDispatcherImpl(e, Collections.unmodifiableSet(getOrCreateListenerSet(e.type().getClass())));
+        return new QueuedEventDispatcher(queued,
+                Collections.unmodifiableSet(getOrCreateListenerSet(queued.event.type().getClass())));
     }
 
-    private Event nextEvent() throws InterruptedException {
-        eventQueueLock.lock();
-
+    private QueuedEvent nextEvent() throws InterruptedException {
         try {
-            while (eventQueue.isEmpty()) {
-                queueNotEmpty.await();
-            }
-
-            return eventQueue.poll();
+            queuedEvents.acquire();
         } catch (InterruptedException ie) {
             LOG.trace("Power Proxy Event Manager Interrupted", ie);
             Thread.currentThread().interrupt();
             throw ie;
-        } finally {
-            eventQueueLock.unlock();
         }
+
+        // A permit is only released once its event is in the queue, so there is always an event to take here
+        return eventQueue.poll();
     }
 
     @Override
     public void newEvent(Enum e, Object payload) {
-        eventQueueLock.lock();
+        final boolean holdsSlot = !UNDROPPABLE_EVENTS.contains(e.getDeclaringClass());
 
-        try {
-            eventQueue.add(new SimpleEvent(e, payload, this));
-
-            if (eventQueue.size() == 1) {
-                queueNotEmpty.signalAll();
-            }
-        } finally {
-            eventQueueLock.unlock();
+        if (holdsSlot && !freeSlots.tryAcquire()) {
+            LOG.warn("The event queue is full - dropping event " + e.getClass().getSimpleName() + "." + e.name());
+            return;
         }
+
+        undispatchedEvents.incrementAndGet();
+        eventQueue.offer(new QueuedEvent(new SimpleEvent(e, payload, this), holdsSlot));
+        queuedEvents.release();
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return undispatchedEvents.get();
     }
 
     @Override
@@ -113,37 +146,37 @@ public class EventServiceImpl implements EventService {
     }
 
     private <T extends Enum> void regsiterListener(EventListener<T, ?> el, Class<T> enumClass, Collection<T> events) {
-        boolean found = false;
+        synchronized (listenerLock) {
+            boolean found = false;
 
-        final Set<EventListenerDescriptor> descriptorSet = getOrCreateListenerSet(enumClass);
+            final Set<EventListenerDescriptor> descriptorSet = getOrCreateListenerSet(enumClass);
 
-        for (EventListenerDescriptor<T> descriptor : descriptorSet) {
-            if (descriptor.getListener() == el) {
-                descriptor.listenFor(events);
-                found = true;
+            for (EventListenerDescriptor<T> descriptor : descriptorSet) {
+                if (descriptor.getListener() == el) {
+                    descriptor.listenFor(events);
+                    found = true;
 
-                break;
+                    break;
+                }
             }
-        }
 
-        if (!found) {
-            descriptorSet.add(new EventListenerDescriptor<T>(el, events));
+            if (!found) {
+                descriptorSet.add(new EventListenerDescriptor<T>(el, events));
+            }
         }
     }
 
     @Override
     public <T extends Enum> void squelch(EventListener<T, ?> el, Class<T> events) {
-        final Set<EventListenerDescriptor> listenerSet = listenerMap.get(new ComparableClassWrapper<Enum>(events));
-
-        if (listenerSet != null) {
-            final Iterator<EventListenerDescriptor> itr = listenerSet.iterator();
-
-            while (itr.hasNext()) {
-                final EventListenerDescriptor<T> elw = itr.next();
-
-                if (elw.getListener() == el) {
-                    itr.remove();
-                    break;
+        synchronized (listenerLock) {
+            final Set<EventListenerDescriptor> listenerSet = listenerMap.get(new ComparableClassWrapper<Enum>(events));
+
+            if (listenerSet != null) {
+                for (EventListenerDescriptor<T> elw : listenerSet) {
+                    if (elw.getListener() == el) {
+                        listenerSet.remove(elw);
+                        break;
+                    }
                 }
             }
         }
@@ -155,20 +188,18 @@ public class EventServiceImpl implements EventService {
             throw new IllegalArgumentException("Must unsubscribe from at least one event type");
         }
 
-        final Set<EventListenerDescriptor> listenerSet = listenerMap.get(new ComparableClassWrapper<Enum>(events[0].getClass()));
+        synchronized (listenerLock) {
+            final Set<EventListenerDescriptor> listenerSet = listenerMap.get(new ComparableClassWrapper<Enum>(events[0].getClass()));
 
-        if (listenerSet != null) {
-            final Iterator<EventListenerDescriptor> itr = listenerSet.iterator();
+            if (listenerSet != null) {
+                for (EventListenerDescriptor<T> elw : listenerSet) {
+                    if (elw.getListener() == el) {
+                        if (elw.silence(Arrays.asList(events))) {
+                            listenerSet.remove(elw);
+                        }
 
-            while (itr.hasNext()) {
-                final EventListenerDescriptor<T> elw = itr.next();
-
-                if (elw.getListener() == el) {
-                    if (elw.silence(Arrays.asList(events))) {
-                        itr.remove();
+                        break;
                     }
-
-                    break;
                 }
             }
         }
@@ -179,10 +210,51 @@ public class EventServiceImpl implements EventService {
         Set<EventListenerDescriptor> listenerSet = listenerMap.get(classWrapper);
 
         if (listenerSet == null) {
-            listenerSet = new HashSet<EventListenerDescriptor>();
-            listenerMap.put(classWrapper, listenerSet);
+            final Set<EventListenerDescriptor> newListenerSet = new CopyOnWriteArraySet<>();
+            listenerSet = listenerMap.putIfAbsent(classWrapper, newListenerSet);
+
+            if (listenerSet == null) {
+                listenerSet = newListenerSet;
+            }
         }
 
         return listenerSet;
     }
-}
\ No newline at end of file
+
+    private static final class QueuedEvent {
+        private final Event event;
+        private final boolean holdsSlot;
+
+        QueuedEvent(Event event, boolean holdsSlot) {
+            this.event = event;
+            this.holdsSlot = holdsSlot;
+        }
+    }
+
+    /**
+     * Gives the event's slot back once it has been dispatched.
+     */
+    private final class QueuedEventDispatcher extends EventDispatcherImpl {
+        private final QueuedEvent queued;
+        private final AtomicBoolean dispatched = new AtomicBoolean();
+
+        QueuedEventDispatcher(QueuedEvent queued, Set<EventListenerDescriptor> listeners) {
+            super(queued.event, listeners);
+            this.queued = queued;
+        }
+
+        @Override
+        public void dispatch() {
+            try {
+                super.dispatch();
+            } finally {
+                if (dispatched.compareAndSet(false, true)) {
+                    undispatchedEvents.decrementAndGet();
+                    if (queued.holdsSlot) {
+                        freeSlots.release();
+                    }
+                }
+            }
+        }
+    }
+}
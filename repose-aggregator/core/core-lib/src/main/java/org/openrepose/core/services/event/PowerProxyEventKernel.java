@@ -19,20 +19,34 @@
  */
 package org.openrepose.core.services.event;
 
+import com.yammer.metrics.core.Gauge;
 import org.openrepose.commons.utils.Destroyable;
 import org.openrepose.commons.utils.thread.DestroyableThreadWrapper;
 import org.openrepose.core.services.event.common.EventDispatcher;
 import org.openrepose.core.services.event.common.EventService;
+import org.openrepose.core.services.reporting.metrics.MetricsService;
+import org.openrepose.core.services.reporting.metrics.TimerByCategory;
 import org.openrepose.core.services.threading.ThreadingService;
 import org.openrepose.core.services.threading.impl.ThreadingServiceImpl;
+import org.openrepose.core.spring.ReposeSpringProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 import javax.inject.Named;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Takes events off the event queue and hands them to a pool of dispatch threads. Events of one type are dispatched
+ * one at a time in the order they were raised, while events of different types are dispatched alongside one another,
+ * so a slow configuration update does not hold up other kinds of events.
+ */
 @Named
 public class PowerProxyEventKernel implements Runnable, Destroyable {
 
@@ -40,19 +54,46 @@ public class PowerProxyEventKernel implements Runnable, Destroyable {
 
     private final EventService eventManager;
     private final ThreadingService threadingService;
+    private final MetricsService metricsService;
+    private final int dispatchThreads;
+    private final ConcurrentMap<Class, EventTypeDispatcher> typeDispatchers = new ConcurrentHashMap<>();
     private volatile boolean shouldContinue;
 
     private DestroyableThreadWrapper eventKernelThread;
+    private ExecutorService dispatchPool;
+    private TimerByCategory dispatchTimer;
 
     @Inject
     public PowerProxyEventKernel(EventService eventManager,
-                                 ThreadingServiceImpl threadingService) {
+                                 ThreadingServiceImpl threadingService,
+                                 MetricsService metricsService,
+                                 @Value(ReposeSpringProperties.CORE.EVENT_DISPATCH_THREADS) int dispatchThreads) {
         this.eventManager = eventManager;
         this.threadingService = threadingService;
+        this.metricsService = metricsService;
+        this.dispatchThreads = Math.max(dispatchThreads, 1);
     }
 
     @PostConstruct
     public void init() {
+        final AtomicInteger threadCount = new AtomicInteger();
+        dispatchPool = Executors.newFixedThreadPool(dispatchThreads, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                return threadingService.newThread(r, "Event Dispatch Thread " + threadCount.incrementAndGet());
+            }
+        });
+
+        if (metricsService != null) {
+            dispatchTimer = metricsService.newTimerByCategory(EventService.class, "Event Dispatch", TimeUnit.MILLISECONDS, TimeUnit.SECONDS);
+            metricsService.newGauge(EventService.class, "Event Queue Depth", "Event Queue", new Gauge<Integer>() {
+                @Override
+                public Integer value() {
+                    return eventManager.getQueueDepth();
+                }
+            });
+        }
+
         eventKernelThread = new DestroyableThreadWrapper(threadingService.newThread(this, "Event Kernel Thread"), this);
         eventKernelThread.start();
     }
@@ -64,20 +105,19 @@ public class PowerProxyEventKernel implements Runnable, Destroyable {
         try {
             while (shouldContinue) {
                 final EventDispatcher dispatcher = eventManager.nextDispatcher();
+                final Class eventType = dispatcher.getEvent().type().getClass();
 
-                if (LOG.isDebugEnabled()) {
-                    final Enum eventType = dispatcher.getEvent().type();
+                EventTypeDispatcher typeDispatcher = typeDispatchers.get(eventType);
+                if (typeDispatcher == null) {
+                    final EventTypeDispatcher newTypeDispatcher = new EventTypeDispatcher();
+                    typeDispatcher = typeDispatchers.putIfAbsent(eventType, newTypeDispatcher);
 
-                    LOG.debug("Dispatching event: " + eventType.getClass().getSimpleName() + "." + eventType.name());
+                    if (typeDispatcher == null) {
+                        typeDispatcher = newTypeDispatcher;
+                    }
                 }
 
-                try {
-                    dispatcher.dispatch();
-                } catch (Exception ex) {
-                    LOG.error("Exception caught while dispatching event, \""
-                            + dispatcher.getEvent().type().getClass().getSimpleName() + "$" + dispatcher.getEvent().type().name()
-                            + "\" - Reason: " + ex.getMessage(), ex);
-                }
+                typeDispatcher.submit(dispatcher);
             }
         } catch (InterruptedException ie) {
             LOG.warn("Event kernel received an interrupt. Exiting event kernel loop.", ie);
@@ -87,9 +127,82 @@ public class PowerProxyEventKernel implements Runnable, Destroyable {
         }
     }
 
+    private void dispatch(EventDispatcher dispatcher, long submittedAt) {
+        final Enum eventType = dispatcher.getEvent().type();
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Dispatching event: " + eventType.getClass().getSimpleName() + "." + eventType.name());
+        }
+
+        try {
+            dispatcher.dispatch();
+        } catch (Exception ex) {
+            LOG.error("Exception caught while dispatching event, \""
+                    + eventType.getClass().getSimpleName() + "$" + eventType.name()
+                    + "\" - Reason: " + ex.getMessage(), ex);
+        }
+
+        if (dispatchTimer != null) {
+            dispatchTimer.update(eventType.getClass().getSimpleName(), System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
     @PreDestroy
     public void destroy() {
         shouldContinue = false;
-        eventKernelThread.destroy();
+
+        // The thread wrapper destroys this kernel in turn, so only the first call goes on to stop the threads
+        if (!dispatchPool.isShutdown()) {
+            dispatchPool.shutdownNow();
+            eventKernelThread.destroy();
+        }
+    }
+
+    /**
+     * Dispatches the events of one type in order, using at most one of the dispatch threads at a time.
+     */
+    private final class EventTypeDispatcher implements Runnable {
+        private final Queue<SubmittedEvent> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        void submit(EventDispatcher dispatcher) {
+            pending.offer(new SubmittedEvent(dispatcher, System.nanoTime()));
+            schedule();
+        }
+
+        private void schedule() {
+            if (!pending.isEmpty() && scheduled.compareAndSet(false, true)) {
+                try {
+                    dispatchPool.execute(this);
+                } catch (RejectedExecutionException ree) {
+                    LOG.debug("Event dispatch pool has been shut down", ree);
+                    scheduled.set(false);
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                SubmittedEvent event;
+                while ((event = pending.poll()) != null) {
+                    dispatch(event.dispatcher, event.submittedAt);
+                }
+            } finally {
+                scheduled.set(false);
+                // An event submitted after the queue was found empty, but before this was unscheduled, still needs a run
+                schedule();
+            }
+        }
+    }
+
+    private static final class SubmittedEvent {
+        private final EventDispatcher dispatcher;
+        private final long submittedAt;
+
+        SubmittedEvent(EventDispatcher dispatcher, long submittedAt) {
+            this.dispatcher = dispatcher;
+            this.submittedAt = submittedAt;
+        }
     }
 }
@@ -26,6 +26,11 @@ public interface EventService {
 
     EventDispatcher nextDispatcher() throws InterruptedException;
 
+    /**
+     * @return the number of events raised and not yet dispatched, whether still queued or waiting for a dispatch thread
+     */
+    int getQueueDepth();
+
     <T extends Enum> void listen(EventListener<T, ?> el, Class<T> events);
 
     <T extends Enum> void listen(EventListener<T, ?> el, T... events);
@@ -21,15 +21,21 @@ package org.openrepose.core.services.event.common.impl;
 
 import org.openrepose.core.services.event.common.EventListener;
 
-import java.util.*;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
 
+/**
+ * A listener and the events it listens for. The events are kept in a copy-on-write set, since they are read on every
+ * dispatch but only change when the listener subscribes or unsubscribes.
+ */
 public class EventListenerDescriptor<T extends Enum> {
 
     private final EventListener<T, ?> listener;
     private final Set<T> subscriptions;
 
     public EventListenerDescriptor(EventListener<T, ?> listener, Collection<T> targetedEvents) {
-        this.subscriptions = new HashSet<T>(targetedEvents);
+        this.subscriptions = new CopyOnWriteArraySet<T>(targetedEvents);
         this.listener = listener;
     }
 
@@ -42,17 +48,7 @@ public class EventListenerDescriptor<T extends Enum> {
     }
 
     public boolean silence(Collection<T> types) {
-        // Create a local copy
-        final List<T> typesToRemove = new LinkedList<T>(types);
-        final Iterator<T> targetedEventIterator = subscriptions.iterator();
-
-        while (targetedEventIterator.hasNext()) {
-            final T event = targetedEventIterator.next();
-
-            if (typesToRemove.remove(event)) {
-                targetedEventIterator.remove();
-            }
-        }
+        subscriptions.removeAll(types);
 
         return subscriptions.isEmpty();
     }
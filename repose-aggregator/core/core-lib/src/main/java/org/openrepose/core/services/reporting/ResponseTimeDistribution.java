@@ -0,0 +1,104 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.core.services.reporting;
+
+import java.util.Arrays;
+
+/**
+ * How long responses took, counted in buckets of increasing width. The first bucket holds responses of up to one
+ * millisecond, each bucket after it the responses up to its bound, and the last bucket every response slower than the
+ * last bound.
+ */
+public class ResponseTimeDistribution {
+
+    private static final long[] BUCKET_BOUNDS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000, 30000, 60000};
+    public static final int BUCKET_COUNT = BUCKET_BOUNDS.length + 1;
+    public static final ResponseTimeDistribution EMPTY = new ResponseTimeDistribution(new long[BUCKET_COUNT]);
+    private static final double PERCENT = 100d;
+    private final long[] counts;
+    private final long totalCount;
+
+    public ResponseTimeDistribution(long[] counts) {
+        if (counts.length != BUCKET_COUNT) {
+            throw new IllegalArgumentException("Expected " + BUCKET_COUNT + " bucket counts but was given " + counts.length);
+        }
+
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+
+        this.counts = counts.clone();
+        this.totalCount = total;
+    }
+
+    /**
+     * @return the bucket a response that took the given number of milliseconds is counted in
+     */
+    public static int bucketOf(long responseTime) {
+        final int bucket = Arrays.binarySearch(BUCKET_BOUNDS, responseTime);
+
+        return bucket >= 0 ? bucket : -bucket - 1;
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    public long getCount(int bucket) {
+        return counts[bucket];
+    }
+
+    /**
+     * @param percentile a percentage between 0 and 100
+     * @return the bound of the bucket that the given percentage of responses were no slower than, zero if no responses
+     * were counted, or {@link Long#MAX_VALUE} if that bucket is the last one
+     */
+    public long getPercentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+
+        final long rank = Math.max(1, (long) Math.ceil(totalCount * percentile / PERCENT));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKET_BOUNDS.length; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) {
+                return BUCKET_BOUNDS[bucket];
+            }
+        }
+
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(counts);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof ResponseTimeDistribution)) {
+            return false;
+        }
+
+        return Arrays.equals(counts, ((ResponseTimeDistribution) o).counts);
+    }
+}
@@ -39,6 +39,13 @@ public interface DestinationInfo {
 
     double getAverageResponseTime();
 
+    /**
+     * @param percentile a percentage between 0 and 100
+     * @return the response time, in milliseconds, that the given percentage of responses were no slower than, rounded
+     * up to the bound of its {@link org.openrepose.core.services.reporting.ResponseTimeDistribution} bucket
+     */
+    long getResponseTimePercentile(double percentile);
+
     double getThroughput();
 
     DestinationInfo copy();
@@ -39,6 +39,10 @@ public class DestinationInfoLogic implements DestinationInfo {
         dataStore = new DestinationInfoStore(destinationAuthority);
     }
 
+    public DestinationInfoLogic(DestinationInfoStore dataStore) {
+        this.dataStore = dataStore;
+    }
+
     private DestinationInfoLogic(DestinationInfoLogic destinationInfoLogic) {
         dataStore = new DestinationInfoStore(destinationInfoLogic.dataStore);
     }
@@ -128,6 +132,11 @@ public class DestinationInfoLogic implements DestinationInfo {
         }
     }
 
+    @Override
+    public long getResponseTimePercentile(double percentile) {
+        return dataStore.getResponseTimes().getPercentile(percentile);
+    }
+
     @Override
     public double getThroughput() {
         double throughput = (double) dataStore.getTotalResponses() / elapsedTimeInSeconds();
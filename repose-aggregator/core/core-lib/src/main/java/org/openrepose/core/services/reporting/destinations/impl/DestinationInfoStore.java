@@ -20,6 +20,7 @@
 package org.openrepose.core.services.reporting.destinations.impl;
 
 import com.google.common.base.Objects;
+import org.openrepose.core.services.reporting.ResponseTimeDistribution;
 import org.openrepose.core.services.reporting.StatusCodeResponseStore;
 
 import java.util.HashMap;
@@ -34,6 +35,7 @@ public class DestinationInfoStore {
     private long totalResponses = LONG_ZERO;
     private Map<Integer, StatusCodeResponseStore> statusCodeCounts = new HashMap<Integer, StatusCodeResponseStore>();
     private long accumulatedResponseTime = LONG_ZERO;
+    private ResponseTimeDistribution responseTimes = ResponseTimeDistribution.EMPTY;
 
     public DestinationInfoStore(String destinationId) {
         this.destinationId = destinationId;
@@ -43,11 +45,12 @@ public class DestinationInfoStore {
     public DestinationInfoStore(DestinationInfoStore destinationInfoStore) {
         this(destinationInfoStore.destinationId, destinationInfoStore.startTime,
                 destinationInfoStore.totalRequests, destinationInfoStore.totalResponses,
-                destinationInfoStore.statusCodeCounts, destinationInfoStore.accumulatedResponseTime);
+                destinationInfoStore.statusCodeCounts, destinationInfoStore.accumulatedResponseTime,
+                destinationInfoStore.responseTimes);
     }
 
-    private DestinationInfoStore(String destinationId, long startTime, long totalRequests, long totalResponses,
-                                 Map<Integer, StatusCodeResponseStore> statusCodeCounts, long accumulatedResponseTime) {
+    public DestinationInfoStore(String destinationId, long startTime, long totalRequests, long totalResponses,
+                                Map<Integer, StatusCodeResponseStore> statusCodeCounts, long accumulatedResponseTime) {
         this.destinationId = destinationId;
         this.startTime = startTime;
         this.totalRequests = totalRequests;
@@ -56,6 +59,13 @@ public class DestinationInfoStore {
         this.accumulatedResponseTime = accumulatedResponseTime;
     }
 
+    public DestinationInfoStore(String destinationId, long startTime, long totalRequests, long totalResponses,
+                                Map<Integer, StatusCodeResponseStore> statusCodeCounts, long accumulatedResponseTime,
+                                ResponseTimeDistribution responseTimes) {
+        this(destinationId, startTime, totalRequests, totalResponses, statusCodeCounts, accumulatedResponseTime);
+        this.responseTimes = responseTimes;
+    }
+
     private static Map<Integer, StatusCodeResponseStore> deepCopyStatusCodeCounts(Map<Integer, StatusCodeResponseStore> statusCodeCounts) {
         Map<Integer, StatusCodeResponseStore> copy = new HashMap<Integer, StatusCodeResponseStore>();
         for (Map.Entry<Integer, StatusCodeResponseStore> entry : statusCodeCounts.entrySet()) {
@@ -97,6 +107,10 @@ public class DestinationInfoStore {
         this.accumulatedResponseTime = accumulatedResponseTime;
     }
 
+    public ResponseTimeDistribution getResponseTimes() {
+        return responseTimes;
+    }
+
     protected Map<Integer, StatusCodeResponseStore> getStatusCodeCounts() {
         return statusCodeCounts;
     }
@@ -116,7 +130,8 @@ public class DestinationInfoStore {
                     Objects.equal(this.startTime, other.startTime) &&
                     Objects.equal(this.totalRequests, other.totalRequests) &&
                     Objects.equal(this.totalResponses, other.totalResponses) &&
-                    Objects.equal(this.statusCodeCounts, other.statusCodeCounts);
+                    Objects.equal(this.statusCodeCounts, other.statusCodeCounts) &&
+                    Objects.equal(this.responseTimes, other.responseTimes);
         }
 
         return false;
@@ -124,6 +139,6 @@ public class DestinationInfoStore {
 
     @Override
     public int hashCode() {
-        return Objects.hashCode(destinationId, accumulatedResponseTime, startTime, totalRequests, totalResponses, statusCodeCounts);
+        return Objects.hashCode(destinationId, accumulatedResponseTime, startTime, totalRequests, totalResponses, statusCodeCounts, responseTimes);
     }
 }
@@ -0,0 +1,214 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.core.services.reporting.impl;
+
+import org.openrepose.core.services.reporting.ReposeInfo;
+import org.openrepose.core.services.reporting.StatusCodeResponseStore;
+import org.openrepose.core.services.reporting.destinations.DestinationInfo;
+import org.openrepose.core.services.reporting.destinations.impl.DestinationInfoLogic;
+import org.openrepose.core.services.reporting.destinations.impl.DestinationInfoStore;
+import org.openrepose.core.services.reporting.repose.ReposeInfoLogic;
+import org.openrepose.core.services.reporting.repose.ReposeInfoStore;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The counts the reporting service keeps between two resets. A reset replaces the whole epoch, so counting never
+ * waits on a reset, and the counts themselves are only ever added to.
+ * <p/>
+ * Reads are answered with {@link DestinationInfo} and {@link ReposeInfo} snapshots, which are copies and do not change
+ * as more is counted.
+ */
+class ReportingEpoch {
+
+    private final long startTime;
+    private final Map<String, DestinationCounters> destinations;
+    private final ReposeCounters repose = new ReposeCounters();
+
+    ReportingEpoch(List<String> destinationIds) {
+        this.startTime = System.currentTimeMillis();
+
+        final Map<String, DestinationCounters> counters = new LinkedHashMap<>();
+        for (String destinationId : destinationIds) {
+            counters.put(destinationId, new DestinationCounters(destinationId));
+        }
+        this.destinations = Collections.unmodifiableMap(counters);
+    }
+
+    /**
+     * Starts an epoch for the same destinations as this one.
+     */
+    ReportingEpoch next() {
+        return new ReportingEpoch(getDestinationIds());
+    }
+
+    long getStartTime() {
+        return startTime;
+    }
+
+    List<String> getDestinationIds() {
+        return new ArrayList<>(destinations.keySet());
+    }
+
+    /**
+     * @return the counters for the destination, or null if the destination is not configured
+     */
+    DestinationCounters getDestination(String destinationId) {
+        return destinations.get(destinationId);
+    }
+
+    Iterable<DestinationCounters> getDestinations() {
+        return destinations.values();
+    }
+
+    ReposeCounters getRepose() {
+        return repose;
+    }
+
+    final class DestinationCounters {
+        private final String destinationId;
+        private final StripedCounter totalRequests = new StripedCounter();
+        private final StripedCounter totalResponses = new StripedCounter();
+        private final StripedCounter accumulatedResponseTime = new StripedCounter();
+        private final StatusCodeCounters statusCodes = new StatusCodeCounters();
+        private final ResponseTimeHistogram responseTimes = new ResponseTimeHistogram();
+
+        private DestinationCounters(String destinationId) {
+            this.destinationId = destinationId;
+        }
+
+        void incrementRequestCount() {
+            totalRequests.increment();
+        }
+
+        void recordResponse(int statusCode, long responseTime) {
+            totalResponses.increment();
+            accumulatedResponseTime.add(responseTime);
+            statusCodes.record(statusCode, responseTime);
+            responseTimes.record(responseTime);
+        }
+
+        DestinationInfo snapshot() {
+            return new DestinationInfoLogic(new DestinationInfoStore(destinationId, startTime, totalRequests.sum(),
+                    totalResponses.sum(), statusCodes.snapshot(), accumulatedResponseTime.sum(), responseTimes.snapshot()));
+        }
+    }
+
+    static final class ReposeCounters {
+        private final StripedCounter totalRequests = new StripedCounter();
+        private final StripedCounter totalResponses = new StripedCounter();
+        private final StripedCounter accumulatedRequestSize = new StripedCounter();
+        private final StripedCounter accumulatedResponseSize = new StripedCounter();
+        private final AtomicLong minRequestSize = new AtomicLong();
+        private final AtomicLong maxRequestSize = new AtomicLong();
+        private final AtomicLong minResponseSize = new AtomicLong();
+        private final AtomicLong maxResponseSize = new AtomicLong();
+        private final StatusCodeCounters statusCodes = new StatusCodeCounters();
+
+        // A minimum of zero means nothing has been seen yet, as it does in the ReposeInfoStore
+        private static void updateMinimum(AtomicLong minimum, long value) {
+            long current = minimum.get();
+            while ((value < current || current == 0) && !minimum.compareAndSet(current, value)) {
+                current = minimum.get();
+            }
+        }
+
+        private static void updateMaximum(AtomicLong maximum, long value) {
+            long current = maximum.get();
+            while (value > current && !maximum.compareAndSet(current, value)) {
+                current = maximum.get();
+            }
+        }
+
+        void incrementRequestCount() {
+            totalRequests.increment();
+        }
+
+        void incrementResponseCount() {
+            totalResponses.increment();
+        }
+
+        void recordStatusCode(int statusCode, long time) {
+            statusCodes.record(statusCode, time);
+        }
+
+        void processRequestSize(long requestSize) {
+            accumulatedRequestSize.add(requestSize);
+            updateMinimum(minRequestSize, requestSize);
+            updateMaximum(maxRequestSize, requestSize);
+        }
+
+        void processResponseSize(long responseSize) {
+            accumulatedResponseSize.add(responseSize);
+            updateMinimum(minResponseSize, responseSize);
+            updateMaximum(maxResponseSize, responseSize);
+        }
+
+        ReposeInfo snapshot() {
+            return new ReposeInfoLogic(new ReposeInfoStore(statusCodes.snapshot(), totalRequests.sum(),
+                    totalResponses.sum(), accumulatedRequestSize.sum(), accumulatedResponseSize.sum(),
+                    minRequestSize.get(), maxRequestSize.get(), minResponseSize.get(), maxResponseSize.get()));
+        }
+    }
+
+    /**
+     * The number of responses, and the time they took, for each status code.
+     */
+    static final class StatusCodeCounters {
+        private final ConcurrentMap<Integer, StatusCodeCounter> counters = new ConcurrentHashMap<>();
+
+        void record(int statusCode, long time) {
+            StatusCodeCounter counter = counters.get(statusCode);
+            if (counter == null) {
+                final StatusCodeCounter newCounter = new StatusCodeCounter();
+                counter = counters.putIfAbsent(statusCode, newCounter);
+                if (counter == null) {
+                    counter = newCounter;
+                }
+            }
+
+            counter.totalCount.increment();
+            counter.accumulatedResponseTime.add(time);
+        }
+
+        Map<Integer, StatusCodeResponseStore> snapshot() {
+            final Map<Integer, StatusCodeResponseStore> snapshot = new HashMap<>();
+            for (Map.Entry<Integer, StatusCodeCounter> entry : counters.entrySet()) {
+                final StatusCodeCounter counter = entry.getValue();
+                snapshot.put(entry.getKey(), new StatusCodeResponseStore(counter.totalCount.sum(), counter.accumulatedResponseTime.sum()));
+            }
+
+            return snapshot;
+        }
+
+        private static final class StatusCodeCounter {
+            private final StripedCounter totalCount = new StripedCounter();
+            private final StripedCounter accumulatedResponseTime = new StripedCounter();
+        }
+    }
+}
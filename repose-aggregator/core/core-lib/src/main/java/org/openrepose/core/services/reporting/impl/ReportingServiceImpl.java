@@ -25,8 +25,6 @@ import org.openrepose.core.services.config.ConfigurationService;
 import org.openrepose.core.services.reporting.ReportingService;
 import org.openrepose.core.services.reporting.ReposeInfo;
 import org.openrepose.core.services.reporting.destinations.DestinationInfo;
-import org.openrepose.core.services.reporting.destinations.impl.DestinationInfoLogic;
-import org.openrepose.core.services.reporting.repose.ReposeInfoLogic;
 import org.openrepose.core.systemmodel.*;
 
 import javax.annotation.PostConstruct;
@@ -36,6 +34,13 @@ import javax.inject.Named;
 import java.net.URL;
 import java.util.*;
 
+/**
+ * Counts the requests Repose handles and the responses of each destination, between resets that happen every
+ * jmx-reset-time seconds.
+ * <p/>
+ * Requests are counted without locking - see {@link ReportingEpoch}. A reset starts a new epoch in place of the old one
+ * rather than clearing the counts, so the only locking left is around configuration changes and resets.
+ */
 @Named
 public class ReportingServiceImpl implements ReportingService {
 
@@ -43,7 +48,6 @@ public class ReportingServiceImpl implements ReportingService {
     private static final int ONE_THOUSAND = 1000;
     private static final int DEFAULT_JMX_RESET_TIME_SECONDS = 15;
 
-    private final Map<String, DestinationInfo> destinations = new HashMap<>();
     private final Object jmxResetTimeKey = new Object();
     private final List<String> destinationIds = new ArrayList<>();
     private final ConfigurationService configurationService;
@@ -51,8 +55,7 @@ public class ReportingServiceImpl implements ReportingService {
     private final SystemModelListener systemModelListener;
 
     private int jmxResetTime = DEFAULT_JMX_RESET_TIME_SECONDS;
-    private ReposeInfo reposeInfo;
-    private Date lastReset;
+    private volatile ReportingEpoch epoch = new ReportingEpoch(Collections.<String>emptyList());
     private Timer timer;
     private ReportingTimerTask reportingTimerTask;
 
@@ -82,8 +85,8 @@ public class ReportingServiceImpl implements ReportingService {
     }
 
     @Override
-    public synchronized Date getLastReset() {
-        return (Date) lastReset.clone();
+    public Date getLastReset() {
+        return new Date(epoch.getStartTime());
     }
 
     @Override
@@ -93,12 +96,7 @@ public class ReportingServiceImpl implements ReportingService {
 
     @Override
     public synchronized void updateConfiguration(List<String> destinationIds, int seconds) {
-        destinations.clear();
-        for (String id : destinationIds) {
-            final DestinationInfo destinationInfo = new DestinationInfoLogic(id);
-            destinations.put(id, destinationInfo);
-        }
-        reposeInfo = new ReposeInfoLogic();
+        epoch = new ReportingEpoch(destinationIds);
 
         manageTimer(seconds);
     }
@@ -109,89 +107,79 @@ public class ReportingServiceImpl implements ReportingService {
 
         reportingTimerTask = new ReportingTimerTask();
         long initialDelayInMilliseconds = seconds * ONE_THOUSAND;
-        lastReset = new Date(System.currentTimeMillis());
         timer.scheduleAtFixedRate(reportingTimerTask, initialDelayInMilliseconds, seconds * ONE_THOUSAND);
     }
 
     @Override
-    public synchronized DestinationInfo getDestinationInfo(String destinationId) {
-        return destinations.get(destinationId).copy();
+    public DestinationInfo getDestinationInfo(String destinationId) {
+        final ReportingEpoch.DestinationCounters destination = epoch.getDestination(destinationId);
+
+        return destination != null ? destination.snapshot() : null;
     }
 
     @Override
-    public synchronized List<DestinationInfo> getDestinations() {
-        final List<DestinationInfo> newDestinations = new ArrayList<DestinationInfo>();
+    public List<DestinationInfo> getDestinations() {
+        final List<DestinationInfo> newDestinations = new ArrayList<>();
 
-        for (Map.Entry<String, DestinationInfo> entry : destinations.entrySet()) {
-            newDestinations.add(entry.getValue().copy());
+        for (ReportingEpoch.DestinationCounters destination : epoch.getDestinations()) {
+            newDestinations.add(destination.snapshot());
         }
 
         return newDestinations;
     }
 
     @Override
-    public synchronized void incrementRequestCount(String destinationId) {
-        if (destinations.get(destinationId) != null) {
-            destinations.get(destinationId).incrementRequestCount();
+    public void incrementRequestCount(String destinationId) {
+        final ReportingEpoch.DestinationCounters destination = epoch.getDestination(destinationId);
+
+        if (destination != null) {
+            destination.incrementRequestCount();
         }
     }
 
     @Override
-    public synchronized void recordServiceResponse(String destinationId, int statusCode, long responseTime) {
-        incrementReposeResponseCount();
-        if (destinations.get(destinationId) != null) {
-            DestinationInfo destination = destinations.get(destinationId);
-            destination.incrementResponseCount();
-            destination.incrementStatusCodeCount(statusCode, responseTime);
-            destination.accumulateResponseTime(responseTime);
+    public void recordServiceResponse(String destinationId, int statusCode, long responseTime) {
+        final ReportingEpoch currentEpoch = epoch;
+        final ReportingEpoch.DestinationCounters destination = currentEpoch.getDestination(destinationId);
+
+        currentEpoch.getRepose().incrementResponseCount();
+        if (destination != null) {
+            destination.recordResponse(statusCode, responseTime);
         }
     }
 
     @Override
-    public synchronized ReposeInfo getReposeInfo() {
-        return reposeInfo.copy();
+    public ReposeInfo getReposeInfo() {
+        return epoch.getRepose().snapshot();
     }
 
     @Override
-    public synchronized void incrementReposeStatusCodeCount(int statusCode, long time) {
-        reposeInfo.incrementStatusCodeCount(statusCode, time);
+    public void incrementReposeStatusCodeCount(int statusCode, long time) {
+        epoch.getRepose().recordStatusCode(statusCode, time);
     }
 
     @Override
-    public synchronized void incrementReposeRequestCount() {
-        reposeInfo.incrementRequestCount();
+    public void incrementReposeRequestCount() {
+        epoch.getRepose().incrementRequestCount();
     }
 
     @Override
-    public synchronized void incrementReposeResponseCount() {
-        reposeInfo.incrementResponseCount();
+    public void incrementReposeResponseCount() {
+        epoch.getRepose().incrementResponseCount();
     }
 
     @Override
-    public synchronized void processReposeRequestSize(long requestSize) {
-        reposeInfo.processRequestSize(requestSize);
+    public void processReposeRequestSize(long requestSize) {
+        epoch.getRepose().processRequestSize(requestSize);
     }
 
     @Override
-    public synchronized void processReposeResponseSize(long responseSize) {
-        reposeInfo.processResponseSize(responseSize);
+    public void processReposeResponseSize(long responseSize) {
+        epoch.getRepose().processResponseSize(responseSize);
     }
 
     private synchronized void reset() {
-        final Map<String, DestinationInfo> newDestinations = new HashMap<String, DestinationInfo>();
-
-        for (Map.Entry<String, DestinationInfo> entry : destinations.entrySet()) {
-            final String destinationId = entry.getValue().getDestinationId();
-            final DestinationInfo destinationInfo = new DestinationInfoLogic(destinationId);
-
-            newDestinations.put(destinationId, destinationInfo);
-        }
-
-        destinations.clear();
-        destinations.putAll(newDestinations);
-
-        reposeInfo = new ReposeInfoLogic();
-        lastReset = new Date(System.currentTimeMillis());
+        epoch = epoch.next();
     }
 
     private class ReportingTimerTask extends TimerTask {
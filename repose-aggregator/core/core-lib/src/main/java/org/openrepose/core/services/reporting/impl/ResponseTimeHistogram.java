@@ -0,0 +1,51 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.core.services.reporting.impl;
+
+import org.openrepose.core.services.reporting.ResponseTimeDistribution;
+
+/**
+ * Counts response times into the buckets of a {@link ResponseTimeDistribution} without locking. Each bucket is its
+ * own {@link StripedCounter}, so that the many threads recording responses of about the same speed do not all contend
+ * on one count.
+ */
+class ResponseTimeHistogram {
+
+    private final StripedCounter[] buckets = new StripedCounter[ResponseTimeDistribution.BUCKET_COUNT];
+
+    ResponseTimeHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new StripedCounter();
+        }
+    }
+
+    void record(long responseTime) {
+        buckets[ResponseTimeDistribution.bucketOf(responseTime)].increment();
+    }
+
+    ResponseTimeDistribution snapshot() {
+        final long[] counts = new long[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
+            counts[i] = buckets[i].sum();
+        }
+
+        return new ResponseTimeDistribution(counts);
+    }
+}
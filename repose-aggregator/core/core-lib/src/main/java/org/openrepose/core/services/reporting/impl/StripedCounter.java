@@ -0,0 +1,64 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.core.services.reporting.impl;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A sum that many threads can add to at once without contending on a single value. Each thread adds to one of several
+ * cells, chosen by its id, and the cells are added up when the sum is read.
+ * <p/>
+ * Cells are spaced a cache line apart so that threads adding to neighbouring cells do not share a line.
+ */
+class StripedCounter {
+
+    private static final int CELL_SPACING = 8;
+    private static final int STRIPES = stripeCount(Runtime.getRuntime().availableProcessors());
+    private final AtomicLongArray cells = new AtomicLongArray(STRIPES * CELL_SPACING);
+
+    static int stripeCount(int processors) {
+        return Integer.highestOneBit(Math.max(1, processors - 1)) << 1;
+    }
+
+    private static int cell() {
+        final long id = Thread.currentThread().getId();
+        int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        hash ^= hash >>> 16;
+
+        return (hash & (STRIPES - 1)) * CELL_SPACING;
+    }
+
+    public void add(long value) {
+        cells.getAndAdd(cell(), value);
+    }
+
+    public void increment() {
+        add(1);
+    }
+
+    public long sum() {
+        long sum = 0;
+        for (int i = 0; i < cells.length(); i += CELL_SPACING) {
+            sum += cells.get(i);
+        }
+
+        return sum;
+    }
+}
@@ -30,6 +30,8 @@ public class DestinationCompositeDataBuilder extends CompositeDataBuilder {
 
     private static final int STATUS_CODE_400 = 400;
     private static final int STATUS_CODE_500 = 500;
+    private static final double MEDIAN = 50d;
+    private static final double PERCENTILE_99 = 99d;
     private final DestinationInfo destinationInfo;
 
     public DestinationCompositeDataBuilder(DestinationInfo destinationInfo) {
@@ -48,7 +50,8 @@ public class DestinationCompositeDataBuilder extends CompositeDataBuilder {
 
     @Override
     public String[] getItemNames() {
-        return new String[]{"destinationId", "totalRequests", "total400s", "total500s", "responseTimeInMillis", "throughputInSeconds"};
+        return new String[]{"destinationId", "totalRequests", "total400s", "total500s", "responseTimeInMillis",
+                "medianResponseTimeInMillis", "99thPercentileResponseTimeInMillis", "throughputInSeconds"};
     }
 
     @Override
@@ -58,12 +61,15 @@ public class DestinationCompositeDataBuilder extends CompositeDataBuilder {
                 "The total number of 400 response codes received from this destination.",
                 "The total number of 500 response codes received from this destination.",
                 "Average response time in milliseconds from this destination.",
+                "Response time in milliseconds that half of the responses from this destination were no slower than.",
+                "Response time in milliseconds that 99% of the responses from this destination were no slower than.",
                 "Throughput in requests/second to this destination."};
     }
 
     @Override
     public OpenType[] getItemTypes() {
-        return new OpenType[]{SimpleType.STRING, SimpleType.LONG, SimpleType.LONG, SimpleType.LONG, SimpleType.DOUBLE, SimpleType.DOUBLE};
+        return new OpenType[]{SimpleType.STRING, SimpleType.LONG, SimpleType.LONG, SimpleType.LONG, SimpleType.DOUBLE,
+                SimpleType.LONG, SimpleType.LONG, SimpleType.DOUBLE};
     }
 
     @Override
@@ -75,6 +81,8 @@ public class DestinationCompositeDataBuilder extends CompositeDataBuilder {
         itemsB.add(destinationInfo.getTotalStatusCode(STATUS_CODE_400));
         itemsB.add(destinationInfo.getTotalStatusCode(STATUS_CODE_500));
         itemsB.add(destinationInfo.getAverageResponseTime());
+        itemsB.add(destinationInfo.getResponseTimePercentile(MEDIAN));
+        itemsB.add(destinationInfo.getResponseTimePercentile(PERCENTILE_99));
         itemsB.add(destinationInfo.getThroughput());
 
         return itemsB.toArray();
@@ -20,6 +20,7 @@
 package org.openrepose.core.services.reporting.metrics;
 
 import com.yammer.metrics.core.Counter;
+import com.yammer.metrics.core.Gauge;
 import com.yammer.metrics.core.Meter;
 import com.yammer.metrics.core.Timer;
 import org.openrepose.commons.utils.Destroyable;
@@ -40,7 +41,15 @@ public interface MetricsService extends Destroyable {
 
     Counter newCounter(Class klass, String name, String scope);
 
+    <T> Gauge<T> newGauge(Class klass, String name, String scope, Gauge<T> gauge);
+
     Timer newTimer(Class klass, String name, String scope, TimeUnit duration, TimeUnit rate);
 
+    /**
+     * Unregisters a metric, such as a gauge for something that no longer exists. Does nothing if it was never
+     * registered.
+     */
+    void removeMetric(Class klass, String name, String scope);
+
     TimerByCategory newTimerByCategory(Class klass, String scope, TimeUnit duration, TimeUnit rate);
 }
@@ -169,11 +169,21 @@ public class MetricsServiceImpl implements MetricsService {
         return metrics.newCounter(makeMetricName(klass, name, scope));
     }
 
+    @Override
+    public <T> Gauge<T> newGauge(Class klass, String name, String scope, Gauge<T> gauge) {
+        return metrics.newGauge(makeMetricName(klass, name, scope), gauge);
+    }
+
     @Override
     public Timer newTimer(Class klass, String name, String scope, TimeUnit duration, TimeUnit rate) {
         return metrics.newTimer(makeMetricName(klass, name, scope), duration, rate);
     }
 
+    @Override
+    public void removeMetric(Class klass, String name, String scope) {
+        metrics.removeMetric(makeMetricName(klass, name, scope));
+    }
+
     @Override
     public TimerByCategory newTimerByCategory(Class klass, String scope, TimeUnit duration, TimeUnit rate) {
         return new TimerByCategoryImpl(this, klass, scope, duration, rate);
@@ -36,6 +36,10 @@ public class ReposeInfoLogic implements ReposeInfo {
         dataStore = new ReposeInfoStore();
     }
 
+    public ReposeInfoLogic(ReposeInfoStore dataStore) {
+        this.dataStore = dataStore;
+    }
+
     private ReposeInfoLogic(ReposeInfoLogic reposeInfoLogic) {
         dataStore = new ReposeInfoStore(reposeInfoLogic.dataStore);
     }
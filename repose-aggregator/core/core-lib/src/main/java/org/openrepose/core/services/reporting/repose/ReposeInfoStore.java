@@ -41,10 +41,27 @@ public class ReposeInfoStore {
     }
 
     protected ReposeInfoStore(ReposeInfoStore reposeInfoStore) {
-        this.statusCodeCounts = deepCopyStatusCodeCounts(reposeInfoStore.statusCodeCounts);
+        this(reposeInfoStore.statusCodeCounts, reposeInfoStore.totalRequests, reposeInfoStore.totalResponses,
+                reposeInfoStore.accumulatedRequestSize, reposeInfoStore.accumulatedResponseSize,
+                reposeInfoStore.minRequestSize, reposeInfoStore.maxRequestSize,
+                reposeInfoStore.minResponseSize, reposeInfoStore.maxResponseSize);
     }
 
-    private Map<Integer, StatusCodeResponseStore> deepCopyStatusCodeCounts(Map<Integer, StatusCodeResponseStore> statusCodeCounts) {
+    public ReposeInfoStore(Map<Integer, StatusCodeResponseStore> statusCodeCounts, long totalRequests, long totalResponses,
+                           long accumulatedRequestSize, long accumulatedResponseSize, long minRequestSize,
+                           long maxRequestSize, long minResponseSize, long maxResponseSize) {
+        this.statusCodeCounts = deepCopyStatusCodeCounts(statusCodeCounts);
+        this.totalRequests = totalRequests;
+        this.totalResponses = totalResponses;
+        this.accumulatedRequestSize = accumulatedRequestSize;
+        this.accumulatedResponseSize = accumulatedResponseSize;
+        this.minRequestSize = minRequestSize;
+        this.maxRequestSize = maxRequestSize;
+        this.minResponseSize = minResponseSize;
+        this.maxResponseSize = maxResponseSize;
+    }
+
+    private static Map<Integer, StatusCodeResponseStore> deepCopyStatusCodeCounts(Map<Integer, StatusCodeResponseStore> statusCodeCounts) {
         Map<Integer, StatusCodeResponseStore> copy = new HashMap<Integer, StatusCodeResponseStore>();
         for (Map.Entry<Integer, StatusCodeResponseStore> entry : statusCodeCounts.entrySet()) {
             copy.put(entry.getKey(), new StatusCodeResponseStore(entry.getValue()));
@@ -0,0 +1,45 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.core.services.routing;
+
+import org.openrepose.core.systemmodel.Node;
+
+/**
+ * Spreads the requests routed to one cluster over the cluster's nodes.
+ * <p/>
+ * A load balancer is shared by every request thread, and is built again whenever the system model changes.
+ */
+public interface LoadBalancer {
+
+    /**
+     * @return the node to send the next request to, or null if the cluster has no nodes
+     */
+    Node nextNode();
+
+    /**
+     * Tells the load balancer how a request sent to one of its nodes went. This must be called once for every node
+     * given out by {@link #nextNode()}. Nodes this load balancer did not give out are ignored.
+     *
+     * @param statusCode   the status code of the response, or {@link RoutingService#NOT_SENT} if the request was
+     *                     never sent
+     * @param responseTime how long the response took, in milliseconds
+     */
+    void recordResponse(Node node, int statusCode, long responseTime);
+}
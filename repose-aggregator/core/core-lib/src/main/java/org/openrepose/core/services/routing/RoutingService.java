@@ -22,5 +22,20 @@ package org.openrepose.core.services.routing;
 import org.openrepose.core.systemmodel.Node;
 
 public interface RoutingService {
+
+    /**
+     * The status code to record for a request that was given a node but never sent to it.
+     */
+    int NOT_SENT = 0;
+
     Node getRoutableNode(String domainId);
+
+    /**
+     * Tells the routing service how a request it gave a node for went, so that later requests can be balanced on it.
+     * This must be called once for every node given out.
+     *
+     * @param statusCode   the status code of the response, or {@link #NOT_SENT} if the request was never sent
+     * @param responseTime how long the response took, in milliseconds
+     */
+    void recordResponse(String domainId, Node node, int statusCode, long responseTime);
 }
@@ -0,0 +1,93 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.core.services.routing.balancer;
+
+import org.openrepose.core.services.routing.LoadBalancer;
+import org.openrepose.core.systemmodel.Node;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the {@link BalancedNode} of each node of a cluster and ejects the nodes that keep failing, leaving the choice
+ * of node to subclasses.
+ * <p/>
+ * Should every node be ejected at once, requests are spread over all of them rather than failed outright.
+ */
+public abstract class AbstractLoadBalancer implements LoadBalancer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AbstractLoadBalancer.class);
+    private final BalancedNode[] nodes;
+    private final Map<Node, BalancedNode> balancedNodes = new HashMap<>();
+    private final OutlierEjection outlierEjection;
+
+    protected AbstractLoadBalancer(List<Node> nodes, OutlierEjection outlierEjection) {
+        this.nodes = new BalancedNode[nodes.size()];
+        for (int i = 0; i < this.nodes.length; i++) {
+            this.nodes[i] = new BalancedNode(nodes.get(i), i);
+            balancedNodes.put(nodes.get(i), this.nodes[i]);
+        }
+        this.outlierEjection = outlierEjection;
+    }
+
+    protected BalancedNode[] getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Chooses the node for the next request from those available at the given time.
+     *
+     * @return the node, or null if none of the nodes are available
+     */
+    protected abstract BalancedNode choose(long now);
+
+    @Override
+    public Node nextNode() {
+        if (nodes.length == 0) {
+            return null;
+        }
+
+        BalancedNode chosen = choose(currentTimeMillis());
+        if (chosen == null) {
+            // Every node has been ejected, and by the end of time every ejection is over
+            chosen = choose(Long.MAX_VALUE);
+        }
+
+        chosen.requestSent();
+        return chosen.getNode();
+    }
+
+    @Override
+    public void recordResponse(Node node, int statusCode, long responseTime) {
+        final BalancedNode balancedNode = balancedNodes.get(node);
+
+        if (balancedNode != null && balancedNode.responseReceived(statusCode, responseTime, currentTimeMillis(), outlierEjection)) {
+            LOG.warn("Node {} ({}) has failed too many requests and will not be sent any more for {} milliseconds",
+                    node.getId(), node.getHostname(), balancedNode.getEjectedUntil() - currentTimeMillis());
+        }
+    }
+
+    protected long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.core.services.routing.balancer;
+
+import org.openrepose.core.systemmodel.Node;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * What a load balancer knows about one of its nodes: how many requests it has in flight, how long its responses have
+ * recently taken, and whether it has been left out for failing.
+ * <p/>
+ * Everything is kept in atomics, so request threads update it without locking.
+ */
+public class BalancedNode {
+
+    private static final double LATENCY_DECAY = 0.2;
+    private static final int SERVER_ERROR = 500;
+    private final Node node;
+    private final int index;
+    private final AtomicInteger outstandingRequests = new AtomicInteger();
+    private final AtomicLong averageResponseTime = new AtomicLong(Double.doubleToLongBits(0));
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicInteger ejections = new AtomicInteger();
+    private volatile long ejectedUntil;
+
+    BalancedNode(Node node, int index) {
+        this.node = node;
+        this.index = index;
+    }
+
+    public Node getNode() {
+        return node;
+    }
+
+    /**
+     * @return where the node is in its cluster
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    public int getOutstandingRequests() {
+        return outstandingRequests.get();
+    }
+
+    /**
+     * @return the exponentially weighted average of the node's response times, in milliseconds, or 0 if it has not
+     * responded yet
+     */
+    public double getAverageResponseTime() {
+        return Double.longBitsToDouble(averageResponseTime.get());
+    }
+
+    /**
+     * @return whether the node may be sent requests at the given time
+     */
+    public boolean isAvailable(long now) {
+        return now >= ejectedUntil;
+    }
+
+    long getEjectedUntil() {
+        return ejectedUntil;
+    }
+
+    void requestSent() {
+        outstandingRequests.incrementAndGet();
+    }
+
+    /**
+     * Records the outcome of a request sent to the node.
+     *
+     * @return true if this response got the node ejected
+     */
+    boolean responseReceived(int statusCode, long responseTime, long now, OutlierEjection ejection) {
+        outstandingRequests.decrementAndGet();
+
+        if (statusCode <= 0) {
+            return false;
+        }
+
+        updateAverageResponseTime(responseTime);
+
+        if (statusCode < SERVER_ERROR) {
+            consecutiveFailures.set(0);
+            ejections.set(0);
+            return false;
+        }
+
+        // Requests that were in flight when the node was ejected do not count against it again
+        if (!isAvailable(now)) {
+            return false;
+        }
+
+        // A node that has just been let back in is ejected again on its first failure
+        final int failures = consecutiveFailures.incrementAndGet();
+        final int allowedFailures = ejections.get() > 0 ? 1 : ejection.getConsecutiveFailures();
+        if (failures >= allowedFailures && consecutiveFailures.compareAndSet(failures, 0)) {
+            ejectedUntil = now + ejection.getEjectionTime(ejections.incrementAndGet());
+            return true;
+        }
+
+        return false;
+    }
+
+    private void updateAverageResponseTime(long responseTime) {
+        long current;
+        long updated;
+        do {
+            current = averageResponseTime.get();
+            final double average = Double.longBitsToDouble(current);
+            updated = Double.doubleToLongBits(average == 0 ? responseTime : average + LATENCY_DECAY * (responseTime - average));
+        } while (!averageResponseTime.compareAndSet(current, updated));
+    }
+}
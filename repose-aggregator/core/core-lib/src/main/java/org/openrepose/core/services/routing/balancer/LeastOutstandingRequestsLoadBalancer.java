@@ -0,0 +1,57 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.core.services.routing.balancer;
+
+import org.openrepose.core.systemmodel.Node;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Picks the node with the fewest requests in flight. Ties go to the nodes in turn, so a quiet cluster is still spread
+ * over all of its nodes.
+ */
+public class LeastOutstandingRequestsLoadBalancer extends AbstractLoadBalancer {
+
+    private final AtomicInteger start = new AtomicInteger();
+
+    public LeastOutstandingRequestsLoadBalancer(List<Node> nodes, OutlierEjection outlierEjection) {
+        super(nodes, outlierEjection);
+    }
+
+    @Override
+    protected BalancedNode choose(long now) {
+        final BalancedNode[] nodes = getNodes();
+        final int first = (start.getAndIncrement() & Integer.MAX_VALUE) % nodes.length;
+
+        BalancedNode chosen = null;
+        int fewest = Integer.MAX_VALUE;
+        for (int i = 0; i < nodes.length; i++) {
+            final BalancedNode node = nodes[(first + i) % nodes.length];
+            final int outstanding = node.getOutstandingRequests();
+            if (outstanding < fewest && node.isAvailable(now)) {
+                chosen = node;
+                fewest = outstanding;
+            }
+        }
+
+        return chosen;
+    }
+}
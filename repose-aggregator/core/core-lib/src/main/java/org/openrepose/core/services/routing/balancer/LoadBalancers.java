@@ -17,36 +17,33 @@
  * limitations under the License.
  * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
  */
-package org.openrepose.core.services.routing.robin;
+package org.openrepose.core.services.routing.balancer;
 
+import org.openrepose.core.services.routing.LoadBalancer;
 import org.openrepose.core.systemmodel.Cluster;
 import org.openrepose.core.systemmodel.Node;
 
 import java.util.ArrayList;
 import java.util.List;
 
-public class ClusterWrapper {
-    private final List<Node> nodes;
-    private final int nodeCount;
-    private int currentIndex = 0;
+public final class LoadBalancers {
 
-    public ClusterWrapper(Cluster domain) {
-        if (domain == null) {
-            throw new IllegalArgumentException("Domain cannot be null");
-        }
-
-        this.nodes = domain.getNodes() != null ? domain.getNodes().getNode() : new ArrayList<Node>();
-        this.nodeCount = nodes.size();
+    private LoadBalancers() {
     }
 
-    public Node getNextNode() {
-        synchronized (nodes) {
-            return getNode(currentIndex++);
+    /**
+     * Builds the load balancer the cluster is configured to use.
+     */
+    public static LoadBalancer newLoadBalancer(Cluster cluster) {
+        final List<Node> nodes = cluster.getNodes() != null ? cluster.getNodes().getNode() : new ArrayList<Node>();
+
+        switch (cluster.getLoadBalancing()) {
+            case LEAST_OUTSTANDING_REQUESTS:
+                return new LeastOutstandingRequestsLoadBalancer(nodes, OutlierEjection.DEFAULT);
+            case POWER_OF_TWO_CHOICES:
+                return new PowerOfTwoChoicesLoadBalancer(nodes, OutlierEjection.DEFAULT);
+            default:
+                return new RoundRobinLoadBalancer(nodes, OutlierEjection.DEFAULT);
         }
     }
-
-    public Node getNode(int index) {
-        return nodeCount > 0 && index >= 0 ? nodes.get(index % nodeCount) : null;
-    }
-
 }
@@ -0,0 +1,53 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.core.services.routing.balancer;
+
+/**
+ * When a node that keeps failing is left out of load balancing, and for how long.
+ * <p/>
+ * A node is ejected once this many responses in a row are server errors. It is let back in once its ejection time is
+ * up, but is ejected again on its first failure until it has given a good response. Each ejection in a row lasts
+ * longer than the one before, up to a limit.
+ */
+public class OutlierEjection {
+
+    public static final OutlierEjection DEFAULT = new OutlierEjection(5, 30000, 10);
+
+    private final int consecutiveFailures;
+    private final long baseEjectionTime;
+    private final int maxEjectionMultiplier;
+
+    public OutlierEjection(int consecutiveFailures, long baseEjectionTime, int maxEjectionMultiplier) {
+        this.consecutiveFailures = consecutiveFailures;
+        this.baseEjectionTime = baseEjectionTime;
+        this.maxEjectionMultiplier = maxEjectionMultiplier;
+    }
+
+    public int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    /**
+     * @return how long, in milliseconds, a node is left out for its given ejection in a row
+     */
+    public long getEjectionTime(int ejections) {
+        return baseEjectionTime * Math.min(ejections, maxEjectionMultiplier);
+    }
+}
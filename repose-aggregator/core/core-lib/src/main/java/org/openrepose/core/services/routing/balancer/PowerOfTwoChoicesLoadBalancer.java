@@ -0,0 +1,86 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.core.services.routing.balancer;
+
+import org.openrepose.core.systemmodel.Node;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Picks two nodes at random and sends the request to the one expected to answer sooner: the one with the lower
+ * average response time for each request it has in flight. Nodes that have not responded yet are tried first, and
+ * ties go to the node with fewer requests in flight.
+ * <p/>
+ * Only ever looking at two nodes keeps the choice cheap on large clusters, and keeps every request thread from piling
+ * onto whichever node looked fastest a moment ago.
+ */
+public class PowerOfTwoChoicesLoadBalancer extends AbstractLoadBalancer {
+
+    public PowerOfTwoChoicesLoadBalancer(List<Node> nodes, OutlierEjection outlierEjection) {
+        super(nodes, outlierEjection);
+    }
+
+    private static double expectedWait(BalancedNode node) {
+        return node.getAverageResponseTime() * (node.getOutstandingRequests() + 1);
+    }
+
+    private static BalancedNode sooner(BalancedNode first, BalancedNode second) {
+        final int comparison = Double.compare(expectedWait(first), expectedWait(second));
+        if (comparison == 0) {
+            return first.getOutstandingRequests() <= second.getOutstandingRequests() ? first : second;
+        }
+
+        return comparison < 0 ? first : second;
+    }
+
+    @Override
+    protected BalancedNode choose(long now) {
+        final BalancedNode[] nodes = getNodes();
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        if (nodes.length == 1) {
+            return nodes[0].isAvailable(now) ? nodes[0] : null;
+        }
+
+        final int first = random.nextInt(nodes.length);
+        final int second = (first + 1 + random.nextInt(nodes.length - 1)) % nodes.length;
+        final boolean firstAvailable = nodes[first].isAvailable(now);
+        final boolean secondAvailable = nodes[second].isAvailable(now);
+
+        if (firstAvailable && secondAvailable) {
+            return sooner(nodes[first], nodes[second]);
+        } else if (firstAvailable) {
+            return nodes[first];
+        } else if (secondAvailable) {
+            return nodes[second];
+        }
+
+        // Both picks have been ejected, so take the first node that has not
+        for (int i = 1; i < nodes.length; i++) {
+            final BalancedNode node = nodes[(first + i) % nodes.length];
+            if (node.isAvailable(now)) {
+                return node;
+            }
+        }
+
+        return null;
+    }
+}
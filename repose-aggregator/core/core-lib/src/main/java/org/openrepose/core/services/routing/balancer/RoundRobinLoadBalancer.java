@@ -0,0 +1,88 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.core.services.routing.balancer;
+
+import org.openrepose.core.systemmodel.Node;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Takes the nodes in turn, each as many times in a round as its weight.
+ * <p/>
+ * The order of a round is worked out when the load balancer is built, spreading the turns of heavier nodes out rather
+ * than giving them all at once, so that picking a node is a single atomic increment.
+ */
+public class RoundRobinLoadBalancer extends AbstractLoadBalancer {
+
+    private final BalancedNode[] round;
+    private final AtomicLong position = new AtomicLong();
+
+    public RoundRobinLoadBalancer(List<Node> nodes, OutlierEjection outlierEjection) {
+        super(nodes, outlierEjection);
+        this.round = buildRound(getNodes());
+    }
+
+    private static BalancedNode[] buildRound(BalancedNode[] nodes) {
+        int divisor = 0;
+        for (BalancedNode node : nodes) {
+            divisor = BigInteger.valueOf(divisor).gcd(BigInteger.valueOf(weight(node))).intValue();
+        }
+
+        int totalWeight = 0;
+        for (BalancedNode node : nodes) {
+            totalWeight += weight(node) / divisor;
+        }
+
+        // Each turn goes to the node furthest behind its share of the round so far
+        final BalancedNode[] round = new BalancedNode[totalWeight];
+        final int[] current = new int[nodes.length];
+        for (int turn = 0; turn < totalWeight; turn++) {
+            int best = 0;
+            for (int i = 0; i < nodes.length; i++) {
+                current[i] += weight(nodes[i]) / divisor;
+                if (current[i] > current[best]) {
+                    best = i;
+                }
+            }
+            current[best] -= totalWeight;
+            round[turn] = nodes[best];
+        }
+
+        return round;
+    }
+
+    private static int weight(BalancedNode node) {
+        return Math.max(1, node.getNode().getWeight());
+    }
+
+    @Override
+    protected BalancedNode choose(long now) {
+        for (int i = 0; i < round.length; i++) {
+            final BalancedNode node = round[(int) ((position.getAndIncrement() & Long.MAX_VALUE) % round.length)];
+            if (node.isAvailable(now)) {
+                return node;
+            }
+        }
+
+        return null;
+    }
+}
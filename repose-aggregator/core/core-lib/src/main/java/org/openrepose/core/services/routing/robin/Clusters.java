@@ -19,6 +19,8 @@
  */
 package org.openrepose.core.services.routing.robin;
 
+import org.openrepose.core.services.routing.LoadBalancer;
+import org.openrepose.core.services.routing.balancer.LoadBalancers;
 import org.openrepose.core.systemmodel.Cluster;
 import org.openrepose.core.systemmodel.SystemModel;
 
@@ -26,20 +28,20 @@ import java.util.HashMap;
 import java.util.Map;
 
 public class Clusters {
-    private final Map<String, ClusterWrapper> domains;
+    private final Map<String, LoadBalancer> domains;
 
     public Clusters(SystemModel config) {
-        domains = new HashMap<String, ClusterWrapper>();
+        domains = new HashMap<String, LoadBalancer>();
 
         for (Cluster domain : config.getReposeCluster()) {
-            domains.put(domain.getId(), new ClusterWrapper(domain));
+            domains.put(domain.getId(), LoadBalancers.newLoadBalancer(domain));
         }
         for (Cluster domain : config.getServiceCluster()) {
-            domains.put(domain.getId(), new ClusterWrapper(domain));
+            domains.put(domain.getId(), LoadBalancers.newLoadBalancer(domain));
         }
     }
 
-    public ClusterWrapper getDomain(String id) {
+    public LoadBalancer getDomain(String id) {
         return domains.get(id);
     }
 }
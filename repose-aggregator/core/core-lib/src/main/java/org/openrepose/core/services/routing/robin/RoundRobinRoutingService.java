@@ -21,6 +21,7 @@ package org.openrepose.core.services.routing.robin;
 
 import org.openrepose.commons.config.manager.UpdateListener;
 import org.openrepose.core.services.config.ConfigurationService;
+import org.openrepose.core.services.routing.LoadBalancer;
 import org.openrepose.core.services.routing.RoutingService;
 import org.openrepose.core.systemmodel.Node;
 import org.openrepose.core.systemmodel.SystemModel;
@@ -33,13 +34,17 @@ import javax.inject.Inject;
 import javax.inject.Named;
 import java.net.URL;
 
+/**
+ * Routes the requests for each cluster with the load balancer the cluster is configured to use, which is round robin
+ * unless the system model says otherwise.
+ */
 //TODO: pass the systemModel to this guy instead of having it be its own thing
 @Named
 public class RoundRobinRoutingService implements RoutingService {
     private static final Logger LOG = LoggerFactory.getLogger(RoundRobinRoutingService.class);
     private ConfigurationService configurationService;
     private PowerApiConfigListener configListener;
-    private Clusters domains;
+    private volatile Clusters domains;
 
     @Inject
     public RoundRobinRoutingService(ConfigurationService configurationService) {
@@ -60,15 +65,23 @@ public class RoundRobinRoutingService implements RoutingService {
 
     @Override
     public Node getRoutableNode(String domainId) {
-        ClusterWrapper domain = domains.getDomain(domainId);
+        LoadBalancer domain = domains.getDomain(domainId);
         if (domain != null) {
-            return domain.getNextNode();
+            return domain.nextNode();
         }
 
         LOG.debug("no route-able node found, returning null");
         return null;
     }
 
+    @Override
+    public void recordResponse(String domainId, Node node, int statusCode, long responseTime) {
+        LoadBalancer domain = domains.getDomain(domainId);
+        if (domain != null) {
+            domain.recordResponse(node, statusCode, responseTime);
+        }
+    }
+
     private class PowerApiConfigListener implements UpdateListener<SystemModel> {
 
         private SystemModel config;
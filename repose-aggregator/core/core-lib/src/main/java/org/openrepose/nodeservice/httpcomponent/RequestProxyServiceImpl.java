@@ -21,6 +21,7 @@ package org.openrepose.nodeservice.httpcomponent;
 
 import com.google.common.base.Optional;
 import com.google.common.base.Throwables;
+import com.yammer.metrics.core.Gauge;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.Header;
 import org.apache.http.HttpEntity;
@@ -30,6 +31,7 @@ import org.apache.http.client.ClientProtocolException;
 import org.apache.http.client.methods.*;
 import org.apache.http.client.utils.URIUtils;
 import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.pool.PoolStats;
 import org.apache.http.util.EntityUtils;
 import org.openrepose.commons.config.manager.UpdateListener;
 import org.openrepose.commons.utils.StringUriUtilities;
@@ -42,6 +44,8 @@ import org.openrepose.commons.utils.logging.TracingKey;
 import org.openrepose.commons.utils.proxy.ProxyRequestException;
 import org.openrepose.core.filter.SystemModelInterrogator;
 import org.openrepose.core.proxy.HttpException;
+import org.openrepose.core.service.httpclient.config.HttpConnectionPoolConfig;
+import org.openrepose.core.service.httpclient.config.PoolType;
 import org.openrepose.core.services.RequestProxyService;
 import org.openrepose.core.services.config.ConfigurationService;
 import org.openrepose.core.services.healthcheck.HealthCheckService;
@@ -50,7 +54,12 @@ import org.openrepose.core.services.healthcheck.Severity;
 import org.openrepose.core.services.httpclient.HttpClientNotFoundException;
 import org.openrepose.core.services.httpclient.HttpClientResponse;
 import org.openrepose.core.services.httpclient.HttpClientService;
+import org.openrepose.core.services.reporting.metrics.MetricsService;
 import org.openrepose.core.spring.ReposeSpringProperties;
+import org.openrepose.nodeservice.jettyclient.JettyRequestProxyService;
+import org.openrepose.core.systemmodel.Destination;
+import org.openrepose.core.systemmodel.DestinationList;
+import org.openrepose.core.systemmodel.ProxyClient;
 import org.openrepose.core.systemmodel.ReposeCluster;
 import org.openrepose.core.systemmodel.SystemModel;
 import org.slf4j.Logger;
@@ -70,8 +79,13 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Named
 @Lazy
@@ -80,41 +94,122 @@ public class RequestProxyServiceImpl implements RequestProxyService {
     public static final String SYSTEM_MODEL_CONFIG_HEALTH_REPORT = "SystemModelConfigError";
     private static final Logger LOG = LoggerFactory.getLogger(RequestProxyServiceImpl.class);
     private static final String CHUNKED_ENCODING_PARAM = "chunked-encoding";
+    private static final String CONNECTION_POOL_CONFIG = "http-connection-pool.cfg.xml";
+    private static final String DEFAULT_POOL_SCOPE = "default-pool";
+    private static final String LEASED_CONNECTIONS = "Leased Connections";
+    private static final String PENDING_CONNECTIONS = "Pending Connections";
+    private static final String AVAILABLE_CONNECTIONS = "Available Connections";
+    private static final String MAX_CONNECTIONS = "Max Connections";
+    private static final String[] CONNECTION_GAUGES =
+            {LEASED_CONNECTIONS, PENDING_CONNECTIONS, AVAILABLE_CONNECTIONS, MAX_CONNECTIONS};
 
     private final ConfigurationService configurationService;
     private final SystemModelListener systemModelListener;
+    private final ConnectionPoolListener connectionPoolListener;
     private final String clusterId;
     private final String nodeId;
     private final HttpClientService httpClientService;
+    private final MetricsService metricsService;
     private final HealthCheckServiceProxy healthCheckServiceProxy;
+    private final Set<String> gaugedDestinations = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private volatile Map<String, String> destinationPoolIds = Collections.emptyMap();
     private boolean rewriteHostHeader = false;
+    private volatile JettyRequestProxyService nonBlockingProxy;
+    // The connection pool service builds its default pool from the same defaults when it has no configuration
+    private volatile PoolType defaultPool = new PoolType();
 
     @Inject
     public RequestProxyServiceImpl(ConfigurationService configurationService,
                                    HealthCheckService healthCheckService,
                                    HttpClientService httpClientService,
+                                   MetricsService metricsService,
                                    @Value(ReposeSpringProperties.NODE.CLUSTER_ID) String clusterId,
                                    @Value(ReposeSpringProperties.NODE.NODE_ID) String nodeId) {
 
         this.configurationService = configurationService;
         this.httpClientService = httpClientService;
+        this.metricsService = metricsService;
         this.clusterId = clusterId;
         this.nodeId = nodeId;
 
         this.systemModelListener = new SystemModelListener();
+        this.connectionPoolListener = new ConnectionPoolListener();
         healthCheckServiceProxy = healthCheckService.register();
 
     }
 
     @PostConstruct
     public void init() {
+        configurationService.subscribeTo(CONNECTION_POOL_CONFIG,
+                getClass().getResource("/META-INF/schema/config/http-connection-pool.xsd"),
+                connectionPoolListener, HttpConnectionPoolConfig.class);
         configurationService.subscribeTo("system-model.cfg.xml", systemModelListener, SystemModel.class);
+
+        if (metricsService != null) {
+            addGauges(DEFAULT_POOL_SCOPE, null);
+        }
     }
 
     @PreDestroy
     public void destroy() {
         healthCheckServiceProxy.deregister();
         configurationService.unsubscribeFrom("system-model.cfg.xml", systemModelListener);
+        configurationService.unsubscribeFrom(CONNECTION_POOL_CONFIG, connectionPoolListener);
+        useNonBlockingProxy(false);
+
+        // The metrics registry outlives the node, so the gauges bound to this service are removed along with it
+        if (metricsService != null) {
+            removeGauges(DEFAULT_POOL_SCOPE);
+            for (String destinationId : gaugedDestinations) {
+                gaugedDestinations.remove(destinationId);
+                removeGauges(destinationId);
+            }
+        }
+    }
+
+    /**
+     * Starts or stops the non-blocking client that requests are handed to in place of the default connection pool.
+     * The non-blocking client takes its timeouts and connection limit from the default connection pool.
+     */
+    private synchronized void useNonBlockingProxy(boolean enabled) {
+        if (enabled && nonBlockingProxy == null) {
+            nonBlockingProxy = newNonBlockingProxy();
+
+            LOG.info("Proxying requests with the non-blocking HTTP client");
+        } else if (!enabled && nonBlockingProxy != null) {
+            // Like a replaced connection pool, the client is only stopped once the requests using it are done
+            nonBlockingProxy.retire();
+            nonBlockingProxy = null;
+
+            LOG.info("Proxying requests with the default HTTP connection pool");
+        }
+    }
+
+    /**
+     * Replaces the non-blocking client, if it is in use, with one built from the current default connection pool.
+     */
+    private synchronized void rebuildNonBlockingProxy() {
+        if (nonBlockingProxy != null) {
+            final JettyRequestProxyService oldProxy = nonBlockingProxy;
+            nonBlockingProxy = newNonBlockingProxy();
+            oldProxy.retire();
+
+            LOG.info("Rebuilt the non-blocking HTTP client from the updated default connection pool");
+        }
+    }
+
+    private JettyRequestProxyService newNonBlockingProxy() {
+        final PoolType pool = defaultPool;
+        final JettyRequestProxyService proxy = new JettyRequestProxyService(
+                pool.getHttpConnectionTimeout(),
+                pool.getHttpSocketTimeout(),
+                pool.getHttpConnManagerMaxPerRoute(),
+                pool.isHttpTcpNodelay(),
+                pool.isChunkedEncoding());
+        proxy.setRewriteHostHeader(rewriteHostHeader);
+        proxy.start();
+
+        return proxy;
     }
 
     private HttpHost getProxiedHost(String targetHost) throws HttpException {
@@ -128,17 +223,109 @@ public class RequestProxyServiceImpl implements RequestProxyService {
     }
 
     private HttpClientResponse getClient() {
+        return getClient(null);
+    }
+
+    private HttpClientResponse getClient(String poolId) {
         try {
-            return httpClientService.getClient(null);
+            return httpClientService.getClient(poolId);
         } catch (HttpClientNotFoundException e) {
-            LOG.error("Failed to obtain an HTTP default client connection.");
-            throw new ProxyRequestException("Failed to obtain an HTTP default client connection.", e);
+            LOG.error("Failed to obtain an HTTP client connection from pool {}.", poolId);
+            throw new ProxyRequestException("Failed to obtain an HTTP client connection.", e);
+        }
+    }
+
+    /**
+     * Finds the connection pool that the destination the request is routed to is bound to. Destinations that name no
+     * pool, or a pool that has not been configured, use the default pool, rather than have a pool made up for them.
+     */
+    private String getPoolId(HttpServletRequest request) {
+        final Object destinationId = request.getAttribute(DESTINATION_ID_ATTRIBUTE);
+        final String poolId = destinationId != null ? destinationPoolIds.get(destinationId.toString()) : null;
+
+        return poolId != null && httpClientService.isAvailable(poolId) ? poolId : null;
+    }
+
+    /**
+     * Reports the connections of a pool. The default pool is reported once, under its own scope, while each
+     * destination bound to a pool of its own is reported under its id. The destination gauges look up whichever pool
+     * the destination is currently bound to, so they only need replacing when it stops being bound to a pool. Every
+     * scope is prefixed with the cluster and node, since each local node has a service of its own.
+     */
+    private void addGauges(String name, final String destinationId) {
+        final String scope = gaugeScope(name);
+        metricsService.newGauge(RequestProxyService.class, LEASED_CONNECTIONS, scope, new Gauge<Integer>() {
+            @Override
+            public Integer value() {
+                return getPoolStats(destinationId).getLeased();
+            }
+        });
+        metricsService.newGauge(RequestProxyService.class, PENDING_CONNECTIONS, scope, new Gauge<Integer>() {
+            @Override
+            public Integer value() {
+                return getPoolStats(destinationId).getPending();
+            }
+        });
+        metricsService.newGauge(RequestProxyService.class, AVAILABLE_CONNECTIONS, scope, new Gauge<Integer>() {
+            @Override
+            public Integer value() {
+                return getPoolStats(destinationId).getAvailable();
+            }
+        });
+        metricsService.newGauge(RequestProxyService.class, MAX_CONNECTIONS, scope, new Gauge<Integer>() {
+            @Override
+            public Integer value() {
+                return getPoolStats(destinationId).getMax();
+            }
+        });
+    }
+
+    private void removeGauges(String name) {
+        final String scope = gaugeScope(name);
+        for (String gauge : CONNECTION_GAUGES) {
+            metricsService.removeMetric(RequestProxyService.class, gauge, scope);
+        }
+    }
+
+    private String gaugeScope(String name) {
+        return clusterId + "-" + nodeId + "-" + name;
+    }
+
+    /**
+     * Binds the gauges to the destinations that now have a pool of their own, dropping those of destinations that were
+     * removed from the system model or no longer name a pool.
+     */
+    private void updateGauges(Set<String> boundDestinations) {
+        if (metricsService == null) {
+            return;
+        }
+
+        for (String destinationId : gaugedDestinations) {
+            if (!boundDestinations.contains(destinationId)) {
+                gaugedDestinations.remove(destinationId);
+                removeGauges(destinationId);
+            }
+        }
+        for (String destinationId : boundDestinations) {
+            if (gaugedDestinations.add(destinationId)) {
+                addGauges(destinationId, destinationId);
+            }
         }
     }
 
+    // The default pool is reported for a null destination
+    private PoolStats getPoolStats(String destinationId) {
+        return httpClientService.getPoolStats(destinationId != null ? destinationPoolIds.get(destinationId) : null);
+    }
+
     @Override
     public int proxyRequest(String targetHost, HttpServletRequest request, HttpServletResponse response) throws IOException {
-        HttpClientResponse httpClientResponse = getClient();
+        final JettyRequestProxyService proxy = nonBlockingProxy;
+        if (proxy != null) {
+            return proxy.proxyRequest(targetHost, request, response);
+        }
+
+        HttpClientResponse httpClientResponse = getClient(getPoolId(request));
 
         try {
             final boolean isChunkedConfigured = httpClientResponse.getHttpClient().getParams().getBooleanParameter(CHUNKED_ENCODING_PARAM, true);
@@ -150,7 +337,7 @@ public class RequestProxyServiceImpl implements RequestProxyService {
             if (method != null) {
                 HttpRequestBase processedMethod = method.process(processor);
 
-                return executeProxyRequest(processedMethod, response);
+                return executeProxyRequest(httpClientResponse, processedMethod, response);
             }
         } catch (URISyntaxException | HttpException ex) {
             LOG.error("Error processing request", ex);
@@ -162,9 +349,8 @@ public class RequestProxyServiceImpl implements RequestProxyService {
         return -1;
     }
 
-    private int executeProxyRequest(HttpRequestBase httpMethodProxyRequest, HttpServletResponse response) throws IOException, HttpException {
-        HttpClientResponse httpClientResponse = getClient();
-
+    private int executeProxyRequest(HttpClientResponse httpClientResponse, HttpRequestBase httpMethodProxyRequest,
+                                    HttpServletResponse response) throws IOException, HttpException {
         try {
             HttpResponse httpResponse = httpClientResponse.getHttpClient().execute(httpMethodProxyRequest);
             HttpComponentResponseCodeProcessor responseCode = new HttpComponentResponseCodeProcessor(httpResponse.getStatusLine().getStatusCode());
@@ -187,8 +373,6 @@ public class RequestProxyServiceImpl implements RequestProxyService {
                 LOG.error("Error processing outgoing request", ex);
                 return -1;
             }
-        } finally {
-            httpClientService.releaseClient(httpClientResponse);
         }
         return 1;
 
@@ -237,6 +421,11 @@ public class RequestProxyServiceImpl implements RequestProxyService {
 
     @Override
     public ServiceClientResponse get(String uri, Map<String, String> headers) {
+        final JettyRequestProxyService proxy = nonBlockingProxy;
+        if (proxy != null) {
+            return proxy.get(uri, headers);
+        }
+
         HttpGet get = new HttpGet(uri);
         setHeaders(get, headers);
         return execute(get);
@@ -244,6 +433,11 @@ public class RequestProxyServiceImpl implements RequestProxyService {
 
     @Override
     public ServiceClientResponse get(String baseUri, String extraUri, Map<String, String> headers) {
+        final JettyRequestProxyService proxy = nonBlockingProxy;
+        if (proxy != null) {
+            return proxy.get(baseUri, extraUri, headers);
+        }
+
         HttpGet get = new HttpGet(StringUriUtilities.appendPath(baseUri, extraUri));
         setHeaders(get, headers);
         return execute(get);
@@ -251,6 +445,11 @@ public class RequestProxyServiceImpl implements RequestProxyService {
 
     @Override
     public ServiceClientResponse delete(String baseUri, String extraUri, Map<String, String> headers) {
+        final JettyRequestProxyService proxy = nonBlockingProxy;
+        if (proxy != null) {
+            return proxy.delete(baseUri, extraUri, headers);
+        }
+
         HttpDelete delete = new HttpDelete(StringUriUtilities.appendPath(baseUri, extraUri));
         setHeaders(delete, headers);
         return execute(delete);
@@ -258,6 +457,11 @@ public class RequestProxyServiceImpl implements RequestProxyService {
 
     @Override
     public ServiceClientResponse put(String uri, Map<String, String> headers, byte[] body) {
+        final JettyRequestProxyService proxy = nonBlockingProxy;
+        if (proxy != null) {
+            return proxy.put(uri, headers, body);
+        }
+
         HttpPut put = new HttpPut(uri);
         setHeaders(put, headers);
         if (body != null && body.length > 0) {
@@ -269,6 +473,11 @@ public class RequestProxyServiceImpl implements RequestProxyService {
     //todo: chain these
     @Override
     public ServiceClientResponse put(String baseUri, String path, Map<String, String> headers, byte[] body) {
+        final JettyRequestProxyService proxy = nonBlockingProxy;
+        if (proxy != null) {
+            return proxy.put(baseUri, path, headers, body);
+        }
+
         HttpPut put = new HttpPut(StringUriUtilities.appendPath(baseUri, path));
         setHeaders(put, headers);
         if (body != null && body.length > 0) {
@@ -279,6 +488,11 @@ public class RequestProxyServiceImpl implements RequestProxyService {
 
     @Override
     public ServiceClientResponse patch(String baseUri, String path, Map<String, String> headers, byte[] body) {
+        final JettyRequestProxyService proxy = nonBlockingProxy;
+        if (proxy != null) {
+            return proxy.patch(baseUri, path, headers, body);
+        }
+
         HttpPatch patch = new HttpPatch(StringUriUtilities.appendPath(baseUri, path));
         setHeaders(patch, headers);
         if (body != null && body.length > 0) {
@@ -290,6 +504,11 @@ public class RequestProxyServiceImpl implements RequestProxyService {
     @Override
     public void setRewriteHostHeader(boolean value) {
         this.rewriteHostHeader = value;
+
+        final JettyRequestProxyService proxy = nonBlockingProxy;
+        if (proxy != null) {
+            proxy.setRewriteHostHeader(value);
+        }
     }
 
     private class SystemModelListener implements UpdateListener<SystemModel> {
@@ -303,6 +522,8 @@ public class RequestProxyServiceImpl implements RequestProxyService {
 
             if (localCluster.isPresent()) {
                 setRewriteHostHeader(localCluster.get().isRewriteHostHeader());
+                bindDestinationPools(localCluster.get().getDestinations());
+                useNonBlockingProxy(localCluster.get().getProxyClient() == ProxyClient.NON_BLOCKING);
                 isInitialized = true;
 
                 healthCheckServiceProxy.resolveIssue(SYSTEM_MODEL_CONFIG_HEALTH_REPORT);
@@ -313,6 +534,47 @@ public class RequestProxyServiceImpl implements RequestProxyService {
             }
         }
 
+        private void bindDestinationPools(DestinationList destinationList) {
+            final List<Destination> destinations = new ArrayList<>();
+            if (destinationList != null) {
+                destinations.addAll(destinationList.getEndpoint());
+                destinations.addAll(destinationList.getTarget());
+            }
+
+            final Map<String, String> poolIds = new HashMap<>();
+            for (Destination destination : destinations) {
+                if (destination.getConnectionPoolId() != null) {
+                    poolIds.put(destination.getId(), destination.getConnectionPoolId());
+                }
+            }
+            destinationPoolIds = poolIds;
+            updateGauges(poolIds.keySet());
+        }
+
+        @Override
+        public boolean isInitialized() {
+            return isInitialized;
+        }
+    }
+
+    private class ConnectionPoolListener implements UpdateListener<HttpConnectionPoolConfig> {
+
+        private boolean isInitialized = false;
+
+        @Override
+        public void configurationUpdated(HttpConnectionPoolConfig config) {
+            PoolType newDefaultPool = new PoolType();
+            for (PoolType pool : config.getPool()) {
+                if (pool.isDefault()) {
+                    newDefaultPool = pool;
+                }
+            }
+
+            defaultPool = newDefaultPool;
+            rebuildNonBlockingProxy();
+            isInitialized = true;
+        }
+
         @Override
         public boolean isInitialized() {
             return isInitialized;
@@ -0,0 +1,135 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.nodeservice.jettyclient;
+
+import org.eclipse.jetty.client.api.Request;
+import org.eclipse.jetty.client.util.InputStreamContentProvider;
+import org.openrepose.commons.utils.StringUtilities;
+import org.openrepose.commons.utils.http.CommonHttpHeader;
+import org.openrepose.commons.utils.servlet.http.MutableHttpServletRequest;
+import org.openrepose.core.proxy.common.AbstractRequestProcessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Copies the header values, query string parameters, and body of a request onto a request to the origin service. The
+ * body is streamed to the origin service as it is read.
+ */
+class JettyRequestProcessor extends AbstractRequestProcessor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JettyRequestProcessor.class);
+    private static final String ENCODING = "UTF-8";
+    private static final Set<String> ENTITY_ENCLOSING_METHODS = new HashSet<>(Arrays.asList("PUT", "POST", "DELETE", "PATCH"));
+
+    private final HttpServletRequest sourceRequest;
+    private final URI targetHost;
+    private final boolean rewriteHostHeader;
+    private final boolean isConfiguredChunked;
+
+    public JettyRequestProcessor(HttpServletRequest request, URI host, boolean rewriteHostHeader,
+                                 boolean isConfiguredChunked) {
+        this.sourceRequest = request;
+        this.targetHost = host;
+        this.rewriteHostHeader = rewriteHostHeader;
+        this.isConfiguredChunked = isConfiguredChunked;
+    }
+
+    public Request process(Request request) throws IOException {
+        setRequestParameters(request);
+        setHeaders(request);
+
+        if (ENTITY_ENCLOSING_METHODS.contains(sourceRequest.getMethod().toUpperCase())) {
+            request.content(getContent());
+        }
+
+        return request;
+    }
+
+    private void setRequestParameters(Request request) {
+        final Enumeration<String> names = sourceRequest.getParameterNames();
+
+        while (names.hasMoreElements()) {
+            final String name = names.nextElement();
+            if (StringUtilities.isBlank(name)) {
+                continue;
+            }
+
+            for (String value : sourceRequest.getParameterValues(name)) {
+                try {
+                    request.param(name, URLDecoder.decode(value, ENCODING));
+                } catch (IllegalArgumentException | UnsupportedEncodingException ex) {
+                    LOG.warn("URL parameter could not be decoded, passing it as-is.", ex);
+                    request.param(name, value);
+                }
+            }
+        }
+    }
+
+    private void setHeaders(Request request) {
+        final Enumeration<String> headerNames = sourceRequest.getHeaderNames();
+
+        while (headerNames.hasMoreElements()) {
+            final String headerName = headerNames.nextElement();
+            if (excludeHeader(headerName)) {
+                continue;
+            }
+
+            // In case the proxy host is running multiple virtual servers, rewrite the Host header to ensure that we
+            // get content from the correct virtual server
+            if (rewriteHostHeader && CommonHttpHeader.HOST.matches(headerName)) {
+                request.header(headerName, targetHost.getHost() + ":" + targetHost.getPort());
+                continue;
+            }
+
+            final Enumeration<String> headerValues = sourceRequest.getHeaders(headerName);
+            while (headerValues.hasMoreElements()) {
+                request.header(headerName, headerValues.nextElement());
+            }
+        }
+    }
+
+    private InputStreamContentProvider getContent() throws IOException {
+        if (StringUtilities.nullSafeEqualsIgnoreCase(sourceRequest.getHeader("transfer-encoding"), "chunked") ||
+                isConfiguredChunked) {
+            return new InputStreamContentProvider(sourceRequest.getInputStream());
+        }
+
+        // Filters may have replaced the body, so its length can only be found by reading it
+        final long contentLength = sourceRequest instanceof MutableHttpServletRequest ?
+                ((MutableHttpServletRequest) sourceRequest).getRealBodyLength() : sourceRequest.getContentLength();
+
+        return new InputStreamContentProvider(sourceRequest.getInputStream()) {
+            @Override
+            public long getLength() {
+                return contentLength;
+            }
+        };
+    }
+}
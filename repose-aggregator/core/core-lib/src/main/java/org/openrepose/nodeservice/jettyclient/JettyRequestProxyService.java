@@ -0,0 +1,305 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.nodeservice.jettyclient;
+
+import com.google.common.base.Throwables;
+import org.apache.commons.lang3.StringUtils;
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.api.ContentResponse;
+import org.eclipse.jetty.client.api.Request;
+import org.eclipse.jetty.client.api.Response;
+import org.eclipse.jetty.client.api.Result;
+import org.eclipse.jetty.client.util.BytesContentProvider;
+import org.eclipse.jetty.client.util.InputStreamResponseListener;
+import org.eclipse.jetty.util.HttpCookieStore;
+import org.eclipse.jetty.util.ssl.SslContextFactory;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.openrepose.commons.utils.StringUriUtilities;
+import org.openrepose.commons.utils.http.CommonHttpHeader;
+import org.openrepose.commons.utils.http.ServiceClientResponse;
+import org.openrepose.commons.utils.io.stream.ReadLimitReachedException;
+import org.openrepose.commons.utils.logging.TracingHeaderHelper;
+import org.openrepose.commons.utils.logging.TracingKey;
+import org.openrepose.commons.utils.proxy.ProxyRequestException;
+import org.openrepose.core.proxy.HttpException;
+import org.openrepose.core.services.RequestProxyService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link RequestProxyService} built on Jetty's non-blocking HTTP client. Connections are driven by a few selector
+ * threads instead of one blocked thread each, the request body is streamed to the origin service as it is read, and
+ * the response body is handed to the filter chain as a stream that fills as the origin service sends it.
+ * <p/>
+ * The filter chain still waits for the response status and headers before unwinding, since response filters run once
+ * the route returns. Neither that wait nor a service client request waits longer than the socket timeout.
+ * <p/>
+ * A client that is being replaced is {@link #retire() retired} rather than stopped, so that the requests still using
+ * it are allowed to finish.
+ */
+public class JettyRequestProxyService implements RequestProxyService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JettyRequestProxyService.class);
+    private static final long RETIRE_INTERVAL = 1000;
+
+    private final HttpClient httpClient;
+    private final long responseTimeoutMillis;
+    private final boolean chunkedEncoding;
+    private final AtomicInteger activeRequests = new AtomicInteger();
+    private volatile boolean rewriteHostHeader = false;
+
+    /**
+     * @param connectTimeoutMillis          how long to wait for a connection to be established
+     * @param idleTimeoutMillis             how long a connection may go without traffic, and how long to wait for a
+     *                                      response, or 0 to wait forever
+     * @param maxConnectionsPerDestination  the most connections opened to any one host and port
+     * @param tcpNoDelay                    whether to disable Nagle's algorithm
+     * @param chunkedEncoding               whether request bodies are sent chunked, rather than buffered to find
+     *                                      their length
+     */
+    public JettyRequestProxyService(int connectTimeoutMillis, int idleTimeoutMillis, int maxConnectionsPerDestination,
+                                    boolean tcpNoDelay, boolean chunkedEncoding) {
+        this.chunkedEncoding = chunkedEncoding;
+        this.responseTimeoutMillis = idleTimeoutMillis;
+
+        final QueuedThreadPool threadPool = new QueuedThreadPool();
+        threadPool.setName("proxy-client");
+        threadPool.setDaemon(true);
+
+        // Origin services are trusted the same way by the blocking client
+        httpClient = new HttpClient(new SslContextFactory(true));
+        httpClient.setExecutor(threadPool);
+        httpClient.setConnectTimeout(connectTimeoutMillis);
+        httpClient.setIdleTimeout(idleTimeoutMillis);
+        httpClient.setMaxConnectionsPerDestination(maxConnectionsPerDestination);
+        httpClient.setTCPNoDelay(tcpNoDelay);
+        httpClient.setFollowRedirects(false);
+        httpClient.setCookieStore(new HttpCookieStore.Empty());
+        // Bodies are passed along as the origin service encoded them
+        httpClient.getContentDecoderFactories().clear();
+    }
+
+    public void start() {
+        try {
+            httpClient.start();
+        } catch (Exception e) {
+            throw new ProxyRequestException("Unable to start the non-blocking HTTP client", e);
+        }
+    }
+
+    public void stop() {
+        try {
+            httpClient.stop();
+        } catch (Exception e) {
+            LOG.warn("Failed to stop the non-blocking HTTP client", e);
+        }
+    }
+
+    /**
+     * Stops the client once the requests still using it have finished. The first check waits one interval, so that
+     * requests which picked up this client just before it was replaced have started by then.
+     */
+    public void retire() {
+        final Thread retirement = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    do {
+                        Thread.sleep(RETIRE_INTERVAL);
+                    } while (activeRequests.get() > 0);
+                } catch (InterruptedException ex) {
+                    LOG.info("Interrupted waiting for requests to finish before stopping the non-blocking HTTP client", ex);
+                }
+
+                stop();
+            }
+        }, "proxy-client-retirement");
+        retirement.setDaemon(true);
+        retirement.start();
+    }
+
+    /**
+     * Counts the request as active until its exchange completes, which is only once the response body has been
+     * received in full. The filter chain is handed the body while it is still arriving, well after the headers.
+     */
+    private Request track(Request request) {
+        activeRequests.incrementAndGet();
+        return request.onComplete(new Response.CompleteListener() {
+            @Override
+            public void onComplete(Result result) {
+                activeRequests.decrementAndGet();
+            }
+        });
+    }
+
+    @Override
+    public int proxyRequest(String targetHost, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        final URI proxiedHost;
+        try {
+            final URI target = new URI(targetHost);
+            proxiedHost = new URI(target.getScheme(), null, target.getHost(), target.getPort(), null, null, null);
+        } catch (URISyntaxException ex) {
+            LOG.error("Invalid target host url: " + targetHost, ex);
+            return -1;
+        }
+
+        final JettyRequestProcessor processor = new JettyRequestProcessor(request, proxiedHost, rewriteHostHeader,
+                chunkedEncoding);
+        final Request proxyRequest = processor.process(
+                httpClient.newRequest(proxiedHost.toString() + request.getRequestURI()).method(request.getMethod()));
+
+        final InputStreamResponseListener listener = new InputStreamResponseListener();
+        track(proxyRequest).send(listener);
+
+        final Response proxyResponse;
+        try {
+            proxyResponse = listener.get(responseTimeoutMillis > 0 ? responseTimeoutMillis : Long.MAX_VALUE,
+                    TimeUnit.MILLISECONDS);
+        } catch (ExecutionException ex) {
+            final Throwable cause = ex.getCause();
+            if (Throwables.getRootCause(ex) instanceof ReadLimitReachedException) {
+                LOG.error("Error reading request content", ex);
+                response.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, "Error reading request content");
+                return 1;
+            } else if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof TimeoutException) {
+                throw (IOException) new SocketTimeoutException("Timed out waiting for the origin service").initCause(cause);
+            }
+
+            LOG.error("Error processing outgoing request", ex);
+            return -1;
+        } catch (TimeoutException ex) {
+            proxyRequest.abort(ex);
+            throw (IOException) new SocketTimeoutException("Timed out waiting for the origin service").initCause(ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            proxyRequest.abort(ex);
+            LOG.error("Interrupted waiting for the origin service to respond", ex);
+            return -1;
+        }
+
+        final JettyResponseProcessor responseProcessor = new JettyResponseProcessor(proxyResponse,
+                listener.getInputStream(), response);
+        try {
+            if (responseProcessor.getResponseCode().isRedirect()) {
+                responseProcessor.sendTranslatedRedirect(proxyResponse.getStatus());
+            } else {
+                responseProcessor.process();
+            }
+        } catch (HttpException ex) {
+            LOG.error("Error processing response", ex);
+            return -1;
+        }
+
+        return proxyResponse.getStatus();
+    }
+
+    private Request newServiceClientRequest(String uri, String method, Map<String, String> headers, byte[] body) {
+        final Request request = httpClient.newRequest(uri).method(method);
+
+        for (Map.Entry<String, String> entry : headers.entrySet()) {
+            request.header(entry.getKey(), entry.getValue());
+        }
+
+        //Tack on the tracing ID for requests via the dist datastore
+        final String traceGUID = MDC.get(TracingKey.TRACING_KEY);
+        if (!StringUtils.isEmpty(traceGUID)) {
+            request.header(CommonHttpHeader.TRACE_GUID.toString(),
+                    TracingHeaderHelper.createTracingHeader(traceGUID, request.getHeaders().get(CommonHttpHeader.VIA.toString())));
+        }
+
+        if (body != null && body.length > 0) {
+            request.content(new BytesContentProvider(body));
+        }
+
+        if (responseTimeoutMillis > 0) {
+            request.timeout(responseTimeoutMillis, TimeUnit.MILLISECONDS);
+        }
+
+        return request;
+    }
+
+    private ServiceClientResponse execute(Request request) {
+        try {
+            final ContentResponse response = track(request).send();
+            final InputStream stream = new ByteArrayInputStream(response.getContent());
+
+            return new ServiceClientResponse(response.getStatus(), stream);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            LOG.error("Interrupted executing request to {}", request.getURI(), ex);
+        } catch (TimeoutException | ExecutionException ex) {
+            LOG.error("Error executing request to {}", request.getURI(), ex);
+        }
+
+        return new ServiceClientResponse(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, null);
+    }
+
+    @Override
+    public ServiceClientResponse get(String uri, Map<String, String> headers) {
+        return execute(newServiceClientRequest(uri, "GET", headers, null));
+    }
+
+    @Override
+    public ServiceClientResponse get(String baseUri, String extraUri, Map<String, String> headers) {
+        return execute(newServiceClientRequest(StringUriUtilities.appendPath(baseUri, extraUri), "GET", headers, null));
+    }
+
+    @Override
+    public ServiceClientResponse delete(String baseUri, String extraUri, Map<String, String> headers) {
+        return execute(newServiceClientRequest(StringUriUtilities.appendPath(baseUri, extraUri), "DELETE", headers, null));
+    }
+
+    @Override
+    public ServiceClientResponse put(String uri, Map<String, String> headers, byte[] body) {
+        return execute(newServiceClientRequest(uri, "PUT", headers, body));
+    }
+
+    @Override
+    public ServiceClientResponse put(String baseUri, String path, Map<String, String> headers, byte[] body) {
+        return execute(newServiceClientRequest(StringUriUtilities.appendPath(baseUri, path), "PUT", headers, body));
+    }
+
+    @Override
+    public ServiceClientResponse patch(String baseUri, String path, Map<String, String> headers, byte[] body) {
+        return execute(newServiceClientRequest(StringUriUtilities.appendPath(baseUri, path), "PATCH", headers, body));
+    }
+
+    @Override
+    public void setRewriteHostHeader(boolean value) {
+        this.rewriteHostHeader = value;
+    }
+}
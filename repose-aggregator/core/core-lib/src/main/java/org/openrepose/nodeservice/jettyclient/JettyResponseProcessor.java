@@ -0,0 +1,69 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.nodeservice.jettyclient;
+
+import org.eclipse.jetty.client.api.Response;
+import org.eclipse.jetty.http.HttpField;
+import org.openrepose.commons.utils.io.RawInputStreamReader;
+import org.openrepose.commons.utils.servlet.http.MutableHttpServletResponse;
+import org.openrepose.core.proxy.common.AbstractResponseProcessor;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Copies the status and headers of an origin service response onto a servlet response. The body is handed over as a
+ * stream that fills as the origin service sends it.
+ */
+class JettyResponseProcessor extends AbstractResponseProcessor {
+
+    private final Response proxyResponse;
+    private final InputStream body;
+
+    public JettyResponseProcessor(Response proxyResponse, InputStream body, HttpServletResponse response) {
+        super(response, proxyResponse.getStatus());
+        this.proxyResponse = proxyResponse;
+        this.body = body;
+    }
+
+    @Override
+    protected void setResponseHeaders() throws IOException {
+        for (HttpField header : proxyResponse.getHeaders()) {
+            addHeader(header.getName(), header.getValue());
+        }
+    }
+
+    @Override
+    protected void setResponseBody() throws IOException {
+        if (getResponse() instanceof MutableHttpServletResponse) {
+            ((MutableHttpServletResponse) getResponse()).setInputStream(body);
+        } else {
+            final OutputStream clientOut = getResponse().getOutputStream();
+            try {
+                RawInputStreamReader.instance().copyTo(body, clientOut);
+                clientOut.flush();
+            } finally {
+                body.close();
+            }
+        }
+    }
+}
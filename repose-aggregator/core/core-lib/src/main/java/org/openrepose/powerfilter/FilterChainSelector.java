@@ -0,0 +1,174 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.powerfilter;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.openrepose.commons.utils.servlet.filter.BodyPassThroughFilter;
+import org.openrepose.powerfilter.filtercontext.FilterContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * An immutable view of a configured filter chain that knows how to select the filters applicable to a request URI.
+ * <p/>
+ * One of these is built every time the PowerFilter loads a system model, so dropping the old instance is all it takes
+ * to invalidate the cached selections. Filters configured without a uri-regex (or with the default ".*") are always
+ * selected without running a matcher, and the result of running the remaining matchers is cached per request URI in
+ * a bounded cache so that repeated requests for the same resource don't pay for regex matching or list allocation.
+ */
+public class FilterChainSelector {
+
+    public static final int DEFAULT_CACHE_SIZE = 1024;
+
+    private static final Logger LOG = LoggerFactory.getLogger(FilterChainSelector.class);
+    private static final String MATCH_ALL_REGEX = ".*";
+
+    private final FilterContext[] filters;
+    private final Pattern[] uriPatterns;
+    private final boolean unconditional;
+    private final FilterChainSelection fullSelection;
+    private final Cache<String, FilterChainSelection> selectionCache;
+
+    public FilterChainSelector(List<FilterContext> filterChain) {
+        this(filterChain, DEFAULT_CACHE_SIZE);
+    }
+
+    public FilterChainSelector(List<FilterContext> filterChain, int cacheSize) {
+        this.filters = filterChain.toArray(new FilterContext[filterChain.size()]);
+        this.uriPatterns = new Pattern[filters.length];
+
+        boolean allUnconditional = true;
+        for (int i = 0; i < filters.length; i++) {
+            Pattern uriPattern = filters[i].getUriPattern();
+            if (uriPattern != null && !MATCH_ALL_REGEX.equals(uriPattern.pattern())) {
+                uriPatterns[i] = uriPattern;
+                allUnconditional = false;
+            }
+        }
+
+        this.unconditional = allUnconditional;
+        this.fullSelection = new FilterChainSelection(filters);
+        this.selectionCache = CacheBuilder.newBuilder()
+                .maximumSize(cacheSize)
+                .build();
+    }
+
+    /**
+     * Find the filters that are applicable to a request based on the uri-regex specified for each filter and the
+     * request uri.
+     *
+     * @param uri the request URI
+     * @return the selected filters, in chain order
+     */
+    public FilterChainSelection select(String uri) {
+        if (unconditional) {
+            return fullSelection;
+        }
+
+        FilterChainSelection selection = selectionCache.getIfPresent(uri);
+        if (selection == null) {
+            selection = new FilterChainSelection(match(uri));
+            selectionCache.put(uri, selection);
+        }
+
+        return selection;
+    }
+
+    public int size() {
+        return filters.length;
+    }
+
+    /**
+     * @return the names of the filters in the chain, in chain order
+     */
+    @Override
+    public String toString() {
+        List<String> names = new ArrayList<>(filters.length);
+        for (FilterContext filter : filters) {
+            // A filter without a uri-regex is not given its configured name by its context
+            names.add(filter.getFilterConfig() != null ? filter.getFilterConfig().getName() : filter.getName());
+        }
+
+        return names.toString();
+    }
+
+    private FilterContext[] match(String uri) {
+        List<FilterContext> matched = new ArrayList<>(filters.length);
+        for (int i = 0; i < filters.length; i++) {
+            if (uriPatterns[i] == null || uriPatterns[i].matcher(uri).matches()) {
+                matched.add(filters[i]);
+            }
+        }
+
+        return matched.toArray(new FilterContext[matched.size()]);
+    }
+
+    /**
+     * The filters selected for a request URI, along with their availability which is fixed once the chain is built.
+     */
+    public static class FilterChainSelection {
+
+        private final FilterContext[] filters;
+        private final boolean available;
+        private final boolean bodyPassThrough;
+
+        FilterChainSelection(FilterContext[] filters) {
+            this.filters = filters;
+
+            boolean allAvailable = true;
+            boolean allPassBodyThrough = true;
+            for (FilterContext filter : filters) {
+                if (!filter.isFilterAvailable()) {
+                    LOG.warn("Filter is not available for processing requests: " + filter.getName());
+                    allAvailable = false;
+                }
+                if (!(filter.getFilter() instanceof BodyPassThroughFilter)) {
+                    allPassBodyThrough = false;
+                }
+            }
+            this.available = allAvailable;
+            this.bodyPassThrough = allPassBodyThrough;
+        }
+
+        public int size() {
+            return filters.length;
+        }
+
+        public FilterContext get(int position) {
+            return filters[position];
+        }
+
+        public boolean isAvailable() {
+            return available;
+        }
+
+        /**
+         * @return true if none of the selected filters read or replace the request body
+         */
+        public boolean isBodyPassThrough() {
+            return bodyPassThrough;
+        }
+    }
+}
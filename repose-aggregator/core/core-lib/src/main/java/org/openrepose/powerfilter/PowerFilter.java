@@ -20,9 +20,11 @@
 package org.openrepose.powerfilter;
 
 import com.google.common.base.Optional;
+import com.yammer.metrics.core.Gauge;
 import org.openrepose.commons.config.manager.UpdateListener;
 import org.openrepose.commons.utils.StringUtilities;
 import org.openrepose.commons.utils.http.CommonHttpHeader;
+import org.openrepose.commons.utils.io.buffer.PooledByteArrayProvider;
 import org.openrepose.commons.utils.logging.TracingHeaderHelper;
 import org.openrepose.commons.utils.logging.TracingKey;
 import org.openrepose.commons.utils.servlet.http.MutableHttpServletRequest;
@@ -102,6 +104,7 @@ public class PowerFilter extends DelegatingFilterProxy {
     private final AtomicReference<SystemModel> currentSystemModel = new AtomicReference<>();
     private final AtomicReference<PowerFilterRouter> powerFilterRouter = new AtomicReference<>();
     private final AtomicReference<List<FilterContext>> currentFilterChain = new AtomicReference<>();
+    private final AtomicReference<FilterChainSelector> currentFilterChainSelector = new AtomicReference<>();
     private final String nodeId;
     private final String clusterId;
     private final PowerFilterRouterFactory powerFilterRouterFactory;
@@ -177,6 +180,34 @@ public class PowerFilter extends DelegatingFilterProxy {
 
         healthCheckServiceProxy = healthCheckService.register();
         mbcResponseCodes = metricsService.newMeterByCategory(ResponseCode.class, "Repose", "Response Code", TimeUnit.SECONDS);
+        registerBufferPoolGauges(metricsService, PooledByteArrayProvider.getInstance());
+    }
+
+    private static void registerBufferPoolGauges(MetricsService metricsService, final PooledByteArrayProvider pool) {
+        metricsService.newGauge(PooledByteArrayProvider.class, "Pooled Bytes", "Repose", new Gauge<Long>() {
+            @Override
+            public Long value() {
+                return pool.getPooledBytes();
+            }
+        });
+        metricsService.newGauge(PooledByteArrayProvider.class, "Leased Buffers", "Repose", new Gauge<Long>() {
+            @Override
+            public Long value() {
+                return pool.getLeasedArrays();
+            }
+        });
+        metricsService.newGauge(PooledByteArrayProvider.class, "Misses", "Repose", new Gauge<Long>() {
+            @Override
+            public Long value() {
+                return pool.getMisses();
+            }
+        });
+        metricsService.newGauge(PooledByteArrayProvider.class, "Leaks", "Repose", new Gauge<Long>() {
+            @Override
+            public Long value() {
+                return pool.getLeaks();
+            }
+        });
     }
 
     public static void markResponseCodeHelper(MeterByCategory mbc, int responseCode, Logger log, String logPrefix) {
@@ -232,6 +263,8 @@ public class PowerFilter extends DelegatingFilterProxy {
                             newFilterChain = Collections.emptyList();
                         }
 
+                        //Replacing the selector throws away any cached per-URI selections from the old chain
+                        currentFilterChainSelector.set(new FilterChainSelector(newFilterChain));
                         List<FilterContext> oldFilterChain = currentFilterChain.getAndSet(newFilterChain);
 
                         powerFilterRouter.set(powerFilterRouterFactory.
@@ -315,7 +348,7 @@ public class PowerFilter extends DelegatingFilterProxy {
         PowerFilterChain requestFilterChain = null;
         try {
             boolean healthy = healthCheckService.isHealthy();
-            List<FilterContext> filterChain = currentFilterChain.get();
+            FilterChainSelector filterChain = currentFilterChainSelector.get();
             PowerFilterRouter router = powerFilterRouter.get();
 
             if (!healthy ||
@@ -414,6 +447,9 @@ public class PowerFilter extends DelegatingFilterProxy {
                 mutableHttpResponse.commitBufferToServletOutputStream();
             } catch (IOException ex) {
                 LOG.error("{}:{} -- Error committing output stream", clusterId, nodeId, ex);
+            } finally {
+                mutableHttpResponse.releaseBuffers();
+                mutableHttpRequest.releaseBuffers();
             }
             final long stopTime = System.currentTimeMillis();
 
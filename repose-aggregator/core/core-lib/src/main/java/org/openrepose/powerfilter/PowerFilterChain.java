@@ -66,10 +66,10 @@ public class PowerFilterChain implements FilterChain {
     private static final String START_TIME_ATTRIBUTE = "org.openrepose.repose.logging.start.time";
     private static final String INTRAFILTER_UUID = "Intrafilter-UUID";
 
-    private final List<FilterContext> filterChainCopy;
+    private final FilterChainSelector filterChainSelector;
     private final FilterChain containerFilterChain;
     private final PowerFilterRouter router;
-    private List<FilterContext> currentFilters;
+    private FilterChainSelector.FilterChainSelection currentFilters;
     private int position;
     private RequestTracer tracer = null;
     private boolean filterChainAvailable;
@@ -81,8 +81,16 @@ public class PowerFilterChain implements FilterChain {
                             PowerFilterRouter router,
                             MetricsService metricsService)
             throws PowerFilterChainException {
+        this(new FilterChainSelector(filterChainCopy), containerFilterChain, router, metricsService);
+    }
 
-        this.filterChainCopy = new LinkedList<>(filterChainCopy);
+    public PowerFilterChain(FilterChainSelector filterChainSelector,
+                            FilterChain containerFilterChain,
+                            PowerFilterRouter router,
+                            MetricsService metricsService)
+            throws PowerFilterChainException {
+
+        this.filterChainSelector = filterChainSelector;
         this.containerFilterChain = containerFilterChain;
         this.router = router;
         if (metricsService != null) {
@@ -102,14 +110,18 @@ public class PowerFilterChain implements FilterChain {
         boolean useTrace = addTraceHeader || (filterTimer != null);
 
         tracer = new RequestTracer(useTrace, addTraceHeader);
-        currentFilters = getFilterChainForRequest(request.getRequestURI());
-        filterChainAvailable = isCurrentFilterChainAvailable();
+        currentFilters = filterChainSelector.select(request.getRequestURI());
+        filterChainAvailable = currentFilters.isAvailable();
         servletRequest.setAttribute("filterChainAvailableForRequest", filterChainAvailable);
         servletRequest.setAttribute("http://openrepose.org/requestUrl", ((HttpServletRequest) servletRequest).getRequestURL().toString());
         servletRequest.setAttribute("http://openrepose.org/queryParams", servletRequest.getParameterMap());
         MutableHttpServletRequest wrappedRequest = MutableHttpServletRequest.wrap((HttpServletRequest) servletRequest);
         splitRequestHeaders(wrappedRequest);
 
+        // Intrafilter logging reads the request body, so it has to be buffered for the filters after it
+        wrappedRequest.setBodyPassThrough(filterChainAvailable && currentFilters.isBodyPassThrough() &&
+                !INTRAFILTER_LOG.isTraceEnabled());
+
         doFilter(wrappedRequest, servletResponse);
     }
 
@@ -138,43 +150,10 @@ public class PowerFilterChain implements FilterChain {
         return splitHeaders;
     }
 
-    /**
-     * Find the filters that are applicable to this request based on the uri-regex specified for each filter and the
-     * current request uri.
-     * <p/>
-     * If a necessary filter is not available, then return an empty filter list.
-     *
-     * @param uri
-     * @return
-     */
-    private List<FilterContext> getFilterChainForRequest(String uri) {
-        List<FilterContext> filters = new LinkedList<>();
-        for (FilterContext filter : filterChainCopy) {
-            if (filter.getUriPattern() == null || filter.getUriPattern().matcher(uri).matches()) {
-                filters.add(filter);
-            }
-        }
-
-        return filters;
-    }
-
     private boolean traceRequest(HttpServletRequest request) {
         return request.getHeader("X-Trace-Request") != null;
     }
 
-    private boolean isCurrentFilterChainAvailable() {
-        boolean result = true;
-
-        for (FilterContext filter : currentFilters) {
-            if (!filter.isFilterAvailable()) {
-                LOG.warn("Filter is not available for processing requests: " + filter.getName());
-            }
-            result &= filter.isFilterAvailable();
-        }
-
-        return result;
-    }
-
     private boolean isResponseOk(HttpServletResponse response) {
         return response.getStatus() < HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
     }
@@ -29,11 +29,13 @@ import org.openrepose.core.ResponseCode;
 import org.openrepose.core.filter.logic.DispatchPathBuilder;
 import org.openrepose.core.filter.routing.DestinationLocation;
 import org.openrepose.core.filter.routing.DestinationLocationBuilder;
+import org.openrepose.core.services.RequestProxyService;
 import org.openrepose.core.services.headers.response.ResponseHeaderService;
 import org.openrepose.core.services.reporting.ReportingService;
 import org.openrepose.core.services.reporting.metrics.MeterByCategory;
 import org.openrepose.core.services.reporting.metrics.MetricsService;
 import org.openrepose.core.services.reporting.metrics.impl.MeterByCategorySum;
+import org.openrepose.core.services.routing.RoutingService;
 import org.openrepose.core.systemmodel.Destination;
 import org.openrepose.core.systemmodel.DestinationCluster;
 import org.openrepose.core.systemmodel.DestinationEndpoint;
@@ -139,58 +141,74 @@ public class PowerFilterRouterImpl implements PowerFilterRouter {
         }
 
         if (location != null) {
-            // According to the Java 6 javadocs the routeDestination passed into getContext:
-            // "The given path [routeDestination] must begin with /, is interpreted relative to the server's document root
-            // and is matched against the context roots of other web applications hosted on this container."
-            final ServletContext targetContext = servletContext.getContext(location.getUri().toString());
-
-            if (targetContext != null) {
-                // Capture this for Location header processing
-                final HttpServletRequest originalRequest = (HttpServletRequest) servletRequest.getRequest();
-
-                String uri = new DispatchPathBuilder(location.getUri().getPath(), targetContext.getContextPath()).build();
-                final RequestDispatcher dispatcher = targetContext.getRequestDispatcher(uri);
-
-                servletRequest.setRequestUrl(new StringBuffer(location.getUrl().toExternalForm()));
-                servletRequest.setRequestUri(location.getUri().getPath()); //TODO: destination location builder is giving back an invalid URI
-                requestHeaderService.setVia(servletRequest);
-                requestHeaderService.setXForwardedFor(servletRequest);
-                if (dispatcher != null) {
-                    LOG.debug("Attempting to route to: {}", location.getUri());
-                    LOG.debug("  Using dispatcher for: {}", uri);
-                    LOG.debug("           Request URL: {}", ((HttpServletRequest) servletRequest).getRequestURL());
-                    LOG.debug("           Request URI: {}", ((HttpServletRequest) servletRequest).getRequestURI());
-                    LOG.debug("          Context path: {}", targetContext.getContextPath());
-
-                    final long startTime = System.currentTimeMillis();
-                    try {
-                        reportingService.incrementRequestCount(routingDestination.getDestinationId());
-                        dispatcher.forward(servletRequest, servletResponse);
-
-                        // track response code for endpoint & across all endpoints
-                        String endpoint = getEndpoint(configDestinationElement, location);
-                        MeterByCategory mbc = verifyGet(endpoint);
-                        MeterByCategory mbcTimeout = getTimeoutMeter(endpoint);
-
-                        PowerFilter.markResponseCodeHelper(mbc, servletResponse.getStatus(), LOG, endpoint);
-                        PowerFilter.markResponseCodeHelper(mbcAllResponse, servletResponse.getStatus(), LOG, MeterByCategorySum.ALL);
-                        markRequestTimeoutHelper(mbcTimeout, servletResponse.getStatus(), endpoint);
-                        markRequestTimeoutHelper(mbcAllTimeouts, servletResponse.getStatus(), "All Endpoints");
-
-                        final long stopTime = System.currentTimeMillis();
-                        reportingService.recordServiceResponse(routingDestination.getDestinationId(), servletResponse.getStatus(), stopTime - startTime);
-                        responseHeaderService.fixLocationHeader(originalRequest, servletResponse, routingDestination, location.getUri().toString(), rootPath);
-                    } catch (IOException e) {
-                        if (e.getCause() instanceof ReadLimitReachedException) {
-                            LOG.error("Error reading request content", e);
-                            servletResponse.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, "Error reading request content");
-                            servletResponse.setLastException(e);
-                        } else {
-                            LOG.error("Connection Refused to {}", location.getUri(), e);
-                            ((HttpServletResponse) servletResponse).setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            // Only what the origin did counts for or against its node, not anything that failed here around it
+            int originStatus = RoutingService.NOT_SENT;
+            long originMillis = 0;
+            try {
+                // According to the Java 6 javadocs the routeDestination passed into getContext:
+                // "The given path [routeDestination] must begin with /, is interpreted relative to the server's document root
+                // and is matched against the context roots of other web applications hosted on this container."
+                final ServletContext targetContext = servletContext.getContext(location.getUri().toString());
+
+                if (targetContext != null) {
+                    // Capture this for Location header processing
+                    final HttpServletRequest originalRequest = (HttpServletRequest) servletRequest.getRequest();
+
+                    String uri = new DispatchPathBuilder(location.getUri().getPath(), targetContext.getContextPath()).build();
+                    final RequestDispatcher dispatcher = targetContext.getRequestDispatcher(uri);
+
+                    servletRequest.setRequestUrl(new StringBuffer(location.getUrl().toExternalForm()));
+                    servletRequest.setRequestUri(location.getUri().getPath()); //TODO: destination location builder is giving back an invalid URI
+                    requestHeaderService.setVia(servletRequest);
+                    requestHeaderService.setXForwardedFor(servletRequest);
+                    servletRequest.setAttribute(RequestProxyService.DESTINATION_ID_ATTRIBUTE, routingDestination.getDestinationId());
+                    if (dispatcher != null) {
+                        LOG.debug("Attempting to route to: {}", location.getUri());
+                        LOG.debug("  Using dispatcher for: {}", uri);
+                        LOG.debug("           Request URL: {}", ((HttpServletRequest) servletRequest).getRequestURL());
+                        LOG.debug("           Request URI: {}", ((HttpServletRequest) servletRequest).getRequestURI());
+                        LOG.debug("          Context path: {}", targetContext.getContextPath());
+
+                        final long startTime = System.currentTimeMillis();
+                        try {
+                            reportingService.incrementRequestCount(routingDestination.getDestinationId());
+                            dispatcher.forward(servletRequest, servletResponse);
+                            originStatus = servletResponse.getStatus();
+                            originMillis = System.currentTimeMillis() - startTime;
+
+                            // track response code for endpoint & across all endpoints
+                            String endpoint = getEndpoint(configDestinationElement, location);
+                            MeterByCategory mbc = verifyGet(endpoint);
+                            MeterByCategory mbcTimeout = getTimeoutMeter(endpoint);
+
+                            PowerFilter.markResponseCodeHelper(mbc, servletResponse.getStatus(), LOG, endpoint);
+                            PowerFilter.markResponseCodeHelper(mbcAllResponse, servletResponse.getStatus(), LOG, MeterByCategorySum.ALL);
+                            markRequestTimeoutHelper(mbcTimeout, servletResponse.getStatus(), endpoint);
+                            markRequestTimeoutHelper(mbcAllTimeouts, servletResponse.getStatus(), "All Endpoints");
+
+                            final long stopTime = System.currentTimeMillis();
+                            reportingService.recordServiceResponse(routingDestination.getDestinationId(), servletResponse.getStatus(), stopTime - startTime);
+                            responseHeaderService.fixLocationHeader(originalRequest, servletResponse, routingDestination, location.getUri().toString(), rootPath);
+                        } catch (IOException e) {
+                            if (e.getCause() instanceof ReadLimitReachedException) {
+                                LOG.error("Error reading request content", e);
+                                servletResponse.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, "Error reading request content");
+                                servletResponse.setLastException(e);
+                            } else {
+                                LOG.error("Connection Refused to {}", location.getUri(), e);
+                                ((HttpServletResponse) servletResponse).setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                                if (originStatus == RoutingService.NOT_SENT) {
+                                    // The origin could not be reached, which does count against its node
+                                    originStatus = HttpServletResponse.SC_SERVICE_UNAVAILABLE;
+                                    originMillis = System.currentTimeMillis() - startTime;
+                                }
+                            }
                         }
                     }
                 }
+            } finally {
+                // The node given out for this request is done with, whichever way the request went
+                locationBuilder.recordResponse(location, originStatus, originMillis);
             }
         }
     }
@@ -31,6 +31,7 @@ import org.openrepose.core.services.healthcheck.HealthCheckService
 import org.openrepose.core.services.healthcheck.HealthCheckServiceProxy
 import org.openrepose.core.services.healthcheck.Severity
 import org.openrepose.core.services.httpclient.HttpClientService
+import org.openrepose.core.services.reporting.metrics.MetricsService
 import org.openrepose.core.systemmodel.Node
 import org.openrepose.core.systemmodel.NodeList
 import org.openrepose.core.systemmodel.ReposeCluster
@@ -67,7 +68,7 @@ class RequestProxyServiceHealthCheckTest extends Specification {
 
         when(healthCheckService.register()).thenReturn(healthCheckServiceProxy)
 
-        this.requestProxyService = new RequestProxyServiceImpl(configurationService, healthCheckService, mock(HttpClientService.class), "cluster", "node")
+        this.requestProxyService = new RequestProxyServiceImpl(configurationService, healthCheckService, mock(HttpClientService.class), mock(MetricsService.class), "cluster", "node")
 
     }
 
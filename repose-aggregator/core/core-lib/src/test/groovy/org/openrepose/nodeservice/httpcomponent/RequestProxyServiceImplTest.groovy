@@ -33,6 +33,7 @@ import org.openrepose.core.services.config.ConfigurationService
 import org.openrepose.core.services.healthcheck.HealthCheckService
 import org.openrepose.core.services.httpclient.HttpClientResponse
 import org.openrepose.core.services.httpclient.HttpClientService
+import org.openrepose.core.services.reporting.metrics.MetricsService
 import org.openrepose.core.systemmodel.SystemModel
 import spock.lang.Specification
 
@@ -53,6 +54,7 @@ class RequestProxyServiceImplTest extends Specification {
                 mock(ConfigurationService.class),
                 mock(HealthCheckService.class),
                 httpClientService,
+                mock(MetricsService.class),
                 "cluster",
                 "node")
     }
@@ -0,0 +1,125 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.core.services.config.impl;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.openrepose.commons.config.resource.ConfigurationResource;
+import org.openrepose.core.services.event.common.EventService;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import static org.mockito.Mockito.*;
+
+public class ConfigurationResourceWatcherTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private EventService eventService;
+    private ConfigurationResourceWatcher watcher;
+    private long now;
+
+    @Before
+    public void setUp() {
+        eventService = mock(EventService.class);
+        now = System.currentTimeMillis() + 60000;
+        watcher = new ConfigurationResourceWatcher(eventService) {
+            @Override
+            long currentTimeMillis() {
+                return now;
+            }
+        };
+    }
+
+    private ConfigurationResource resource(String name) throws Exception {
+        ConfigurationResource resource = mock(ConfigurationResource.class);
+        when(resource.name()).thenReturn(name);
+        when(resource.updated()).thenReturn(true);
+        return resource;
+    }
+
+    @Test
+    public void shouldOnlyReadFilesAgainOnceTheyChange() throws Exception {
+        File file = folder.newFile("container.cfg.xml");
+        Files.write(file.toPath(), "<container/>".getBytes());
+        ConfigurationResource resource = resource(file.toURI().toURL().toString());
+        watcher.watch(resource);
+
+        watcher.run();
+        watcher.run();
+        verify(resource, times(1)).updated();
+
+        Files.write(file.toPath(), "<container a=\"b\"/>".getBytes());
+        watcher.run();
+        verify(resource, times(2)).updated();
+        verify(eventService, times(2)).newEvent(ConfigurationEvent.UPDATE, resource);
+    }
+
+    @Test
+    public void shouldReadFilesModifiedJustBeforeTheLastCheckAgain() throws Exception {
+        File file = folder.newFile("container.cfg.xml");
+        ConfigurationResource resource = resource(file.toURI().toURL().toString());
+        now = file.lastModified();
+        watcher.watch(resource);
+
+        watcher.run();
+        watcher.run();
+        verify(resource, times(2)).updated();
+    }
+
+    @Test
+    public void shouldReadFilesTheFileSystemReportsChangedEvenIfTheyLookTheSame() throws Exception {
+        File file = folder.newFile("container.cfg.xml");
+        ConfigurationResource resource = resource(file.toURI().toURL().toString());
+        watcher.watch(resource);
+
+        watcher.run();
+        watcher.check(file.toPath().toAbsolutePath());
+        watcher.checkDirectory(folder.getRoot().toPath().toAbsolutePath());
+        verify(resource, times(3)).updated();
+    }
+
+    @Test
+    public void shouldAlwaysReadResourcesThatAreNotFiles() throws Exception {
+        ConfigurationResource resource = resource("http://example.com/container.cfg.xml");
+        watcher.watch(resource);
+
+        watcher.run();
+        watcher.run();
+        verify(resource, times(2)).updated();
+    }
+
+    @Test
+    public void shouldKeepReadingResourcesThatFailToBeRead() throws Exception {
+        File file = folder.newFile("container.cfg.xml");
+        ConfigurationResource resource = resource(file.toURI().toURL().toString());
+        when(resource.updated()).thenThrow(new IllegalStateException("unreadable"));
+        watcher.watch(resource);
+
+        watcher.run();
+        watcher.run();
+        verify(resource, times(2)).updated();
+        verify(eventService, never()).newEvent(ConfigurationEvent.UPDATE, resource);
+    }
+}
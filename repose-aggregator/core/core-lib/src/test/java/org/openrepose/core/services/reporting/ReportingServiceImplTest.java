@@ -82,5 +82,71 @@ public class ReportingServiceImplTest {
             DestinationInfo dstInfo = reportingService.getDestinationInfo("id_1");
             assertEquals(1, dstInfo.getTotalStatusCode(202));
         }
+
+        @Test
+        public void shouldCountRequestsFromManyThreads() throws InterruptedException {
+            final List<Thread> threads = new ArrayList<Thread>();
+            for (int i = 0; i < 8; i++) {
+                threads.add(new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        for (int j = 0; j < 1000; j++) {
+                            reportingService.incrementRequestCount("id_2");
+                            reportingService.recordServiceResponse("id_2", 500, 3);
+                        }
+                    }
+                }));
+            }
+
+            for (Thread thread : threads) {
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            DestinationInfo dstInfo = reportingService.getDestinationInfo("id_2");
+            assertEquals(8000, dstInfo.getTotalRequests());
+            assertEquals(8000, dstInfo.getTotalStatusCode(500));
+            assertEquals(24000, dstInfo.getTotalResponseTime(500));
+        }
+
+        @Test
+        public void shouldNotChangeSnapshotsAsMoreIsCounted() {
+            reportingService.incrementRequestCount("id_1");
+            DestinationInfo dstInfo = reportingService.getDestinationInfo("id_1");
+
+            reportingService.incrementRequestCount("id_1");
+
+            assertEquals(1, dstInfo.getTotalRequests());
+            assertEquals(2, reportingService.getDestinationInfo("id_1").getTotalRequests());
+        }
+
+        @Test
+        public void shouldReportResponseTimePercentiles() {
+            for (int i = 0; i < 98; i++) {
+                reportingService.recordServiceResponse("id_1", 200, 4);
+            }
+            reportingService.recordServiceResponse("id_1", 200, 150);
+            reportingService.recordServiceResponse("id_1", 200, 90000);
+
+            DestinationInfo dstInfo = reportingService.getDestinationInfo("id_1");
+            assertEquals(5, dstInfo.getResponseTimePercentile(50));
+            assertEquals(200, dstInfo.getResponseTimePercentile(99));
+            assertEquals(Long.MAX_VALUE, dstInfo.getResponseTimePercentile(100));
+            assertEquals(0, reportingService.getDestinationInfo("id_2").getResponseTimePercentile(50));
+        }
+
+        @Test
+        public void shouldKeepReposeSizesInSnapshots() {
+            reportingService.processReposeRequestSize(85);
+            reportingService.processReposeRequestSize(20);
+            reportingService.processReposeResponseSize(55);
+
+            ReposeInfo reposeInfo = reportingService.getReposeInfo();
+            assertEquals(20, reposeInfo.getMinimumRequestSize());
+            assertEquals(85, reposeInfo.getMaximumRequestSize());
+            assertEquals(55, reposeInfo.getMaximumResponseSize());
+        }
     }
 }
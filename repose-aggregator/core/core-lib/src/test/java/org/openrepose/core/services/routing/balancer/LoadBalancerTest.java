@@ -0,0 +1,181 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.core.services.routing.balancer;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.runners.Enclosed;
+import org.junit.runner.RunWith;
+import org.openrepose.core.services.routing.LoadBalancer;
+import org.openrepose.core.services.routing.RoutingService;
+import org.openrepose.core.systemmodel.Node;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(Enclosed.class)
+public class LoadBalancerTest {
+
+    private static Node node(String id, int weight) {
+        Node node = new Node();
+        node.setId(id);
+        node.setHostname(id);
+        node.setHttpPort(8080);
+        node.setWeight(weight);
+        return node;
+    }
+
+    public static class WhenUsingRoundRobin {
+
+        @Test
+        public void shouldTakeNodesInTurnByWeight() {
+            Node a = node("a", 2);
+            Node b = node("b", 1);
+            LoadBalancer balancer = new RoundRobinLoadBalancer(Arrays.asList(a, b), OutlierEjection.DEFAULT);
+
+            List<Node> chosen = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                chosen.add(balancer.nextNode());
+            }
+
+            assertEquals(Arrays.asList(a, b, a, a, b, a), chosen);
+        }
+
+        @Test
+        public void shouldReturnNullWithoutNodes() {
+            assertNull(new RoundRobinLoadBalancer(new ArrayList<Node>(), OutlierEjection.DEFAULT).nextNode());
+        }
+    }
+
+    public static class WhenUsingLeastOutstandingRequests {
+
+        @Test
+        public void shouldPickTheNodeWithFewestRequestsInFlight() {
+            Node a = node("a", 1);
+            Node b = node("b", 1);
+            LoadBalancer balancer = new LeastOutstandingRequestsLoadBalancer(Arrays.asList(a, b), OutlierEjection.DEFAULT);
+
+            Node first = balancer.nextNode();
+            Node second = balancer.nextNode();
+            assertNotSame(first, second);
+
+            balancer.recordResponse(second, 200, 10);
+            assertSame(second, balancer.nextNode());
+        }
+    }
+
+    public static class WhenUsingPowerOfTwoChoices {
+
+        @Test
+        public void shouldPreferTheFasterNode() {
+            Node fast = node("fast", 1);
+            Node slow = node("slow", 1);
+            LoadBalancer balancer = new PowerOfTwoChoicesLoadBalancer(Arrays.asList(fast, slow), OutlierEjection.DEFAULT);
+
+            Node first = balancer.nextNode();
+            Node second = balancer.nextNode();
+            balancer.recordResponse(first, 200, first == fast ? 5 : 500);
+            balancer.recordResponse(second, 200, second == fast ? 5 : 500);
+
+            for (int i = 0; i < 20; i++) {
+                Node chosen = balancer.nextNode();
+                assertSame(fast, chosen);
+                balancer.recordResponse(chosen, 200, 5);
+            }
+        }
+    }
+
+    public static class WhenNodesFail {
+
+        private Node a;
+        private Node b;
+        private long now;
+        private LoadBalancer balancer;
+
+        @Before
+        public void setup() {
+            a = node("a", 1);
+            b = node("b", 1);
+            now = 1000;
+            balancer = new RoundRobinLoadBalancer(Arrays.asList(a, b), new OutlierEjection(2, 100, 10)) {
+                @Override
+                protected long currentTimeMillis() {
+                    return now;
+                }
+            };
+        }
+
+        private void fail(Node node, int times) {
+            for (int i = 0; i < times; i++) {
+                balancer.recordResponse(node, 503, 1);
+            }
+        }
+
+        @Test
+        public void shouldEjectANodeThatKeepsFailing() {
+            fail(a, 2);
+
+            for (int i = 0; i < 4; i++) {
+                assertSame(b, balancer.nextNode());
+            }
+        }
+
+        @Test
+        public void shouldLetAnEjectedNodeBackInOnceItsTimeIsUp() {
+            fail(a, 2);
+            now += 100;
+
+            assertTrue(Arrays.asList(balancer.nextNode(), balancer.nextNode()).contains(a));
+        }
+
+        @Test
+        public void shouldEjectALetBackNodeOnItsFirstFailureForLonger() {
+            fail(a, 2);
+            now += 100;
+            fail(a, 1);
+            now += 100;
+
+            for (int i = 0; i < 4; i++) {
+                assertSame(b, balancer.nextNode());
+            }
+        }
+
+        @Test
+        public void shouldNotCountRequestsThatWereNeverSent() {
+            fail(a, 1);
+            balancer.recordResponse(a, RoutingService.NOT_SENT, 0);
+            balancer.recordResponse(a, 200, 1);
+            fail(a, 1);
+
+            assertTrue(Arrays.asList(balancer.nextNode(), balancer.nextNode()).contains(a));
+        }
+
+        @Test
+        public void shouldUseEveryNodeOnceAllAreEjected() {
+            fail(a, 2);
+            fail(b, 2);
+
+            assertNotNull(balancer.nextNode());
+        }
+    }
+}
@@ -23,12 +23,16 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.experimental.runners.Enclosed;
 import org.junit.runner.RunWith;
+import org.openrepose.core.services.config.impl.ConfigurationEvent;
 import org.openrepose.core.services.event.EventServiceImpl;
 import org.openrepose.core.services.event.common.Event;
 import org.openrepose.core.services.event.common.EventDispatcher;
 import org.openrepose.core.services.event.common.EventListener;
 import org.openrepose.core.services.event.common.EventService;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.Assert.*;
 
 @RunWith(Enclosed.class)
@@ -185,6 +189,97 @@ public class EventServiceImplTest {
         }
     }
 
+    public static class WhenQueueingEvents {
+        private EventService manager;
+
+        @Before
+        public void standUp() {
+            manager = new EventServiceImpl(2);
+        }
+
+        @Test
+        public void shouldReportTheQueueDepth() throws Exception {
+            manager.newEvent(TestEvent.ONE, "first");
+            manager.newEvent(TestEvent.ONE, "second");
+            assertEquals(2, manager.getQueueDepth());
+
+            // Until it has been dispatched, an event taken off the queue still counts
+            final EventDispatcher dispatcher = manager.nextDispatcher();
+            assertEquals(2, manager.getQueueDepth());
+
+            dispatcher.dispatch();
+            assertEquals(1, manager.getQueueDepth());
+        }
+
+        @Test
+        public void shouldDropEventsOnceTheQueueIsFull() throws Exception {
+            manager.newEvent(TestEvent.ONE, "first");
+            manager.newEvent(TestEvent.ONE, "second");
+            manager.newEvent(TestEvent.ONE, "third");
+            assertEquals(2, manager.getQueueDepth());
+
+            final EventDispatcher first = manager.nextDispatcher();
+            assertEquals("first", first.getEvent().payload());
+            manager.newEvent(TestEvent.ONE, "dropped");
+            first.dispatch();
+            manager.newEvent(TestEvent.ONE, "fourth");
+            assertEquals("second", manager.nextDispatcher().getEvent().payload());
+            assertEquals("fourth", manager.nextDispatcher().getEvent().payload());
+        }
+
+        @Test
+        public void shouldNeverDropConfigurationEvents() throws Exception {
+            manager.newEvent(TestEvent.ONE, "first");
+            manager.newEvent(TestEvent.ONE, "second");
+            manager.newEvent(ConfigurationEvent.UPDATE, "config.cfg.xml");
+            manager.newEvent(TestEvent.ONE, "third");
+            assertEquals(3, manager.getQueueDepth());
+
+            manager.nextDispatcher().dispatch();
+            manager.nextDispatcher().dispatch();
+            final EventDispatcher configuration = manager.nextDispatcher();
+            assertEquals(ConfigurationEvent.UPDATE, configuration.getEvent().type());
+            configuration.dispatch();
+
+            // The configuration event never held one of the two slots
+            manager.newEvent(TestEvent.ONE, "fourth");
+            manager.newEvent(TestEvent.ONE, "fifth");
+            manager.newEvent(TestEvent.ONE, "sixth");
+            assertEquals(2, manager.getQueueDepth());
+        }
+
+        @Test
+        public void shouldNotifyListenersRegisteredWhileDispatching() throws Exception {
+            final List<String> received = new ArrayList<String>();
+            final EventListener<TestEvent, String> lateListener = new EventListener<TestEvent, String>() {
+                @Override
+                public void onEvent(Event<TestEvent, String> e) {
+                    received.add("late " + e.payload());
+                }
+            };
+            manager.listen(new EventListener<TestEvent, String>() {
+                @Override
+                public void onEvent(Event<TestEvent, String> e) {
+                    received.add("early " + e.payload());
+                    manager.listen(lateListener, TestEvent.ONE);
+                }
+            }, TestEvent.ONE);
+
+            manager.newEvent(TestEvent.ONE, "first");
+            manager.nextDispatcher().dispatch();
+            manager.newEvent(TestEvent.ONE, "second");
+            manager.nextDispatcher().dispatch();
+
+            assertTrue(received.contains("early first"));
+            assertTrue(received.contains("late second"));
+            assertFalse(received.contains("late first"));
+        }
+
+        public static enum TestEvent {
+            ONE
+        }
+    }
+
     public static class WhenHandlingMulithreadedManagement {
         private EventService manager;
 
@@ -0,0 +1,226 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.nodeservice.jettyclient;
+
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.openrepose.commons.utils.http.ServiceClientResponse;
+import org.openrepose.commons.utils.io.ByteBufferServletOutputStream;
+import org.openrepose.commons.utils.io.RawInputStreamReader;
+import org.openrepose.commons.utils.io.buffer.CyclicByteBuffer;
+import org.openrepose.commons.utils.io.stream.ServletInputStreamWrapper;
+import org.openrepose.commons.utils.servlet.http.MutableHttpServletResponse;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.*;
+
+public class JettyRequestProxyServiceTest {
+
+    private Server server;
+    private String origin;
+    private JettyRequestProxyService proxyService;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new Server(0);
+        server.setHandler(new EchoHandler());
+        server.start();
+        origin = "http://localhost:" + ((ServerConnector) server.getConnectors()[0]).getLocalPort();
+
+        proxyService = new JettyRequestProxyService(5000, 30000, 10, true, true);
+        proxyService.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        proxyService.stop();
+        server.stop();
+    }
+
+    private static HttpServletRequest request(String method, String uri, String body) throws IOException {
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getMethod()).thenReturn(method);
+        when(request.getRequestURI()).thenReturn(uri);
+        when(request.getParameterNames()).thenReturn(Collections.enumeration(Collections.singletonList("a")));
+        when(request.getParameterValues("a")).thenReturn(new String[]{"b%20c"});
+        when(request.getHeaderNames()).thenReturn(Collections.enumeration(Collections.singletonList("X-Test")));
+        when(request.getHeaders("X-Test")).thenReturn(Collections.enumeration(Collections.singletonList("value")));
+        when(request.getInputStream()).thenReturn(
+                new ServletInputStreamWrapper(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8))));
+        return request;
+    }
+
+    @Test
+    public void shouldStreamTheRequestAndResponseBodies() throws Exception {
+        final CyclicByteBuffer buffer = new CyclicByteBuffer();
+        final HttpServletResponse response = mock(HttpServletResponse.class);
+        when(response.getOutputStream()).thenReturn(new ByteBufferServletOutputStream(buffer));
+
+        final int status = proxyService.proxyRequest(origin, request("POST", "/echo", "hello origin"), response);
+
+        final byte[] body = new byte[buffer.available()];
+        buffer.get(body);
+
+        assertEquals(HttpServletResponse.SC_CREATED, status);
+        assertEquals("hello origin", new String(body, StandardCharsets.UTF_8));
+        verify(response).setStatus(HttpServletResponse.SC_CREATED);
+        verify(response).addHeader("X-Echo", "value");
+        verify(response).addHeader("X-Query", "a=b+c");
+    }
+
+    @Test
+    public void shouldSendServiceClientRequests() throws Exception {
+        final Map<String, String> headers = new HashMap<>();
+        headers.put("X-Test", "value");
+
+        final ServiceClientResponse response = proxyService.patch(origin, "/echo", headers,
+                "patched".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(HttpServletResponse.SC_CREATED, response.getStatus());
+        assertEquals("patched", new String(RawInputStreamReader.instance().readFully(response.getData()),
+                StandardCharsets.UTF_8));
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldThrowWhenTheOriginServiceCannotBeReached() throws Exception {
+        final String unreachable = origin;
+        server.stop();
+
+        proxyService.proxyRequest(unreachable, request("GET", "/echo", ""), mock(HttpServletResponse.class));
+    }
+
+    @Test(expected = SocketTimeoutException.class)
+    public void shouldStopWaitingForAResponseAfterTheSocketTimeout() throws Exception {
+        final JettyRequestProxyService impatientService = new JettyRequestProxyService(5000, 200, 10, true, true);
+        impatientService.start();
+
+        try {
+            impatientService.proxyRequest(origin, request("GET", "/slow", ""), mock(HttpServletResponse.class));
+        } finally {
+            impatientService.stop();
+        }
+    }
+
+    @Test
+    public void shouldTimeOutServiceClientRequestsAfterTheSocketTimeout() throws Exception {
+        final JettyRequestProxyService impatientService = new JettyRequestProxyService(5000, 200, 10, true, true);
+        impatientService.start();
+
+        try {
+            final ServiceClientResponse response = impatientService.get(origin + "/slow",
+                    Collections.<String, String>emptyMap());
+
+            assertEquals(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, response.getStatus());
+        } finally {
+            impatientService.stop();
+        }
+    }
+
+    @Test
+    public void shouldLetActiveRequestsFinishWhenRetired() throws Exception {
+        final CyclicByteBuffer buffer = new CyclicByteBuffer();
+        final HttpServletResponse response = mock(HttpServletResponse.class);
+        when(response.getOutputStream()).thenReturn(new ByteBufferServletOutputStream(buffer));
+        final int[] status = new int[1];
+
+        final Thread requestThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    status[0] = proxyService.proxyRequest(origin, request("POST", "/slow", "still here"), response);
+                } catch (IOException e) {
+                    status[0] = -1;
+                }
+            }
+        });
+        requestThread.start();
+        Thread.sleep(200);
+        proxyService.retire();
+        requestThread.join(10000);
+
+        assertEquals(HttpServletResponse.SC_CREATED, status[0]);
+    }
+
+    @Test
+    public void shouldLetResponseBodiesFinishWhenRetired() throws Exception {
+        final MutableHttpServletResponse response = mock(MutableHttpServletResponse.class);
+        final ArgumentCaptor<InputStream> body = ArgumentCaptor.forClass(InputStream.class);
+
+        final int status = proxyService.proxyRequest(origin, request("GET", "/trickle", ""), response);
+        proxyService.retire();
+
+        verify(response).setInputStream(body.capture());
+        assertEquals(HttpServletResponse.SC_OK, status);
+        assertEquals("first-second", new String(RawInputStreamReader.instance().readFully(body.getValue()),
+                StandardCharsets.UTF_8));
+    }
+
+    private static class EchoHandler extends AbstractHandler {
+        @Override
+        public void handle(String target, org.eclipse.jetty.server.Request baseRequest, HttpServletRequest request,
+                           HttpServletResponse response) throws IOException {
+            if ("/trickle".equals(target)) {
+                // The headers and the start of the body arrive well before the rest of it
+                response.setStatus(HttpServletResponse.SC_OK);
+                response.getOutputStream().print("first-");
+                response.flushBuffer();
+                sleep(1500);
+                response.getOutputStream().print("second");
+                baseRequest.setHandled(true);
+                return;
+            }
+            if ("/slow".equals(target)) {
+                sleep(1500);
+            }
+
+            response.setStatus(HttpServletResponse.SC_CREATED);
+            response.setHeader("X-Echo", request.getHeader("X-Test"));
+            if (request.getQueryString() != null) {
+                response.setHeader("X-Query", request.getQueryString());
+            }
+            RawInputStreamReader.instance().copyTo(request.getInputStream(), response.getOutputStream());
+            baseRequest.setHandled(true);
+        }
+
+        private static void sleep(long millis) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.powerfilter
+
+import javax.servlet.{Filter => ServletFilter}
+
+import org.junit.runner.RunWith
+import org.openrepose.core.systemmodel.Filter
+import org.openrepose.powerfilter.filtercontext.FilterContext
+import org.scalatest.junit.JUnitRunner
+import org.scalatest.mock.MockitoSugar
+import org.scalatest.{FunSpec, Matchers}
+
+import scala.collection.JavaConversions._
+
+@RunWith(classOf[JUnitRunner])
+class FilterChainSelectorTest extends FunSpec with Matchers with MockitoSugar {
+
+  def filterContext(name: String, uriRegex: String, available: Boolean = true): FilterContext = {
+    val filterConfig = new Filter()
+    filterConfig.setName(name)
+    filterConfig.setUriRegex(uriRegex)
+
+    new FilterContext(if (available) mock[ServletFilter] else null, null, filterConfig)
+  }
+
+  def selectedNames(selection: FilterChainSelector.FilterChainSelection): Seq[String] =
+    (0 until selection.size()).map(selection.get(_).getName)
+
+  describe("a filter chain selector") {
+    it("should select every filter when none of them have a uri-regex") {
+      val selector = new FilterChainSelector(List(filterContext("one", null), filterContext("two", null)))
+
+      selectedNames(selector.select("/anything")) shouldBe Seq("n/a", "n/a")
+    }
+
+    it("should select only the filters whose uri-regex matches, in chain order") {
+      val selector = new FilterChainSelector(List(
+        filterContext("one", "/foo/.*"),
+        filterContext("two", ".*"),
+        filterContext("three", "/bar/.*")))
+
+      selectedNames(selector.select("/foo/1")) shouldBe Seq("one", "two")
+      selectedNames(selector.select("/bar/1")) shouldBe Seq("two", "three")
+      selectedNames(selector.select("/baz")) shouldBe Seq("two")
+    }
+
+    it("should return the same selection for repeated requests to the same uri") {
+      val selector = new FilterChainSelector(List(filterContext("one", "/foo/.*")))
+
+      selector.select("/foo/1") should be theSameInstanceAs selector.select("/foo/1")
+    }
+
+    it("should still select correctly once the cache has been filled") {
+      val selector = new FilterChainSelector(List(filterContext("one", "/foo/.*")), 2)
+
+      (1 to 10).foreach(i => selector.select(s"/bar/$i"))
+
+      selectedNames(selector.select("/foo/1")) shouldBe Seq("one")
+      selectedNames(selector.select("/bar/1")) shouldBe empty
+    }
+
+    it("should report a selection as unavailable when a selected filter is unavailable") {
+      val selector = new FilterChainSelector(List(
+        filterContext("one", "/foo/.*", available = false),
+        filterContext("two", "/bar/.*")))
+
+      selector.select("/foo/1").isAvailable shouldBe false
+      selector.select("/bar/1").isAvailable shouldBe true
+    }
+
+    it("should describe itself by the names of its filters") {
+      val selector = new FilterChainSelector(List(filterContext("one", null), filterContext("two", "/bar/.*")))
+
+      selector.toString shouldBe "[one, two]"
+    }
+  }
+}
@@ -28,6 +28,12 @@ import java.util.Map;
 
 public interface RequestProxyService {
 
+    /**
+     * The request attribute naming the system model destination a request is being routed to, so that it can be sent
+     * through that destination's connection pool.
+     */
+    String DESTINATION_ID_ATTRIBUTE = "http://openrepose.org/destinationId";
+
     //TODO: this is the most terrible return value ever
     int proxyRequest(String targetHost, HttpServletRequest request, HttpServletResponse response) throws IOException;
 
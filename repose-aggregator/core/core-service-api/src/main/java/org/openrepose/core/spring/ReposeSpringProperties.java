@@ -36,6 +36,21 @@ public class ReposeSpringProperties {
         public static final String REPOSE_VERSION = "${repose-version}";
         public static final String CONFIG_ROOT = "${powerapi-config-directory}";
         public static final String INSECURE = "${repose-insecurity}";
+        /**
+         * How often, in milliseconds, configuration files are checked for changes the file system did not report.
+         * Can be set as a system property, and is 15 seconds otherwise.
+         */
+        public static final String CONFIG_POLL_INTERVAL = "${repose-config-poll-interval:15000}";
+        /**
+         * How many events may wait to be dispatched before new ones are dropped. Can be set as a system property, and
+         * is 8192 otherwise.
+         */
+        public static final String EVENT_QUEUE_SIZE = "${repose-event-queue-size:8192}";
+        /**
+         * How many threads dispatch events. Events of the same type are always dispatched one at a time, in the order
+         * they were raised. Can be set as a system property, and is 4 otherwise.
+         */
+        public static final String EVENT_DISPATCH_THREADS = "${repose-event-dispatch-threads:4}";
     }
 
     /**
@@ -63,7 +63,13 @@ public class ApiValidatorFilter implements Filter {
         } else {
             LOG.error("Unable to build API validator handler");
         }
-        new FilterLogicHandlerDelegate(request, response, chain).doFilter(handler);
+        try {
+            new FilterLogicHandlerDelegate(request, response, chain).doFilter(handler);
+        } finally {
+            if (handler != null) {
+                handler.release();
+            }
+        }
     }
 
     @Override
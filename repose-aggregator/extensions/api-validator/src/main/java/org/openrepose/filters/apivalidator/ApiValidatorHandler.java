@@ -40,7 +40,6 @@ import org.slf4j.LoggerFactory;
 import javax.servlet.FilterChain;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -49,8 +48,7 @@ import java.util.concurrent.TimeUnit;
 public class ApiValidatorHandler extends AbstractFilterLogicHandler {
 
     private static final Logger LOG = LoggerFactory.getLogger(ApiValidatorHandler.class);
-    private final List<ValidatorInfo> validators;
-    private final ValidatorInfo defaultValidator;
+    private final ValidatorSet validators;
     private final MetricsService metricsService;
     private Set<String> matchedRoles;
     private FilterChain chain;
@@ -60,11 +58,13 @@ public class ApiValidatorHandler extends AbstractFilterLogicHandler {
 
     public ApiValidatorHandler(ValidatorInfo defaultValidator, List<ValidatorInfo> validators, boolean multiRoleMatch,
                                boolean delegatingMode, MetricsService metricsService) {
-        this.validators = new ArrayList<ValidatorInfo>(validators.size());
+        this(new ValidatorSet(defaultValidator, validators, multiRoleMatch), delegatingMode, metricsService);
+    }
+
+    public ApiValidatorHandler(ValidatorSet validators, boolean delegatingMode, MetricsService metricsService) {
+        this.validators = validators;
         this.matchedRoles = new HashSet<String>();
-        this.validators.addAll(validators);
-        this.multiRoleMatch = multiRoleMatch;
-        this.defaultValidator = defaultValidator;
+        this.multiRoleMatch = validators.isMultiRoleMatch();
         this.delegatingMode = delegatingMode;
         this.metricsService = metricsService;
 
@@ -75,6 +75,13 @@ public class ApiValidatorHandler extends AbstractFilterLogicHandler {
         }
     }
 
+    /**
+     * Gives back the reference to the validators taken when this handler was built by the handler factory.
+     */
+    public void release() {
+        validators.release();
+    }
+
     public void setFilterChain(FilterChain chain) {
         this.chain = chain;
     }
@@ -89,39 +96,20 @@ public class ApiValidatorHandler extends AbstractFilterLogicHandler {
         return roles;
     }
 
-    private boolean appendDefaultValidator(List<ValidatorInfo> validatorList) {
-        if (defaultValidator != null) {
-            if (!multiRoleMatch) {
-                validatorList.add(defaultValidator);
-            }
-
-            if (multiRoleMatch && !validatorList.contains(defaultValidator)) {
-                validatorList.add(0, defaultValidator);
-            }
-
-            return true;
-        }
-        return false;
-    }
-
     protected List<ValidatorInfo> getValidatorsForRole(List<? extends HeaderValue> listRoles) {
-        List<ValidatorInfo> validatorList = new ArrayList<ValidatorInfo>();
         Set<String> roles = getRolesAsSet(listRoles);
 
-        for (ValidatorInfo validator : validators) {
-            for (String validatorRoles : validator.getRoles()) {
-                if (roles.contains(validatorRoles)) {
-                    validatorList.add(validator); // TODO Can the same validator be added multiple times?
-                    matchedRoles.add(validatorRoles);
+        if (validators.getDefaultValidator() != null) {
+            matchedRoles.addAll(roles);
+        } else {
+            for (String role : roles) {
+                if (validators.hasRole(role)) {
+                    matchedRoles.add(role);
                 }
             }
         }
 
-        if (appendDefaultValidator(validatorList)) {
-            matchedRoles.addAll(roles);
-        }
-
-        return !multiRoleMatch && !validatorList.isEmpty() ? validatorList.subList(0, 1) : validatorList;
+        return validators.getValidatorsForRoles(roles);
     }
 
     private ErrorResult getErrorResult(Result lastResult) {
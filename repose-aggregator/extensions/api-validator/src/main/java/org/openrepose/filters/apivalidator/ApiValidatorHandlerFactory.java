@@ -19,23 +19,37 @@
  */
 package org.openrepose.filters.apivalidator;
 
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.yammer.metrics.core.TimerContext;
 import org.openrepose.commons.config.manager.UpdateListener;
 import org.openrepose.commons.config.parser.generic.GenericResourceConfigurationParser;
 import org.openrepose.commons.config.resource.ConfigurationResource;
 import org.openrepose.commons.utils.StringUtilities;
 import org.openrepose.components.apivalidator.servlet.config.ValidatorConfiguration;
 import org.openrepose.core.filter.logic.AbstractConfiguredFilterHandlerFactory;
+import org.openrepose.core.filters.ApiValidator;
 import org.openrepose.core.services.config.ConfigurationService;
 import org.openrepose.core.services.reporting.metrics.MetricsService;
+import org.openrepose.core.services.reporting.metrics.TimerByCategory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This class uses the <a href="http://en.wikipedia.org/wiki/Factory_method_pattern">factory pattern</a> to construct
@@ -43,46 +57,57 @@ import java.util.Map;
  * <p/>
  * ApiValidatorWadlListener and ApiValidationConfigurationListener are classes which re-initialize the handler factory
  * when the wadl or configuration files are changed.
+ * <p/>
+ * Validators are compiled in parallel on a background executor. On a reload, the validators already loaded keep
+ * validating requests until every new one has been compiled, and are then swapped out for them.
  */
 public class ApiValidatorHandlerFactory extends AbstractConfiguredFilterHandlerFactory<ApiValidatorHandler> {
     private static final Logger LOG = LoggerFactory.getLogger(ApiValidatorHandlerFactory.class);
+    private static final int COMPILER_THREADS = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), 4));
+    private static final ExecutorService DEFAULT_COMPILER = newCompiler();
     private final ConfigurationService configurationService;
     private final ApiValidatorWadlListener wadlListener;
     private final Object lock = new Object();
     private final String configRoot;
     private final String config;
     private final MetricsService metricsService;
-    private ValidatorConfiguration validatorConfiguration;
-    private ValidatorInfo defaultValidator;
+    private final ListeningExecutorService compiler;
+    private final TimerByCategory compileTimer;
     private List<ValidatorInfo> validators;
-    private volatile boolean initialized = false;
-    private boolean multiRoleMatch = false;
-    private boolean delegatingMode;
+    private volatile ValidatorSet validatorSet;
+    private volatile boolean delegatingMode;
+    private long reloads = 0;
 
     public ApiValidatorHandlerFactory(ConfigurationService configurationService, String configurationRoot, String config,
                                       MetricsService metricsService) {
+        this(configurationService, configurationRoot, config, metricsService, DEFAULT_COMPILER);
+    }
+
+    ApiValidatorHandlerFactory(ConfigurationService configurationService, String configurationRoot, String config,
+                               MetricsService metricsService, ExecutorService compiler) {
         this.configurationService = configurationService;
         this.wadlListener = new ApiValidatorWadlListener();
         this.configRoot = configurationRoot;
         this.config = config;
         this.metricsService = metricsService;
+        this.compiler = MoreExecutors.listeningDecorator(compiler);
+        this.compileTimer = metricsService != null
+                ? metricsService.newTimerByCategory(ApiValidator.class, "api-validator-compile", TimeUnit.MILLISECONDS, TimeUnit.MILLISECONDS)
+                : null;
     }
 
-    private void unsubscribeAll() {
-        synchronized (lock) {
-            initialized = false;
-            if (validators == null) {
-                return;
-            }
+    private static ExecutorService newCompiler() {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(COMPILER_THREADS, COMPILER_THREADS,
+                60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactoryBuilder().setNameFormat("api-validator-compiler-%d").setDaemon(true).build());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
 
-            for (ValidatorInfo info : validators) {
-                if (StringUtilities.isNotBlank(info.getUri())) {
-                    configurationService.unsubscribeFrom(info.getUri(), wadlListener);
-                }
-                if (info.getValidator() != null) {
-                    LOG.debug("DESTROYING VALIDATOR: {}", info.getName());
-                    info.getValidator().destroy();
-                }
+    private void unsubscribeAll(List<ValidatorInfo> infos) {
+        for (ValidatorInfo info : infos) {
+            if (StringUtilities.isNotBlank(info.getUri())) {
+                configurationService.unsubscribeFrom(info.getUri(), wadlListener);
             }
         }
     }
@@ -100,45 +125,124 @@ public class ApiValidatorHandlerFactory extends AbstractConfiguredFilterHandlerF
             return;
         }
         //TODO: what if it's already subscribed? How do we know this?
-        //TODO: do we ever unwatch?
         LOG.info("Watching WADL: " + wadl);
-        configurationService.subscribeTo("api-validator", wadl, wadlListener, new GenericResourceConfigurationParser());
+        // The WADL has just been compiled, so there is no need to be told about it now
+        configurationService.subscribeTo("api-validator", wadl, wadlListener, new GenericResourceConfigurationParser(), false);
     }
 
     String getWadlPath(String uri) {
         return new File(configRoot, uri).toURI().toString();
     }
 
-    void initialize() {
+    /**
+     * Compiles the validators in parallel.
+     *
+     * @param rebuild whether to build validators that are already built again, rather than leaving them as they are
+     * @return whether each of the validators was compiled
+     */
+    private ListenableFuture<List<Boolean>> compile(List<ValidatorInfo> infos, final boolean rebuild) {
+        final List<ListenableFuture<Boolean>> compiled = new ArrayList<>(infos.size());
+        for (final ValidatorInfo info : infos) {
+            compiled.add(compiler.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() {
+                    final TimerContext timer = compileTimer != null ? compileTimer.time(info.getName()) : null;
+                    try {
+                        return rebuild ? info.reinitValidator() : info.initValidator();
+                    } finally {
+                        if (timer != null) {
+                            timer.stop();
+                        }
+                    }
+                }
+            }));
+        }
+        return Futures.allAsList(compiled);
+    }
+
+    private void reload(final ValidatorConfiguration validatorConfiguration) {
+        final ValidatorConfigurator validatorConfigurator = new ValidatorConfigurator(validatorConfiguration, configRoot, config);
+        final List<ValidatorInfo> loading = validatorConfigurator.getValidators();
+        final long reload;
         synchronized (lock) {
-            if (initialized || validatorConfiguration == null) {
-                return;
+            reload = ++reloads;
+        }
+
+        final ListenableFuture<List<Boolean>> compiled = compile(loading, false);
+        final Runnable install = new Runnable() {
+            @Override
+            public void run() {
+                install(reload, validatorConfiguration, validatorConfigurator, Futures.getUnchecked(compiled));
             }
+        };
+
+        if (validatorSet == null) {
+            // There is nothing to validate requests with in the meantime, so they wait on the first validators
+            Futures.getUnchecked(compiled);
+            install.run();
+        } else {
+            LOG.info("Compiling {} validators in the background", loading.size());
+            compiled.addListener(install, MoreExecutors.sameThreadExecutor());
+        }
+    }
 
-            ValidatorConfigurator validatorConfigurator = new ValidatorConfigurator(validatorConfiguration, configRoot, config);
+    private void install(long reload, ValidatorConfiguration validatorConfiguration,
+                         ValidatorConfigurator validatorConfigurator, List<Boolean> compiled) {
+        final List<ValidatorInfo> loaded = validatorConfigurator.getValidators();
+        final List<ValidatorInfo> previous;
+        final ValidatorSet previousSet;
 
-            multiRoleMatch = validatorConfiguration.isMultiRoleMatch();
+        synchronized (lock) {
+            if (reload != reloads) {
+                LOG.debug("Discarding validators superseded by a newer configuration");
+                for (ValidatorInfo info : loaded) {
+                    info.clearValidator();
+                }
+                return;
+            }
 
-            defaultValidator = validatorConfigurator.getDefaultValidator();
-            validators = validatorConfigurator.getValidators();
+            previous = validators;
+            previousSet = validatorSet;
+            validators = loaded;
             delegatingMode = validatorConfiguration.getDelegating() != null;
+            validatorSet = new ValidatorSet(validatorConfigurator.getDefaultValidator(), loaded,
+                    validatorConfiguration.isMultiRoleMatch());
 
-            for (ValidatorInfo validator : validators) {
+            if (previous != null) {
+                unsubscribeAll(previous);
+            }
+            if (previousSet != null) {
+                // Requests already being validated by the previous validators finish with them before they are destroyed
+                LOG.debug("Retiring {} validators", previousSet.getValidators().size());
+                previousSet.retire();
+            }
+            for (ValidatorInfo validator : loaded) {
                 LOG.debug("Adding listener for {} : {}", validator.getName(), validator.getUri());
                 addListener(validator.getUri());
             }
-
-            initialized = true;
+            // The WADL listener is not told about the WADLs it now watches, so it is initialized by their compilation
+            wadlListener.validatorsCompiled(compiled);
         }
+
+        LOG.info("Loaded {} validators", loaded.size());
     }
 
+    /**
+     * Builds a handler holding a reference to the current validators, which the caller must give back by releasing the
+     * handler once the request has been handled.
+     */
     @Override
     protected ApiValidatorHandler buildHandler() {
-        initialize();
-        if (!initialized || !this.isInitialized()) {
-            return null;
-        }
-        return new ApiValidatorHandler(defaultValidator, validators, multiRoleMatch, delegatingMode, metricsService);
+        ValidatorSet currentValidators;
+        do {
+            currentValidators = validatorSet;
+            if (currentValidators == null || !this.isInitialized()) {
+                return null;
+            }
+            // Only fails if the set was retired and drained since it was read, in which case there is a newer one
+        } while (!currentValidators.acquire());
+
+        return new ApiValidatorHandler(currentValidators, delegatingMode, metricsService);
     }
 
     @Override
@@ -156,9 +260,7 @@ public class ApiValidatorHandlerFactory extends AbstractConfiguredFilterHandlerF
 
         @Override
         public void configurationUpdated(ValidatorConfiguration configurationObject) {
-            validatorConfiguration = configurationObject;
-            unsubscribeAll();
-            initialize();
+            reload(configurationObject);
             isInitialized = true;
         }
 
@@ -169,7 +271,7 @@ public class ApiValidatorHandlerFactory extends AbstractConfiguredFilterHandlerF
     }
 
     public class ApiValidatorWadlListener implements UpdateListener<ConfigurationResource> {
-        private boolean isInitialized = false;
+        private volatile boolean isInitialized = false;
 
         private String getNormalizedPath(String uri) {
             String path = uri;
@@ -185,42 +287,39 @@ public class ApiValidatorHandlerFactory extends AbstractConfiguredFilterHandlerF
         public void configurationUpdated(ConfigurationResource config) {
             LOG.info("WADL file changed: " + config.name());
 
+            final List<ValidatorInfo> changed = new ArrayList<>();
             synchronized (lock) {
                 if (validators == null) {
                     return;
                 }
-                boolean found = false;
-                boolean loadedWADL = true;
 
                 for (ValidatorInfo info : validators) {
                     LOG.debug("Checking config for validator: {}", info.getName());
                     if (info.getUri() != null && getNormalizedPath(info.getUri()).equals(config.name())) {
-                        if (loadedWADL) {
-                            LOG.debug("REINIT validator: {}", info.getName());
-                            loadedWADL = info.reinitValidator();
-                        } else {
-                            LOG.debug("REINIT validator: {}", info.getName());
-                            info.reinitValidator();
-                        }
-                        found = true;
+                        LOG.debug("REINIT validator: {}", info.getName());
+                        changed.add(info);
                     }
                 }
 
-                if (!found) {
+                if (changed.isEmpty()) {
                     LOG.debug("Didn't match a particular config, so reinit *all* the validators");
-                    // If we couldn't match the particular config... be safe and clear
+                    // If we couldn't match the particular config... be safe and rebuild
                     // all of the validators
-                    for (ValidatorInfo info : validators) {
-                        LOG.debug("REINIT valdiator: {}", info.getName());
-                        info.reinitValidator();
-                    }
-                }
-                if (!loadedWADL) {
-                    isInitialized = false;
-                } else {
-                    isInitialized = true;
+                    changed.addAll(validators);
                 }
             }
+
+            final ListenableFuture<List<Boolean>> compiled = compile(changed, true);
+            compiled.addListener(new Runnable() {
+                @Override
+                public void run() {
+                    validatorsCompiled(Futures.getUnchecked(compiled));
+                }
+            }, MoreExecutors.sameThreadExecutor());
+        }
+
+        private void validatorsCompiled(List<Boolean> compiled) {
+            isInitialized = !compiled.contains(false);
         }
 
         @Override
@@ -46,7 +46,8 @@ public class ValidatorInfo {
     private final Node wadl;
     private final String systemId;
     private final String name;
-    private Validator validator;
+    private volatile Validator validator;
+    private boolean retired;
 
     public ValidatorInfo(List<String> roles, String wadlUri, Config config, String name) {
         this.uri = wadlUri;
@@ -88,6 +89,16 @@ public class ValidatorInfo {
     }
 
     // Until API Validator is updated to not throw the generic Throwable, this method will need to catch it.
+    private Validator buildValidator() {
+        try {
+            LOG.debug("Calling the validator creation method for {}", name);
+            return Validator.apply(name + System.currentTimeMillis(), getSource(), config);
+        } catch (Throwable ex) {
+            LOG.warn("Error loading validator for WADL: " + uri, ex);
+            return null;
+        }
+    }
+
     public boolean initValidator() {
         LOG.debug("CALL TO ValidatorInfo#initValidator. Validator is {}. From thread {}", validator, Thread.currentThread().getName());
 
@@ -97,16 +108,23 @@ public class ValidatorInfo {
         synchronized (validatorLock) {
             if (validator != null) {
                 return true;
-            }
-
-            try {
-                LOG.debug("Calling the validator creation method for {}", name);
-                validator = Validator.apply(name + System.currentTimeMillis(), getSource(), config);
-                return true;
-            } catch (Throwable ex) {
-                LOG.warn("Error loading validator for WADL: " + uri, ex);
+            } else if (retired) {
                 return false;
             }
+
+            validator = buildValidator();
+            return validator != null;
+        }
+    }
+
+    /**
+     * Marks this as replaced by a newer configuration. A retired validator is never built again, so that requests
+     * still using it can not leave behind a validator that nothing will destroy. It is not destroyed until
+     * {@link #clearValidator()} is called.
+     */
+    public void retire() {
+        synchronized (validatorLock) {
+            retired = true;
         }
     }
 
@@ -119,20 +137,44 @@ public class ValidatorInfo {
         }
     }
 
+    /**
+     * Builds the validator again, and swaps it in for the current one once it is built. Requests keep being validated
+     * by the current validator until then, and still are if the new one cannot be built. If this has been retired
+     * in the meantime, the new validator is destroyed instead.
+     */
     public boolean reinitValidator() {
+        final Validator rebuilt = buildValidator();
+        if (rebuilt == null) {
+            return false;
+        }
+
+        final Validator previous;
         synchronized (validatorLock) {
-            if (validator != null) {
-                LOG.debug("in reInitValidator Destroying: {}", validator);
-                validator.destroy();
-                validator = null;
+            if (retired) {
+                previous = rebuilt;
+            } else {
+                previous = validator;
+                validator = rebuilt;
             }
         }
-        return initValidator();
+        if (previous != null) {
+            LOG.debug("in reInitValidator Destroying: {}", previous);
+            previous.destroy();
+        }
+        return true;
     }
 
+    /**
+     * Gets the validator, building it first if it has not been built and this has not been retired. Once it is built,
+     * this does not lock, since it is called for every request.
+     */
     public Validator getValidator() {
-        initValidator();
-        return validator;
+        Validator current = validator;
+        if (current == null) {
+            initValidator();
+            current = validator;
+        }
+        return current;
     }
 
     /**
@@ -0,0 +1,198 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.filters.apivalidator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The validators of one API Validator configuration, indexed by the roles they apply to.
+ * <p/>
+ * A set is built whenever the configuration is loaded and is not changed afterwards, so it is shared by the handlers
+ * of every request without locking. The validators for each configured role are worked out when the set is built.
+ * <p/>
+ * Once a newer set replaces it, a set is retired, and its validators are destroyed as soon as the last request that
+ * acquired it releases it.
+ */
+public class ValidatorSet {
+
+    private final ValidatorInfo defaultValidator;
+    private final List<ValidatorInfo> validators;
+    private final boolean multiRoleMatch;
+    // Each validator once for every role it has, in the order they are configured
+    private final ValidatorInfo[] roleMatches;
+    private final Map<String, int[]> roleMatchesByRole = new HashMap<>();
+    private final Map<String, List<ValidatorInfo>> validatorsByRole = new HashMap<>();
+    private final List<ValidatorInfo> unmatchedValidators;
+    // One reference for the set being current, and one for each request using it
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    public ValidatorSet(ValidatorInfo defaultValidator, List<ValidatorInfo> validators, boolean multiRoleMatch) {
+        this.defaultValidator = defaultValidator;
+        this.validators = Collections.unmodifiableList(new ArrayList<>(validators));
+        this.multiRoleMatch = multiRoleMatch;
+
+        final List<ValidatorInfo> matches = new ArrayList<>();
+        final Map<String, List<Integer>> matchesByRole = new HashMap<>();
+        for (ValidatorInfo validator : validators) {
+            for (String role : validator.getRoles()) {
+                List<Integer> positions = matchesByRole.get(role);
+                if (positions == null) {
+                    positions = new ArrayList<>();
+                    matchesByRole.put(role, positions);
+                }
+                positions.add(matches.size());
+                matches.add(validator);
+            }
+        }
+        roleMatches = matches.toArray(new ValidatorInfo[matches.size()]);
+
+        for (Map.Entry<String, List<Integer>> entry : matchesByRole.entrySet()) {
+            final int[] positions = new int[entry.getValue().size()];
+            for (int i = 0; i < positions.length; i++) {
+                positions[i] = entry.getValue().get(i);
+            }
+            roleMatchesByRole.put(entry.getKey(), positions);
+            validatorsByRole.put(entry.getKey(), select(positions));
+        }
+        unmatchedValidators = select(new int[0]);
+    }
+
+    /**
+     * Takes a reference to the set for a request, so that its validators are not destroyed while the request is
+     * using them.
+     *
+     * @return false if the set has been retired and its validators destroyed already
+     */
+    public boolean acquire() {
+        int current;
+        do {
+            current = references.get();
+            if (current == 0) {
+                return false;
+            }
+        } while (!references.compareAndSet(current, current + 1));
+
+        return true;
+    }
+
+    /**
+     * Gives back a reference taken by {@link #acquire()}.
+     */
+    public void release() {
+        if (references.decrementAndGet() == 0) {
+            for (ValidatorInfo validator : validators) {
+                validator.clearValidator();
+            }
+        }
+    }
+
+    /**
+     * Stops the validators from being built again, and gives back the reference the set held while it was current.
+     */
+    public void retire() {
+        for (ValidatorInfo validator : validators) {
+            validator.retire();
+        }
+        release();
+    }
+
+    public ValidatorInfo getDefaultValidator() {
+        return defaultValidator;
+    }
+
+    public List<ValidatorInfo> getValidators() {
+        return validators;
+    }
+
+    public boolean isMultiRoleMatch() {
+        return multiRoleMatch;
+    }
+
+    /**
+     * @return whether any validator is configured for the role
+     */
+    public boolean hasRole(String role) {
+        return roleMatchesByRole.containsKey(role);
+    }
+
+    /**
+     * Gets the validators to apply to a request with the given roles, in the order they should be applied. Without
+     * multi-role matching, this is at most the first of them.
+     */
+    public List<ValidatorInfo> getValidatorsForRoles(Collection<String> roles) {
+        if (roles.size() == 1) {
+            final List<ValidatorInfo> roleValidators = validatorsByRole.get(roles.iterator().next());
+            return roleValidators != null ? roleValidators : unmatchedValidators;
+        }
+
+        int matchCount = 0;
+        final int[][] matches = new int[roles.size()][];
+        for (String role : roles) {
+            final int[] positions = roleMatchesByRole.get(role);
+            if (positions != null) {
+                matches[matchCount++] = positions;
+            }
+        }
+
+        if (matchCount == 0) {
+            return unmatchedValidators;
+        } else if (matchCount == 1) {
+            return select(matches[0]);
+        }
+
+        int positionCount = 0;
+        for (int i = 0; i < matchCount; i++) {
+            positionCount += matches[i].length;
+        }
+        final int[] positions = new int[positionCount];
+        positionCount = 0;
+        for (int i = 0; i < matchCount; i++) {
+            System.arraycopy(matches[i], 0, positions, positionCount, matches[i].length);
+            positionCount += matches[i].length;
+        }
+        Arrays.sort(positions);
+
+        return select(positions);
+    }
+
+    private List<ValidatorInfo> select(int[] positions) {
+        final List<ValidatorInfo> selected = new ArrayList<>(positions.length + 1);
+        for (int position : positions) {
+            selected.add(roleMatches[position]);
+        }
+
+        if (defaultValidator != null) {
+            if (!multiRoleMatch) {
+                selected.add(defaultValidator);
+            } else if (!selected.contains(defaultValidator)) {
+                selected.add(0, defaultValidator);
+            }
+        }
+
+        return Collections.unmodifiableList(!multiRoleMatch && !selected.isEmpty() ? selected.subList(0, 1) : selected);
+    }
+}
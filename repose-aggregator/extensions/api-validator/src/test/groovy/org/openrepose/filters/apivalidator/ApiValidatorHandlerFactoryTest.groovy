@@ -19,6 +19,7 @@
  */
 package org.openrepose.filters.apivalidator
 
+import com.google.common.util.concurrent.MoreExecutors
 import org.junit.Before
 import org.junit.Test
 import org.junit.experimental.runners.Enclosed
@@ -32,7 +33,11 @@ import org.openrepose.components.apivalidator.servlet.config.ValidatorConfigurat
 import org.openrepose.components.apivalidator.servlet.config.ValidatorItem
 import org.openrepose.core.services.config.ConfigurationService
 
+import java.util.concurrent.ExecutorService
+
 import static org.hamcrest.Matchers.equalTo
+import static org.hamcrest.Matchers.not
+import static org.hamcrest.Matchers.sameInstance
 import static org.junit.Assert.assertEquals
 import static org.junit.Assert.assertNotNull
 import static org.junit.Assert.assertThat
@@ -49,6 +54,7 @@ public class ApiValidatorHandlerFactoryTest {
         private final String role = "testRole";
         private final String defaultRole = "defaultRole";
         private ConfigurationService configService;
+        private String configRoot;
         private ApiValidatorHandlerFactory instance;
         private List<HeaderValue> roles;
         private ValidatorConfiguration config;
@@ -73,7 +79,8 @@ public class ApiValidatorHandlerFactoryTest {
 
             configService = mock(ConfigurationService.class);
             URL resource = this.getClass().getClassLoader().getResource("");
-            instance = new ApiValidatorHandlerFactory(configService, resource.getPath(), "", null);
+            configRoot = resource.getPath();
+            instance = new ApiValidatorHandlerFactory(configService, configRoot, "", null, MoreExecutors.sameThreadExecutor());
 
             instance.configurationUpdated(config);
 
@@ -95,7 +102,7 @@ public class ApiValidatorHandlerFactoryTest {
             }
             verify(configService, times(2)).subscribeTo(eq("api-validator"), eq(instance.getWadlPath(wadl)),
                     any(ApiValidatorHandlerFactory.ApiValidatorWadlListener.class),
-                    any(GenericResourceConfigurationParser.class));
+                    any(GenericResourceConfigurationParser.class), eq(false));
         }
 
         @Test
@@ -116,6 +123,23 @@ public class ApiValidatorHandlerFactoryTest {
             ApiValidatorHandler handler = instance.buildHandler();
             assertThat(handler.delegatingMode, equalTo(true))
         }
+
+        @Test
+        public void shouldKeepUsingThePreviousValidatorsUntilTheNewOnesAreCompiled() throws Exception {
+            List<Runnable> queued = []
+            boolean queueing = false
+            ExecutorService compiler = [execute: { Runnable task -> queueing ? queued.add(task) : task.run() }] as ExecutorService
+            instance = new ApiValidatorHandlerFactory(configService, configRoot, "", null, compiler)
+            instance.configurationUpdated(config)
+            ValidatorInfo previous = instance.buildHandler().getValidatorsForRole(roles).get(0)
+
+            queueing = true
+            instance.configurationUpdated(config)
+            assertThat(instance.buildHandler().getValidatorsForRole(roles).get(0), sameInstance(previous))
+
+            queued.each { it.run() }
+            assertThat(instance.buildHandler().getValidatorsForRole(roles).get(0), not(sameInstance(previous)))
+        }
     }
 
     public static class WhenWadlChanges {
@@ -133,7 +157,7 @@ public class ApiValidatorHandlerFactoryTest {
         public void setup() {
             configService = mock(ConfigurationService.class);
             URL resource = this.getClass().getClassLoader().getResource(wadl);
-            instance = new ApiValidatorHandlerFactory(configService, resource.getPath(), "", null);
+            instance = new ApiValidatorHandlerFactory(configService, resource.getPath(), "", null, MoreExecutors.sameThreadExecutor());
 
             List<ValidatorInfo> validators = new ArrayList<ValidatorInfo>();
             info1 = mock(ValidatorInfo.class);
@@ -38,6 +38,7 @@ import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.mockito.Mockito.*;
 
 @RunWith(Enclosed.class)
@@ -174,5 +175,40 @@ public class ApiValidatorHandlerTest {
             assertEquals(validatorsForRole.get(2), role2ValidatorInfo);
         }
 
+        @Test
+        public void shouldApplyValidatorsInConfiguredOrderWhenMultiMatchOnSeveralRoles() {
+            ValidatorInfo role12ValidatorInfo = new ValidatorInfo(Arrays.asList("role2", "role1"), "role12wadl", null, null);
+            List<HeaderValue> roles = new ArrayList<HeaderValue>();
+            roles.add(new HeaderValueImpl("role2"));
+            roles.add(new HeaderValueImpl("role3"));
+            roles.add(new HeaderValueImpl("role1"));
+
+            List<ValidatorInfo> validators = new ArrayList<ValidatorInfo>();
+            validators.add(role2ValidatorInfo);
+            validators.add(role12ValidatorInfo);
+            validators.add(role1ValidatorInfo);
+
+            instance = new ApiValidatorHandler(null, validators, true, false, null);
+
+            assertEquals(Arrays.asList(role2ValidatorInfo, role12ValidatorInfo, role12ValidatorInfo, role1ValidatorInfo),
+                    instance.getValidatorsForRole(roles));
+        }
+
+        @Test
+        public void shouldShareValidatorListsBetweenHandlers() {
+            List<HeaderValue> roles = new ArrayList<HeaderValue>();
+            roles.add(new HeaderValueImpl("role1"));
+
+            List<ValidatorInfo> validators = new ArrayList<ValidatorInfo>();
+            validators.add(role1ValidatorInfo);
+            validators.add(role2ValidatorInfo);
+            ValidatorSet validatorSet = new ValidatorSet(defaultValidatorInfo, validators, false);
+
+            List<ValidatorInfo> validatorsForRole = new ApiValidatorHandler(validatorSet, false, null).getValidatorsForRole(roles);
+
+            assertEquals(Arrays.asList(role1ValidatorInfo), validatorsForRole);
+            assertSame(validatorsForRole, new ApiValidatorHandler(validatorSet, false, null).getValidatorsForRole(roles));
+        }
+
     }
 }
@@ -31,9 +31,11 @@ import org.junit.runner.RunWith;
 
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
 
 @RunWith(Enclosed.class)
 public class ValidatorInfoTest {
@@ -94,4 +96,41 @@ public class ValidatorInfoTest {
             assertEquals(instance2.getName(), name);
         }
     }
+
+    public static class WhenRetiringValidators {
+
+        private Validator validator;
+        private ValidatorInfo info;
+        private ValidatorSet validatorSet;
+
+        @Before
+        public void setup() {
+            validator = mock(Validator.class);
+            info = new ValidatorInfo(Collections.singletonList("someRole"), "file:/missing.wadl", new Config(), "retired");
+            info.setValidator(validator);
+            validatorSet = new ValidatorSet(null, Collections.singletonList(info), false);
+        }
+
+        @Test
+        public void shouldKeepValidatorsUntilTheLastRequestReleasesThem() {
+            assertTrue(validatorSet.acquire());
+            validatorSet.retire();
+
+            verify(validator, never()).destroy();
+            assertSame(validator, info.getValidator());
+
+            validatorSet.release();
+
+            verify(validator).destroy();
+            assertFalse(validatorSet.acquire());
+        }
+
+        @Test
+        public void shouldNotBuildARetiredValidatorAgain() {
+            validatorSet.retire();
+
+            assertNull(info.getValidator());
+            assertFalse(info.initValidator());
+        }
+    }
 }
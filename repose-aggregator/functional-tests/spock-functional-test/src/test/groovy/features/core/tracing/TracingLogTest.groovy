@@ -93,10 +93,10 @@ class TracingLogTest extends ReposeValveTest {
         //Find the GUID out of :  Trans-Id:e6a7f92b-1d22-4f97-8367-7787ccb5f100 - 2015-05-20 12:07:14,045 68669 [qtp172333204-48] DEBUG org.openrepose.filters.clientauth.common.AuthenticationHandler - Uri is /servers/1111/
         List<String> lines = reposeLogSearch.searchByString("Trans-Id:[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12} - .* Uri is /servers/1111/\$")
         lines.size() == 1
-        //Ensure that GUID is used in a log message for the actor threads
+        //Ensure that GUID is used in a log message for the service client threads
         String GUID = (lines.first() =~ "([0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12})")[0][1]
-        def actorLines = reposeLogSearch.searchByString("Trans-Id:$GUID -.*AuthTokenFutureActor request!")
-        actorLines.size() == 3
+        def clientLines = reposeLogSearch.searchByString("Trans-Id:$GUID -.*Service client request completed")
+        clientLines.size() == 3
     }
 
     def "Making a request through the akka service client tracing header should same as log"() {
@@ -127,6 +127,6 @@ class TracingLogTest extends ReposeValveTest {
         mc.receivedResponse.code == "200"
 
         // should be able to find the same tracing header from log
-        reposeLogSearch.searchByString("Trans-Id:$requestid -.*AuthTokenFutureActor request!").size() > 0
+        reposeLogSearch.searchByString("Trans-Id:$requestid -.*Service client request completed").size() > 0
     }
 }
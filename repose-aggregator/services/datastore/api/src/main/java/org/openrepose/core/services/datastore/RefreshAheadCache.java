@@ -0,0 +1,303 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.core.services.datastore;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Serializable;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches values loaded from a remote service, such as the tokens an identity filter validates, in a {@link Datastore}.
+ * <p/>
+ * Concurrent misses on the same key are collapsed into one load, run by the request that missed first. When a refresh
+ * window is set, the first hit on a value within that window of expiring starts one load of it in the background, and
+ * the cached value keeps being served until the new one is stored. A miss never waits on a background refresh, which
+ * may be queued behind many others, so a value that expires before its refresh has run is loaded as any other miss.
+ * When a stale timeout is set, an expired value is kept for that much longer, and is served in place of a load that
+ * fails for a transient reason, such as the remote service being unreachable.
+ * <p/>
+ * With neither set, values are stored in the datastore as they are given.
+ */
+public class RefreshAheadCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RefreshAheadCache.class);
+    private static final int REFRESH_THREADS = 4;
+    private static final int MAX_QUEUED_REFRESHES = 1024;
+    private static final Executor DEFAULT_REFRESH_EXECUTOR = newRefreshExecutor();
+
+    private final Datastore datastore;
+    private final int refreshWindow;
+    private final int staleTimeout;
+    private final TimeUnit timeUnit;
+    private final Executor refreshExecutor;
+    private final ConcurrentMap<String, FutureTask<?>> loads = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, FutureTask<?>> refreshes = new ConcurrentHashMap<>();
+
+    /**
+     * @param datastore     the datastore values are cached in
+     * @param refreshWindow how long before a value expires it is loaded again in the background, or 0 to let it expire
+     * @param staleTimeout  how long after a value expires it may still be served should loading it fail, or 0 to
+     *                      never serve an expired value
+     * @param timeUnit      the unit of the refresh window, the stale timeout and the time to live of loaded values
+     */
+    public RefreshAheadCache(Datastore datastore, int refreshWindow, int staleTimeout, TimeUnit timeUnit) {
+        this(datastore, refreshWindow, staleTimeout, timeUnit, DEFAULT_REFRESH_EXECUTOR);
+    }
+
+    public RefreshAheadCache(Datastore datastore, int refreshWindow, int staleTimeout, TimeUnit timeUnit,
+                             Executor refreshExecutor) {
+        this.datastore = datastore;
+        this.refreshWindow = Math.max(refreshWindow, 0);
+        this.staleTimeout = Math.max(staleTimeout, 0);
+        this.timeUnit = timeUnit;
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    private static Executor newRefreshExecutor() {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(REFRESH_THREADS, REFRESH_THREADS,
+                60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(MAX_QUEUED_REFRESHES),
+                new ThreadFactoryBuilder().setNameFormat("cache-refresh-%d").setDaemon(true).build());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static int safeLongToInt(long l) {
+        return (int) Math.min(l, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Gets the cached value for the key, loading it if there is none.
+     *
+     * @param key    the key the value is cached under
+     * @param loader loads the value when it is not cached or is about to expire
+     * @return the cached or loaded value
+     * @throws Exception the exception thrown by the loader, if the value had to be loaded and could not be
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Serializable> T get(String key, Loader<T> loader) throws Exception {
+        final Serializable cached = datastore.get(key);
+
+        if (cached instanceof Entry) {
+            final Entry entry = (Entry) cached;
+            final long now = currentTimeMillis();
+
+            if (now < entry.expiresAt) {
+                if (now >= entry.refreshAt) {
+                    refresh(key, loader);
+                }
+                return (T) entry.value;
+            }
+
+            try {
+                return load(key, loader, true);
+            } catch (Exception e) {
+                if (loader.isTransient(e)) {
+                    LOG.warn("Serving the expired value cached under {} since it could not be loaded", key, e);
+                    return (T) entry.value;
+                }
+                throw e;
+            }
+        } else if (cached != null) {
+            return (T) cached;
+        }
+
+        return load(key, loader, false);
+    }
+
+    long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    private <T extends Serializable> T load(String key, Loader<T> loader, boolean cached) throws Exception {
+        final Load<T> load = new Load<>(key, loader, false, cached);
+        final FutureTask<?> outstanding = loads.putIfAbsent(key, load);
+
+        if (outstanding != null) {
+            LOG.trace("Waiting on the outstanding load of {}", key);
+            return await(key, outstanding);
+        }
+
+        load.run();
+        return await(key, load);
+    }
+
+    private <T extends Serializable> void refresh(String key, Loader<T> loader) {
+        final Load<T> load = new Load<>(key, loader, true, true);
+
+        if (refreshes.putIfAbsent(key, load) == null) {
+            LOG.debug("Refreshing the value cached under {} before it expires", key);
+            try {
+                refreshExecutor.execute(load);
+            } catch (RejectedExecutionException e) {
+                refreshes.remove(key, load);
+                LOG.debug("Too many refreshes are queued - {} will be loaded once it expires", key);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends Serializable> T await(String key, FutureTask<?> load) throws Exception {
+        try {
+            return (T) load.get();
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new DatastoreOperationException("Failed to load the value for " + key, cause);
+        }
+    }
+
+    private <T extends Serializable> void store(String key, T value, int ttl) {
+        if (ttl < 0) {
+            return;
+        }
+
+        // Values that never expire, or that nothing is done with before they expire, are stored as they are
+        if (ttl == 0 || (refreshWindow == 0 && staleTimeout == 0)) {
+            datastore.put(key, value, ttl, timeUnit);
+            return;
+        }
+
+        // A window at least as long as the value lives would have every hit refresh it, so half its life is the most
+        final long now = currentTimeMillis();
+        final long ttlMillis = timeUnit.toMillis(ttl);
+        final long refreshAt = now + ttlMillis - Math.min(timeUnit.toMillis(refreshWindow), ttlMillis / 2);
+
+        datastore.put(key, new Entry(value, refreshAt, now + ttlMillis), safeLongToInt((long) ttl + staleTimeout),
+                timeUnit);
+    }
+
+    /**
+     * Loads the values of a {@link RefreshAheadCache}.
+     */
+    public abstract static class Loader<T extends Serializable> {
+
+        /**
+         * @return the value to cache
+         * @throws Exception if the value could not be loaded
+         */
+        public abstract T load() throws Exception;
+
+        /**
+         * Loads the value again in the background before it expires. The value is loaded the same way it is on a miss
+         * unless this is overridden to leave out work only a waiting request needs.
+         */
+        public T reload() throws Exception {
+            return load();
+        }
+
+        /**
+         * @return how long to cache the value for, 0 to cache it forever, or less than 0 to not cache it
+         */
+        public abstract int ttl(T value);
+
+        /**
+         * Tells whether a load failed for a transient reason, in which case the cached value is kept and may be served
+         * if it has expired. Otherwise the cached value is removed, since the failure says it is no longer good.
+         */
+        public boolean isTransient(Exception failure) {
+            return false;
+        }
+    }
+
+    /**
+     * A cached value along with when it should be refreshed and when it expires, as milliseconds since the epoch so
+     * that they hold across the nodes of a distributed datastore.
+     */
+    static final class Entry implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final Serializable value;
+        private final long refreshAt;
+        private final long expiresAt;
+
+        Entry(Serializable value, long refreshAt, long expiresAt) {
+            this.value = value;
+            this.refreshAt = refreshAt;
+            this.expiresAt = expiresAt;
+        }
+
+        Serializable getValue() {
+            return value;
+        }
+
+        long getRefreshAt() {
+            return refreshAt;
+        }
+
+        long getExpiresAt() {
+            return expiresAt;
+        }
+    }
+
+    /**
+     * A load of one key, which the requests that miss on the key while it is outstanding wait on rather than starting
+     * their own. Refreshes are tracked apart from the loads misses wait on.
+     */
+    private final class Load<T extends Serializable> extends FutureTask<T> {
+        private final String key;
+        private final ConcurrentMap<String, FutureTask<?>> outstanding;
+
+        Load(final String key, final Loader<T> loader, final boolean refresh, final boolean cached) {
+            super(new Callable<T>() {
+                @Override
+                public T call() throws Exception {
+                    final T value;
+                    try {
+                        value = refresh ? loader.reload() : loader.load();
+                    } catch (Exception e) {
+                        if (cached && !loader.isTransient(e)) {
+                            datastore.remove(key);
+                        }
+                        if (refresh) {
+                            LOG.warn("Unable to refresh the value cached under {}", key, e);
+                        }
+                        throw e;
+                    }
+
+                    store(key, value, loader.ttl(value));
+                    return value;
+                }
+            });
+            this.key = key;
+            this.outstanding = refresh ? refreshes : loads;
+        }
+
+        @Override
+        protected void done() {
+            outstanding.remove(key, this);
+        }
+    }
+}
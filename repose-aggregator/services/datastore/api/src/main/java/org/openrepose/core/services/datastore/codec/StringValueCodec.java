@@ -17,38 +17,35 @@
  * limitations under the License.
  * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
  */
-package org.openrepose.core.services.serviceclient.akka.impl;
+package org.openrepose.core.services.datastore.codec;
 
-import akka.routing.ConsistentHashingRouter.ConsistentHashable;
+import org.openrepose.core.services.datastore.StringValue;
 
-import java.util.Map;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
-public class AuthGetRequest extends ActorRequest implements ConsistentHashable {
+public class StringValueCodec implements ValueCodec<StringValue> {
 
-    private String uri;
-    private Map<String, String> headers;
-    private String hashKey;
+    public static final byte TYPE_ID = 2;
 
-    public AuthGetRequest(String hashKey, String uri, Map<String, String> headers) {
-        this.uri = uri;
-        this.headers = headers;
-        this.hashKey = hashKey;
+    @Override
+    public byte typeId() {
+        return TYPE_ID;
     }
 
-    public String getUri() {
-        return uri;
+    @Override
+    public Class<StringValue> valueType() {
+        return StringValue.class;
     }
 
-    public Map<String, String> getHeaders() {
-        return headers;
+    @Override
+    public void write(StringValue value, DataOutput out) throws IOException {
+        Utf8Strings.write(value.getValue(), out);
     }
 
-    public String hashKey() {
-        return hashKey;
+    @Override
+    public StringValue read(DataInput in) throws IOException {
+        return new StringValue(Utf8Strings.read(in));
     }
-
-    public String consistentHashKey() {
-        return hashKey();
-    }
-
 }
@@ -0,0 +1,101 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.core.services.datastore.codec;
+
+import org.openrepose.commons.utils.io.ObjectSerializer;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Writes and reads datastore values using the registered {@link ValueCodec}s, falling back to Java serialization for
+ * any value that has no codec.
+ */
+public class ValueCodecRegistry {
+
+    public static final byte NULL_TYPE_ID = 0;
+    public static final byte JAVA_SERIALIZED_TYPE_ID = 1;
+
+    private final ObjectSerializer objectSerializer = new ObjectSerializer(this.getClass().getClassLoader());
+    private final Map<Class<?>, ValueCodec> codecsByType = new ConcurrentHashMap<>();
+    private final ValueCodec[] codecsById = new ValueCodec[Byte.MAX_VALUE + 1];
+
+    public synchronized void register(ValueCodec codec) {
+        final byte typeId = codec.typeId();
+
+        if (typeId <= JAVA_SERIALIZED_TYPE_ID) {
+            throw new IllegalArgumentException("Codec type ids 0 and 1 are reserved, and negative ids are not allowed");
+        }
+
+        if (codecsById[typeId] != null && codecsById[typeId].valueType() != codec.valueType()) {
+            throw new IllegalArgumentException("Codec type id " + typeId + " is already registered for " +
+                    codecsById[typeId].valueType().getName());
+        }
+
+        codecsById[typeId] = codec;
+        codecsByType.put(codec.valueType(), codec);
+    }
+
+    @SuppressWarnings("unchecked")
+    public void write(Serializable value, DataOutput out) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL_TYPE_ID);
+            return;
+        }
+
+        final ValueCodec codec = codecsByType.get(value.getClass());
+        if (codec != null) {
+            out.writeByte(codec.typeId());
+            codec.write(value, out);
+        } else {
+            final byte[] serialized = objectSerializer.writeObject(value);
+            out.writeByte(JAVA_SERIALIZED_TYPE_ID);
+            out.writeInt(serialized.length);
+            out.write(serialized);
+        }
+    }
+
+    public Serializable read(DataInput in) throws IOException {
+        final byte typeId = in.readByte();
+
+        switch (typeId) {
+            case NULL_TYPE_ID:
+                return null;
+            case JAVA_SERIALIZED_TYPE_ID:
+                final byte[] serialized = new byte[in.readInt()];
+                in.readFully(serialized);
+                try {
+                    return objectSerializer.readObject(serialized);
+                } catch (ClassNotFoundException cnfe) {
+                    throw new IOException("Unable to deserialize a datastore value. Reason: " + cnfe.getMessage(), cnfe);
+                }
+            default:
+                final ValueCodec codec = typeId > 0 ? codecsById[typeId] : null;
+                if (codec == null) {
+                    throw new IOException("No datastore value codec is registered for type id " + typeId);
+                }
+                return codec.read(in);
+        }
+    }
+}
@@ -24,14 +24,59 @@ import org.openrepose.core.services.RequestProxyService;
 
 public class ClusterConfiguration {
 
+    public static final int DEFAULT_VIRTUAL_NODES = 100;
+    public static final int DEFAULT_BATCH_MAX_SIZE = 64;
+    public static final int DEFAULT_REMOTE_TIMEOUT_MILLIS = 30000;
+
     private RequestProxyService proxyService;
     private EncodingProvider encodingProvider;
     private ClusterView clusterView;
+    private int virtualNodes;
+    private int binaryPortOffset;
+    private int batchMaxDelayMillis;
+    private int batchMaxSize;
+    private NearCacheConfiguration nearCache;
+    private int remoteTimeoutMillis;
 
     public ClusterConfiguration(RequestProxyService proxyService, EncodingProvider encodingProvider, ClusterView clusterView) {
+        this(proxyService, encodingProvider, clusterView, DEFAULT_VIRTUAL_NODES);
+    }
+
+    public ClusterConfiguration(RequestProxyService proxyService, EncodingProvider encodingProvider, ClusterView clusterView,
+                                int virtualNodes) {
+        this(proxyService, encodingProvider, clusterView, virtualNodes, 0);
+    }
+
+    public ClusterConfiguration(RequestProxyService proxyService, EncodingProvider encodingProvider, ClusterView clusterView,
+                                int virtualNodes, int binaryPortOffset) {
+        this(proxyService, encodingProvider, clusterView, virtualNodes, binaryPortOffset, 0, DEFAULT_BATCH_MAX_SIZE);
+    }
+
+    public ClusterConfiguration(RequestProxyService proxyService, EncodingProvider encodingProvider, ClusterView clusterView,
+                                int virtualNodes, int binaryPortOffset, int batchMaxDelayMillis, int batchMaxSize) {
+        this(proxyService, encodingProvider, clusterView, virtualNodes, binaryPortOffset, batchMaxDelayMillis,
+                batchMaxSize, null);
+    }
+
+    public ClusterConfiguration(RequestProxyService proxyService, EncodingProvider encodingProvider, ClusterView clusterView,
+                                int virtualNodes, int binaryPortOffset, int batchMaxDelayMillis, int batchMaxSize,
+                                NearCacheConfiguration nearCache) {
+        this(proxyService, encodingProvider, clusterView, virtualNodes, binaryPortOffset, batchMaxDelayMillis,
+                batchMaxSize, nearCache, DEFAULT_REMOTE_TIMEOUT_MILLIS);
+    }
+
+    public ClusterConfiguration(RequestProxyService proxyService, EncodingProvider encodingProvider, ClusterView clusterView,
+                                int virtualNodes, int binaryPortOffset, int batchMaxDelayMillis, int batchMaxSize,
+                                NearCacheConfiguration nearCache, int remoteTimeoutMillis) {
         this.proxyService = proxyService;
         this.encodingProvider = encodingProvider;
         this.clusterView = clusterView;
+        this.virtualNodes = virtualNodes;
+        this.binaryPortOffset = binaryPortOffset;
+        this.batchMaxDelayMillis = batchMaxDelayMillis;
+        this.batchMaxSize = batchMaxSize;
+        this.nearCache = nearCache;
+        this.remoteTimeoutMillis = remoteTimeoutMillis;
     }
 
     public RequestProxyService getProxyService() {
@@ -45,4 +90,48 @@ public class ClusterConfiguration {
     public ClusterView getClusterView() {
         return clusterView;
     }
+
+    /**
+     * @return the number of positions each cluster member occupies on the datastore hash ring
+     */
+    public int getVirtualNodes() {
+        return virtualNodes;
+    }
+
+    /**
+     * @return the offset from each member's datastore port at which its binary transport listens, or 0 if the
+     * binary transport is disabled
+     */
+    public int getBinaryPortOffset() {
+        return binaryPortOffset;
+    }
+
+    /**
+     * @return how long remote operations may wait to be batched with others bound for the same member, or 0 if
+     * batching is disabled
+     */
+    public int getBatchMaxDelayMillis() {
+        return batchMaxDelayMillis;
+    }
+
+    /**
+     * @return the number of operations at which a batch is sent without waiting any longer
+     */
+    public int getBatchMaxSize() {
+        return batchMaxSize;
+    }
+
+    /**
+     * @return the configuration of the cache of values read from other members, or null if near caching is disabled
+     */
+    public NearCacheConfiguration getNearCache() {
+        return nearCache;
+    }
+
+    /**
+     * @return how long an operation sent to another member over the binary transport, or batched, waits for its answer
+     */
+    public int getRemoteTimeoutMillis() {
+        return remoteTimeoutMillis;
+    }
 }
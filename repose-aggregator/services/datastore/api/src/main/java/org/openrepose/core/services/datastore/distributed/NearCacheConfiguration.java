@@ -0,0 +1,64 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.core.services.datastore.distributed;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Describes the cache each node keeps of values it has read from other members of the distributed datastore.
+ */
+public class NearCacheConfiguration {
+
+    public static final int DEFAULT_TTL_SECONDS = 30;
+    public static final int DEFAULT_MAX_HEAP_PERCENT = 5;
+
+    private final List<String> keyPrefixes;
+    private final int ttlSeconds;
+    private final int maxHeapPercent;
+
+    public NearCacheConfiguration(List<String> keyPrefixes, int ttlSeconds, int maxHeapPercent) {
+        this.keyPrefixes = Collections.unmodifiableList(new ArrayList<>(keyPrefixes));
+        this.ttlSeconds = ttlSeconds;
+        this.maxHeapPercent = maxHeapPercent;
+    }
+
+    /**
+     * @return the prefixes of the keys whose values may be near cached
+     */
+    public List<String> getKeyPrefixes() {
+        return keyPrefixes;
+    }
+
+    /**
+     * @return the longest a value is kept in the near cache
+     */
+    public int getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    /**
+     * @return the share of the maximum heap the near cache may use
+     */
+    public int getMaxHeapPercent() {
+        return maxHeapPercent;
+    }
+}
@@ -0,0 +1,280 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.core.services.datastore;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+public class RefreshAheadCacheTest {
+
+    private static final String KEY = "TOKEN:abc";
+
+    private Datastore datastore;
+    private CountingLoader loader;
+    private long now;
+
+    @Before
+    public void setUp() {
+        datastore = mock(Datastore.class);
+        loader = new CountingLoader();
+        now = 1000000L;
+    }
+
+    private RefreshAheadCache cache(int refreshWindow, int staleTimeout, Executor refreshExecutor) {
+        return new RefreshAheadCache(datastore, refreshWindow, staleTimeout, TimeUnit.SECONDS, refreshExecutor) {
+            @Override
+            long currentTimeMillis() {
+                return now;
+            }
+        };
+    }
+
+    private RefreshAheadCache.Entry storedEntry() {
+        final ArgumentCaptor<Serializable> stored = ArgumentCaptor.forClass(Serializable.class);
+        verify(datastore, atLeastOnce()).put(eq(KEY), stored.capture(), anyInt(), eq(TimeUnit.SECONDS));
+        return (RefreshAheadCache.Entry) stored.getValue();
+    }
+
+    @Test
+    public void shouldStoreValuesAsTheyAreWhenNeitherWindowIsSet() throws Exception {
+        assertEquals("value-1", cache(0, 0, MoreExecutors.sameThreadExecutor()).get(KEY, loader));
+
+        verify(datastore).put(KEY, "value-1", 600, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void shouldServeCachedValuesWithoutLoading() throws Exception {
+        when(datastore.get(KEY)).thenReturn("cached");
+
+        assertEquals("cached", cache(60, 60, MoreExecutors.sameThreadExecutor()).get(KEY, loader));
+        assertEquals(0, loader.loads.get());
+    }
+
+    @Test
+    public void shouldKeepExpiredValuesForTheStaleTimeout() throws Exception {
+        cache(60, 300, MoreExecutors.sameThreadExecutor()).get(KEY, loader);
+
+        verify(datastore).put(eq(KEY), any(RefreshAheadCache.Entry.class), eq(900), eq(TimeUnit.SECONDS));
+        assertEquals(now + 540000, storedEntry().getRefreshAt());
+        assertEquals(now + 600000, storedEntry().getExpiresAt());
+    }
+
+    @Test
+    public void shouldRefreshInTheBackgroundWithinTheRefreshWindow() throws Exception {
+        final RefreshAheadCache cache = cache(60, 0, MoreExecutors.sameThreadExecutor());
+        cache.get(KEY, loader);
+        final RefreshAheadCache.Entry entry = storedEntry();
+        when(datastore.get(KEY)).thenReturn(entry);
+
+        now += 550000;
+
+        assertEquals("value-1", cache.get(KEY, loader));
+        assertEquals(1, loader.reloads.get());
+        assertEquals("value-2", storedEntry().getValue());
+    }
+
+    @Test
+    public void shouldOnlyStartOneRefreshAtATime() throws Exception {
+        final QueuedExecutor executor = new QueuedExecutor();
+        final RefreshAheadCache cache = cache(60, 0, executor);
+        cache.get(KEY, loader);
+        final RefreshAheadCache.Entry entry = storedEntry();
+        when(datastore.get(KEY)).thenReturn(entry);
+
+        now += 550000;
+        cache.get(KEY, loader);
+        cache.get(KEY, loader);
+        cache.get(KEY, loader);
+
+        assertEquals(1, executor.queued);
+        executor.runLast();
+        cache.get(KEY, loader);
+        assertEquals(2, executor.queued);
+    }
+
+    @Test(timeout = 5000)
+    public void shouldNotWaitOnAQueuedRefreshOnceTheValueExpires() throws Exception {
+        final QueuedExecutor executor = new QueuedExecutor();
+        final RefreshAheadCache cache = cache(60, 0, executor);
+        cache.get(KEY, loader);
+        final RefreshAheadCache.Entry entry = storedEntry();
+        when(datastore.get(KEY)).thenReturn(entry);
+
+        now += 550000;
+        assertEquals("value-1", cache.get(KEY, loader));
+        now += 50000;
+
+        assertEquals("value-2", cache.get(KEY, loader));
+        assertEquals(1, executor.queued);
+        assertEquals(0, loader.reloads.get());
+    }
+
+    @Test
+    public void shouldCollapseConcurrentMissesIntoOneLoad() throws Exception {
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final RefreshAheadCache cache = cache(0, 0, MoreExecutors.sameThreadExecutor());
+        final CountingLoader slowLoader = new CountingLoader() {
+            @Override
+            public String load() throws Exception {
+                loading.countDown();
+                release.await();
+                return super.load();
+            }
+        };
+
+        final Object[] results = new Object[2];
+        final Thread first = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    results[0] = cache.get(KEY, slowLoader);
+                } catch (Exception e) {
+                    results[0] = e;
+                }
+            }
+        });
+        first.start();
+        loading.await();
+
+        final Thread second = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    results[1] = cache.get(KEY, slowLoader);
+                } catch (Exception e) {
+                    results[1] = e;
+                }
+            }
+        });
+        second.start();
+        // Gives the second miss a chance to join the outstanding load before it completes
+        second.join(200);
+        release.countDown();
+        first.join();
+        second.join();
+
+        assertEquals(1, slowLoader.loads.get());
+        assertEquals("value-1", results[0]);
+        assertEquals("value-1", results[1]);
+    }
+
+    @Test
+    public void shouldServeStaleValuesWhenLoadingFailsTransiently() throws Exception {
+        final RefreshAheadCache cache = cache(0, 300, MoreExecutors.sameThreadExecutor());
+        cache.get(KEY, loader);
+        final RefreshAheadCache.Entry entry = storedEntry();
+        when(datastore.get(KEY)).thenReturn(entry);
+
+        now += 700000;
+        loader.failure = new IOException("identity is down");
+
+        assertEquals("value-1", cache.get(KEY, loader));
+        verify(datastore, never()).remove(KEY);
+    }
+
+    @Test
+    public void shouldDropCachedValuesWhenLoadingFailsForGood() throws Exception {
+        final RefreshAheadCache cache = cache(0, 300, MoreExecutors.sameThreadExecutor());
+        cache.get(KEY, loader);
+        final RefreshAheadCache.Entry entry = storedEntry();
+        when(datastore.get(KEY)).thenReturn(entry);
+
+        now += 700000;
+        loader.failure = new IllegalStateException("token revoked");
+
+        try {
+            cache.get(KEY, loader);
+            fail("The failure should have been thrown");
+        } catch (IllegalStateException e) {
+            assertSame(loader.failure, e);
+        }
+        verify(datastore).remove(KEY);
+    }
+
+    @Test
+    public void shouldNotCacheValuesWithANegativeTtl() throws Exception {
+        loader.ttl = -1;
+
+        assertEquals("value-1", cache(60, 60, MoreExecutors.sameThreadExecutor()).get(KEY, loader));
+        verify(datastore, never()).put(eq(KEY), any(Serializable.class), anyInt(), any(TimeUnit.class));
+    }
+
+    private static class CountingLoader extends RefreshAheadCache.Loader<String> {
+        final AtomicInteger loads = new AtomicInteger();
+        final AtomicInteger reloads = new AtomicInteger();
+        int ttl = 600;
+        Exception failure;
+
+        @Override
+        public String load() throws Exception {
+            if (failure != null) {
+                throw failure;
+            }
+            return "value-" + loads.incrementAndGet();
+        }
+
+        @Override
+        public String reload() throws Exception {
+            reloads.incrementAndGet();
+            return load();
+        }
+
+        @Override
+        public int ttl(String value) {
+            return ttl;
+        }
+
+        @Override
+        public boolean isTransient(Exception failure) {
+            return failure instanceof IOException;
+        }
+    }
+
+    private static class QueuedExecutor implements Executor {
+        int queued;
+        Runnable last;
+
+        @Override
+        public void execute(Runnable command) {
+            queued++;
+            last = command;
+        }
+
+        void runLast() {
+            last.run();
+        }
+    }
+}
@@ -34,7 +34,10 @@ import java.net.InetSocketAddress;
 public class CacheRequest {
 
     public static final String CACHE_URI_PATH = "/powerapi/dist-datastore/objects/";
+    public static final String BATCH_URI_PATH = "/powerapi/dist-datastore/batch";
+    public static final String INVALIDATE_URI_PATH = "/powerapi/dist-datastore/invalidate/";
     public static final int TWO_MEGABYTES_IN_BYTES = 2097152, EXPECTED_UUID_STRING_LENGTH = 36, DEFAULT_TTL_IN_SECONDS = 60;
+    public static final int MAX_BATCH_SIZE_IN_BYTES = 4 * TWO_MEGABYTES_IN_BYTES;
     public static final HeaderConstant TTL_HEADER = ExtendedHttpHeader.X_TTL;
     public static final String TEMP_HOST_KEY = "temp-host-key";
     private final RemoteBehavior requestedRemoteBehavior;
@@ -55,8 +58,12 @@ public class CacheRequest {
     }
 
     private static String getCacheKey(HttpServletRequest request) {
+        return getCacheKey(request, CACHE_URI_PATH);
+    }
+
+    private static String getCacheKey(HttpServletRequest request, String uriPath) {
         final String requestUri = request.getRequestURI();
-        final String cacheKey = requestUri.substring(CACHE_URI_PATH.length()).trim();
+        final String cacheKey = requestUri.substring(uriPath.length()).trim();
 
         if (StringUtilities.isBlank(cacheKey) || cacheKey.length() != EXPECTED_UUID_STRING_LENGTH) {
             throw new MalformedCacheRequestException(MalformedCacheRequestError.CACHE_KEY_INVALID);
@@ -79,6 +86,22 @@ public class CacheRequest {
         return request.getRequestURI().startsWith(CACHE_URI_PATH);
     }
 
+    public static boolean isBatchRequest(HttpServletRequest request) {
+        return BATCH_URI_PATH.equals(request.getRequestURI());
+    }
+
+    public static boolean isInvalidateRequest(HttpServletRequest request) {
+        return request.getRequestURI().startsWith(INVALIDATE_URI_PATH);
+    }
+
+    public static String invalidateUrlFor(InetSocketAddress remoteEndpoint) {
+        return new StringBuilder("http://").append(remoteEndpoint.getAddress().getHostAddress()).append(":").append(remoteEndpoint.getPort()).append(INVALIDATE_URI_PATH).toString();
+    }
+
+    public static String batchUrlFor(InetSocketAddress remoteEndpoint) {
+        return new StringBuilder("http://").append(remoteEndpoint.getAddress().getHostAddress()).append(":").append(remoteEndpoint.getPort()).append(BATCH_URI_PATH).toString();
+    }
+
     public static String urlFor(InetSocketAddress remoteEndpoint, String key) {
         return new StringBuilder("http://").append(remoteEndpoint.getAddress().getHostAddress()).append(":").append(remoteEndpoint.getPort()).append(CACHE_URI_PATH).append(key).toString();
     }
@@ -108,6 +131,30 @@ public class CacheRequest {
         return new CacheRequest(cacheKey, getHostKey(request), -1, null, getRequestedRemoteBehavior(request));
     }
 
+    /**
+     * Invalidate requests name a key that should be dropped from the near cache of the node receiving them.
+     */
+    public static CacheRequest marshallInvalidateRequest(HttpServletRequest request) throws MalformedCacheRequestException {
+        final String cacheKey = getCacheKey(request, INVALIDATE_URI_PATH);
+
+        return new CacheRequest(cacheKey, getHostKey(request), -1, null, getRequestedRemoteBehavior(request));
+    }
+
+    /**
+     * Batch requests carry many keys, so the returned request has no cache key and no TTL of its own.
+     */
+    public static CacheRequest marshallBatchRequest(HttpServletRequest request) throws MalformedCacheRequestException {
+        final String hostKey = getHostKey(request);
+
+        try {
+            return new CacheRequest(null, hostKey, -1, RawInputStreamReader.instance().readFully(request.getInputStream(), MAX_BATCH_SIZE_IN_BYTES), getRequestedRemoteBehavior(request));
+        } catch (BufferCapacityException bce) {
+            throw new MalformedCacheRequestException(MalformedCacheRequestError.OBJECT_TOO_LARGE, bce);
+        } catch (IOException ioe) {
+            throw new MalformedCacheRequestException(MalformedCacheRequestError.UNABLE_TO_READ_CONTENT, ioe);
+        }
+    }
+
     public static CacheRequest marshallCacheRequestWithPayload(HttpServletRequest request) throws MalformedCacheRequestException {
         final String cacheKey = getCacheKey(request);
         final String hostKey = getHostKey(request);
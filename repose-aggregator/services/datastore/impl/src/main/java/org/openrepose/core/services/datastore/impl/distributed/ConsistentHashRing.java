@@ -0,0 +1,152 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.core.services.datastore.impl.distributed;
+
+import org.openrepose.core.services.datastore.DatastoreOperationException;
+import org.openrepose.core.services.datastore.hash.MessageDigestFactory;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * An immutable consistent hash ring over a set of datastore members.
+ * <p/>
+ * Every member is placed on the ring at a number of virtual node positions derived from its address, so that adding
+ * or removing a member only moves the keys that member owns (roughly 1/N of them) instead of remapping nearly every
+ * key the way modulo hashing does. Lookups are a binary search over a sorted array of ring positions.
+ * <p/>
+ * Positions are derived from the host name and port a member was configured with, never from the IP address it
+ * resolved to, so that nodes which resolve a member differently still build the same ring.
+ */
+public class ConsistentHashRing {
+
+    private final InetSocketAddress[] members;
+    private final long[] positions;
+    private final InetSocketAddress[] owners;
+
+    public ConsistentHashRing(InetSocketAddress[] members, int virtualNodes, MessageDigestFactory hashProvider) {
+        if (virtualNodes < 1) {
+            throw new IllegalArgumentException("A hash ring requires at least one virtual node per member");
+        }
+
+        this.members = members.clone();
+
+        final VirtualNode[] virtualNodeList = new VirtualNode[members.length * virtualNodes];
+        try {
+            final MessageDigest digest = hashProvider.newMessageDigest();
+            int index = 0;
+
+            for (InetSocketAddress member : members) {
+                final String identity = identityOf(member);
+                for (int replica = 0; replica < virtualNodes; replica++) {
+                    final byte[] hash = digest.digest((identity + "#" + replica).getBytes(StandardCharsets.UTF_8));
+                    virtualNodeList[index++] = new VirtualNode(toPosition(hash), member, identity);
+                }
+            }
+        } catch (NoSuchAlgorithmException algorithmException) {
+            throw new DatastoreOperationException("Failed to build hash ring. Reason: " + algorithmException.getMessage(),
+                    algorithmException);
+        }
+
+        Arrays.sort(virtualNodeList);
+
+        positions = new long[virtualNodeList.length];
+        owners = new InetSocketAddress[virtualNodeList.length];
+        for (int i = 0; i < virtualNodeList.length; i++) {
+            positions[i] = virtualNodeList[i].position;
+            owners[i] = virtualNodeList[i].owner;
+        }
+    }
+
+    /**
+     * @return the host name, or the address literal when no name was given, and port the member was configured with
+     */
+    static String identityOf(InetSocketAddress member) {
+        return member.getHostString() + ":" + member.getPort();
+    }
+
+    /**
+     * Reads the first eight bytes of a hash as a ring position. Shorter hashes are zero padded.
+     */
+    static long toPosition(byte[] hash) {
+        long position = 0;
+
+        for (int i = 0; i < 8; i++) {
+            position = (position << 8) | (i < hash.length ? hash[i] & 0xFF : 0);
+        }
+
+        return position;
+    }
+
+    /**
+     * Find the member that owns the given key hash, which is the first virtual node at or after the hash's position on
+     * the ring, wrapping around to the start of the ring if necessary.
+     *
+     * @param hashBytes the hash of the key
+     * @return the owning member, or null if the ring has no members
+     */
+    public InetSocketAddress getOwner(byte[] hashBytes) {
+        if (positions.length == 0) {
+            return null;
+        }
+
+        int index = Arrays.binarySearch(positions, toPosition(hashBytes));
+        if (index < 0) {
+            index = -index - 1;
+            if (index == positions.length) {
+                index = 0;
+            }
+        }
+
+        return owners[index];
+    }
+
+    /**
+     * @return true if this ring was built from exactly the given members, in the same order
+     */
+    public boolean hasMembers(InetSocketAddress[] candidateMembers) {
+        return Arrays.equals(members, candidateMembers);
+    }
+
+    private static class VirtualNode implements Comparable<VirtualNode> {
+        private final long position;
+        private final InetSocketAddress owner;
+        private final String identity;
+
+        VirtualNode(long position, InetSocketAddress owner, String identity) {
+            this.position = position;
+            this.owner = owner;
+            this.identity = identity;
+        }
+
+        @Override
+        public int compareTo(VirtualNode other) {
+            if (position != other.position) {
+                return position < other.position ? -1 : 1;
+            }
+
+            // Break ties deterministically so every node in the cluster builds the same ring
+            return identity.compareTo(other.identity);
+        }
+    }
+}
@@ -23,6 +23,8 @@ import org.openrepose.commons.utils.encoding.EncodingProvider;
 import org.openrepose.core.services.datastore.Datastore;
 import org.openrepose.core.services.datastore.DatastoreOperationException;
 import org.openrepose.core.services.datastore.Patch;
+import org.openrepose.core.services.datastore.codec.ValueEncodingException;
+import org.openrepose.core.services.datastore.distributed.ClusterConfiguration;
 import org.openrepose.core.services.datastore.distributed.ClusterView;
 import org.openrepose.core.services.datastore.distributed.DistributedDatastore;
 import org.openrepose.core.services.datastore.distributed.RemoteBehavior;
@@ -37,12 +39,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.Serializable;
-import java.math.BigInteger;
 import java.net.InetSocketAddress;
 import java.net.SocketException;
 import java.nio.charset.StandardCharsets;
 import java.security.NoSuchAlgorithmException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class HashRingDatastore implements DistributedDatastore {
 
@@ -58,13 +60,23 @@ public class HashRingDatastore implements DistributedDatastore {
     private final MessageDigestFactory hashProvider;
     private final String datasetPrefix;
     private final String name;
+    private final int virtualNodes;
+    private final AtomicReference<ConsistentHashRing> hashRing = new AtomicReference<>();
     private boolean clusterMemberWarning = false;
 
     public HashRingDatastore(RemoteCommandExecutor remoteCommandExecutor, ClusterView clusterView,
                              String datastorePrefix, Datastore localDatastore, MessageDigestFactory hashProvider,
                              EncodingProvider encodingProvider) {
+        this(remoteCommandExecutor, clusterView, datastorePrefix, localDatastore, hashProvider, encodingProvider,
+                ClusterConfiguration.DEFAULT_VIRTUAL_NODES);
+    }
+
+    public HashRingDatastore(RemoteCommandExecutor remoteCommandExecutor, ClusterView clusterView,
+                             String datastorePrefix, Datastore localDatastore, MessageDigestFactory hashProvider,
+                             EncodingProvider encodingProvider, int virtualNodes) {
 
         this.name = DATASTORE_NAME;
+        this.virtualNodes = virtualNodes;
         this.encodingProvider = encodingProvider;
         this.hashProvider = hashProvider;
         this.datasetPrefix = datastorePrefix;
@@ -90,9 +102,32 @@ public class HashRingDatastore implements DistributedDatastore {
         }
 
         clusterMemberWarning = false;
-        final int memberAddress =
-                new BigInteger(hashBytes).mod(BigInteger.valueOf(ringMembers.length)).abs().intValue();
-        return ringMembers[memberAddress];
+        return getHashRing(ringMembers).getOwner(hashBytes);
+    }
+
+    /**
+     * Returns a hash ring for the current members, building a new one only when the membership has changed since the
+     * last ring was built. Rings are immutable, so racing threads at worst build the same ring twice.
+     */
+    private ConsistentHashRing getHashRing(InetSocketAddress[] ringMembers) {
+        ConsistentHashRing ring = hashRing.get();
+
+        if (ring == null || !ring.hasMembers(ringMembers)) {
+            LOG.debug("Datastore cluster membership changed, rebuilding the hash ring for {} members", ringMembers.length);
+            ring = new ConsistentHashRing(ringMembers, virtualNodes, hashProvider);
+            hashRing.set(ring);
+        }
+
+        return ring;
+    }
+
+    /**
+     * @return true if the key with the given hash is stored by another member of the cluster
+     */
+    public boolean isRemotelyOwned(byte[] id) {
+        final InetSocketAddress target = getTarget(id);
+
+        return target != null && isRemoteTarget(target);
     }
 
     private boolean isRemoteTarget(InetSocketAddress target) {
@@ -134,6 +169,9 @@ public class HashRingDatastore implements DistributedDatastore {
 
                         return action.performRemote(name, target, remoteBehavior);
                     }
+                } catch (ValueEncodingException vee) {
+                    // The value could not be sent, which says nothing about the health of the target
+                    throw vee;
                 } catch (RemoteConnectionException rce) {
                     LOG.trace("Could not perform action", rce);
                     clusterView.memberDamaged(target, rce.getMessage());
@@ -151,7 +189,7 @@ public class HashRingDatastore implements DistributedDatastore {
         return action.performLocal(name);
     }
 
-    private byte[] getHash(String key) {
+    public byte[] getHash(String key) {
         final byte[] stringBytes = (datasetPrefix + key).getBytes(StandardCharsets.UTF_8);
 
         try {
@@ -22,27 +22,73 @@ package org.openrepose.core.services.datastore.impl.distributed;
 import org.openrepose.core.services.datastore.Datastore;
 import org.openrepose.core.services.datastore.DatastoreManager;
 import org.openrepose.core.services.datastore.distributed.ClusterConfiguration;
+import org.openrepose.core.services.datastore.distributed.DistributedDatastore;
 import org.openrepose.core.services.datastore.hash.MD5MessageDigestFactory;
 import org.openrepose.core.services.datastore.impl.distributed.remote.RemoteCommandExecutor;
+import org.openrepose.core.services.datastore.impl.distributed.remote.batch.BatchingRemoteCommandExecutor;
+import org.openrepose.core.services.datastore.impl.distributed.remote.binary.BinaryRemoteCommandExecutor;
+import org.openrepose.core.services.datastore.impl.distributed.remote.binary.DatastoreValueCodecs;
 
 public class HashRingDatastoreManager implements DatastoreManager {
 
     private static final String HOST_KEY = "temp-host-key";
     private static final String TRACING_HEADER = "temp-tracing-header";
-    private final HashRingDatastore datastore;
+    private final DistributedDatastore datastore;
+    private final NearCacheDatastore nearCache;
+    private final BinaryRemoteCommandExecutor binaryExecutor;
+    private final BatchingRemoteCommandExecutor batchingExecutor;
 
     public HashRingDatastoreManager(ClusterConfiguration configuration, Datastore localDatastore) {
-        datastore = new HashRingDatastore(
-                new RemoteCommandExecutor(configuration.getProxyService(), HOST_KEY, TRACING_HEADER),
+        RemoteCommandExecutor executor;
+        if (configuration.getBinaryPortOffset() > 0) {
+            binaryExecutor = new BinaryRemoteCommandExecutor(configuration.getProxyService(), HOST_KEY, TRACING_HEADER,
+                    configuration.getBinaryPortOffset(), DatastoreValueCodecs.newRegistry(),
+                    configuration.getRemoteTimeoutMillis());
+            executor = binaryExecutor;
+        } else {
+            binaryExecutor = null;
+            executor = new RemoteCommandExecutor(configuration.getProxyService(), HOST_KEY, TRACING_HEADER);
+        }
+
+        if (configuration.getBatchMaxDelayMillis() > 0) {
+            batchingExecutor = new BatchingRemoteCommandExecutor(executor, configuration.getBatchMaxDelayMillis(),
+                    configuration.getBatchMaxSize(), BatchingRemoteCommandExecutor.DEFAULT_MAX_BYTES,
+                    configuration.getRemoteTimeoutMillis());
+            executor = batchingExecutor;
+        } else {
+            batchingExecutor = null;
+        }
+
+        final HashRingDatastore hashRingDatastore = new HashRingDatastore(
+                executor,
                 configuration.getClusterView(),
                 "",
                 localDatastore,
                 MD5MessageDigestFactory.getInstance(),
-                configuration.getEncodingProvider());
+                configuration.getEncodingProvider(),
+                configuration.getVirtualNodes());
+
+        if (configuration.getNearCache() != null) {
+            nearCache = new NearCacheDatastore(hashRingDatastore, executor, configuration.getClusterView(),
+                    configuration.getEncodingProvider(), configuration.getNearCache());
+            datastore = nearCache;
+        } else {
+            nearCache = null;
+            datastore = hashRingDatastore;
+        }
     }
 
     @Override
     public void destroy() {
+        if (nearCache != null) {
+            nearCache.destroy();
+        }
+        if (batchingExecutor != null) {
+            batchingExecutor.destroy();
+        }
+        if (binaryExecutor != null) {
+            binaryExecutor.destroy();
+        }
     }
 
     @Override
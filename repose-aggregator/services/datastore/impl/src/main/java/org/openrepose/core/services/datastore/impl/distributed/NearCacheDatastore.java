@@ -0,0 +1,358 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.core.services.datastore.impl.distributed;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.yammer.metrics.Metrics;
+import com.yammer.metrics.core.Histogram;
+import com.yammer.metrics.core.Meter;
+import org.openrepose.commons.utils.encoding.EncodingProvider;
+import org.openrepose.commons.utils.io.ObjectSerializer;
+import org.openrepose.core.services.datastore.DatastoreOperationException;
+import org.openrepose.core.services.datastore.Patch;
+import org.openrepose.core.services.datastore.distributed.ClusterView;
+import org.openrepose.core.services.datastore.distributed.DistributedDatastore;
+import org.openrepose.core.services.datastore.distributed.NearCacheConfiguration;
+import org.openrepose.core.services.datastore.distributed.RemoteBehavior;
+import org.openrepose.core.services.datastore.distributed.SerializablePatch;
+import org.openrepose.core.services.datastore.impl.distributed.remote.RemoteCommandExecutor;
+import org.openrepose.core.services.datastore.impl.distributed.remote.command.Invalidate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the values this node reads from other members of a {@link HashRingDatastore} so that repeated reads of the
+ * same key do not each cost a request to the member that stores it.
+ * <p/>
+ * Only keys starting with one of the configured prefixes are cached, and only while another member stores them, since
+ * values stored by this node are already local and may be replaced by other members at any time. Writes through this
+ * node update or drop the cached value, and removes through this node are broadcast to every member so that they drop
+ * it too. A value replaced through another member may still be served until it expires from the near cache, which is
+ * why only keys with values that do not change should be configured.
+ * <p/>
+ * The cache is bounded by an estimate of its size on the heap, taken from the serialized size of each value.
+ */
+public class NearCacheDatastore implements DistributedDatastore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(NearCacheDatastore.class);
+    private static final String METRIC_SCOPE = "distributed-datastore";
+    // A rough cost of the entry, its key and the cache's bookkeeping on top of the serialized value
+    private static final int ENTRY_OVERHEAD_BYTES = 256;
+
+    private final HashRingDatastore delegate;
+    private final RemoteCommandExecutor remoteCommandExecutor;
+    private final ClusterView clusterView;
+    private final EncodingProvider encodingProvider;
+    private final List<String> keyPrefixes;
+    private final long ttlNanos;
+    private final Ticker ticker;
+    private final ExecutorService broadcaster;
+    private final Cache<String, Entry> cache;
+    private final AtomicLong invalidationCount = new AtomicLong();
+    private final ObjectSerializer objectSerializer = new ObjectSerializer(NearCacheDatastore.class.getClassLoader());
+    private final Meter hits;
+    private final Meter misses;
+    private final Meter expirations;
+    private final Meter invalidations;
+    private final Histogram hitAge;
+
+    public NearCacheDatastore(HashRingDatastore delegate, RemoteCommandExecutor remoteCommandExecutor,
+                              ClusterView clusterView, EncodingProvider encodingProvider,
+                              NearCacheConfiguration configuration) {
+        this(delegate, remoteCommandExecutor, clusterView, encodingProvider, configuration,
+                Runtime.getRuntime().maxMemory() / 100 * configuration.getMaxHeapPercent(), Ticker.systemTicker(),
+                Executors.newSingleThreadExecutor());
+    }
+
+    NearCacheDatastore(HashRingDatastore delegate, RemoteCommandExecutor remoteCommandExecutor,
+                       ClusterView clusterView, EncodingProvider encodingProvider,
+                       NearCacheConfiguration configuration, long maxWeightBytes, Ticker ticker,
+                       ExecutorService broadcaster) {
+        this.delegate = delegate;
+        this.remoteCommandExecutor = remoteCommandExecutor;
+        this.clusterView = clusterView;
+        this.encodingProvider = encodingProvider;
+        this.keyPrefixes = configuration.getKeyPrefixes();
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(configuration.getTtlSeconds());
+        this.ticker = ticker;
+        this.broadcaster = broadcaster;
+
+        cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxWeightBytes)
+                .weigher(new Weigher<String, Entry>() {
+                    @Override
+                    public int weigh(String key, Entry entry) {
+                        return entry.weight;
+                    }
+                })
+                .expireAfterWrite(configuration.getTtlSeconds(), TimeUnit.SECONDS)
+                .ticker(ticker)
+                .build();
+
+        hits = Metrics.newMeter(NearCacheDatastore.class, "near-cache-hits", METRIC_SCOPE, "gets", TimeUnit.SECONDS);
+        misses = Metrics.newMeter(NearCacheDatastore.class, "near-cache-misses", METRIC_SCOPE, "gets", TimeUnit.SECONDS);
+        expirations = Metrics.newMeter(NearCacheDatastore.class, "near-cache-expirations", METRIC_SCOPE, "gets",
+                TimeUnit.SECONDS);
+        invalidations = Metrics.newMeter(NearCacheDatastore.class, "near-cache-invalidations", METRIC_SCOPE, "keys",
+                TimeUnit.SECONDS);
+        hitAge = Metrics.newHistogram(NearCacheDatastore.class, "near-cache-hit-age-millis", METRIC_SCOPE, true);
+    }
+
+    public void destroy() {
+        broadcaster.shutdown();
+        cache.invalidateAll();
+    }
+
+    /**
+     * Drops a key from this node's near cache at the request of another member, without touching the stored value.
+     *
+     * @param hashedKey the key as it is sent between members
+     */
+    public void invalidate(String hashedKey) {
+        invalidationCount.incrementAndGet();
+
+        if (cache.asMap().remove(hashedKey) != null) {
+            invalidations.mark();
+        }
+    }
+
+    /**
+     * @return the number of values in the near cache
+     */
+    long size() {
+        return cache.size();
+    }
+
+    private boolean isNearCached(String key) {
+        for (String prefix : keyPrefixes) {
+            if (key.startsWith(prefix)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Caches a value for no longer than it is stored for, unless something invalidated its key since the given count
+     * was read, in which case the value may already be out of date.
+     */
+    private void cache(String hashedKey, Serializable value, long ttlNanos, long observedInvalidations) {
+        final byte[] serialized;
+        try {
+            serialized = objectSerializer.writeObject(value);
+        } catch (IOException ioe) {
+            LOG.debug("Unable to size a value for the near cache, it will not be cached", ioe);
+            return;
+        }
+
+        final long now = ticker.read();
+        final int weight = serialized.length + 2 * hashedKey.length() + ENTRY_OVERHEAD_BYTES;
+        final Entry entry = new Entry(value, now, now + Math.min(ttlNanos, this.ttlNanos), weight);
+
+        if (invalidationCount.get() == observedInvalidations) {
+            cache.put(hashedKey, entry);
+        }
+    }
+
+    private void broadcastInvalidation(final String hashedKey) {
+        try {
+            broadcaster.execute(new Runnable() {
+                @Override
+                public void run() {
+                    for (InetSocketAddress member : clusterView.members()) {
+                        try {
+                            if (!clusterView.isLocal(member)) {
+                                remoteCommandExecutor.execute(new Invalidate(hashedKey, member),
+                                        RemoteBehavior.DISALLOW_FORWARDING);
+                            }
+                        } catch (SocketException | RuntimeException e) {
+                            LOG.debug("Unable to invalidate the near cached value of {} on {}", hashedKey, member, e);
+                        }
+                    }
+                }
+            });
+        } catch (RejectedExecutionException ree) {
+            LOG.trace("Near cache is shut down, not broadcasting the invalidation of {}", hashedKey, ree);
+        }
+    }
+
+    @Override
+    public Serializable get(String key) throws DatastoreOperationException {
+        if (!isNearCached(key)) {
+            return delegate.get(key);
+        }
+
+        final byte[] id = delegate.getHash(key);
+        final String hashedKey = encodingProvider.encode(id);
+        final Entry entry = cache.getIfPresent(hashedKey);
+
+        if (entry != null) {
+            final long now = ticker.read();
+
+            if (now < entry.expiresAt) {
+                hits.mark();
+                hitAge.update(TimeUnit.NANOSECONDS.toMillis(now - entry.cachedAt));
+                return entry.value;
+            }
+
+            cache.asMap().remove(hashedKey, entry);
+            expirations.mark();
+        }
+
+        misses.mark();
+
+        final long observedInvalidations = invalidationCount.get();
+        final Serializable value = delegate.get(hashedKey, id, RemoteBehavior.ALLOW_FORWARDING);
+
+        if (value != null && delegate.isRemotelyOwned(id)) {
+            cache(hashedKey, value, ttlNanos, observedInvalidations);
+        }
+
+        return value;
+    }
+
+    @Override
+    public Serializable get(String hashedKey, byte[] id, RemoteBehavior remoteBehavior) {
+        return delegate.get(hashedKey, id, remoteBehavior);
+    }
+
+    @Override
+    public void put(String key, Serializable value) throws DatastoreOperationException {
+        delegate.put(key, value);
+
+        if (isNearCached(key)) {
+            invalidate(encodingProvider.encode(delegate.getHash(key)));
+        }
+    }
+
+    @Override
+    public void put(String key, Serializable value, int ttl, TimeUnit timeUnit) throws DatastoreOperationException {
+        if (!isNearCached(key)) {
+            delegate.put(key, value, ttl, timeUnit);
+            return;
+        }
+
+        final byte[] id = delegate.getHash(key);
+        final String hashedKey = encodingProvider.encode(id);
+
+        invalidate(hashedKey);
+        final long observedInvalidations = invalidationCount.get();
+        delegate.put(hashedKey, id, value, ttl, timeUnit, RemoteBehavior.ALLOW_FORWARDING);
+
+        if (delegate.isRemotelyOwned(id)) {
+            cache(hashedKey, value, timeUnit.toNanos(ttl), observedInvalidations);
+        }
+    }
+
+    @Override
+    public void put(String hashedKey, byte[] id, Serializable value, int ttl, TimeUnit timeUnit,
+                    RemoteBehavior remoteBehavior) throws DatastoreOperationException {
+        invalidate(hashedKey);
+        delegate.put(hashedKey, id, value, ttl, timeUnit, remoteBehavior);
+    }
+
+    @Override
+    public boolean remove(String key) throws DatastoreOperationException {
+        if (!isNearCached(key)) {
+            return delegate.remove(key);
+        }
+
+        final byte[] id = delegate.getHash(key);
+        final String hashedKey = encodingProvider.encode(id);
+
+        invalidate(hashedKey);
+        final boolean removed = delegate.remove(hashedKey, id, RemoteBehavior.ALLOW_FORWARDING);
+        broadcastInvalidation(hashedKey);
+
+        return removed;
+    }
+
+    @Override
+    public boolean remove(String hashedKey, byte[] id, RemoteBehavior remoteBehavior) {
+        invalidate(hashedKey);
+        return delegate.remove(hashedKey, id, remoteBehavior);
+    }
+
+    @Override
+    public Serializable patch(String key, Patch patch) throws DatastoreOperationException {
+        if (isNearCached(key)) {
+            invalidate(encodingProvider.encode(delegate.getHash(key)));
+        }
+
+        return delegate.patch(key, patch);
+    }
+
+    @Override
+    public Serializable patch(String key, Patch patch, int ttl, TimeUnit timeUnit) throws DatastoreOperationException {
+        if (isNearCached(key)) {
+            invalidate(encodingProvider.encode(delegate.getHash(key)));
+        }
+
+        return delegate.patch(key, patch, ttl, timeUnit);
+    }
+
+    @Override
+    public Serializable patch(String hashedKey, byte[] id, SerializablePatch patch, int ttl, TimeUnit timeUnit,
+                              RemoteBehavior remoteBehavior) throws DatastoreOperationException {
+        invalidate(hashedKey);
+        return delegate.patch(hashedKey, id, patch, ttl, timeUnit, remoteBehavior);
+    }
+
+    @Override
+    public void removeAll() {
+        invalidationCount.incrementAndGet();
+        cache.invalidateAll();
+        delegate.removeAll();
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    private static final class Entry {
+        private final Serializable value;
+        private final long cachedAt;
+        private final long expiresAt;
+        private final int weight;
+
+        private Entry(Serializable value, long cachedAt, long expiresAt, int weight) {
+            this.value = value;
+            this.cachedAt = cachedAt;
+            this.expiresAt = expiresAt;
+            this.weight = weight;
+        }
+    }
+}
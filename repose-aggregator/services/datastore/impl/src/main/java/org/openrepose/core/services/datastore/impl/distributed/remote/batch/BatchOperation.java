@@ -0,0 +1,106 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.core.services.datastore.impl.distributed.remote.batch;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One entry in a batch of datastore operations bound for the same remote node.
+ * <p/>
+ * Concurrent patches of the same key are coalesced into a single entry carrying every patch, which the remote node
+ * applies one after the other, returning one result per patch.
+ * <p/>
+ * Values and patches are carried already serialized, since the batching side has serialized them once to size the
+ * batch anyway. The remote node deserializes each with the class loader it deserializes any other value with.
+ */
+public class BatchOperation implements Serializable {
+
+    public enum Type {
+        GET, PUT, PATCH, DELETE
+    }
+
+    private final Type type;
+    private final String key;
+    private final byte[] value;
+    private final ArrayList<byte[]> patches = new ArrayList<>();
+    private int ttlSeconds;
+
+    @SuppressWarnings("PMD.ArrayIsStoredDirectly")
+    private BatchOperation(Type type, String key, byte[] value, int ttlSeconds) {
+        this.type = type;
+        this.key = key;
+        this.value = value;
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    public static BatchOperation get(String key) {
+        return new BatchOperation(Type.GET, key, null, 0);
+    }
+
+    public static BatchOperation put(String key, byte[] value, int ttlSeconds) {
+        return new BatchOperation(Type.PUT, key, value, ttlSeconds);
+    }
+
+    public static BatchOperation patch(String key, byte[] patch, int ttlSeconds) {
+        final BatchOperation operation = new BatchOperation(Type.PATCH, key, null, ttlSeconds);
+        operation.patches.add(patch);
+
+        return operation;
+    }
+
+    public static BatchOperation delete(String key) {
+        return new BatchOperation(Type.DELETE, key, null, 0);
+    }
+
+    /**
+     * Adds another patch of the same key to this operation. The longest TTL asked for wins.
+     *
+     * @return the index of the added patch's result
+     */
+    int coalesce(byte[] patch, int patchTtlSeconds) {
+        patches.add(patch);
+        ttlSeconds = Math.max(ttlSeconds, patchTtlSeconds);
+
+        return patches.size() - 1;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    @SuppressWarnings("PMD.MethodReturnsInternalArray")
+    public byte[] getValue() {
+        return value;
+    }
+
+    public List<byte[]> getPatches() {
+        return patches;
+    }
+
+    public int getTtlSeconds() {
+        return ttlSeconds;
+    }
+}
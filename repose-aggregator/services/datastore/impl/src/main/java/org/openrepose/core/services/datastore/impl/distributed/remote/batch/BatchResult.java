@@ -0,0 +1,58 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.core.services.datastore.impl.distributed.remote.batch;
+
+import java.io.Serializable;
+
+/**
+ * The outcome of one {@link BatchOperation}. A successful result carries one value per patch for patch operations,
+ * and a single value for every other operation (the stored value for a get, whether anything was removed for a
+ * delete, and null for a put).
+ */
+public class BatchResult implements Serializable {
+
+    private final Serializable[] values;
+    private final String failure;
+
+    private BatchResult(Serializable[] values, String failure) {
+        this.values = values;
+        this.failure = failure;
+    }
+
+    public static BatchResult of(Serializable... values) {
+        return new BatchResult(values, null);
+    }
+
+    public static BatchResult failed(String failure) {
+        return new BatchResult(new Serializable[0], failure == null ? "" : failure);
+    }
+
+    public boolean isFailed() {
+        return failure != null;
+    }
+
+    public String getFailure() {
+        return failure;
+    }
+
+    public Serializable getValue(int index) {
+        return values[index];
+    }
+}
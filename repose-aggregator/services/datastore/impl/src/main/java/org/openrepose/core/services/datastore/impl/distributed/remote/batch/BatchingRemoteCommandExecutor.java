@@ -0,0 +1,525 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.core.services.datastore.impl.distributed.remote.batch;
+
+import com.google.common.util.concurrent.SettableFuture;
+import com.yammer.metrics.Metrics;
+import com.yammer.metrics.core.Histogram;
+import com.yammer.metrics.core.Meter;
+import org.openrepose.commons.utils.io.ObjectSerializer;
+import org.openrepose.core.services.datastore.DatastoreOperationException;
+import org.openrepose.core.services.datastore.distributed.ClusterConfiguration;
+import org.openrepose.core.services.datastore.distributed.RemoteBehavior;
+import org.openrepose.core.services.datastore.impl.distributed.CacheRequest;
+import org.openrepose.core.services.datastore.impl.distributed.remote.RemoteCommand;
+import org.openrepose.core.services.datastore.impl.distributed.remote.RemoteCommandExecutor;
+import org.openrepose.core.services.datastore.impl.distributed.remote.RemoteConnectionException;
+import org.openrepose.core.services.datastore.impl.distributed.remote.command.AbstractRemoteCommand;
+import org.openrepose.core.services.datastore.impl.distributed.remote.command.Batch;
+import org.openrepose.core.services.datastore.impl.distributed.remote.command.Delete;
+import org.openrepose.core.services.datastore.impl.distributed.remote.command.Get;
+import org.openrepose.core.services.datastore.impl.distributed.remote.command.Patch;
+import org.openrepose.core.services.datastore.impl.distributed.remote.command.Put;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.InetSocketAddress;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Collects remote datastore commands bound for the same node into batches, so that a burst of operations costs one
+ * round trip per batch instead of one per operation.
+ * <p/>
+ * A batch is sent once it holds the maximum number of operations or bytes, or once the maximum delay has passed since
+ * its first operation arrived, whichever comes first. Operations large enough that batching would save nothing are
+ * sent on their own. Values and patches are serialized once, as they arrive, and those bytes are both what sizes an
+ * operation and what its batch carries. While a batch is filling, a patch or get of a key that is already the
+ * last operation on that key in the batch is coalesced into that entry rather than added as a new one; this is what
+ * keeps a hot rate limited user from turning into thousands of separate patch entries. Every caller still gets the
+ * result of its own operation.
+ * <p/>
+ * Batches are sent through the wrapped executor, and a failed batch fails every operation in it with the same
+ * exception, so callers see the same errors they would have without batching. Up to {@link #MAX_IN_FLIGHT_PER_NODE}
+ * batches and unbatched operations are in flight to each node at once. They are started in the order they were
+ * closed, and never while an earlier one touching any of the same keys is still in flight, so that a timed flush can
+ * never overtake a full batch holding later operations on the same key.
+ */
+public class BatchingRemoteCommandExecutor extends RemoteCommandExecutor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BatchingRemoteCommandExecutor.class);
+    private static final String METRIC_SCOPE = "distributed-datastore";
+
+    /**
+     * Sizes are estimated from the serialized values and patches alone, so leave the rest of the request limit for
+     * everything else an entry carries.
+     */
+    public static final int DEFAULT_MAX_BYTES = CacheRequest.MAX_BATCH_SIZE_IN_BYTES / 2;
+    private static final int OPERATION_OVERHEAD_BYTES = 128;
+    private static final int LARGE_OPERATION_FRACTION = 16;
+    public static final int MAX_IN_FLIGHT_PER_NODE = 4;
+
+    private final RemoteCommandExecutor delegate;
+    private final long maxDelayMillis;
+    private final int maxSize;
+    private final int maxBytes;
+    private final long responseTimeoutMillis;
+    private final ObjectSerializer objectSerializer =
+            new ObjectSerializer(BatchingRemoteCommandExecutor.class.getClassLoader());
+    private final Map<BatchKey, PendingBatch> fillingBatches = new HashMap<>();
+    private final Map<BatchKey, SendQueue> sendQueues = new HashMap<>();
+    private final ScheduledExecutorService flushScheduler = Executors.newSingleThreadScheduledExecutor();
+    private final ExecutorService senders = Executors.newCachedThreadPool();
+    private final Histogram batchFillRatio;
+    private final Histogram batchEntries;
+    private final Meter coalescedOperations;
+
+    public BatchingRemoteCommandExecutor(RemoteCommandExecutor delegate, long maxDelayMillis, int maxSize) {
+        this(delegate, maxDelayMillis, maxSize, DEFAULT_MAX_BYTES);
+    }
+
+    public BatchingRemoteCommandExecutor(RemoteCommandExecutor delegate, long maxDelayMillis, int maxSize,
+                                         int maxBytes) {
+        this(delegate, maxDelayMillis, maxSize, maxBytes, ClusterConfiguration.DEFAULT_REMOTE_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * @param remoteTimeoutMillis how long the wrapped executor may take to answer; an operation waits at most this
+     *                            long after its batch's delay has passed
+     */
+    public BatchingRemoteCommandExecutor(RemoteCommandExecutor delegate, long maxDelayMillis, int maxSize,
+                                         int maxBytes, long remoteTimeoutMillis) {
+        super(null, null, null);
+        this.delegate = delegate;
+        this.maxDelayMillis = maxDelayMillis;
+        this.maxSize = maxSize;
+        this.maxBytes = maxBytes;
+        this.responseTimeoutMillis = maxDelayMillis + remoteTimeoutMillis;
+
+        batchFillRatio = Metrics.newHistogram(BatchingRemoteCommandExecutor.class, "batch-fill-ratio", METRIC_SCOPE, true);
+        batchEntries = Metrics.newHistogram(BatchingRemoteCommandExecutor.class, "batch-entries", METRIC_SCOPE, true);
+        coalescedOperations = Metrics.newMeter(BatchingRemoteCommandExecutor.class, "coalesced-operations", METRIC_SCOPE,
+                "operations", TimeUnit.SECONDS);
+    }
+
+    @Override
+    public Object execute(RemoteCommand command, RemoteBehavior behavior) {
+        if (!(command instanceof Get || command instanceof Put || command instanceof Patch || command instanceof Delete)) {
+            return delegate.execute(command, behavior);
+        }
+
+        final AbstractRemoteCommand remoteCommand = (AbstractRemoteCommand) command;
+        final BatchKey batchKey = new BatchKey(remoteCommand.getRemoteEndpoint(), behavior);
+        final byte[] serialized = serialize(remoteCommand);
+        final int size = OPERATION_OVERHEAD_BYTES + remoteCommand.getCacheObjectKey().length() +
+                (serialized != null ? serialized.length : 0);
+        final boolean large = size >= maxBytes / LARGE_OPERATION_FRACTION;
+        final SendQueue sendQueue;
+        final PendingResult pendingResult;
+        final LoneOperation loneOperation;
+        boolean closed = false;
+
+        synchronized (fillingBatches) {
+            sendQueue = sendQueueFor(batchKey);
+            PendingBatch filling = fillingBatches.get(batchKey);
+
+            if (filling != null && (large || filling.byteCount + size > maxBytes)) {
+                close(filling);
+                filling = null;
+                closed = true;
+            }
+
+            if (large) {
+                pendingResult = null;
+                loneOperation = new LoneOperation(remoteCommand, behavior);
+                sendQueue.add(loneOperation);
+            } else {
+                loneOperation = null;
+                if (filling == null) {
+                    filling = new PendingBatch(batchKey);
+                    fillingBatches.put(batchKey, filling);
+                    flushScheduler.schedule(new ScheduledFlush(filling), maxDelayMillis, TimeUnit.MILLISECONDS);
+                }
+
+                pendingResult = filling.add(remoteCommand, serialized, size);
+                if (filling.operationCount >= maxSize) {
+                    close(filling);
+                    closed = true;
+                }
+            }
+        }
+
+        if (loneOperation != null) {
+            sendQueue.drain();
+            return await(loneOperation.result, "an unbatched datastore operation");
+        }
+
+        if (closed) {
+            sendQueue.drain();
+        }
+
+        return pendingResult.await();
+    }
+
+    /**
+     * Sends any batches that are still filling and stops the batching threads.
+     */
+    public void destroy() {
+        final List<SendQueue> queues;
+        synchronized (fillingBatches) {
+            for (PendingBatch batch : new ArrayList<>(fillingBatches.values())) {
+                close(batch);
+            }
+            queues = new ArrayList<>(sendQueues.values());
+        }
+
+        for (SendQueue queue : queues) {
+            queue.drain();
+        }
+
+        flushScheduler.shutdownNow();
+        senders.shutdown();
+    }
+
+    /**
+     * Stops a batch from filling any further and queues it to be sent. Must hold the filling batches lock, which is
+     * what keeps the batches for a node queued in the order they were closed.
+     */
+    private void close(PendingBatch batch) {
+        fillingBatches.remove(batch.key);
+        sendQueueFor(batch.key).add(batch);
+    }
+
+    private SendQueue sendQueueFor(BatchKey batchKey) {
+        SendQueue sendQueue = sendQueues.get(batchKey);
+        if (sendQueue == null) {
+            sendQueue = new SendQueue();
+            sendQueues.put(batchKey, sendQueue);
+        }
+
+        return sendQueue;
+    }
+
+    /**
+     * @return the serialized value or patch the operation carries, or null if it carries neither
+     */
+    private byte[] serialize(AbstractRemoteCommand command) {
+        Serializable payload = null;
+        if (command instanceof Put) {
+            payload = ((Put) command).getValue();
+        } else if (command instanceof Patch) {
+            payload = ((Patch) command).getPatch();
+        }
+
+        if (payload == null) {
+            return null;
+        }
+
+        try {
+            return objectSerializer.writeObject(payload);
+        } catch (IOException ioe) {
+            throw new DatastoreOperationException("Failed to serialize datastore value", ioe);
+        }
+    }
+
+    private <T> T await(Future<T> result, String description) {
+        try {
+            return result.get(responseTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new RemoteConnectionException("Interrupted while waiting for " + description, ie);
+        } catch (TimeoutException te) {
+            throw new RemoteConnectionException("Timed out waiting for " + description, te);
+        } catch (ExecutionException ee) {
+            if (ee.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ee.getCause();
+            }
+            throw new DatastoreOperationException("Failed waiting for " + description, ee.getCause());
+        }
+    }
+
+    private static BatchOperation toOperation(AbstractRemoteCommand command, byte[] serialized) {
+        if (command instanceof Get) {
+            return BatchOperation.get(command.getCacheObjectKey());
+        } else if (command instanceof Put) {
+            final Put put = (Put) command;
+            return BatchOperation.put(put.getCacheObjectKey(), serialized, toSeconds(put.getTtl(), put.getTimeUnit()));
+        } else if (command instanceof Patch) {
+            final Patch patch = (Patch) command;
+            return BatchOperation.patch(patch.getCacheObjectKey(), serialized, toSeconds(patch.getTtl(), patch.getTimeUnit()));
+        }
+
+        return BatchOperation.delete(command.getCacheObjectKey());
+    }
+
+    private static int toSeconds(int ttl, TimeUnit timeUnit) {
+        return (int) TimeUnit.SECONDS.convert(ttl, timeUnit);
+    }
+
+    private static final class BatchKey {
+        private final InetSocketAddress endpoint;
+        private final RemoteBehavior behavior;
+
+        BatchKey(InetSocketAddress endpoint, RemoteBehavior behavior) {
+            this.endpoint = endpoint;
+            this.behavior = behavior;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof BatchKey)) {
+                return false;
+            }
+
+            final BatchKey otherKey = (BatchKey) other;
+            return endpoint.equals(otherKey.endpoint) && behavior == otherKey.behavior;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * endpoint.hashCode() + (behavior == null ? 0 : behavior.hashCode());
+        }
+    }
+
+    /**
+     * A batch or unbatched operation that has been closed and is waiting to be sent to its node.
+     */
+    private abstract static class ClosedSend {
+        /**
+         * @return the keys this touches, which no longer change once it has been closed
+         */
+        abstract Set<String> keys();
+
+        /**
+         * Sends this through the wrapped executor and completes it with the outcome. Never throws.
+         */
+        abstract void send();
+    }
+
+    /**
+     * A batch that is filling or in flight. Only modified while holding the filling batches lock, and never modified
+     * once it has been removed from the filling batches.
+     */
+    private final class PendingBatch extends ClosedSend {
+        private final BatchKey key;
+        private final List<BatchOperation> operations = new ArrayList<>();
+        private final Map<String, Integer> lastEntryByKey = new HashMap<>();
+        private final SettableFuture<List<BatchResult>> results = SettableFuture.create();
+        private int operationCount;
+        private int byteCount;
+
+        PendingBatch(BatchKey key) {
+            this.key = key;
+        }
+
+        @Override
+        Set<String> keys() {
+            return lastEntryByKey.keySet();
+        }
+
+        @Override
+        void send() {
+            batchFillRatio.update(operationCount * 100 / maxSize);
+            batchEntries.update(operations.size());
+            if (operationCount > operations.size()) {
+                coalescedOperations.mark(operationCount - operations.size());
+            }
+
+            try {
+                @SuppressWarnings("unchecked")
+                final List<BatchResult> batchResults = (List<BatchResult>) delegate.execute(
+                        new Batch(operations, key.endpoint), key.behavior);
+                results.set(batchResults);
+            } catch (RuntimeException re) {
+                LOG.trace("Batch of {} datastore operations to {} failed", operationCount, key.endpoint, re);
+                results.setException(re);
+            }
+        }
+
+        PendingResult add(AbstractRemoteCommand command, byte[] serialized, int size) {
+            operationCount++;
+            byteCount += size;
+
+            final Integer lastEntry = lastEntryByKey.get(command.getCacheObjectKey());
+            if (lastEntry != null) {
+                final BatchOperation last = operations.get(lastEntry);
+
+                if (command instanceof Patch && last.getType() == BatchOperation.Type.PATCH) {
+                    final Patch patch = (Patch) command;
+                    final int patchIndex = last.coalesce(serialized, toSeconds(patch.getTtl(), patch.getTimeUnit()));
+                    return new PendingResult(this, lastEntry, patchIndex);
+                } else if (command instanceof Get && last.getType() == BatchOperation.Type.GET) {
+                    return new PendingResult(this, lastEntry, 0);
+                }
+            }
+
+            operations.add(toOperation(command, serialized));
+            lastEntryByKey.put(command.getCacheObjectKey(), operations.size() - 1);
+
+            return new PendingResult(this, operations.size() - 1, 0);
+        }
+    }
+
+    /**
+     * An operation too large to be worth batching, sent on its own in its turn.
+     */
+    private final class LoneOperation extends ClosedSend {
+        private final RemoteCommand command;
+        private final RemoteBehavior behavior;
+        private final Set<String> keys;
+        private final SettableFuture<Object> result = SettableFuture.create();
+
+        LoneOperation(AbstractRemoteCommand command, RemoteBehavior behavior) {
+            this.command = command;
+            this.behavior = behavior;
+            this.keys = Collections.singleton(command.getCacheObjectKey());
+        }
+
+        @Override
+        Set<String> keys() {
+            return keys;
+        }
+
+        @Override
+        void send() {
+            try {
+                result.set(delegate.execute(command, behavior));
+            } catch (RuntimeException re) {
+                result.setException(re);
+            }
+        }
+    }
+
+    private final class PendingResult {
+        private final PendingBatch batch;
+        private final int entry;
+        private final int valueIndex;
+
+        PendingResult(PendingBatch batch, int entry, int valueIndex) {
+            this.batch = batch;
+            this.entry = entry;
+            this.valueIndex = valueIndex;
+        }
+
+        Object await() {
+            final BatchResult result = BatchingRemoteCommandExecutor.this.await(batch.results,
+                    "a batched datastore operation").get(entry);
+
+            if (result.isFailed()) {
+                throw new DatastoreOperationException("Remote request failed with: " + result.getFailure());
+            }
+
+            return result.getValue(valueIndex);
+        }
+    }
+
+    /**
+     * The batches and unbatched operations closed for one node and behavior, waiting to be sent. Whichever thread
+     * finishes sending one goes on to start whatever it was holding back, so nothing is left waiting.
+     */
+    private static final class SendQueue {
+        private final Queue<ClosedSend> closed = new ArrayDeque<>();
+        private final Set<String> keysInFlight = new HashSet<>();
+        private int inFlight;
+
+        /**
+         * Must hold the filling batches lock, which is what keeps them queued in the order they were closed.
+         */
+        synchronized void add(ClosedSend closedSend) {
+            closed.add(closedSend);
+        }
+
+        /**
+         * Sends, on the calling thread, everything that can be started now and everything that is held back until
+         * those have been sent.
+         */
+        void drain() {
+            ClosedSend next;
+            while ((next = start()) != null) {
+                try {
+                    next.send();
+                } finally {
+                    finish(next);
+                }
+            }
+        }
+
+        private synchronized ClosedSend start() {
+            final ClosedSend next = closed.peek();
+            if (next == null || inFlight >= MAX_IN_FLIGHT_PER_NODE || !Collections.disjoint(keysInFlight, next.keys())) {
+                return null;
+            }
+
+            closed.remove();
+            inFlight++;
+            keysInFlight.addAll(next.keys());
+            return next;
+        }
+
+        private synchronized void finish(ClosedSend sent) {
+            inFlight--;
+            keysInFlight.removeAll(sent.keys());
+        }
+    }
+
+    private final class ScheduledFlush implements Runnable {
+        private final PendingBatch batch;
+
+        ScheduledFlush(PendingBatch batch) {
+            this.batch = batch;
+        }
+
+        @Override
+        public void run() {
+            final SendQueue sendQueue;
+            synchronized (fillingBatches) {
+                if (fillingBatches.get(batch.key) != batch) {
+                    // Already closed because it filled up
+                    return;
+                }
+                close(batch);
+                sendQueue = sendQueues.get(batch.key);
+            }
+
+            senders.execute(new Runnable() {
+                @Override
+                public void run() {
+                    sendQueue.drain();
+                }
+            });
+        }
+    }
+}
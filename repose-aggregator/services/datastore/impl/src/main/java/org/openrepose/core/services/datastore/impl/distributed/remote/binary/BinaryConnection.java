@@ -0,0 +1,195 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.core.services.datastore.impl.distributed.remote.binary;
+
+import com.google.common.util.concurrent.SettableFuture;
+import org.openrepose.core.services.datastore.codec.ValueCodecRegistry;
+import org.openrepose.core.services.datastore.codec.ValueEncodingException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.InetSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A persistent connection to one remote datastore node.
+ * <p/>
+ * Any number of threads may send requests concurrently. Requests are written as soon as they are sent, without waiting
+ * for earlier responses, and a single reader thread matches responses back to their callers by request id.
+ */
+public class BinaryConnection {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BinaryConnection.class);
+
+    private final InetSocketAddress endpoint;
+    private final SocketChannel channel;
+    private final ValueCodecRegistry codecs;
+    private final Object writeLock = new Object();
+    private final AtomicInteger nextRequestId = new AtomicInteger();
+    private final Map<Integer, SettableFuture<BinaryResponse>> pendingResponses = new ConcurrentHashMap<>();
+    private volatile boolean open = true;
+
+    private BinaryConnection(InetSocketAddress endpoint, SocketChannel channel, ValueCodecRegistry codecs) {
+        this.endpoint = endpoint;
+        this.channel = channel;
+        this.codecs = codecs;
+    }
+
+    public static BinaryConnection open(InetSocketAddress endpoint, int connectTimeoutMillis, ValueCodecRegistry codecs) throws IOException {
+        final SocketChannel channel = SocketChannel.open();
+
+        try {
+            channel.socket().setTcpNoDelay(true);
+            channel.socket().setKeepAlive(true);
+            channel.socket().connect(endpoint, connectTimeoutMillis);
+        } catch (IOException ioe) {
+            channel.close();
+            throw ioe;
+        }
+
+        final BinaryConnection connection = new BinaryConnection(endpoint, channel, codecs);
+        final Thread reader = new Thread(connection.new ResponseReader(), "datastore-binary-reader-" + endpoint);
+        reader.setDaemon(true);
+        reader.start();
+
+        return connection;
+    }
+
+    /**
+     * Sends a request and waits for its response.
+     *
+     * @throws ValueEncodingException if the request could not be encoded, in which case nothing was written, or its
+     *                                response could not be decoded. Either way, the connection is still usable.
+     * @throws IOException            if the request could not be written, the connection failed before the response
+     *                                arrived, or the response did not arrive in time. The connection should be
+     *                                discarded in any of these cases.
+     */
+    public BinaryResponse send(byte opcode, String key, int ttlSeconds, Serializable value, long timeoutMillis) throws IOException {
+        final int requestId = nextRequestId.incrementAndGet();
+        final byte[] payload = encode(new BinaryRequest(requestId, opcode, key, ttlSeconds, value));
+        final SettableFuture<BinaryResponse> response = SettableFuture.create();
+
+        pendingResponses.put(requestId, response);
+        try {
+            if (!open) {
+                throw new IOException("Connection to " + endpoint + " is closed");
+            }
+
+            synchronized (writeLock) {
+                BinaryProtocol.writeFrame(channel, payload);
+            }
+
+            return response.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a response from " + endpoint, ie);
+        } catch (TimeoutException te) {
+            throw new IOException("Timed out waiting for a response from " + endpoint, te);
+        } catch (ExecutionException ee) {
+            if (ee.getCause() instanceof ValueEncodingException) {
+                throw (ValueEncodingException) ee.getCause();
+            }
+            throw new IOException("Connection to " + endpoint + " failed", ee.getCause());
+        } finally {
+            pendingResponses.remove(requestId);
+        }
+    }
+
+    private byte[] encode(BinaryRequest request) {
+        final byte[] payload;
+        try {
+            payload = request.toPayload(codecs);
+        } catch (IOException | RuntimeException e) {
+            throw new ValueEncodingException("Unable to encode the datastore value for " + request.getKey() +
+                    ". Reason: " + e.getMessage(), e);
+        }
+
+        if (payload.length > BinaryProtocol.MAX_FRAME_LENGTH) {
+            throw new ValueEncodingException("The datastore value for " + request.getKey() + " is too large to send: " +
+                    payload.length + " bytes");
+        }
+
+        return payload;
+    }
+
+    public boolean isOpen() {
+        return open;
+    }
+
+    public void close() {
+        close(new IOException("Connection to " + endpoint + " was closed"));
+    }
+
+    private void close(IOException reason) {
+        open = false;
+
+        try {
+            channel.close();
+        } catch (IOException ioe) {
+            LOG.trace("Unable to cleanly close the connection to {}", endpoint, ioe);
+        }
+
+        for (SettableFuture<BinaryResponse> pending : pendingResponses.values()) {
+            pending.setException(reason);
+        }
+    }
+
+    private class ResponseReader implements Runnable {
+
+        @Override
+        public void run() {
+            try {
+                byte[] payload;
+                while ((payload = BinaryProtocol.readFrame(channel)) != null) {
+                    final int requestId = BinaryProtocol.requestIdOf(payload);
+                    final SettableFuture<BinaryResponse> pending = pendingResponses.get(requestId);
+
+                    if (pending == null) {
+                        LOG.debug("Discarding a response for request {} from {} which is no longer waiting",
+                                requestId, endpoint);
+                    } else {
+                        // Frames are delimited by their length, so one that can not be decoded only fails its request
+                        try {
+                            pending.set(BinaryResponse.fromPayload(payload, codecs));
+                        } catch (IOException | RuntimeException e) {
+                            pending.setException(new ValueEncodingException("Unable to decode the response to " +
+                                    "request " + requestId + " from " + endpoint + ". Reason: " + e.getMessage(), e));
+                        }
+                    }
+                }
+
+                close(new IOException("Connection to " + endpoint + " was closed by the remote node"));
+            } catch (IOException ioe) {
+                if (open) {
+                    LOG.debug("Connection to {} failed", endpoint, ioe);
+                }
+                close(ioe);
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.core.services.datastore.impl.distributed.remote.binary;
+
+import org.openrepose.core.services.datastore.impl.distributed.CacheRequest;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * The framing and constants shared by both ends of the binary distributed datastore transport.
+ * <p/>
+ * Every message is a frame made of a four byte length followed by that many bytes of payload. Requests carry a
+ * request id, an opcode, the cache key and, for puts and patches, a TTL in seconds and a value. Responses carry the
+ * request id they answer, a status and, depending on the operation, a value. Request ids let a client have many
+ * requests in flight on one connection; the server answers them in the order they were received.
+ */
+public final class BinaryProtocol {
+
+    public static final byte OP_GET = 1;
+    public static final byte OP_PUT = 2;
+    public static final byte OP_PATCH = 3;
+    public static final byte OP_DELETE = 4;
+
+    public static final byte STATUS_OK = 0;
+    public static final byte STATUS_NOT_FOUND = 1;
+    public static final byte STATUS_ERROR = 2;
+    public static final byte STATUS_UNAUTHORIZED = 3;
+
+    // Values are limited to the same size the HTTP transport accepts, with some room for the key and headers
+    public static final int MAX_FRAME_LENGTH = CacheRequest.TWO_MEGABYTES_IN_BYTES + 4096;
+
+    private static final int LENGTH_PREFIX_BYTES = 4;
+    private static final int REQUEST_ID_BYTES = 4;
+
+    private BinaryProtocol() {
+    }
+
+    /**
+     * Reads one frame from the channel, blocking until it has fully arrived.
+     *
+     * @return the frame payload, or null if the channel was closed cleanly between frames
+     */
+    public static byte[] readFrame(ReadableByteChannel channel) throws IOException {
+        final ByteBuffer lengthBuffer = ByteBuffer.allocate(LENGTH_PREFIX_BYTES);
+        if (!fill(channel, lengthBuffer, true)) {
+            return null;
+        }
+
+        final int length = lengthBuffer.getInt(0);
+        if (length < 0 || length > MAX_FRAME_LENGTH) {
+            throw new IOException("Invalid datastore frame length: " + length);
+        }
+
+        final ByteBuffer payload = ByteBuffer.allocate(length);
+        fill(channel, payload, false);
+
+        return payload.array();
+    }
+
+    /**
+     * Reads the request id that every request and response payload starts with, so that a payload which can not be
+     * decoded otherwise can still be answered, or matched to its caller.
+     *
+     * @throws IOException if the payload is too short to carry a request id
+     */
+    public static int requestIdOf(byte[] payload) throws IOException {
+        if (payload.length < REQUEST_ID_BYTES) {
+            throw new IOException("Datastore frame of " + payload.length + " bytes is too short to carry a request id");
+        }
+
+        return ByteBuffer.wrap(payload).getInt();
+    }
+
+    /**
+     * Writes one frame to the channel. Callers sharing a channel between threads must serialize their writes.
+     */
+    public static void writeFrame(WritableByteChannel channel, byte[] payload) throws IOException {
+        final ByteBuffer frame = ByteBuffer.allocate(LENGTH_PREFIX_BYTES + payload.length);
+        frame.putInt(payload.length).put(payload);
+        frame.flip();
+
+        while (frame.hasRemaining()) {
+            channel.write(frame);
+        }
+    }
+
+    private static boolean fill(ReadableByteChannel channel, ByteBuffer buffer, boolean eofAllowedAtStart) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                if (eofAllowedAtStart && buffer.position() == 0) {
+                    return false;
+                }
+                throw new EOFException("Datastore connection closed in the middle of a frame");
+            }
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.core.services.datastore.impl.distributed.remote.binary;
+
+import org.openrepose.core.services.RequestProxyService;
+import org.openrepose.core.services.datastore.DatastoreOperationException;
+import org.openrepose.core.services.datastore.codec.ValueCodecRegistry;
+import org.openrepose.core.services.datastore.distributed.RemoteBehavior;
+import org.openrepose.core.services.datastore.impl.distributed.remote.RemoteCommand;
+import org.openrepose.core.services.datastore.impl.distributed.remote.RemoteCommandExecutor;
+import org.openrepose.core.services.datastore.impl.distributed.remote.RemoteConnectionException;
+import org.openrepose.core.services.datastore.impl.distributed.remote.command.AbstractRemoteCommand;
+import org.openrepose.core.services.datastore.impl.distributed.remote.command.Delete;
+import org.openrepose.core.services.datastore.impl.distributed.remote.command.Get;
+import org.openrepose.core.services.datastore.impl.distributed.remote.command.Patch;
+import org.openrepose.core.services.datastore.impl.distributed.remote.command.Put;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executes remote datastore commands over persistent binary connections, one per remote node, instead of one HTTP
+ * request per operation.
+ * <p/>
+ * The binary listener of a node is expected at that node's datastore port plus a configured offset. If a node can not
+ * be connected to (for instance, because it does not have the binary transport enabled), commands for it fall back to
+ * HTTP and the binary connection is not retried for a short while. Once a command has been written to a binary
+ * connection it is never retried over HTTP, since a patch may already have been applied.
+ */
+public class BinaryRemoteCommandExecutor extends RemoteCommandExecutor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BinaryRemoteCommandExecutor.class);
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 5000;
+    private static final long RECONNECT_DELAY_MILLIS = 10000;
+
+    private final int binaryPortOffset;
+    private final ValueCodecRegistry codecs;
+    private final long responseTimeoutMillis;
+    private final ConcurrentMap<InetSocketAddress, BinaryConnection> connections = new ConcurrentHashMap<>();
+    private final ConcurrentMap<InetSocketAddress, Long> unreachableUntil = new ConcurrentHashMap<>();
+
+    public BinaryRemoteCommandExecutor(RequestProxyService proxyService, String hostKey, String tracingHeader,
+                                       int binaryPortOffset, ValueCodecRegistry codecs, long responseTimeoutMillis) {
+        super(proxyService, hostKey, tracingHeader);
+        this.binaryPortOffset = binaryPortOffset;
+        this.codecs = codecs;
+        this.responseTimeoutMillis = responseTimeoutMillis;
+    }
+
+    @Override
+    public Object execute(final RemoteCommand command, RemoteBehavior behavior) {
+        final byte opcode = opcodeFor(command);
+        if (opcode == 0) {
+            return super.execute(command, behavior);
+        }
+
+        final AbstractRemoteCommand remoteCommand = (AbstractRemoteCommand) command;
+        final BinaryConnection connection = connectionFor(remoteCommand.getRemoteEndpoint());
+        if (connection == null) {
+            return super.execute(command, behavior);
+        }
+
+        final BinaryResponse response;
+        try {
+            response = connection.send(opcode, remoteCommand.getCacheObjectKey(), ttlSecondsOf(command),
+                    valueOf(command), responseTimeoutMillis);
+        } catch (IOException ioe) {
+            discard(remoteCommand.getRemoteEndpoint(), connection);
+            throw new RemoteConnectionException("Error communicating with remote node", ioe);
+        }
+
+        switch (response.getStatus()) {
+            case BinaryProtocol.STATUS_OK:
+                return opcode == BinaryProtocol.OP_PUT || opcode == BinaryProtocol.OP_DELETE ? Boolean.TRUE : response.getValue();
+            case BinaryProtocol.STATUS_NOT_FOUND:
+                return opcode == BinaryProtocol.OP_DELETE ? Boolean.FALSE : null;
+            default:
+                throw new DatastoreOperationException("Remote request failed with: " + response.getMessage());
+        }
+    }
+
+    /**
+     * Closes every open binary connection.
+     */
+    public void destroy() {
+        for (InetSocketAddress endpoint : connections.keySet()) {
+            final BinaryConnection connection = connections.remove(endpoint);
+            if (connection != null) {
+                connection.close();
+            }
+        }
+    }
+
+    private BinaryConnection connectionFor(InetSocketAddress endpoint) {
+        BinaryConnection connection = connections.get(endpoint);
+        if (connection != null && connection.isOpen()) {
+            return connection;
+        }
+
+        final Long retryAt = unreachableUntil.get(endpoint);
+        if (retryAt != null && retryAt > System.currentTimeMillis()) {
+            return null;
+        }
+
+        synchronized (connections) {
+            connection = connections.get(endpoint);
+            if (connection != null && connection.isOpen()) {
+                return connection;
+            }
+
+            final InetSocketAddress binaryEndpoint = new InetSocketAddress(endpoint.getAddress(), endpoint.getPort() + binaryPortOffset);
+            try {
+                connection = BinaryConnection.open(binaryEndpoint, CONNECT_TIMEOUT_MILLIS, codecs);
+                connections.put(endpoint, connection);
+                unreachableUntil.remove(endpoint);
+                return connection;
+            } catch (IOException ioe) {
+                LOG.info("Unable to open a binary datastore connection to {}, falling back to HTTP. Reason: {}",
+                        binaryEndpoint, ioe.getMessage());
+                unreachableUntil.put(endpoint, System.currentTimeMillis() + RECONNECT_DELAY_MILLIS);
+                return null;
+            }
+        }
+    }
+
+    private void discard(InetSocketAddress endpoint, BinaryConnection connection) {
+        connections.remove(endpoint, connection);
+        connection.close();
+    }
+
+    private static byte opcodeFor(RemoteCommand command) {
+        if (command instanceof Get) {
+            return BinaryProtocol.OP_GET;
+        } else if (command instanceof Put) {
+            return BinaryProtocol.OP_PUT;
+        } else if (command instanceof Patch) {
+            return BinaryProtocol.OP_PATCH;
+        } else if (command instanceof Delete) {
+            return BinaryProtocol.OP_DELETE;
+        }
+
+        return 0;
+    }
+
+    private static int ttlSecondsOf(RemoteCommand command) {
+        if (command instanceof Put) {
+            final Put put = (Put) command;
+            return (int) TimeUnit.SECONDS.convert(put.getTtl(), put.getTimeUnit());
+        } else if (command instanceof Patch) {
+            final Patch patch = (Patch) command;
+            return (int) TimeUnit.SECONDS.convert(patch.getTtl(), patch.getTimeUnit());
+        }
+
+        return 0;
+    }
+
+    private static Serializable valueOf(RemoteCommand command) {
+        if (command instanceof Put) {
+            return ((Put) command).getValue();
+        } else if (command instanceof Patch) {
+            return ((Patch) command).getPatch();
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.core.services.datastore.impl.distributed.remote.binary;
+
+import org.openrepose.core.services.datastore.codec.ValueCodecRegistry;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+
+/**
+ * A single datastore operation as carried by the binary transport.
+ */
+public class BinaryRequest {
+
+    private final int requestId;
+    private final byte opcode;
+    private final String key;
+    private final int ttlSeconds;
+    private final Serializable value;
+
+    public BinaryRequest(int requestId, byte opcode, String key, int ttlSeconds, Serializable value) {
+        this.requestId = requestId;
+        this.opcode = opcode;
+        this.key = key;
+        this.ttlSeconds = ttlSeconds;
+        this.value = value;
+    }
+
+    public static BinaryRequest fromPayload(byte[] payload, ValueCodecRegistry codecs) throws IOException {
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        final int requestId = in.readInt();
+        final byte opcode = in.readByte();
+        final String key = in.readUTF();
+
+        int ttlSeconds = 0;
+        Serializable value = null;
+        if (carriesValue(opcode)) {
+            ttlSeconds = in.readInt();
+            value = codecs.read(in);
+        }
+
+        return new BinaryRequest(requestId, opcode, key, ttlSeconds, value);
+    }
+
+    public byte[] toPayload(ValueCodecRegistry codecs) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+
+        out.writeInt(requestId);
+        out.writeByte(opcode);
+        out.writeUTF(key);
+        if (carriesValue(opcode)) {
+            out.writeInt(ttlSeconds);
+            codecs.write(value, out);
+        }
+        out.flush();
+
+        return bytes.toByteArray();
+    }
+
+    private static boolean carriesValue(byte opcode) {
+        return opcode == BinaryProtocol.OP_PUT || opcode == BinaryProtocol.OP_PATCH;
+    }
+
+    public int getRequestId() {
+        return requestId;
+    }
+
+    public byte getOpcode() {
+        return opcode;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public int getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    public Serializable getValue() {
+        return value;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.core.services.datastore.impl.distributed.remote.binary;
+
+import org.openrepose.core.services.datastore.codec.ValueCodecRegistry;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+
+/**
+ * The answer to a {@link BinaryRequest}. Successful responses carry a value (null for puts and deletes), failed
+ * responses carry a message, and not found responses carry nothing.
+ */
+public class BinaryResponse {
+
+    private final int requestId;
+    private final byte status;
+    private final Serializable value;
+    private final String message;
+
+    private BinaryResponse(int requestId, byte status, Serializable value, String message) {
+        this.requestId = requestId;
+        this.status = status;
+        this.value = value;
+        this.message = message;
+    }
+
+    public static BinaryResponse ok(int requestId, Serializable value) {
+        return new BinaryResponse(requestId, BinaryProtocol.STATUS_OK, value, null);
+    }
+
+    public static BinaryResponse notFound(int requestId) {
+        return new BinaryResponse(requestId, BinaryProtocol.STATUS_NOT_FOUND, null, null);
+    }
+
+    public static BinaryResponse failed(int requestId, byte status, String message) {
+        return new BinaryResponse(requestId, status, null, message == null ? "" : message);
+    }
+
+    public static BinaryResponse fromPayload(byte[] payload, ValueCodecRegistry codecs) throws IOException {
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        final int requestId = in.readInt();
+        final byte status = in.readByte();
+
+        switch (status) {
+            case BinaryProtocol.STATUS_OK:
+                return ok(requestId, codecs.read(in));
+            case BinaryProtocol.STATUS_NOT_FOUND:
+                return notFound(requestId);
+            default:
+                return failed(requestId, status, in.readUTF());
+        }
+    }
+
+    public byte[] toPayload(ValueCodecRegistry codecs) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+
+        out.writeInt(requestId);
+        out.writeByte(status);
+        if (status == BinaryProtocol.STATUS_OK) {
+            codecs.write(value, out);
+        } else if (status != BinaryProtocol.STATUS_NOT_FOUND) {
+            out.writeUTF(message);
+        }
+        out.flush();
+
+        return bytes.toByteArray();
+    }
+
+    public int getRequestId() {
+        return requestId;
+    }
+
+    public byte getStatus() {
+        return status;
+    }
+
+    public Serializable getValue() {
+        return value;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
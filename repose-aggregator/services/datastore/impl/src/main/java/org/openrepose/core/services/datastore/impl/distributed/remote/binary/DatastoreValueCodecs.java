@@ -0,0 +1,47 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.core.services.datastore.impl.distributed.remote.binary;
+
+import org.openrepose.core.services.datastore.codec.StringValueCodec;
+import org.openrepose.core.services.datastore.codec.StringValuePatchCodec;
+import org.openrepose.core.services.datastore.codec.ValueCodecRegistry;
+import org.openrepose.core.services.ratelimit.cache.UserRateLimitCodec;
+import org.openrepose.core.services.ratelimit.cache.UserRateLimitPatchCodec;
+
+/**
+ * The codecs every node in a cluster registers for the binary transport. Any other value is sent using Java
+ * serialization.
+ */
+public final class DatastoreValueCodecs {
+
+    private DatastoreValueCodecs() {
+    }
+
+    public static ValueCodecRegistry newRegistry() {
+        final ValueCodecRegistry registry = new ValueCodecRegistry();
+
+        registry.register(new StringValueCodec());
+        registry.register(new StringValuePatchCodec());
+        registry.register(new UserRateLimitCodec());
+        registry.register(new UserRateLimitPatchCodec());
+
+        return registry;
+    }
+}
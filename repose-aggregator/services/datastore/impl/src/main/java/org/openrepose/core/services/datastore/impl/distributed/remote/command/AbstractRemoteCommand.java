@@ -68,11 +68,11 @@ public abstract class AbstractRemoteCommand implements RemoteCommand {
         return headers;
     }
 
-    protected InetSocketAddress getRemoteEndpoint() {
+    public InetSocketAddress getRemoteEndpoint() {
         return remoteEndpoint;
     }
 
-    protected String getCacheObjectKey() {
+    public String getCacheObjectKey() {
         return cacheObjectKey;
     }
 
@@ -0,0 +1,98 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.core.services.datastore.impl.distributed.remote.command;
+
+import org.openrepose.commons.utils.http.ServiceClientResponse;
+import org.openrepose.commons.utils.io.ObjectSerializer;
+import org.openrepose.commons.utils.io.RawInputStreamReader;
+import org.openrepose.core.services.RequestProxyService;
+import org.openrepose.core.services.datastore.DatastoreOperationException;
+import org.openrepose.core.services.datastore.distributed.RemoteBehavior;
+import org.openrepose.core.services.datastore.impl.distributed.CacheRequest;
+import org.openrepose.core.services.datastore.impl.distributed.remote.batch.BatchOperation;
+import org.openrepose.core.services.datastore.impl.distributed.remote.batch.BatchResult;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sends many datastore operations to one remote node in a single request. The node answers with one result per
+ * operation, in the same order.
+ */
+public class Batch extends AbstractRemoteCommand {
+
+    private static final String BATCH_KEY = "batch";
+
+    private final ObjectSerializer objectSerializer = new ObjectSerializer(this.getClass().getClassLoader());
+    private final ArrayList<BatchOperation> operations;
+
+    public Batch(List<BatchOperation> operations, InetSocketAddress remoteEndpoint) {
+        super(BATCH_KEY, remoteEndpoint);
+        this.operations = new ArrayList<>(operations);
+    }
+
+    public List<BatchOperation> getOperations() {
+        return operations;
+    }
+
+    @Override
+    public String getUrl() {
+        return CacheRequest.batchUrlFor(getRemoteEndpoint());
+    }
+
+    @Override
+    protected byte[] getBody() {
+        try {
+            return objectSerializer.writeObject(operations);
+        } catch (IOException ioe) {
+            throw new DatastoreOperationException("Failed to serialize batch", ioe);
+        }
+    }
+
+    @Override
+    public ServiceClientResponse execute(RequestProxyService proxyService, RemoteBehavior remoteBehavior) {
+        return proxyService.patch(getUrl(), "", getHeaders(remoteBehavior), getBody());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object handleResponse(ServiceClientResponse response) throws IOException {
+        if (response.getStatus() == HttpServletResponse.SC_OK) {
+            try {
+                final List<BatchResult> results = (List<BatchResult>) objectSerializer.readObject(
+                        RawInputStreamReader.instance().readFully(response.getData()));
+
+                if (results.size() != operations.size()) {
+                    throw new DatastoreOperationException("Remote node returned " + results.size() + " results for " +
+                            operations.size() + " batched operations");
+                }
+
+                return results;
+            } catch (ClassNotFoundException cnfe) {
+                throw new DatastoreOperationException("Unable to marshall a java object from stored element contents. Reason: " + cnfe.getMessage(), cnfe);
+            }
+        }
+
+        throw new DatastoreOperationException("Remote request failed with: " + response.getStatus());
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.core.services.datastore.impl.distributed.remote.command;
+
+import org.openrepose.commons.utils.http.ServiceClientResponse;
+import org.openrepose.core.services.RequestProxyService;
+import org.openrepose.core.services.datastore.distributed.RemoteBehavior;
+import org.openrepose.core.services.datastore.impl.distributed.CacheRequest;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+
+/**
+ * Asks a cluster member to drop a key from its near cache. The value stored for the key is not touched.
+ */
+public class Invalidate extends AbstractRemoteCommand {
+
+    public Invalidate(String cacheObjectKey, InetSocketAddress remoteEndpoint) {
+        super(cacheObjectKey, remoteEndpoint);
+    }
+
+    @Override
+    public String getUrl() {
+        return getBaseUrl() + getCacheObjectKey();
+    }
+
+    @Override
+    public String getBaseUrl() {
+        return CacheRequest.invalidateUrlFor(getRemoteEndpoint());
+    }
+
+    @Override
+    public ServiceClientResponse execute(RequestProxyService proxyService, RemoteBehavior remoteBehavior) {
+        return proxyService.delete(getBaseUrl(), getCacheObjectKey(), getHeaders(remoteBehavior));
+    }
+
+    @Override
+    public Object handleResponse(ServiceClientResponse response) throws IOException {
+        return Boolean.valueOf(response.getStatus() == HttpServletResponse.SC_NO_CONTENT);
+    }
+}
@@ -47,6 +47,7 @@ public class Patch extends AbstractRemoteCommand {
     private final Logger LOG = LoggerFactory.getLogger(Patch.class);
 
     private final TimeUnit timeUnit;
+    private final SerializablePatch patch;
     private final byte[] value;
     private final int ttl;
 
@@ -57,6 +58,7 @@ public class Patch extends AbstractRemoteCommand {
         super(cacheObjectKey, remoteEndpoint);
         this.timeUnit = timeUnit;
         this.ttl = ttl;
+        this.patch = patch;
         byte[] deferredValue = null;
         try {
             deferredValue = objectSerializer.writeObject(patch);
@@ -93,6 +95,18 @@ public class Patch extends AbstractRemoteCommand {
         }
     }
 
+    public SerializablePatch getPatch() {
+        return patch;
+    }
+
+    public int getTtl() {
+        return ttl;
+    }
+
+    public TimeUnit getTimeUnit() {
+        return timeUnit;
+    }
+
     @Override
     public ServiceClientResponse execute(RequestProxyService proxyService, RemoteBehavior remoteBehavior) {
         return proxyService.patch(getBaseUrl(), getCacheObjectKey(), getHeaders(remoteBehavior), getBody());
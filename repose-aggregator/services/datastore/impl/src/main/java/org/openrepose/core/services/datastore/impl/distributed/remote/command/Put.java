@@ -73,6 +73,18 @@ public class Put extends AbstractRemoteCommand {
         return Boolean.TRUE;
     }
 
+    public Serializable getValue() {
+        return value;
+    }
+
+    public int getTtl() {
+        return ttl;
+    }
+
+    public TimeUnit getTimeUnit() {
+        return timeUnit;
+    }
+
     @Override
     public ServiceClientResponse execute(RequestProxyService proxyService, RemoteBehavior remoteBehavior) {
         return proxyService.put(getBaseUrl(), getCacheObjectKey(), getHeaders(remoteBehavior), getBody());
@@ -0,0 +1,229 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.nodeservice.distributed.binary;
+
+import org.openrepose.core.services.datastore.Datastore;
+import org.openrepose.core.services.datastore.Patch;
+import org.openrepose.core.services.datastore.codec.ValueCodecRegistry;
+import org.openrepose.core.services.datastore.impl.distributed.remote.binary.BinaryProtocol;
+import org.openrepose.core.services.datastore.impl.distributed.remote.binary.BinaryRequest;
+import org.openrepose.core.services.datastore.impl.distributed.remote.binary.BinaryResponse;
+import org.openrepose.nodeservice.distributed.servlet.DistributedDatastoreServlet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.InetSocketAddress;
+import java.nio.channels.Channel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves the binary distributed datastore transport alongside the HTTP one.
+ * <p/>
+ * Each accepted connection is handled by its own thread, which reads request frames, applies them to the local
+ * datastore, and writes the responses back in order. The same ACL as the HTTP servlet is applied when a connection is
+ * accepted.
+ */
+public class BinaryDatastoreServer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BinaryDatastoreServer.class);
+
+    private final DistributedDatastoreServlet ddServlet;
+    private final ValueCodecRegistry codecs;
+    private final Set<SocketChannel> connections = Collections.newSetFromMap(new ConcurrentHashMap<SocketChannel, Boolean>());
+
+    private int port;
+    private ServerSocketChannel serverChannel;
+    private ExecutorService workers;
+
+    public BinaryDatastoreServer(DistributedDatastoreServlet ddServlet, ValueCodecRegistry codecs) {
+        this.ddServlet = ddServlet;
+        this.codecs = codecs;
+    }
+
+    /**
+     * Start the server on a port. If it's already started on that port, it won't do anything at all.
+     * If the port changes, the server will be stopped and a new one will be started.
+     */
+    public synchronized void runServer(int port) throws IOException {
+        if (this.port != port) {
+            stop();
+
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.socket().setReuseAddress(true);
+            serverChannel.socket().bind(new InetSocketAddress(port));
+            this.port = port;
+
+            workers = Executors.newCachedThreadPool();
+            workers.execute(new Acceptor(serverChannel));
+            LOG.info("Binary distributed datastore listening on port {}", port);
+        }
+    }
+
+    public synchronized void stop() {
+        if (serverChannel != null) {
+            closeQuietly(serverChannel);
+            serverChannel = null;
+        }
+
+        for (SocketChannel connection : connections) {
+            closeQuietly(connection);
+        }
+        connections.clear();
+
+        if (workers != null) {
+            workers.shutdownNow();
+            workers = null;
+        }
+
+        port = 0;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    BinaryResponse handle(BinaryRequest request) {
+        final Datastore localDatastore = ddServlet.getLocalDatastore();
+        final int requestId = request.getRequestId();
+
+        try {
+            switch (request.getOpcode()) {
+                case BinaryProtocol.OP_GET:
+                    final Serializable value = localDatastore.get(request.getKey());
+                    return value != null ? BinaryResponse.ok(requestId, value) : BinaryResponse.notFound(requestId);
+                case BinaryProtocol.OP_PUT:
+                    if (request.getTtlSeconds() <= 0) {
+                        return BinaryResponse.failed(requestId, BinaryProtocol.STATUS_ERROR, "TTL must be positive");
+                    }
+                    localDatastore.put(request.getKey(), request.getValue(), request.getTtlSeconds(), TimeUnit.SECONDS);
+                    return BinaryResponse.ok(requestId, null);
+                case BinaryProtocol.OP_PATCH:
+                    if (request.getTtlSeconds() <= 0) {
+                        return BinaryResponse.failed(requestId, BinaryProtocol.STATUS_ERROR, "TTL must be positive");
+                    }
+                    return BinaryResponse.ok(requestId, localDatastore.patch(request.getKey(), (Patch) request.getValue(),
+                            request.getTtlSeconds(), TimeUnit.SECONDS));
+                case BinaryProtocol.OP_DELETE:
+                    return localDatastore.remove(request.getKey()) ? BinaryResponse.ok(requestId, null) : BinaryResponse.notFound(requestId);
+                default:
+                    return BinaryResponse.failed(requestId, BinaryProtocol.STATUS_ERROR, "Unknown operation " + request.getOpcode());
+            }
+        } catch (ClassCastException cce) {
+            LOG.trace("Received a patch request without a patch", cce);
+            return BinaryResponse.failed(requestId, BinaryProtocol.STATUS_ERROR, "Value is not a patch");
+        } catch (RuntimeException re) {
+            LOG.error("Failed to apply a binary datastore request", re);
+            return BinaryResponse.failed(requestId, BinaryProtocol.STATUS_ERROR, re.getMessage());
+        }
+    }
+
+    private static void closeQuietly(Channel channel) {
+        try {
+            channel.close();
+        } catch (IOException ioe) {
+            LOG.trace("Unable to cleanly close a binary datastore channel", ioe);
+        }
+    }
+
+    private class Acceptor implements Runnable {
+        private final ServerSocketChannel listener;
+
+        Acceptor(ServerSocketChannel listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public void run() {
+            while (listener.isOpen()) {
+                try {
+                    final SocketChannel connection = listener.accept();
+                    connection.socket().setTcpNoDelay(true);
+
+                    if (ddServlet.isAllowed(connection.socket().getInetAddress())) {
+                        connections.add(connection);
+                        workers.execute(new ConnectionHandler(connection));
+                    } else {
+                        LOG.warn("Rejecting binary datastore connection from {}", connection.socket().getRemoteSocketAddress());
+                        closeQuietly(connection);
+                    }
+                } catch (IOException ioe) {
+                    if (listener.isOpen()) {
+                        LOG.error("Failed to accept a binary datastore connection", ioe);
+                    }
+                } catch (RuntimeException re) {
+                    // Thrown by a shut down executor while stopping
+                    LOG.trace("Binary datastore acceptor stopping", re);
+                    return;
+                }
+            }
+        }
+    }
+
+    private class ConnectionHandler implements Runnable {
+        private final SocketChannel connection;
+
+        ConnectionHandler(SocketChannel connection) {
+            this.connection = connection;
+        }
+
+        /**
+         * Frames are delimited by their length, so a request that can not be decoded is answered with an error rather
+         * than failing the other requests in flight on the connection.
+         */
+        private BinaryResponse respondTo(byte[] payload) throws IOException {
+            final BinaryRequest request;
+            try {
+                request = BinaryRequest.fromPayload(payload, codecs);
+            } catch (IOException | RuntimeException e) {
+                final int requestId = BinaryProtocol.requestIdOf(payload);
+                LOG.warn("Unable to decode binary datastore request {} from {}", requestId,
+                        connection.socket().getRemoteSocketAddress(), e);
+                return BinaryResponse.failed(requestId, BinaryProtocol.STATUS_ERROR,
+                        "Unable to decode the request. Reason: " + e.getMessage());
+            }
+
+            return handle(request);
+        }
+
+        @Override
+        public void run() {
+            try {
+                byte[] payload;
+                while ((payload = BinaryProtocol.readFrame(connection)) != null) {
+                    BinaryProtocol.writeFrame(connection, respondTo(payload).toPayload(codecs));
+                }
+            } catch (IOException ioe) {
+                LOG.debug("Binary datastore connection from {} closed", connection.socket().getRemoteSocketAddress(), ioe);
+            } finally {
+                connections.remove(connection);
+                closeQuietly(connection);
+            }
+        }
+    }
+}
@@ -28,14 +28,18 @@ import org.openrepose.core.services.config.ConfigurationService;
 import org.openrepose.core.services.datastore.DatastoreAccessControl;
 import org.openrepose.core.services.datastore.DatastoreService;
 import org.openrepose.core.services.datastore.distributed.ClusterConfiguration;
+import org.openrepose.core.services.datastore.distributed.NearCacheConfiguration;
 import org.openrepose.core.services.datastore.distributed.config.DistributedDatastoreConfiguration;
+import org.openrepose.core.services.datastore.distributed.config.NearCache;
 import org.openrepose.core.services.datastore.impl.distributed.ThreadSafeClusterView;
+import org.openrepose.core.services.datastore.impl.distributed.remote.binary.DatastoreValueCodecs;
 import org.openrepose.core.services.healthcheck.HealthCheckService;
 import org.openrepose.core.services.healthcheck.HealthCheckServiceProxy;
 import org.openrepose.core.services.healthcheck.Severity;
 import org.openrepose.core.spring.ReposeSpringProperties;
 import org.openrepose.core.systemmodel.ReposeCluster;
 import org.openrepose.core.systemmodel.SystemModel;
+import org.openrepose.nodeservice.distributed.binary.BinaryDatastoreServer;
 import org.openrepose.nodeservice.distributed.cluster.utils.AccessListDeterminator;
 import org.openrepose.nodeservice.distributed.cluster.utils.ClusterMemberDeterminator;
 import org.openrepose.nodeservice.distributed.servlet.DistributedDatastoreServlet;
@@ -67,6 +71,8 @@ public class DistributedDatastoreLauncherService {
     private final String DD_CONFIG_ISSUE = "dist-datastore-config-issue";
     private volatile boolean isRunning = false;
     private Optional<DistributedDatastoreServer> ddServer = Optional.absent();
+    private Optional<BinaryDatastoreServer> binaryServer = Optional.absent();
+    private int binaryPortOffset = 0;
     private DistributedDatastoreServlet ddServlet = null;
     private HealthCheckServiceProxy healthCheckServiceProxy;
     private DistributedDatastoreConfigurationListener ddConfigListener;
@@ -123,6 +129,12 @@ public class DistributedDatastoreLauncherService {
                 }
                 ddServer = Optional.absent();
             }
+
+            if (binaryServer.isPresent()) {
+                LOG.info("Stopping binary Distributed Datastore listener at port {} ", binaryServer.get().getPort());
+                binaryServer.get().stop();
+                binaryServer = Optional.absent();
+            }
         }
         //Clear any healthcheck problems -- if it's off, it's not a problem any more!
         healthCheckServiceProxy.resolveIssue(DD_CONFIG_ISSUE);
@@ -154,7 +166,13 @@ public class DistributedDatastoreLauncherService {
                 if (!ddServer.isPresent()) {
                     ClusterConfiguration configuration = new ClusterConfiguration(requestProxyService,
                             UUIDEncodingProvider.getInstance(),
-                            ThreadSafeClusterView.singlePortClusterView(ddPort));
+                            ThreadSafeClusterView.singlePortClusterView(ddPort),
+                            ddConfig.getVirtualNodes(),
+                            binaryPortOffsetOf(ddConfig),
+                            ddConfig.getBatchMaxDelayMillis() != null ? ddConfig.getBatchMaxDelayMillis() : 0,
+                            ddConfig.getBatchMaxSize(),
+                            nearCacheOf(ddConfig),
+                            ddConfig.getRemoteTimeoutMillis());
 
                     //ddServlet provides a way to get a hold of the ClusterView now and the ACL, like it should
                     ddServlet = new DistributedDatastoreServlet(datastoreService,
@@ -164,6 +182,11 @@ public class DistributedDatastoreLauncherService {
                     DistributedDatastoreServer server = new DistributedDatastoreServer(clusterId, nodeId, ddServlet);
                     this.ddServer = Optional.of(server);
 
+                    binaryPortOffset = configuration.getBinaryPortOffset();
+                    if (binaryPortOffset > 0) {
+                        binaryServer = Optional.of(new BinaryDatastoreServer(ddServlet, DatastoreValueCodecs.newRegistry()));
+                    }
+
                     //Make sure the server is running now -- the dist datastore is up
                     try {
                         LOG.info("Starting Distributed Datastore listener on port {} ", ddPort);
@@ -184,6 +207,9 @@ public class DistributedDatastoreLauncherService {
                         int existingPort = ddServer.get().getPort();
                         LOG.info("Updating existing Distributed Datastore Server instance on {} to {}", existingPort, ddPort);
                         ddServer.get().runServer(ddPort);
+                        if (binaryServer.isPresent()) {
+                            binaryServer.get().runServer(ddPort + binaryPortOffset);
+                        }
                         healthCheckServiceProxy.resolveIssue(DD_CONFIG_ISSUE);
                     } catch (Exception e) {
                         LOG.error("Unable to start Distributed Datastore Server instance on {}", ddPort, e);
@@ -203,6 +229,23 @@ public class DistributedDatastoreLauncherService {
         }
     }
 
+    private static NearCacheConfiguration nearCacheOf(DistributedDatastoreConfiguration ddConfig) {
+        final NearCache nearCache = ddConfig.getNearCache();
+        if (nearCache == null) {
+            return null;
+        }
+
+        return new NearCacheConfiguration(nearCache.getKeyPrefix(), nearCache.getTtlSeconds(),
+                nearCache.getMaxHeapPercent());
+    }
+
+    /**
+     * The binary transport is only enabled when an offset is configured.
+     */
+    private static int binaryPortOffsetOf(DistributedDatastoreConfiguration ddConfig) {
+        return ddConfig.getBinaryPortOffset() != null ? ddConfig.getBinaryPortOffset() : 0;
+    }
+
     @PreDestroy
     public void destroy() {
         healthCheckServiceProxy.deregister();
@@ -27,7 +27,11 @@ import org.openrepose.core.services.datastore.*;
 import org.openrepose.core.services.datastore.distributed.ClusterConfiguration;
 import org.openrepose.core.services.datastore.distributed.ClusterView;
 import org.openrepose.core.services.datastore.impl.distributed.CacheRequest;
+import org.openrepose.core.services.datastore.impl.distributed.MalformedCacheRequestError;
 import org.openrepose.core.services.datastore.impl.distributed.MalformedCacheRequestException;
+import org.openrepose.core.services.datastore.impl.distributed.NearCacheDatastore;
+import org.openrepose.core.services.datastore.impl.distributed.remote.batch.BatchOperation;
+import org.openrepose.core.services.datastore.impl.distributed.remote.batch.BatchResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
@@ -41,6 +45,8 @@ import java.io.IOException;
 import java.io.Serializable;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -102,7 +108,19 @@ public class DistributedDatastoreServlet extends HttpServlet {
             MDC.put(TracingKey.TRACING_KEY, traceGUID);
             LOG.trace("SERVICING DISTDATASTORE REQUEST");
 
-            if ("PATCH".equals(request.getMethod())) {
+            if (CacheRequest.isInvalidateRequest(request)) {
+                if ("DELETE".equals(request.getMethod())) {
+                    doInvalidate(request, response);
+                } else {
+                    response.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+                }
+            } else if (CacheRequest.isBatchRequest(request)) {
+                if ("PATCH".equals(request.getMethod())) {
+                    doBatch(request, response);
+                } else {
+                    response.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+                }
+            } else if ("PATCH".equals(request.getMethod())) {
                 doPatch(request, response);
             } else {
                 super.service(request, response);
@@ -205,6 +223,32 @@ public class DistributedDatastoreServlet extends HttpServlet {
         }
     }
 
+    /**
+     * Drops a key from this node's near cache, if it has one, after another node removed the key's value.
+     */
+    private void doInvalidate(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        try {
+            final CacheRequest invalidate = CacheRequest.marshallInvalidateRequest(request);
+            final Datastore distributedDatastore = datastoreService.getDatastore(DISTRIBUTED_HASH_RING);
+
+            if (distributedDatastore instanceof NearCacheDatastore) {
+                ((NearCacheDatastore) distributedDatastore).invalidate(invalidate.getCacheKey());
+            }
+            response.setStatus(HttpServletResponse.SC_NO_CONTENT);
+        } catch (MalformedCacheRequestException e) {
+            LOG.trace("Malformed cache request on invalidate", e);
+            switch (e.error) {
+                case NO_DD_HOST_KEY:
+                    response.getWriter().write(e.error.message());
+                    response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                    break;
+                default:
+                    response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                    break;
+            }
+        }
+    }
+
     private void doPatch(HttpServletRequest request, HttpServletResponse response) throws IOException {
         if (CacheRequest.isCacheRequestValid(request)) {
             try {
@@ -230,32 +274,117 @@ public class DistributedDatastoreServlet extends HttpServlet {
         }
     }
 
-    public boolean isAllowed(HttpServletRequest request) {
-        boolean allowed = hostAcl.get().shouldAllowAll();
+    /**
+     * Applies a batch of operations, in order, and answers with one result per operation. A failed operation does not
+     * stop the operations after it.
+     */
+    @SuppressWarnings("unchecked")
+    private void doBatch(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        try {
+            final CacheRequest batchRequest = CacheRequest.marshallBatchRequest(request);
+            final List<BatchOperation> operations = (List<BatchOperation>) objectSerializer.readObject(batchRequest.getPayload());
+            final ArrayList<BatchResult> results = new ArrayList<>(operations.size());
 
-        if (!allowed) {
-            try {
-                final InetAddress remoteClient = InetAddress.getByName(request.getRemoteHost());
+            for (BatchOperation operation : operations) {
+                results.add(applyBatchOperation(operation));
+            }
 
-                for (InetAddress allowedAddress : hostAcl.get().getAllowedHosts()) {
-                    if (remoteClient.equals(allowedAddress)) {
-                        allowed = true;
-                        break;
+            response.getOutputStream().write(objectSerializer.writeObject(results));
+            response.setStatus(HttpServletResponse.SC_OK);
+        } catch (ClassNotFoundException cnfe) {
+            LOG.error(cnfe.getMessage(), cnfe);
+            throw new DatastoreOperationException("Failed to deserialize a message. Couldn't find a matching class.", cnfe);
+        } catch (MalformedCacheRequestException mcre) {
+            handleputMalformedCacheRequestException(mcre, response);
+        } catch (ClassCastException e) {
+            LOG.trace("Sending ERROR response", e);
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    private BatchResult applyBatchOperation(BatchOperation operation) {
+        try {
+            switch (operation.getType()) {
+                case GET:
+                    return BatchResult.of(localDatastore.get(operation.getKey()));
+                case PUT:
+                    if (operation.getTtlSeconds() <= 0) {
+                        return BatchResult.failed(MalformedCacheRequestError.TTL_HEADER_NOT_POSITIVE.message());
+                    }
+                    localDatastore.put(operation.getKey(), objectSerializer.readObject(operation.getValue()),
+                            operation.getTtlSeconds(), TimeUnit.SECONDS);
+                    return BatchResult.of(Boolean.TRUE);
+                case PATCH:
+                    if (operation.getTtlSeconds() <= 0) {
+                        return BatchResult.failed(MalformedCacheRequestError.TTL_HEADER_NOT_POSITIVE.message());
                     }
+                    final Serializable[] patched = new Serializable[operation.getPatches().size()];
+                    for (int i = 0; i < patched.length; i++) {
+                        patched[i] = localDatastore.patch(operation.getKey(),
+                                (Patch) objectSerializer.readObject(operation.getPatches().get(i)),
+                                operation.getTtlSeconds(), TimeUnit.SECONDS);
+                    }
+                    return BatchResult.of(patched);
+                case DELETE:
+                    return BatchResult.of(localDatastore.remove(operation.getKey()));
+                default:
+                    return BatchResult.failed("Unknown batch operation " + operation.getType());
+            }
+        } catch (IOException | ClassNotFoundException e) {
+            LOG.error("Failed to deserialize a batched {} of {}", operation.getType(), operation.getKey(), e);
+            return BatchResult.failed("Unable to deserialize the value. Reason: " + e.getMessage());
+        } catch (RuntimeException re) {
+            LOG.error("Failed to apply a batched {} of {}", operation.getType(), operation.getKey(), re);
+            return BatchResult.failed(re.getMessage());
+        }
+    }
+
+    public boolean isAllowed(HttpServletRequest request) {
+        if (hostAcl.get().shouldAllowAll()) {
+            return true;
+        }
+
+        try {
+            return isAllowed(InetAddress.getByName(request.getRemoteHost()));
+        } catch (UnknownHostException uhe) {
+            LOG.error("Unknown host exception caught while trying to resolve host: " + request.getRemoteHost() + " Reason: " + uhe.getMessage(), uhe);
+            return false;
+        }
+    }
+
+    /**
+     * Checks a remote client against the current ACL. Also used by the binary datastore transport so that both
+     * transports always enforce the same ACL.
+     */
+    public boolean isAllowed(InetAddress remoteClient) {
+        final DatastoreAccessControl acl = hostAcl.get();
+        boolean allowed = acl.shouldAllowAll();
+
+        if (!allowed) {
+            for (InetAddress allowedAddress : acl.getAllowedHosts()) {
+                if (remoteClient.equals(allowedAddress)) {
+                    allowed = true;
+                    break;
                 }
-            } catch (UnknownHostException uhe) {
-                LOG.error("Unknown host exception caught while trying to resolve host: " + request.getRemoteHost() + " Reason: " + uhe.getMessage(), uhe);
             }
         }
 
         return allowed;
     }
 
+    /**
+     * @return the local datastore this node serves remote requests from
+     */
+    public Datastore getLocalDatastore() {
+        return localDatastore;
+    }
+
     private boolean isRequestValid(HttpServletRequest req, HttpServletResponse resp) {
         boolean valid = false;
         if (!isAllowed(req)) {
             resp.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-        } else if (!CacheRequest.isCacheRequestValid(req)) {
+        } else if (!CacheRequest.isCacheRequestValid(req) && !CacheRequest.isBatchRequest(req)
+                && !CacheRequest.isInvalidateRequest(req)) {
             resp.setStatus(HttpServletResponse.SC_NOT_FOUND);
         } else {
             valid = true;
@@ -0,0 +1,173 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.core.services.datastore.impl.distributed;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openrepose.core.services.datastore.hash.MD5MessageDigestFactory;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ConsistentHashRingTest {
+
+    private static final int KEY_COUNT = 10000;
+    private static final int VIRTUAL_NODES = 100;
+
+    private InetSocketAddress[] members;
+    private byte[][] keyHashes;
+
+    @Before
+    public void standUp() throws Exception {
+        members = new InetSocketAddress[11];
+        for (int i = 0; i < members.length; i++) {
+            members[i] = new InetSocketAddress(InetAddress.getByAddress(new byte[]{10, 1, 1, (byte) (11 + i)}), 2200);
+        }
+
+        final MessageDigest digest = MD5MessageDigestFactory.getInstance().newMessageDigest();
+        keyHashes = new byte[KEY_COUNT][];
+        for (int i = 0; i < KEY_COUNT; i++) {
+            keyHashes[i] = digest.digest(("rate-limit-user-" + i).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private ConsistentHashRing ringOf(InetSocketAddress[] ringMembers) {
+        return new ConsistentHashRing(ringMembers, VIRTUAL_NODES, MD5MessageDigestFactory.getInstance());
+    }
+
+    @Test
+    public void shouldReturnNullWhenThereAreNoMembers() {
+        assertNull(ringOf(new InetSocketAddress[0]).getOwner(keyHashes[0]));
+    }
+
+    @Test
+    public void shouldBuildTheSameRingRegardlessOfMemberOrder() {
+        final InetSocketAddress[] reversed = members.clone();
+        for (int i = 0; i < reversed.length / 2; i++) {
+            InetSocketAddress swap = reversed[i];
+            reversed[i] = reversed[reversed.length - 1 - i];
+            reversed[reversed.length - 1 - i] = swap;
+        }
+
+        final ConsistentHashRing ring = ringOf(members);
+        final ConsistentHashRing reversedRing = ringOf(reversed);
+
+        for (byte[] keyHash : keyHashes) {
+            assertEquals(ring.getOwner(keyHash), reversedRing.getOwner(keyHash));
+        }
+    }
+
+    @Test
+    public void shouldSpreadKeysAcrossAllMembers() {
+        final ConsistentHashRing ring = ringOf(members);
+        final Map<InetSocketAddress, Integer> keysPerMember = new HashMap<>();
+
+        for (byte[] keyHash : keyHashes) {
+            final InetSocketAddress owner = ring.getOwner(keyHash);
+            keysPerMember.put(owner, keysPerMember.containsKey(owner) ? keysPerMember.get(owner) + 1 : 1);
+        }
+
+        final int fairShare = KEY_COUNT / members.length;
+        assertEquals(members.length, keysPerMember.size());
+        for (int keyCount : keysPerMember.values()) {
+            assertTrue("Member owns " + keyCount + " keys, expected about " + fairShare,
+                    keyCount > fairShare / 2 && keyCount < fairShare * 2);
+        }
+    }
+
+    @Test
+    public void shouldOnlyMoveKeysToAnAddedMember() {
+        final InetSocketAddress[] before = Arrays.copyOf(members, members.length - 1);
+        final InetSocketAddress added = members[members.length - 1];
+        final ConsistentHashRing beforeRing = ringOf(before);
+        final ConsistentHashRing afterRing = ringOf(members);
+
+        int moved = 0;
+        for (byte[] keyHash : keyHashes) {
+            final InetSocketAddress afterOwner = afterRing.getOwner(keyHash);
+            if (!afterOwner.equals(beforeRing.getOwner(keyHash))) {
+                assertEquals("Keys may only move to the added member", added, afterOwner);
+                moved++;
+            }
+        }
+
+        // Ideally 1/11 of the keys move; modulo hashing would move about 10/11 of them
+        assertTrue("Moved " + moved + " of " + KEY_COUNT + " keys", moved < KEY_COUNT / 5);
+    }
+
+    @Test
+    public void shouldOnlyMoveKeysOwnedByARemovedMember() {
+        final InetSocketAddress removed = members[3];
+        final InetSocketAddress[] after = new InetSocketAddress[members.length - 1];
+        System.arraycopy(members, 0, after, 0, 3);
+        System.arraycopy(members, 4, after, 3, members.length - 4);
+
+        final ConsistentHashRing beforeRing = ringOf(members);
+        final ConsistentHashRing afterRing = ringOf(after);
+
+        int moved = 0;
+        for (byte[] keyHash : keyHashes) {
+            final InetSocketAddress beforeOwner = beforeRing.getOwner(keyHash);
+            if (!beforeOwner.equals(afterRing.getOwner(keyHash))) {
+                assertEquals("Only keys owned by the removed member may move", removed, beforeOwner);
+                moved++;
+            }
+        }
+
+        assertTrue("Moved " + moved + " of " + KEY_COUNT + " keys", moved < KEY_COUNT / 5);
+    }
+
+    @Test
+    public void shouldBuildTheSameRingWhereverMembersResolveTo() throws Exception {
+        final InetSocketAddress[] resolvedHere = new InetSocketAddress[3];
+        final InetSocketAddress[] resolvedThere = new InetSocketAddress[3];
+        for (int i = 0; i < resolvedHere.length; i++) {
+            resolvedHere[i] = new InetSocketAddress(InetAddress.getByAddress("node" + i, new byte[]{10, 1, 1, (byte) i}), 2200);
+            resolvedThere[i] = new InetSocketAddress(InetAddress.getByAddress("node" + i, new byte[]{10, 2, 2, (byte) (9 - i)}), 2200);
+        }
+
+        final ConsistentHashRing here = ringOf(resolvedHere);
+        final ConsistentHashRing there = ringOf(resolvedThere);
+
+        for (byte[] keyHash : keyHashes) {
+            assertEquals(here.getOwner(keyHash).getHostString(), there.getOwner(keyHash).getHostString());
+        }
+    }
+
+    @Test
+    public void shouldRecognizeItsOwnMembers() {
+        final ConsistentHashRing ring = ringOf(members);
+
+        assertTrue(ring.hasMembers(members.clone()));
+        assertFalse(ring.hasMembers(Arrays.copyOf(members, members.length - 1)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRequireAtLeastOneVirtualNode() {
+        new ConsistentHashRing(members, 0, MD5MessageDigestFactory.getInstance());
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.core.services.datastore.impl.distributed;
+
+import com.google.common.base.Ticker;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.openrepose.commons.utils.encoding.UUIDEncodingProvider;
+import org.openrepose.core.services.datastore.StringValue;
+import org.openrepose.core.services.datastore.distributed.ClusterView;
+import org.openrepose.core.services.datastore.distributed.NearCacheConfiguration;
+import org.openrepose.core.services.datastore.distributed.RemoteBehavior;
+import org.openrepose.core.services.datastore.impl.distributed.remote.RemoteCommand;
+import org.openrepose.core.services.datastore.impl.distributed.remote.RemoteCommandExecutor;
+import org.openrepose.core.services.datastore.impl.distributed.remote.command.Invalidate;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+public class NearCacheDatastoreTest {
+
+    private static final String TOKEN_KEY = "TOKEN:abc";
+    private static final StringValue TOKEN = new StringValue("token");
+
+    private HashRingDatastore hashRingDatastore;
+    private RemoteCommandExecutor remoteCommandExecutor;
+    private ClusterView clusterView;
+    private FakeTicker ticker;
+    private InetSocketAddress localMember;
+    private InetSocketAddress remoteMember;
+    private NearCacheDatastore nearCache;
+
+    @Before
+    public void setUp() throws Exception {
+        hashRingDatastore = mock(HashRingDatastore.class);
+        remoteCommandExecutor = mock(RemoteCommandExecutor.class);
+        clusterView = mock(ClusterView.class);
+        ticker = new FakeTicker();
+
+        localMember = new InetSocketAddress(InetAddress.getByAddress(new byte[]{10, 1, 1, 10}), 2200);
+        remoteMember = new InetSocketAddress(InetAddress.getByAddress(new byte[]{10, 1, 1, 11}), 2200);
+        when(clusterView.members()).thenReturn(new InetSocketAddress[]{localMember, remoteMember});
+        when(clusterView.isLocal(localMember)).thenReturn(true);
+
+        when(hashRingDatastore.getHash(anyString())).thenAnswer(new Answer<byte[]>() {
+            @Override
+            public byte[] answer(InvocationOnMock invocation) throws Throwable {
+                return MessageDigest.getInstance("MD5").digest(
+                        ((String) invocation.getArguments()[0]).getBytes(StandardCharsets.UTF_8));
+            }
+        });
+        when(hashRingDatastore.isRemotelyOwned(any(byte[].class))).thenReturn(true);
+        when(hashRingDatastore.get(anyString(), any(byte[].class), eq(RemoteBehavior.ALLOW_FORWARDING)))
+                .thenReturn(TOKEN);
+
+        nearCache = nearCache(1024 * 1024);
+    }
+
+    private NearCacheDatastore nearCache(long maxWeightBytes) {
+        return new NearCacheDatastore(hashRingDatastore, remoteCommandExecutor, clusterView,
+                UUIDEncodingProvider.getInstance(), new NearCacheConfiguration(Arrays.asList("TOKEN:"), 30, 5),
+                maxWeightBytes, ticker, MoreExecutors.sameThreadExecutor());
+    }
+
+    @Test
+    public void shouldServeRepeatedReadsOfOptedInKeysFromTheNearCache() {
+        assertEquals(TOKEN, nearCache.get(TOKEN_KEY));
+        assertEquals(TOKEN, nearCache.get(TOKEN_KEY));
+        assertEquals(TOKEN, nearCache.get(TOKEN_KEY));
+
+        verify(hashRingDatastore, times(1)).get(anyString(), any(byte[].class), eq(RemoteBehavior.ALLOW_FORWARDING));
+        assertEquals(1, nearCache.size());
+    }
+
+    @Test
+    public void shouldNotCacheKeysWithoutAnOptedInPrefix() {
+        when(hashRingDatastore.get("RATE:abc")).thenReturn(TOKEN);
+
+        nearCache.get("RATE:abc");
+        nearCache.get("RATE:abc");
+
+        verify(hashRingDatastore, times(2)).get("RATE:abc");
+        assertEquals(0, nearCache.size());
+    }
+
+    @Test
+    public void shouldNotCacheKeysStoredByThisNode() {
+        when(hashRingDatastore.isRemotelyOwned(any(byte[].class))).thenReturn(false);
+
+        nearCache.get(TOKEN_KEY);
+        nearCache.get(TOKEN_KEY);
+
+        verify(hashRingDatastore, times(2)).get(anyString(), any(byte[].class), eq(RemoteBehavior.ALLOW_FORWARDING));
+    }
+
+    @Test
+    public void shouldNotCacheMissingValues() {
+        when(hashRingDatastore.get(anyString(), any(byte[].class), eq(RemoteBehavior.ALLOW_FORWARDING)))
+                .thenReturn(null);
+
+        assertNull(nearCache.get(TOKEN_KEY));
+        assertEquals(0, nearCache.size());
+    }
+
+    @Test
+    public void shouldReadAgainOnceTheTtlHasPassed() {
+        nearCache.get(TOKEN_KEY);
+        ticker.advance(29, TimeUnit.SECONDS);
+        nearCache.get(TOKEN_KEY);
+        ticker.advance(1, TimeUnit.SECONDS);
+        nearCache.get(TOKEN_KEY);
+
+        verify(hashRingDatastore, times(2)).get(anyString(), any(byte[].class), eq(RemoteBehavior.ALLOW_FORWARDING));
+    }
+
+    @Test
+    public void shouldNotKeepAPutValueLongerThanItIsStored() {
+        nearCache.put(TOKEN_KEY, TOKEN, 5, TimeUnit.SECONDS);
+
+        assertEquals(TOKEN, nearCache.get(TOKEN_KEY));
+        verify(hashRingDatastore, never()).get(anyString(), any(byte[].class), any(RemoteBehavior.class));
+
+        ticker.advance(5, TimeUnit.SECONDS);
+        nearCache.get(TOKEN_KEY);
+        verify(hashRingDatastore, times(1)).get(anyString(), any(byte[].class), eq(RemoteBehavior.ALLOW_FORWARDING));
+    }
+
+    @Test
+    public void shouldBroadcastRemovesToTheOtherMembers() {
+        nearCache.get(TOKEN_KEY);
+        nearCache.remove(TOKEN_KEY);
+
+        final ArgumentCaptor<RemoteCommand> command = ArgumentCaptor.forClass(RemoteCommand.class);
+        verify(remoteCommandExecutor).execute(command.capture(), eq(RemoteBehavior.DISALLOW_FORWARDING));
+        assertTrue(command.getValue() instanceof Invalidate);
+        assertEquals(remoteMember, ((Invalidate) command.getValue()).getRemoteEndpoint());
+        assertEquals(0, nearCache.size());
+
+        nearCache.get(TOKEN_KEY);
+        verify(hashRingDatastore, times(2)).get(anyString(), any(byte[].class), eq(RemoteBehavior.ALLOW_FORWARDING));
+    }
+
+    @Test
+    public void shouldDropKeysInvalidatedByAnotherMember() {
+        nearCache.get(TOKEN_KEY);
+        nearCache.invalidate(UUIDEncodingProvider.getInstance().encode(hashRingDatastore.getHash(TOKEN_KEY)));
+
+        assertEquals(0, nearCache.size());
+    }
+
+    @Test
+    public void shouldDropKeysPatchedThroughThisNode() {
+        nearCache.get(TOKEN_KEY);
+        nearCache.patch(TOKEN_KEY, new StringValue.Patch("patch"));
+
+        assertEquals(0, nearCache.size());
+    }
+
+    @Test
+    public void shouldStayUnderItsHeapShare() {
+        nearCache = nearCache(4 * 1024);
+
+        for (int i = 0; i < 100; i++) {
+            nearCache.get("TOKEN:" + i);
+        }
+
+        assertTrue(nearCache.size() > 0);
+        assertTrue(nearCache.size() < 100);
+    }
+
+    private static class FakeTicker extends Ticker {
+        private long nanos = 1;
+
+        @Override
+        public long read() {
+            return nanos;
+        }
+
+        void advance(long duration, TimeUnit unit) {
+            nanos += unit.toNanos(duration);
+        }
+    }
+}
@@ -0,0 +1,329 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.core.services.datastore.impl.distributed.remote;
+
+import org.junit.After;
+import org.junit.Test;
+import org.openrepose.commons.utils.io.ObjectSerializer;
+import org.openrepose.core.services.datastore.StringValue;
+import org.openrepose.core.services.datastore.distributed.RemoteBehavior;
+import org.openrepose.core.services.datastore.impl.distributed.remote.batch.BatchOperation;
+import org.openrepose.core.services.datastore.impl.distributed.remote.batch.BatchResult;
+import org.openrepose.core.services.datastore.impl.distributed.remote.batch.BatchingRemoteCommandExecutor;
+import org.openrepose.core.services.datastore.impl.distributed.remote.command.Batch;
+import org.openrepose.core.services.datastore.impl.distributed.remote.command.Get;
+import org.openrepose.core.services.datastore.impl.distributed.remote.command.Patch;
+import org.openrepose.core.services.datastore.impl.distributed.remote.command.Put;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class BatchingRemoteCommandExecutorTest {
+
+    private static final String KEY = "3b5dd0a2-5e0b-4b3e-9d47-2a3f6d0c7e11";
+
+    private final InetSocketAddress nodeA = new InetSocketAddress(InetAddress.getLoopbackAddress(), 2200);
+    private final InetSocketAddress nodeB = new InetSocketAddress(InetAddress.getLoopbackAddress(), 2201);
+    private final RecordingExecutor delegate = new RecordingExecutor();
+    private BatchingRemoteCommandExecutor executor;
+
+    @After
+    public void tearDown() {
+        executor.destroy();
+    }
+
+    private Patch patch(String key, String value, InetSocketAddress node) {
+        return new Patch(TimeUnit.SECONDS, new StringValue.Patch(value), 10, key, node);
+    }
+
+    private Object[] executeConcurrently(final List<? extends RemoteCommand> commands) throws InterruptedException {
+        final Object[] results = new Object[commands.size()];
+        final CountDownLatch start = new CountDownLatch(1);
+        final Thread[] threads = new Thread[commands.size()];
+
+        for (int i = 0; i < threads.length; i++) {
+            final int index = i;
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        results[index] = executor.execute(commands.get(index), RemoteBehavior.ALLOW_FORWARDING);
+                    } catch (Exception e) {
+                        results[index] = e;
+                    }
+                }
+            });
+            threads[i].start();
+        }
+
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        return results;
+    }
+
+    @Test
+    public void shouldCoalesceConcurrentPatchesOfTheSameKey() throws Exception {
+        executor = new BatchingRemoteCommandExecutor(delegate, 200, 1000);
+        final List<Patch> patches = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            patches.add(patch(KEY, "value-" + i, nodeA));
+        }
+
+        final Object[] results = executeConcurrently(patches);
+
+        assertEquals(1, delegate.batches.size());
+        final List<BatchOperation> operations = delegate.batches.get(0).getOperations();
+        assertEquals(1, operations.size());
+        assertEquals(20, operations.get(0).getPatches().size());
+
+        // Every caller gets the result of its own patch
+        for (int i = 0; i < results.length; i++) {
+            assertEquals("value-" + i, ((StringValue) results[i]).getValue());
+        }
+    }
+
+    @Test
+    public void shouldSendABatchAsSoonAsItIsFull() throws Exception {
+        executor = new BatchingRemoteCommandExecutor(delegate, 60000, 2);
+        final List<Get> gets = new ArrayList<>();
+        gets.add(new Get(KEY, nodeA));
+        gets.add(new Get("another-key", nodeA));
+
+        final long started = System.currentTimeMillis();
+        executeConcurrently(gets);
+
+        assertTrue(System.currentTimeMillis() - started < 30000);
+        assertEquals(1, delegate.batches.size());
+        assertEquals(2, delegate.batches.get(0).getOperations().size());
+    }
+
+    @Test
+    public void shouldBatchEachNodeSeparately() throws Exception {
+        executor = new BatchingRemoteCommandExecutor(delegate, 50, 1000);
+        final List<Patch> patches = new ArrayList<>();
+        patches.add(patch(KEY, "a", nodeA));
+        patches.add(patch(KEY, "b", nodeB));
+
+        final Object[] results = executeConcurrently(patches);
+
+        assertEquals(2, delegate.batches.size());
+        assertEquals("a", ((StringValue) results[0]).getValue());
+        assertEquals("b", ((StringValue) results[1]).getValue());
+    }
+
+    @Test
+    public void shouldNotCoalescePatchesAcrossAPutOfTheSameKey() throws Exception {
+        executor = new BatchingRemoteCommandExecutor(delegate, 1000, 3);
+        // The batch fills at three operations, so run these one after another to keep their order
+        final Thread first = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                executor.execute(patch(KEY, "first", nodeA), RemoteBehavior.ALLOW_FORWARDING);
+            }
+        });
+        final Thread second = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                executor.execute(new Put(TimeUnit.SECONDS, new StringValue("put"), 10, KEY, nodeA), RemoteBehavior.ALLOW_FORWARDING);
+            }
+        });
+        first.start();
+        Thread.sleep(50);
+        second.start();
+        Thread.sleep(50);
+        executor.execute(patch(KEY, "last", nodeA), RemoteBehavior.ALLOW_FORWARDING);
+        first.join();
+        second.join();
+
+        final List<BatchOperation> operations = delegate.batches.get(0).getOperations();
+        assertEquals(3, operations.size());
+        assertEquals(BatchOperation.Type.PATCH, operations.get(0).getType());
+        assertEquals(BatchOperation.Type.PUT, operations.get(1).getType());
+        assertEquals(BatchOperation.Type.PATCH, operations.get(2).getType());
+    }
+
+    @Test
+    public void shouldFailEveryOperationInAFailedBatch() throws Exception {
+        delegate.failure = new RemoteConnectionException("node is down", null);
+        executor = new BatchingRemoteCommandExecutor(delegate, 50, 1000);
+        final List<Patch> patches = new ArrayList<>();
+        patches.add(patch(KEY, "a", nodeA));
+        patches.add(patch("another-key", "b", nodeA));
+
+        final Object[] results = executeConcurrently(patches);
+
+        assertSame(delegate.failure, results[0]);
+        assertSame(delegate.failure, results[1]);
+    }
+
+    @Test
+    public void shouldCloseABatchOnceItReachesTheByteLimit() throws Exception {
+        executor = new BatchingRemoteCommandExecutor(delegate, 200, 1000, 16000);
+        final String value = new String(new char[600]).replace('\0', 'a');
+        final List<Put> puts = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            puts.add(new Put(TimeUnit.SECONDS, new StringValue(value), 10, KEY + i, nodeA));
+        }
+
+        executeConcurrently(puts);
+
+        assertTrue(delegate.batches.size() >= 2);
+        int operations = 0;
+        for (Batch batch : delegate.batches) {
+            assertTrue(batch.getOperations().size() < 30);
+            operations += batch.getOperations().size();
+        }
+        assertEquals(30, operations);
+    }
+
+    @Test
+    public void shouldSendLargeOperationsWithoutBatchingThem() throws Exception {
+        executor = new BatchingRemoteCommandExecutor(delegate, 200, 1000, 16000);
+        final Put put = new Put(TimeUnit.SECONDS, new StringValue(new String(new char[2000]).replace('\0', 'a')), 10, KEY, nodeA);
+
+        assertEquals(Boolean.TRUE, executor.execute(put, RemoteBehavior.ALLOW_FORWARDING));
+        assertTrue(delegate.batches.isEmpty());
+        assertEquals(1, delegate.unbatched.size());
+        assertSame(put, delegate.unbatched.get(0));
+    }
+
+    @Test
+    public void shouldSendBatchesOfDifferentKeysToANodeConcurrently() throws Exception {
+        delegate.delayMillis = 100;
+        executor = new BatchingRemoteCommandExecutor(delegate, 10, 1);
+        final List<Patch> patches = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            patches.add(patch(KEY + i, "value-" + i, nodeA));
+        }
+
+        final Object[] results = executeConcurrently(patches);
+
+        assertEquals(12, delegate.batches.size());
+        assertTrue(delegate.maxInFlight.get() > 1);
+        assertTrue(delegate.maxInFlight.get() <= BatchingRemoteCommandExecutor.MAX_IN_FLIGHT_PER_NODE);
+        for (int i = 0; i < results.length; i++) {
+            assertEquals("value-" + i, ((StringValue) results[i]).getValue());
+        }
+    }
+
+    @Test
+    public void shouldSendOneBatchAtATimeForTheSameKey() throws Exception {
+        delegate.delayMillis = 20;
+        executor = new BatchingRemoteCommandExecutor(delegate, 10, 1);
+        final List<Patch> patches = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            patches.add(patch(KEY, "value-" + i, nodeA));
+        }
+
+        final Object[] results = executeConcurrently(patches);
+
+        assertEquals(10, delegate.batches.size());
+        assertEquals(1, delegate.maxInFlight.get());
+        for (int i = 0; i < results.length; i++) {
+            assertEquals("value-" + i, ((StringValue) results[i]).getValue());
+        }
+    }
+
+    /**
+     * Answers every batched patch with the value of the patch and every get with the key.
+     */
+    private static class RecordingExecutor extends RemoteCommandExecutor {
+        private final List<Batch> batches = new CopyOnWriteArrayList<>();
+        private final List<RemoteCommand> unbatched = new CopyOnWriteArrayList<>();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+        private volatile RuntimeException failure;
+        private volatile long delayMillis;
+        private final ObjectSerializer objectSerializer = new ObjectSerializer(getClass().getClassLoader());
+
+        RecordingExecutor() {
+            super(null, null, null);
+        }
+
+        @Override
+        public Object execute(RemoteCommand command, RemoteBehavior behavior) {
+            if (!(command instanceof Batch)) {
+                unbatched.add(command);
+                return Boolean.TRUE;
+            }
+
+            final Batch batch = (Batch) command;
+            batches.add(batch);
+
+            if (failure != null) {
+                throw failure;
+            }
+
+            final int concurrent = inFlight.incrementAndGet();
+            while (maxInFlight.get() < concurrent) {
+                maxInFlight.compareAndSet(maxInFlight.get(), concurrent);
+            }
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+
+            final List<BatchResult> results = new ArrayList<>();
+            for (BatchOperation operation : batch.getOperations()) {
+                switch (operation.getType()) {
+                    case PATCH:
+                        final Serializable[] values = new Serializable[operation.getPatches().size()];
+                        for (int i = 0; i < values.length; i++) {
+                            values[i] = deserialize(operation.getPatches().get(i)).newFromPatch();
+                        }
+                        results.add(BatchResult.of(values));
+                        break;
+                    case GET:
+                        results.add(BatchResult.of(new StringValue(operation.getKey())));
+                        break;
+                    default:
+                        results.add(BatchResult.of(Boolean.TRUE));
+                }
+            }
+
+            return results;
+        }
+
+        private StringValue.Patch deserialize(byte[] patch) {
+            try {
+                return (StringValue.Patch) objectSerializer.readObject(patch);
+            } catch (IOException | ClassNotFoundException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
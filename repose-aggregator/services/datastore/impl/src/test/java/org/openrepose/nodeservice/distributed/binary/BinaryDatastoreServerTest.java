@@ -0,0 +1,238 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.nodeservice.distributed.binary;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openrepose.core.services.datastore.Datastore;
+import org.openrepose.core.services.datastore.DatastoreAccessControl;
+import org.openrepose.core.services.datastore.DatastoreService;
+import org.openrepose.core.services.datastore.StringValue;
+import org.openrepose.core.services.datastore.codec.ValueCodecRegistry;
+import org.openrepose.core.services.datastore.codec.ValueEncodingException;
+import org.openrepose.core.services.datastore.distributed.ClusterConfiguration;
+import org.openrepose.core.services.datastore.impl.distributed.remote.binary.BinaryConnection;
+import org.openrepose.core.services.datastore.impl.distributed.remote.binary.BinaryProtocol;
+import org.openrepose.core.services.datastore.impl.distributed.remote.binary.BinaryRequest;
+import org.openrepose.core.services.datastore.impl.distributed.remote.binary.BinaryResponse;
+import org.openrepose.core.services.datastore.impl.distributed.remote.binary.DatastoreValueCodecs;
+import org.openrepose.nodeservice.distributed.servlet.DistributedDatastoreServlet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class BinaryDatastoreServerTest {
+
+    private static final long TIMEOUT_MILLIS = 5000;
+
+    private Datastore localDatastore;
+    private DistributedDatastoreServlet ddServlet;
+    private BinaryDatastoreServer server;
+    private ValueCodecRegistry codecs;
+    private InetSocketAddress endpoint;
+    private BinaryConnection connection;
+
+    @Before
+    public void setUp() throws Exception {
+        localDatastore = mock(Datastore.class);
+        final DatastoreService datastoreService = mock(DatastoreService.class);
+        when(datastoreService.getDefaultDatastore()).thenReturn(localDatastore);
+
+        ddServlet = new DistributedDatastoreServlet(datastoreService, mock(ClusterConfiguration.class),
+                new DatastoreAccessControl(Collections.<InetAddress>emptyList(), true));
+        codecs = DatastoreValueCodecs.newRegistry();
+        server = new BinaryDatastoreServer(ddServlet, codecs);
+
+        final int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        server.runServer(port);
+        endpoint = new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+        connection = BinaryConnection.open(endpoint, 1000, codecs);
+    }
+
+    @After
+    public void tearDown() {
+        connection.close();
+        server.stop();
+    }
+
+    @Test
+    public void shouldGetAStoredValue() throws IOException {
+        when(localDatastore.get("key")).thenReturn(new StringValue("value"));
+
+        final BinaryResponse response = connection.send(BinaryProtocol.OP_GET, "key", 0, null, TIMEOUT_MILLIS);
+
+        assertEquals(BinaryProtocol.STATUS_OK, response.getStatus());
+        assertEquals("value", ((StringValue) response.getValue()).getValue());
+    }
+
+    @Test
+    public void shouldReportAMissingValue() throws IOException {
+        final BinaryResponse response = connection.send(BinaryProtocol.OP_GET, "missing", 0, null, TIMEOUT_MILLIS);
+
+        assertEquals(BinaryProtocol.STATUS_NOT_FOUND, response.getStatus());
+    }
+
+    @Test
+    public void shouldPutAValueWithItsTtl() throws IOException {
+        final BinaryResponse response = connection.send(BinaryProtocol.OP_PUT, "key", 30, new StringValue("value"), TIMEOUT_MILLIS);
+
+        assertEquals(BinaryProtocol.STATUS_OK, response.getStatus());
+        verify(localDatastore).put(eq("key"), any(StringValue.class), eq(30), eq(TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldCarryStringValuesLargerThanSixtyFourKilobytes() throws IOException {
+        final StringBuilder large = new StringBuilder();
+        while (large.length() < 100 * 1024) {
+            large.append("value \u00e9\u4e2d ");
+        }
+        when(localDatastore.get("key")).thenReturn(new StringValue(large.toString()));
+
+        final BinaryResponse response = connection.send(BinaryProtocol.OP_GET, "key", 0, null, TIMEOUT_MILLIS);
+
+        assertEquals(BinaryProtocol.STATUS_OK, response.getStatus());
+        assertEquals(large.toString(), ((StringValue) response.getValue()).getValue());
+    }
+
+    @Test
+    public void shouldCarryANullStringValue() throws IOException {
+        when(localDatastore.get("key")).thenReturn(new StringValue(null));
+
+        final BinaryResponse response = connection.send(BinaryProtocol.OP_GET, "key", 0, null, TIMEOUT_MILLIS);
+
+        assertEquals(BinaryProtocol.STATUS_OK, response.getStatus());
+        assertNull(((StringValue) response.getValue()).getValue());
+    }
+
+    @Test
+    public void shouldFailOnlyTheOperationWhenAValueCanNotBeEncoded() throws IOException {
+        final char[] tooLarge = new char[BinaryProtocol.MAX_FRAME_LENGTH];
+        Arrays.fill(tooLarge, 'a');
+
+        try {
+            connection.send(BinaryProtocol.OP_PUT, "key", 30, new StringValue(new String(tooLarge)), TIMEOUT_MILLIS);
+            fail("Expected the value to be too large to encode");
+        } catch (ValueEncodingException expected) {
+            assertTrue(connection.isOpen());
+        }
+
+        assertEquals(BinaryProtocol.STATUS_OK, connection.send(BinaryProtocol.OP_PUT, "key", 30, new StringValue("value"), TIMEOUT_MILLIS).getStatus());
+    }
+
+    @Test
+    public void shouldAnswerAnUndecodableRequestWithoutClosingTheConnection() throws IOException {
+        final ByteArrayOutputStream truncated = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(truncated);
+        out.writeInt(7);
+        out.writeByte(BinaryProtocol.OP_PUT);
+        out.writeUTF("key");
+        out.writeInt(30);
+        out.flush();
+
+        try (SocketChannel raw = SocketChannel.open(endpoint)) {
+            BinaryProtocol.writeFrame(raw, truncated.toByteArray());
+            final BinaryResponse failed = BinaryResponse.fromPayload(BinaryProtocol.readFrame(raw), codecs);
+
+            assertEquals(7, failed.getRequestId());
+            assertEquals(BinaryProtocol.STATUS_ERROR, failed.getStatus());
+
+            when(localDatastore.get("key")).thenReturn(new StringValue("value"));
+            BinaryProtocol.writeFrame(raw, new BinaryRequest(8, BinaryProtocol.OP_GET, "key", 0, null).toPayload(codecs));
+            final BinaryResponse answered = BinaryResponse.fromPayload(BinaryProtocol.readFrame(raw), codecs);
+
+            assertEquals(8, answered.getRequestId());
+            assertEquals(BinaryProtocol.STATUS_OK, answered.getStatus());
+        }
+    }
+
+    @Test
+    public void shouldRejectANonPositiveTtl() throws IOException {
+        final BinaryResponse response = connection.send(BinaryProtocol.OP_PUT, "key", 0, new StringValue("value"), TIMEOUT_MILLIS);
+
+        assertEquals(BinaryProtocol.STATUS_ERROR, response.getStatus());
+        verify(localDatastore, never()).put(anyString(), any(StringValue.class), anyInt(), any(TimeUnit.class));
+    }
+
+    @Test
+    public void shouldReportWhetherADeleteRemovedAnything() throws IOException {
+        when(localDatastore.remove("key")).thenReturn(true);
+
+        assertEquals(BinaryProtocol.STATUS_OK, connection.send(BinaryProtocol.OP_DELETE, "key", 0, null, TIMEOUT_MILLIS).getStatus());
+        assertEquals(BinaryProtocol.STATUS_NOT_FOUND, connection.send(BinaryProtocol.OP_DELETE, "other", 0, null, TIMEOUT_MILLIS).getStatus());
+    }
+
+    @Test
+    public void shouldAnswerPipelinedRequestsFromManyThreads() throws Exception {
+        when(localDatastore.get(anyString())).thenReturn(new StringValue("value"));
+
+        final Thread[] threads = new Thread[8];
+        final IOException[] failures = new IOException[threads.length];
+        for (int i = 0; i < threads.length; i++) {
+            final int index = i;
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int request = 0; request < 100; request++) {
+                            final BinaryResponse response = connection.send(BinaryProtocol.OP_GET, "key-" + index, 0, null, TIMEOUT_MILLIS);
+                            assertEquals(BinaryProtocol.STATUS_OK, response.getStatus());
+                        }
+                    } catch (IOException ioe) {
+                        failures[index] = ioe;
+                    }
+                }
+            });
+            threads[i].start();
+        }
+
+        for (int i = 0; i < threads.length; i++) {
+            threads[i].join();
+            assertNull(failures[i]);
+        }
+    }
+
+    @Test
+    public void shouldCloseConnectionsFromHostsNotInTheAcl() throws Exception {
+        ddServlet.updateAcl(new DatastoreAccessControl(Collections.<InetAddress>emptyList(), false));
+        final BinaryConnection rejected = BinaryConnection.open(endpoint, 1000, codecs);
+
+        try {
+            rejected.send(BinaryProtocol.OP_GET, "key", 0, null, TIMEOUT_MILLIS);
+            fail("Expected the connection to be closed by the server");
+        } catch (IOException expected) {
+            assertFalse(rejected.isOpen());
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.nodeservice.distributed.servlet;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.openrepose.commons.utils.encoding.UUIDEncodingProvider;
+import org.openrepose.core.services.datastore.Datastore;
+import org.openrepose.core.services.datastore.DatastoreAccessControl;
+import org.openrepose.core.services.datastore.DatastoreService;
+import org.openrepose.core.services.datastore.StringValue;
+import org.openrepose.core.services.datastore.distributed.ClusterConfiguration;
+import org.openrepose.core.services.datastore.distributed.ClusterView;
+import org.openrepose.core.services.datastore.distributed.NearCacheConfiguration;
+import org.openrepose.core.services.datastore.distributed.RemoteBehavior;
+import org.openrepose.core.services.datastore.impl.distributed.CacheRequest;
+import org.openrepose.core.services.datastore.impl.distributed.DatastoreHeader;
+import org.openrepose.core.services.datastore.impl.distributed.HashRingDatastore;
+import org.openrepose.core.services.datastore.impl.distributed.NearCacheDatastore;
+import org.openrepose.core.services.datastore.impl.distributed.remote.RemoteCommandExecutor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Collections;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+public class DistributedDatastoreServletTest {
+
+    private static final String TOKEN_KEY = "TOKEN:abc";
+    private static final StringValue TOKEN = new StringValue("token");
+
+    private HashRingDatastore hashRingDatastore;
+    private NearCacheDatastore nearCache;
+    private DistributedDatastoreServlet servlet;
+
+    @Before
+    public void setUp() throws Exception {
+        hashRingDatastore = mock(HashRingDatastore.class);
+        when(hashRingDatastore.getHash(anyString())).thenAnswer(new Answer<byte[]>() {
+            @Override
+            public byte[] answer(InvocationOnMock invocation) throws Throwable {
+                return MessageDigest.getInstance("MD5").digest(
+                        ((String) invocation.getArguments()[0]).getBytes(StandardCharsets.UTF_8));
+            }
+        });
+        when(hashRingDatastore.isRemotelyOwned(any(byte[].class))).thenReturn(true);
+        when(hashRingDatastore.get(anyString(), any(byte[].class), eq(RemoteBehavior.ALLOW_FORWARDING)))
+                .thenReturn(TOKEN);
+
+        final ClusterView clusterView = mock(ClusterView.class);
+        when(clusterView.members()).thenReturn(new InetSocketAddress[0]);
+        nearCache = new NearCacheDatastore(hashRingDatastore, mock(RemoteCommandExecutor.class), clusterView,
+                UUIDEncodingProvider.getInstance(),
+                new NearCacheConfiguration(Collections.singletonList("TOKEN:"), 30, 5));
+
+        final DatastoreService datastoreService = mock(DatastoreService.class);
+        when(datastoreService.getDefaultDatastore()).thenReturn(mock(Datastore.class));
+        when(datastoreService.getDatastore("distributed/hash-ring")).thenReturn(nearCache);
+
+        servlet = new DistributedDatastoreServlet(datastoreService, mock(ClusterConfiguration.class),
+                new DatastoreAccessControl(Collections.<InetAddress>emptyList(), true));
+    }
+
+    @After
+    public void tearDown() {
+        nearCache.destroy();
+    }
+
+    @Test
+    public void shouldEvictAKeyFromTheNearCacheWhenAnotherMemberInvalidatesIt() throws Exception {
+        nearCache.get(TOKEN_KEY);
+        final String hashedKey = UUIDEncodingProvider.getInstance().encode(hashRingDatastore.getHash(TOKEN_KEY));
+
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getRequestURI()).thenReturn(CacheRequest.INVALIDATE_URI_PATH + hashedKey);
+        when(request.getMethod()).thenReturn("DELETE");
+        when(request.getHeader(DatastoreHeader.HOST_KEY.toString())).thenReturn("temp-host-key");
+        final HttpServletResponse response = mock(HttpServletResponse.class);
+
+        servlet.service(request, response);
+        nearCache.get(TOKEN_KEY);
+
+        verify(response).setStatus(HttpServletResponse.SC_NO_CONTENT);
+        verify(response, never()).setStatus(HttpServletResponse.SC_NOT_FOUND);
+        verify(hashRingDatastore, times(2)).get(anyString(), any(byte[].class), eq(RemoteBehavior.ALLOW_FORWARDING));
+    }
+
+    @Test
+    public void shouldNotServeRequestsOutsideTheDatastorePaths() throws Exception {
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getRequestURI()).thenReturn("/powerapi/somewhere-else");
+        when(request.getMethod()).thenReturn("DELETE");
+        final HttpServletResponse response = mock(HttpServletResponse.class);
+
+        servlet.service(request, response);
+
+        verify(response).setStatus(HttpServletResponse.SC_NOT_FOUND);
+    }
+}
@@ -19,6 +19,8 @@
  */
 package org.openrepose.core.services.httpclient;
 
+import org.apache.http.pool.PoolStats;
+
 import java.util.Set;
 
 /**
@@ -73,6 +75,12 @@ public interface HttpClientService {
      */
     void shutdown();
 
+    /**
+     * Returns the leased, pending, available and maximum connection counts of the given client's pool, or of the
+     * default pool if the given client is not available. No pool is created to answer.
+     */
+    PoolStats getPoolStats(String clientId);
+
     /**
      * Returns the maximum number of connections available for the given clientId
      */
@@ -27,6 +27,7 @@ import org.apache.http.conn.scheme.SchemeRegistry;
 import org.apache.http.conn.ssl.SSLSocketFactory;
 import org.apache.http.impl.client.DefaultHttpClient;
 import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.impl.conn.SchemeRegistryFactory;
 import org.apache.http.params.BasicHttpParams;
 import org.apache.http.params.CoreConnectionPNames;
 import org.apache.http.params.HttpParams;
@@ -36,10 +37,12 @@ import org.slf4j.LoggerFactory;
 
 import javax.net.ssl.SSLContext;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 public final class HttpConnectionPoolProvider {
 
     public static final String CLIENT_INSTANCE_ID = "CLIENT_INSTANCE_ID";
+    public static final String IDLE_TIMEOUT_PARAM = "http.conn-manager.idle-timeout";
     private static final Logger LOG = LoggerFactory.getLogger(HttpConnectionPoolProvider.class);
     private static final int DEFAULT_HTTPS_PORT = 443;
     private static final String CHUNKED_ENCODING_PARAM = "chunked-encoding";
@@ -49,7 +52,9 @@ public final class HttpConnectionPoolProvider {
 
     public static HttpClient genClient(PoolType poolConf) {
 
-        PoolingClientConnectionManager cm = new PoolingClientConnectionManager();
+        // A time to live of zero or less keeps connections for as long as they stay open
+        PoolingClientConnectionManager cm = new PoolingClientConnectionManager(SchemeRegistryFactory.createDefault(),
+                poolConf.getHttpConnManagerConnectionTtl(), TimeUnit.MILLISECONDS);
 
         cm.setDefaultMaxPerRoute(poolConf.getHttpConnManagerMaxPerRoute());
         cm.setMaxTotal(poolConf.getHttpConnManagerMaxTotal());
@@ -65,6 +70,7 @@ public final class HttpConnectionPoolProvider {
         params.setParameter(CoreConnectionPNames.MAX_LINE_LENGTH, poolConf.getHttpConnectionMaxLineLength());
         params.setParameter(CoreConnectionPNames.SOCKET_BUFFER_SIZE, poolConf.getHttpSocketBufferSize());
         params.setBooleanParameter(CHUNKED_ENCODING_PARAM, poolConf.isChunkedEncoding());
+        params.setIntParameter(IDLE_TIMEOUT_PARAM, poolConf.getHttpConnManagerIdleTimeout());
 
         final String uuid = UUID.randomUUID().toString();
         params.setParameter(CLIENT_INSTANCE_ID, uuid);
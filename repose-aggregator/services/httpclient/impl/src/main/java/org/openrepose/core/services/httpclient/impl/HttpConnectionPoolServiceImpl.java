@@ -20,6 +20,7 @@
 package org.openrepose.core.services.httpclient.impl;
 
 import org.apache.http.client.HttpClient;
+import org.apache.http.conn.ClientConnectionManager;
 import org.apache.http.impl.conn.PoolingClientConnectionManager;
 import org.apache.http.params.CoreConnectionPNames;
 import org.apache.http.pool.PoolStats;
@@ -41,11 +42,17 @@ import javax.inject.Inject;
 import javax.inject.Named;
 import java.io.IOException;
 import java.net.URL;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import static org.openrepose.core.services.httpclient.impl.HttpConnectionPoolProvider.CLIENT_INSTANCE_ID;
+import static org.openrepose.core.services.httpclient.impl.HttpConnectionPoolProvider.IDLE_TIMEOUT_PARAM;
 
 
 @Named
@@ -55,13 +62,15 @@ public class HttpConnectionPoolServiceImpl implements HttpClientService {
     private static final String DEFAULT_POOL_ID = "DEFAULT_POOL";
     private static final Logger LOG = org.slf4j.LoggerFactory.getLogger(HttpConnectionPoolServiceImpl.class);
     private static final String httpConnectionPoolServiceReport = "HttpConnectionPoolServiceReport";
+    private static final long EVICTION_INTERVAL = 5000;
     private static PoolType DEFAULT_POOL = new PoolType();
     private final ConfigurationService configurationService;
     private final HttpClientUserManager httpClientUserManager;
     private final HealthCheckServiceProxy healthCheckServiceProxy;
     private final ConfigurationListener configurationListener;
-    private Map<String, HttpClient> poolMap;
-    private String defaultClientId;
+    private final ScheduledExecutorService connectionEvictor;
+    private volatile ConcurrentMap<String, HttpClient> poolMap;
+    private volatile String defaultClientId;
     private ClientDecommissionManager decommissionManager;
 
     @Inject
@@ -72,18 +81,31 @@ public class HttpConnectionPoolServiceImpl implements HttpClientService {
         this.configurationService = configurationService;
         this.healthCheckServiceProxy = healthCheckService.register();
         LOG.debug("Creating New HTTP Connection Pool Service");
-        poolMap = new HashMap<>();
+        poolMap = new ConcurrentHashMap<>();
         httpClientUserManager = new HttpClientUserManager();
 
         configurationListener = new ConfigurationListener();
         decommissionManager = new ClientDecommissionManager(httpClientUserManager);
-
+        connectionEvictor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                final Thread thread = new Thread(runnable, "HTTP Connection Pool Evictor");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
     }
 
     @PostConstruct
     public void init() {
         LOG.debug("Initializing HttpConnectionPoolService");
         decommissionManager.startThread();
+        connectionEvictor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                evictConnections();
+            }
+        }, EVICTION_INTERVAL, EVICTION_INTERVAL, TimeUnit.MILLISECONDS);
 
         //Set up the configuration listener
 
@@ -111,39 +133,49 @@ public class HttpConnectionPoolServiceImpl implements HttpClientService {
 
     @Override
     public HttpClientResponse getClient(String clientId) throws HttpClientNotFoundException {
+        final ConcurrentMap<String, HttpClient> pools = poolMap;
 
-        if (poolMap.isEmpty()) {
+        if (pools.isEmpty()) {
             defaultClientId = DEFAULT_POOL_ID;
-            HttpClient httpClient = clientGenerator(DEFAULT_POOL);
-            poolMap.put(defaultClientId, httpClient);
-        }
-
-        if (clientId != null && !clientId.isEmpty() && !isAvailable(clientId)) {
-            HttpClient httpClient = clientGenerator(DEFAULT_POOL);
-            poolMap.put(clientId, httpClient);
+            getOrCreateClient(pools, DEFAULT_POOL_ID);
         }
 
         final HttpClient requestedClient;
 
         if (clientId == null || clientId.isEmpty()) {
-            requestedClient = poolMap.get(defaultClientId);
+            requestedClient = getPool(pools, defaultClientId);
         } else {
-            if (isAvailable(clientId)) {
-                requestedClient = poolMap.get(clientId);
-            } else {
-                throw new HttpClientNotFoundException("Pool " + clientId + "not available");
-            }
+            requestedClient = getOrCreateClient(pools, clientId);
+        }
+
+        if (requestedClient == null) {
+            throw new HttpClientNotFoundException("Pool " + clientId + " not available");
         }
 
         String clientInstanceId = requestedClient.getParams().getParameter(CLIENT_INSTANCE_ID).toString();
         String userId = httpClientUserManager.addUser(clientInstanceId);
 
-        PoolStats poolStats = ((PoolingClientConnectionManager) requestedClient.getConnectionManager()).getTotalStats();
-        LOG.trace("Client requested, pool currently leased: {}, available: {}, pending: {}, max: {}", poolStats.getLeased(), poolStats.getAvailable(), poolStats.getPending(), poolStats.getMax());
-
         return new HttpClientResponseImpl(requestedClient, clientId, clientInstanceId, userId);
     }
 
+    /**
+     * Two threads may ask for the same unknown pool at once, and only one of them may create it.
+     */
+    private HttpClient getOrCreateClient(ConcurrentMap<String, HttpClient> pools, String clientId) {
+        HttpClient client = pools.get(clientId);
+        if (client == null) {
+            final HttpClient newClient = clientGenerator(DEFAULT_POOL);
+            client = pools.putIfAbsent(clientId, newClient);
+            if (client == null) {
+                client = newClient;
+            } else {
+                newClient.getConnectionManager().shutdown();
+            }
+        }
+
+        return client;
+    }
+
     @Override
     public void releaseClient(HttpClientResponse httpClientResponse) {
         String clientInstanceId = httpClientResponse.getClientInstanceId();
@@ -153,7 +185,7 @@ public class HttpConnectionPoolServiceImpl implements HttpClientService {
     }
 
     public void configure(HttpConnectionPoolConfig config) {
-        HashMap<String, HttpClient> newPoolMap = new HashMap<String, HttpClient>();
+        ConcurrentMap<String, HttpClient> newPoolMap = new ConcurrentHashMap<>();
 
         for (PoolType poolType : config.getPool()) {
             if (poolType.isDefault()) {
@@ -162,16 +194,58 @@ public class HttpConnectionPoolServiceImpl implements HttpClientService {
             newPoolMap.put(poolType.getId(), clientGenerator(poolType));
         }
 
-        if (!poolMap.isEmpty()) {
-            decommissionManager.decommissionClient(poolMap);
+        final Map<String, HttpClient> oldPoolMap = poolMap;
+        poolMap = newPoolMap;
+
+        if (!oldPoolMap.isEmpty()) {
+            decommissionManager.decommissionClient(oldPoolMap);
         }
+    }
 
-        poolMap = newPoolMap;
+    /**
+     * Closes the connections that have outlived their pool's time to live or have been idle for longer than its idle
+     * timeout, so that neither the origin nor a firewall closes them from under a request.
+     */
+    void evictConnections() {
+        for (Map.Entry<String, HttpClient> pool : poolMap.entrySet()) {
+            final HttpClient client = pool.getValue();
+            final ClientConnectionManager connectionManager = client.getConnectionManager();
+            final int idleTimeout = client.getParams().getIntParameter(IDLE_TIMEOUT_PARAM, 0);
+
+            try {
+                connectionManager.closeExpiredConnections();
+                if (idleTimeout > 0) {
+                    connectionManager.closeIdleConnections(idleTimeout, TimeUnit.MILLISECONDS);
+                }
+            } catch (RuntimeException e) {
+                LOG.warn("Unable to evict connections from HTTP connection pool {}", pool.getKey(), e);
+            }
+        }
+    }
+
+    @Override
+    public PoolStats getPoolStats(String clientId) {
+        final ConcurrentMap<String, HttpClient> pools = poolMap;
+        HttpClient client = getPool(pools, clientId);
+        if (client == null) {
+            client = getPool(pools, defaultClientId);
+        }
+
+        if (client == null) {
+            return new PoolStats(0, 0, 0, DEFAULT_POOL.getHttpConnManagerMaxTotal());
+        }
+
+        return ((PoolingClientConnectionManager) client.getConnectionManager()).getTotalStats();
+    }
+
+    // The pools are kept in a concurrent map, which can not be asked for a null id
+    private static HttpClient getPool(Map<String, HttpClient> pools, String clientId) {
+        return clientId != null ? pools.get(clientId) : null;
     }
 
     @Override
     public boolean isAvailable(String clientId) {
-        return poolMap.containsKey(clientId);
+        return getPool(poolMap, clientId) != null;
     }
 
     @Override
@@ -182,6 +256,7 @@ public class HttpConnectionPoolServiceImpl implements HttpClientService {
     @Override
     public void shutdown() {
         LOG.info("Shutting down HTTP connection pools");
+        connectionEvictor.shutdownNow();
         for (HttpClient client : poolMap.values()) {
             client.getConnectionManager().shutdown();
         }
@@ -190,9 +265,9 @@ public class HttpConnectionPoolServiceImpl implements HttpClientService {
 
     @Override
     public int getMaxConnections(String clientId) {
-        if (poolMap.containsKey(clientId)) {
+        if (isAvailable(clientId)) {
             return ((PoolingClientConnectionManager) poolMap.get(clientId).getConnectionManager()).getMaxTotal();
-        } else if (poolMap.containsKey(defaultClientId)) {
+        } else if (isAvailable(defaultClientId)) {
             return ((PoolingClientConnectionManager) poolMap.get(defaultClientId).getConnectionManager()).getMaxTotal();
         } else {
             return DEFAULT_POOL.getHttpConnManagerMaxTotal();
@@ -201,9 +276,9 @@ public class HttpConnectionPoolServiceImpl implements HttpClientService {
 
     @Override
     public int getSocketTimeout(String clientId) {
-        if (poolMap.containsKey(clientId)) {
+        if (isAvailable(clientId)) {
             return poolMap.get(clientId).getParams().getIntParameter(CoreConnectionPNames.SO_TIMEOUT, 0);
-        } else if (poolMap.containsKey(defaultClientId)) {
+        } else if (isAvailable(defaultClientId)) {
             return poolMap.get(defaultClientId).getParams().getIntParameter(CoreConnectionPNames.SO_TIMEOUT, 0);
         } else {
             return DEFAULT_POOL.getHttpSocketTimeout();
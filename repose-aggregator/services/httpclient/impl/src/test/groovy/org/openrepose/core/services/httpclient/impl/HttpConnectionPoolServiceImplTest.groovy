@@ -22,6 +22,7 @@ package org.openrepose.core.services.httpclient.impl
 import org.apache.http.client.HttpClient
 import org.apache.http.conn.ClientConnectionManager
 import org.apache.http.impl.conn.PoolingClientConnectionManager
+import org.apache.http.params.BasicHttpParams
 import org.apache.http.params.CoreConnectionPNames
 import org.junit.Before
 import org.junit.Test
@@ -31,6 +32,8 @@ import org.openrepose.core.services.config.ConfigurationService
 import org.openrepose.core.services.healthcheck.HealthCheckService
 import org.openrepose.core.services.httpclient.HttpClientResponse
 
+import java.util.concurrent.TimeUnit
+
 import static org.junit.Assert.*
 import static org.mockito.Mockito.*
 
@@ -233,4 +236,33 @@ class HttpConnectionPoolServiceImplTest {
         assertEquals(POOL2_SO_TIMEOUT, soTimeoutUnk);
         assertEquals(POOL2_SO_TIMEOUT, soTimeoutNul);
     }
+
+    @Test
+    void getPoolStatsFallsBackToTheDefaultPool() {
+        assertEquals(POOL1_MAX_CON, srv.getPoolStats(POOL1_ID).getMax());
+        assertEquals(POOL2_MAX_CON, srv.getPoolStats(POOLU_ID).getMax());
+        assertEquals(POOL2_MAX_CON, srv.getPoolStats(null).getMax());
+        assertFalse("Should not create a pool to report on", srv.isAvailable(POOLU_ID));
+    }
+
+    @Test
+    void shouldEvictIdleConnectionsFromPoolsWithAnIdleTimeout() {
+        HttpClient idleClient = mock(HttpClient.class)
+        ClientConnectionManager idleConnMgr = mock(ClientConnectionManager.class)
+        when(idleClient.getConnectionManager()).thenReturn(idleConnMgr)
+        when(idleClient.getParams()).thenReturn(new BasicHttpParams().setIntParameter(HttpConnectionPoolProvider.IDLE_TIMEOUT_PARAM, 1000))
+        HttpClient keptClient = mock(HttpClient.class)
+        ClientConnectionManager keptConnMgr = mock(ClientConnectionManager.class)
+        when(keptClient.getConnectionManager()).thenReturn(keptConnMgr)
+        when(keptClient.getParams()).thenReturn(new BasicHttpParams())
+        srv.poolMap.put("IDLE", idleClient)
+        srv.poolMap.put("KEPT", keptClient)
+
+        srv.evictConnections()
+
+        verify(idleConnMgr).closeExpiredConnections()
+        verify(idleConnMgr).closeIdleConnections(1000, TimeUnit.MILLISECONDS)
+        verify(keptConnMgr).closeExpiredConnections()
+        verify(keptConnMgr, never()).closeIdleConnections(anyLong(), any(TimeUnit.class))
+    }
 }
@@ -29,6 +29,9 @@ import java.io.Serializable;
  */
 public class CachedRateLimit implements Serializable {
 
+    // Pinned to the value computed for the original class, so limits serialized before it changed can still be read
+    private static final long serialVersionUID = 3012371792101609510L;
+
     private final int maxCount;
     private final long unit;
     private final String configId;
@@ -63,6 +66,15 @@ public class CachedRateLimit implements Serializable {
         this.timestamp = timestamp;
     }
 
+    CachedRateLimit(int maxCount, long unit, String configId, int count, long timestamp) {
+        this.maxCount = maxCount;
+        this.unit = unit;
+        this.configId = configId;
+
+        this.count = count;
+        this.timestamp = timestamp;
+    }
+
     public int maxAmount() {
         return maxCount;
     }
@@ -0,0 +1,87 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.core.services.ratelimit.cache;
+
+import org.openrepose.core.services.ratelimit.config.ConfiguredRatelimit;
+
+/**
+ * Counts requests in a window that starts with the first hit after the previous window expired. Clients may send up
+ * to twice the limit across the boundary between two windows.
+ * <p/>
+ * The long form packs the window start above a 24 bit hit count, which saturates rather than overflows.
+ */
+final class FixedWindowAlgorithm extends LimitAlgorithm {
+
+    static final FixedWindowAlgorithm INSTANCE = new FixedWindowAlgorithm();
+
+    private static final int COUNT_BITS = 24;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+    static final int MAX_COUNT = (int) COUNT_MASK;
+
+    private FixedWindowAlgorithm() {
+    }
+
+    @Override
+    CachedRateLimit hit(ConfiguredRatelimit config, CachedRateLimit current, long now) {
+        // Limits left behind by another algorithm before a configuration change start over
+        if (current == null || current.getClass() != CachedRateLimit.class || now - current.timestamp() > current.unit()) {
+            return new CachedRateLimit(config, 1, now);
+        }
+
+        return new CachedRateLimit(config, current.amount() + 1, current.timestamp());
+    }
+
+    @Override
+    long hit(long state, ConfiguredRatelimit config, long now) {
+        if (state == 0 || now - windowStartOf(state) > unitMillis(config)) {
+            return pack(now, 1);
+        }
+
+        return pack(windowStartOf(state), Math.min(countOf(state) + 1, MAX_COUNT));
+    }
+
+    @Override
+    int amount(long state, ConfiguredRatelimit config, long now) {
+        return isExpired(state, config, now) ? 0 : countOf(state);
+    }
+
+    @Override
+    boolean isExpired(long state, ConfiguredRatelimit config, long now) {
+        return state == 0 || now - windowStartOf(state) > unitMillis(config);
+    }
+
+    @Override
+    CachedRateLimit toCachedRateLimit(long state, ConfiguredRatelimit config, long epoch, long now) {
+        return new CachedRateLimit(config.getValue(), unitMillis(config), config.getId(), countOf(state),
+                windowStartOf(state) + epoch);
+    }
+
+    private static long pack(long windowStart, int count) {
+        return (windowStart << COUNT_BITS) | count;
+    }
+
+    private static long windowStartOf(long state) {
+        return state >>> COUNT_BITS;
+    }
+
+    private static int countOf(long state) {
+        return (int) (state & COUNT_MASK);
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.core.services.ratelimit.cache;
+
+import org.openrepose.core.services.ratelimit.cache.util.TimeUnitConverter;
+import org.openrepose.core.services.ratelimit.config.ConfiguredRatelimit;
+import org.openrepose.core.services.ratelimit.config.RateLimitAlgorithm;
+
+/**
+ * Decides how hits against a {@link ConfiguredRatelimit} are counted and when they are over the limit.
+ * <p/>
+ * Every algorithm keeps its state in two forms: a {@link CachedRateLimit}, which is what {@link UserRateLimit} keeps in
+ * a datastore, and a single long, which is what {@link LocalRateLimitCache} keeps per counter. In the long form, times
+ * are relative to the creation of the cache, and a state of zero means the limit has never been hit.
+ * <p/>
+ * Hits that go over the limit are still recorded, so the amount an algorithm reports exceeds the configured value for
+ * as long as the most recent hit should be rejected.
+ */
+abstract class LimitAlgorithm {
+
+    static LimitAlgorithm forConfig(ConfiguredRatelimit config) {
+        final RateLimitAlgorithm algorithm = config.getAlgorithm();
+
+        if (algorithm == null) {
+            return FixedWindowAlgorithm.INSTANCE;
+        }
+
+        switch (algorithm) {
+            case SLIDING_WINDOW:
+                return SlidingWindowAlgorithm.INSTANCE;
+            case TOKEN_BUCKET:
+                return TokenBucketAlgorithm.INSTANCE;
+            default:
+                return FixedWindowAlgorithm.INSTANCE;
+        }
+    }
+
+    static long unitMillis(ConfiguredRatelimit config) {
+        return TimeUnitConverter.fromSchemaTypeToConcurrent(config.getUnit()).toMillis(1);
+    }
+
+    /**
+     * Records a hit against a limit held in a datastore.
+     *
+     * @param current the limit as currently stored, or null if the limit has not been hit yet
+     * @return the limit to store in place of the current one
+     */
+    abstract CachedRateLimit hit(ConfiguredRatelimit config, CachedRateLimit current, long now);
+
+    /**
+     * Records a hit against a limit held as a single long.
+     *
+     * @return the state to store in place of the current one
+     */
+    abstract long hit(long state, ConfiguredRatelimit config, long now);
+
+    /**
+     * @return the number of requests the state counts against the limit at the given time
+     */
+    abstract int amount(long state, ConfiguredRatelimit config, long now);
+
+    /**
+     * @return true if the state no longer counts any requests against the limit, so it may be discarded
+     */
+    abstract boolean isExpired(long state, ConfiguredRatelimit config, long now);
+
+    /**
+     * @param epoch the absolute time that relative times in the state are measured from
+     */
+    abstract CachedRateLimit toCachedRateLimit(long state, ConfiguredRatelimit config, long epoch, long now);
+}
@@ -0,0 +1,285 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.core.services.ratelimit.cache;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.openrepose.core.services.ratelimit.config.ConfiguredRatelimit;
+import org.openrepose.core.services.ratelimit.config.TimeUnit;
+import org.slf4j.Logger;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * Tracks rate limits in memory for a single node, without going through a {@link org.openrepose.core.services.datastore.Datastore}.
+ * <p/>
+ * Each user owns a small array of counters, one per limit key it has hit. A counter is a single long holding the state
+ * of the limit's {@link LimitAlgorithm} and is advanced with a compare-and-set, so recording a hit never takes a lock,
+ * never serializes a {@link UserRateLimit} and, for a user and limit that have been seen before, allocates nothing
+ * unless the request is over its limit. Limits are enforced exactly as they are through {@link UserRateLimit}.
+ * <p/>
+ * Users whose limits have all expired are swept out periodically by whichever request thread notices the sweep is due.
+ */
+public class LocalRateLimitCache implements RateLimitCache {
+
+    private static final Logger LOG = org.slf4j.LoggerFactory.getLogger(LocalRateLimitCache.class);
+
+    static final long SWEEP_INTERVAL_MILLIS = 60000;
+
+    private static final NextAvailableResponse REQUESTS_REMAINING = new NextAvailableResponse(null);
+    private static final AtomicLongFieldUpdater<Counter> STATE_UPDATER =
+            AtomicLongFieldUpdater.newUpdater(Counter.class, "state");
+
+    private final ConcurrentMap<String, UserCounters> users = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweep;
+    private final long epoch;
+
+    public LocalRateLimitCache() {
+        this(System.currentTimeMillis());
+    }
+
+    LocalRateLimitCache(long epoch) {
+        this.epoch = epoch;
+        this.nextSweep = new AtomicLong(epoch + SWEEP_INTERVAL_MILLIS);
+    }
+
+    @Override
+    public Map<String, CachedRateLimit> getUserRateLimits(String user) {
+        final UserCounters counters = users.get(user);
+        final Map<String, CachedRateLimit> limitMap = new HashMap<>();
+
+        if (counters != null) {
+            final long now = relativeNow();
+            for (Counter counter : counters.counters) {
+                final long state = counter.state;
+                if (state != 0) {
+                    limitMap.put(counter.limitKey, counter.toCachedRateLimit(state, now));
+                }
+            }
+        }
+
+        return Collections.unmodifiableMap(limitMap);
+    }
+
+    @Override
+    public NextAvailableResponse updateLimit(String user, List<Pair<String, ConfiguredRatelimit>> matchingLimits, TimeUnit largestUnit, int datastoreWarnLimit) {
+        return updateLimit(user, matchingLimits, datastoreWarnLimit, System.currentTimeMillis());
+    }
+
+    NextAvailableResponse updateLimit(String user, List<Pair<String, ConfiguredRatelimit>> matchingLimits, int datastoreWarnLimit, long absoluteNow) {
+        final long now = relative(absoluteNow);
+        final UserCounters counters = countersFor(user);
+
+        Counter lowestCounter = null;
+        ConfiguredRatelimit lowestConfig = null;
+        long lowestState = 0;
+        int lowestRemaining = Integer.MAX_VALUE;
+
+        // Matches UserRateLimit.applyPatch: every matching limit is hit until one of them goes over
+        for (int i = 0; i < matchingLimits.size(); i++) {
+            final Pair<String, ConfiguredRatelimit> limitEntry = matchingLimits.get(i);
+            final ConfiguredRatelimit config = limitEntry.getValue();
+            final Counter counter = counters.counterFor(limitEntry.getKey(), config, datastoreWarnLimit, user);
+            final long state = counter.hit(config, now);
+            final int remaining = config.getValue() - counter.algorithm.amount(state, config, now);
+
+            if (lowestCounter == null || remaining < lowestRemaining) {
+                lowestCounter = counter;
+                lowestConfig = config;
+                lowestState = state;
+                lowestRemaining = remaining;
+            }
+
+            if (remaining < 0) {
+                break;
+            }
+        }
+
+        sweepIfDue(now);
+
+        if (lowestCounter == null || lowestRemaining >= 0) {
+            return REQUESTS_REMAINING;
+        }
+
+        return new NextAvailableResponse(Pair.of(lowestConfig, lowestCounter.toCachedRateLimit(lowestState, now)));
+    }
+
+    private UserCounters countersFor(String user) {
+        UserCounters counters = users.get(user);
+
+        if (counters == null) {
+            final UserCounters newCounters = new UserCounters();
+            counters = users.putIfAbsent(user, newCounters);
+            if (counters == null) {
+                counters = newCounters;
+            }
+        }
+
+        return counters;
+    }
+
+    private void sweepIfDue(long now) {
+        final long sweepAt = nextSweep.get();
+
+        if (now >= sweepAt && nextSweep.compareAndSet(sweepAt, now + SWEEP_INTERVAL_MILLIS)) {
+            sweep(now);
+        }
+    }
+
+    /**
+     * Drops every user whose limits have all expired. A hit racing with the removal of its user may be recorded
+     * against the removed counters; since that hit would have started a new window anyway, at most one hit is lost.
+     */
+    void sweep(long absoluteNow) {
+        final long now = relative(absoluteNow);
+        final Iterator<Map.Entry<String, UserCounters>> entries = users.entrySet().iterator();
+
+        while (entries.hasNext()) {
+            final Map.Entry<String, UserCounters> entry = entries.next();
+            if (entry.getValue().isExpired(now)) {
+                users.remove(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    int trackedUserCount() {
+        return users.size();
+    }
+
+    private long relativeNow() {
+        return relative(System.currentTimeMillis());
+    }
+
+    /**
+     * Counters keep times relative to the creation of this cache, guarding against the clock stepping back past it.
+     */
+    private long relative(long absoluteTime) {
+        return Math.max(absoluteTime - epoch, 0);
+    }
+
+    private final class UserCounters {
+        // Copy on write; a user only gains a counter the first time it hits a new limit key
+        private volatile Counter[] counters = new Counter[0];
+
+        Counter counterFor(String limitKey, ConfiguredRatelimit config, int datastoreWarnLimit, String user) {
+            final Counter existing = find(counters, limitKey);
+
+            return existing != null ? existing : addCounter(limitKey, config, datastoreWarnLimit, user);
+        }
+
+        private synchronized Counter addCounter(String limitKey, ConfiguredRatelimit config, int datastoreWarnLimit, String user) {
+            final Counter[] current = counters;
+            final Counter existing = find(current, limitKey);
+            if (existing != null) {
+                return existing;
+            }
+
+            final Counter counter = new Counter(limitKey, config);
+            final Counter[] updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = counter;
+            counters = updated;
+
+            if (updated.length == datastoreWarnLimit) {
+                LOG.warn("Large amount of limits recorded.  Repose Rate Limited may be misconfigured, keeping track of rate limits for user: " + user + ". Please review capture groups in your rate limit configuration.");
+            }
+
+            return counter;
+        }
+
+        private Counter find(Counter[] candidates, String limitKey) {
+            for (Counter candidate : candidates) {
+                if (candidate.limitKey.equals(limitKey)) {
+                    return candidate;
+                }
+            }
+
+            return null;
+        }
+
+        boolean isExpired(long now) {
+            for (Counter counter : counters) {
+                final long state = counter.state;
+                if (state != 0 && !counter.algorithm.isExpired(state, counter.config, now)) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+
+    private final class Counter {
+        private final String limitKey;
+        private volatile ConfiguredRatelimit config;
+        private volatile LimitAlgorithm algorithm;
+        // Not private so that STATE_UPDATER, which lives in the enclosing class, may reach it
+        volatile long state;
+
+        Counter(String limitKey, ConfiguredRatelimit config) {
+            this.limitKey = limitKey;
+            this.config = config;
+            this.algorithm = LimitAlgorithm.forConfig(config);
+        }
+
+        /**
+         * @return the counter state including this hit
+         */
+        long hit(ConfiguredRatelimit currentConfig, long now) {
+            if (config != currentConfig) {
+                reconfigure(currentConfig);
+            }
+
+            while (true) {
+                final long current = state;
+                final long next = algorithm.hit(current, currentConfig, now);
+
+                if (STATE_UPDATER.compareAndSet(this, current, next)) {
+                    return next;
+                }
+            }
+        }
+
+        /**
+         * Keeps counting against the new values of a reconfigured limit, unless its algorithm changed, in which case
+         * the old state means nothing and the limit starts over.
+         */
+        private synchronized void reconfigure(ConfiguredRatelimit currentConfig) {
+            final LimitAlgorithm currentAlgorithm = LimitAlgorithm.forConfig(currentConfig);
+
+            if (currentAlgorithm != algorithm) {
+                algorithm = currentAlgorithm;
+                state = 0;
+            }
+            config = currentConfig;
+        }
+
+        CachedRateLimit toCachedRateLimit(long snapshot, long now) {
+            return algorithm.toCachedRateLimit(snapshot, config, epoch, now);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.core.services.ratelimit.cache;
+
+import org.openrepose.core.services.ratelimit.config.ConfiguredRatelimit;
+
+/**
+ * Approximates a sliding window with two buckets, each one unit long: the amount at any time is the hits in the current
+ * bucket plus the hits in the previous bucket, scaled by the fraction of the previous bucket that still overlaps the
+ * last unit of time. Unlike a fixed window, this does not let a client double its rate across a bucket boundary.
+ * <p/>
+ * The long form packs the low 24 bits of the current bucket's index above the previous and current hit counts, 20 bits
+ * each, which saturate rather than overflow. Only the current and previous bucket indexes are ever compared, so the
+ * index wrapping around is harmless.
+ */
+final class SlidingWindowAlgorithm extends LimitAlgorithm {
+
+    static final SlidingWindowAlgorithm INSTANCE = new SlidingWindowAlgorithm();
+
+    private static final int COUNT_BITS = 20;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+    private static final long INDEX_MASK = (1L << 24) - 1;
+    static final int MAX_COUNT = (int) COUNT_MASK;
+
+    private SlidingWindowAlgorithm() {
+    }
+
+    static int estimate(int currentCount, int previousCount, long elapsedInBucket, long unit) {
+        final long previousWeight = Math.max(unit - elapsedInBucket, 0);
+
+        return (int) Math.min(currentCount + (previousCount * previousWeight) / unit, Integer.MAX_VALUE);
+    }
+
+    @Override
+    CachedRateLimit hit(ConfiguredRatelimit config, CachedRateLimit current, long now) {
+        if (current instanceof SlidingWindowRateLimit) {
+            final SlidingWindowRateLimit.Window rolled = ((SlidingWindowRateLimit) current).windowAt(now);
+
+            return new SlidingWindowRateLimit(config.getValue(), unitMillis(config), config.getId(), rolled.hit());
+        }
+
+        // Buckets line up with multiples of the unit so that they start on the second, minute, hour or day
+        final long unit = unitMillis(config);
+        return new SlidingWindowRateLimit(config.getValue(), unit, config.getId(), now - now % unit, 1, 0);
+    }
+
+    @Override
+    long hit(long state, ConfiguredRatelimit config, long now) {
+        final long index = now / unitMillis(config);
+        final long rolled = rollTo(state, index);
+
+        return pack(index, Math.min(currentCountOf(rolled) + 1, MAX_COUNT), previousCountOf(rolled));
+    }
+
+    @Override
+    int amount(long state, ConfiguredRatelimit config, long now) {
+        final long unit = unitMillis(config);
+        final long rolled = rollTo(state, now / unit);
+
+        return estimate(currentCountOf(rolled), previousCountOf(rolled), now % unit, unit);
+    }
+
+    @Override
+    boolean isExpired(long state, ConfiguredRatelimit config, long now) {
+        final long rolled = rollTo(state, now / unitMillis(config));
+
+        return currentCountOf(rolled) == 0 && previousCountOf(rolled) == 0;
+    }
+
+    @Override
+    CachedRateLimit toCachedRateLimit(long state, ConfiguredRatelimit config, long epoch, long now) {
+        final long unit = unitMillis(config);
+        final long index = now / unit;
+        final long rolled = rollTo(state, index);
+
+        return new SlidingWindowRateLimit(config.getValue(), unit, config.getId(), epoch + index * unit,
+                currentCountOf(rolled), previousCountOf(rolled));
+    }
+
+    /**
+     * @return the state with its buckets advanced to the bucket with the given index
+     */
+    private static long rollTo(long state, long index) {
+        if (state == 0) {
+            return pack(index, 0, 0);
+        }
+
+        final long stateIndex = state >>> (2 * COUNT_BITS);
+        if (stateIndex == (index & INDEX_MASK)) {
+            return state;
+        } else if (stateIndex == ((index - 1) & INDEX_MASK)) {
+            return pack(index, 0, currentCountOf(state));
+        } else {
+            return pack(index, 0, 0);
+        }
+    }
+
+    private static long pack(long index, int currentCount, int previousCount) {
+        return ((index & INDEX_MASK) << (2 * COUNT_BITS)) | ((long) previousCount << COUNT_BITS) | currentCount;
+    }
+
+    private static int currentCountOf(long state) {
+        return (int) (state & COUNT_MASK);
+    }
+
+    private static int previousCountOf(long state) {
+        return (int) ((state >>> COUNT_BITS) & COUNT_MASK);
+    }
+}
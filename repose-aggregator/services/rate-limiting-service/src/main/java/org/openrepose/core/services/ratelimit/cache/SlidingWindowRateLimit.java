@@ -0,0 +1,165 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.core.services.ratelimit.cache;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * A limit enforced by {@link SlidingWindowAlgorithm}: hits are counted in consecutive buckets one unit long, and the
+ * amount is the hits in the current bucket plus the hits in the previous bucket weighted by how much of it still
+ * overlaps the last unit of time.
+ * <p/>
+ * The buckets are held in a single immutable {@link Window} so that {@link #logHit()} can record a hit with one
+ * compare-and-set.
+ */
+final class SlidingWindowRateLimit extends CachedRateLimit {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final AtomicReferenceFieldUpdater<SlidingWindowRateLimit, Window> WINDOW_UPDATER =
+            AtomicReferenceFieldUpdater.newUpdater(SlidingWindowRateLimit.class, Window.class, "window");
+
+    private volatile Window window;
+
+    SlidingWindowRateLimit(int maxCount, long unit, String configId, long bucketStart, int currentCount,
+                           int previousCount) {
+        this(maxCount, unit, configId, new Window(bucketStart, currentCount, previousCount));
+    }
+
+    SlidingWindowRateLimit(int maxCount, long unit, String configId, Window window) {
+        super(maxCount, unit, configId, window.currentCount, window.bucketStart);
+
+        this.window = window;
+    }
+
+    Window window() {
+        return window;
+    }
+
+    long bucketStart() {
+        return window.bucketStart;
+    }
+
+    int currentCount() {
+        return window.currentCount;
+    }
+
+    int previousCount() {
+        return window.previousCount;
+    }
+
+    /**
+     * @return the start of the bucket that contains the given time
+     */
+    long bucketStartAt(long now) {
+        return window.bucketStartAt(now, unit());
+    }
+
+    /**
+     * @return the buckets of this limit advanced to the given time
+     */
+    Window windowAt(long now) {
+        return window.rollTo(now, unit());
+    }
+
+    int amount(long now) {
+        final Window rolled = windowAt(now);
+
+        return SlidingWindowAlgorithm.estimate(rolled.currentCount, rolled.previousCount, now - rolled.bucketStart,
+                unit());
+    }
+
+    @Override
+    public int amount() {
+        return amount(System.currentTimeMillis());
+    }
+
+    @Override
+    public long timestamp() {
+        return bucketStartAt(System.currentTimeMillis());
+    }
+
+    @Override
+    public void logHit() {
+        final long now = System.currentTimeMillis();
+        Window current;
+
+        do {
+            current = window;
+        } while (!WINDOW_UPDATER.compareAndSet(this, current, current.rollTo(now, unit()).hit()));
+    }
+
+    @Override
+    public long getSoonestRequestTime() {
+        final long now = System.currentTimeMillis();
+
+        return amount(now) < maxAmount() ? now : bucketStartAt(now) + unit();
+    }
+
+    @Override
+    public long getNextExpirationTime() {
+        return bucketStartAt(System.currentTimeMillis()) + unit();
+    }
+
+    /**
+     * The hit counts of the current and previous buckets, and when the current bucket started.
+     */
+    static final class Window implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        final long bucketStart;
+        final int currentCount;
+        final int previousCount;
+
+        Window(long bucketStart, int currentCount, int previousCount) {
+            this.bucketStart = bucketStart;
+            this.currentCount = currentCount;
+            this.previousCount = previousCount;
+        }
+
+        long bucketStartAt(long now, long unit) {
+            return now < bucketStart ? bucketStart : bucketStart + ((now - bucketStart) / unit) * unit;
+        }
+
+        /**
+         * @return this window advanced to the bucket that contains the given time, which may be this window itself
+         */
+        Window rollTo(long now, long unit) {
+            final long start = bucketStartAt(now, unit);
+
+            if (start == bucketStart) {
+                return this;
+            } else if (start == bucketStart + unit) {
+                return new Window(start, 0, currentCount);
+            } else {
+                return new Window(start, 0, 0);
+            }
+        }
+
+        /**
+         * @return this window with one more hit in the current bucket
+         */
+        Window hit() {
+            return new Window(bucketStart, currentCount + 1, previousCount);
+        }
+    }
+}
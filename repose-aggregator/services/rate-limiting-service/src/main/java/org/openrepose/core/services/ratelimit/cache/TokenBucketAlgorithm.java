@@ -0,0 +1,147 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.core.services.ratelimit.cache;
+
+import org.openrepose.core.services.ratelimit.config.ConfiguredRatelimit;
+
+/**
+ * The generic cell rate algorithm, which behaves like a token bucket holding up to the configured value of tokens and
+ * refilled at one token per unit divided by that value.
+ * <p/>
+ * Its only state is the theoretical arrival time (TAT): the time at which the bucket will be full again. A hit at time
+ * t is allowed if TAT - t leaves room for one more request, in which case TAT advances by one emission interval;
+ * rejected hits leave TAT alone, so clients that keep retrying are not locked out for longer. Times are kept in
+ * microseconds so that limits of more than one request per millisecond are still spaced correctly.
+ * <p/>
+ * The long form is the TAT shifted left by one, with the lowest bit set if the most recent hit was rejected.
+ */
+final class TokenBucketAlgorithm extends LimitAlgorithm {
+
+    static final TokenBucketAlgorithm INSTANCE = new TokenBucketAlgorithm();
+
+    static final long MICROS_PER_MILLI = 1000;
+
+    private TokenBucketAlgorithm() {
+    }
+
+    static long emissionInterval(int maxCount, long unit) {
+        return maxCount > 0 ? Math.max(unit * MICROS_PER_MILLI / maxCount, 1) : unit * MICROS_PER_MILLI;
+    }
+
+    /**
+     * @return how far ahead of now the TAT may be for a request to be allowed
+     */
+    static long burstTolerance(int maxCount, long unit) {
+        return maxCount > 0 ? (maxCount - 1) * emissionInterval(maxCount, unit) : -1;
+    }
+
+    static int amount(long theoreticalArrival, boolean rejected, int maxCount, long unit, long now) {
+        if (maxCount <= 0) {
+            // Nothing is ever allowed, so only a rejected hit counts
+            return rejected ? 1 : 0;
+        }
+
+        final long ahead = theoreticalArrival - now * MICROS_PER_MILLI;
+        if (ahead <= 0) {
+            return 0;
+        }
+
+        final long emissionInterval = emissionInterval(maxCount, unit);
+        final long charged = (ahead + emissionInterval - 1) / emissionInterval;
+
+        // A rejected hit is reported as one over the limit until another request would be allowed
+        final boolean stillRejected = rejected && ahead > burstTolerance(maxCount, unit);
+        return (int) Math.min(charged + (stillRejected ? 1 : 0), Integer.MAX_VALUE);
+    }
+
+    /**
+     * @return when the next request will be allowed if the limit is currently exhausted, otherwise when the bucket
+     * will be full again
+     */
+    static long nextExpirationTime(long theoreticalArrival, int maxCount, long unit, long now) {
+        final long burstTolerance = burstTolerance(maxCount, unit);
+        final long expiration = theoreticalArrival - now * MICROS_PER_MILLI > burstTolerance ?
+                theoreticalArrival - burstTolerance : theoreticalArrival;
+
+        return Math.max((expiration + MICROS_PER_MILLI - 1) / MICROS_PER_MILLI, now);
+    }
+
+    /**
+     * @return the long form after a hit at the given time, with TAT measured from the same epoch as now
+     */
+    static long hit(long state, int maxCount, long unit, long now) {
+        final long theoreticalArrival = theoreticalArrivalOf(state);
+        final long arrived = arrive(theoreticalArrival, maxCount, unit, now * MICROS_PER_MILLI);
+
+        return arrived < 0 ? pack(theoreticalArrival, true) : pack(arrived, false);
+    }
+
+    static long pack(long theoreticalArrival, boolean rejected) {
+        return (theoreticalArrival << 1) | (rejected ? 1 : 0);
+    }
+
+    static long theoreticalArrivalOf(long state) {
+        return state >>> 1;
+    }
+
+    static boolean isRejected(long state) {
+        return (state & 1) != 0;
+    }
+
+    private static long arrive(long theoreticalArrival, int maxCount, long unit, long nowMicros) {
+        final long start = Math.max(theoreticalArrival, nowMicros);
+
+        if (start - nowMicros > burstTolerance(maxCount, unit)) {
+            return -1;
+        }
+
+        return start + emissionInterval(maxCount, unit);
+    }
+
+    @Override
+    CachedRateLimit hit(ConfiguredRatelimit config, CachedRateLimit current, long now) {
+        final long unit = unitMillis(config);
+        final long state = current instanceof TokenBucketRateLimit ? ((TokenBucketRateLimit) current).state() : 0;
+
+        return new TokenBucketRateLimit(config.getValue(), unit, config.getId(),
+                hit(state, config.getValue(), unit, now));
+    }
+
+    @Override
+    long hit(long state, ConfiguredRatelimit config, long now) {
+        return hit(state, config.getValue(), unitMillis(config), now);
+    }
+
+    @Override
+    int amount(long state, ConfiguredRatelimit config, long now) {
+        return amount(theoreticalArrivalOf(state), isRejected(state), config.getValue(), unitMillis(config), now);
+    }
+
+    @Override
+    boolean isExpired(long state, ConfiguredRatelimit config, long now) {
+        return theoreticalArrivalOf(state) <= now * MICROS_PER_MILLI;
+    }
+
+    @Override
+    CachedRateLimit toCachedRateLimit(long state, ConfiguredRatelimit config, long epoch, long now) {
+        return new TokenBucketRateLimit(config.getValue(), unitMillis(config), config.getId(),
+                theoreticalArrivalOf(state) + epoch * MICROS_PER_MILLI, isRejected(state));
+    }
+}
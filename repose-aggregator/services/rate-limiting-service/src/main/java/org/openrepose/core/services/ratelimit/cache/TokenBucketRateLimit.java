@@ -0,0 +1,104 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.core.services.ratelimit.cache;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * A limit enforced by {@link TokenBucketAlgorithm}. All of its state is the theoretical arrival time of the next
+ * request, in microseconds, and whether the most recent hit was rejected, packed into the algorithm's long form so that
+ * {@link #logHit()} can record a hit with one compare-and-set.
+ */
+final class TokenBucketRateLimit extends CachedRateLimit {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final AtomicLongFieldUpdater<TokenBucketRateLimit> STATE_UPDATER =
+            AtomicLongFieldUpdater.newUpdater(TokenBucketRateLimit.class, "state");
+
+    private volatile long state;
+
+    TokenBucketRateLimit(int maxCount, long unit, String configId, long theoreticalArrival, boolean rejected) {
+        this(maxCount, unit, configId, TokenBucketAlgorithm.pack(theoreticalArrival, rejected));
+    }
+
+    TokenBucketRateLimit(int maxCount, long unit, String configId, long state) {
+        super(maxCount, unit, configId, 0,
+                TokenBucketAlgorithm.theoreticalArrivalOf(state) / TokenBucketAlgorithm.MICROS_PER_MILLI);
+
+        this.state = state;
+    }
+
+    long state() {
+        return state;
+    }
+
+    long theoreticalArrival() {
+        return TokenBucketAlgorithm.theoreticalArrivalOf(state);
+    }
+
+    boolean isRejected() {
+        return TokenBucketAlgorithm.isRejected(state);
+    }
+
+    int amount(long now) {
+        final long current = state;
+
+        return TokenBucketAlgorithm.amount(TokenBucketAlgorithm.theoreticalArrivalOf(current),
+                TokenBucketAlgorithm.isRejected(current), maxAmount(), unit(), now);
+    }
+
+    long nextExpirationTime(long now) {
+        return TokenBucketAlgorithm.nextExpirationTime(theoreticalArrival(), maxAmount(), unit(), now);
+    }
+
+    @Override
+    public int amount() {
+        return amount(System.currentTimeMillis());
+    }
+
+    @Override
+    public long timestamp() {
+        return getNextExpirationTime() - unit();
+    }
+
+    @Override
+    public void logHit() {
+        final long now = System.currentTimeMillis();
+        long current;
+
+        do {
+            current = state;
+        } while (!STATE_UPDATER.compareAndSet(this, current,
+                TokenBucketAlgorithm.hit(current, maxAmount(), unit(), now)));
+    }
+
+    @Override
+    public long getSoonestRequestTime() {
+        final long now = System.currentTimeMillis();
+
+        return amount(now) < maxAmount() ? now : nextExpirationTime(now);
+    }
+
+    @Override
+    public long getNextExpirationTime() {
+        return nextExpirationTime(System.currentTimeMillis());
+    }
+}
@@ -39,6 +39,9 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public class UserRateLimit implements Serializable, Patchable<UserRateLimit, UserRateLimit.Patch> {
 
+    // The UID computed for the class before it was first changed, so that values already in a datastore still read
+    private static final long serialVersionUID = -2424486341740003690L;
+
     private final Pair<ConfiguredRatelimit, CachedRateLimit> leastRemainingLimit;
 
     private ConcurrentHashMap<String, CachedRateLimit> limitMap = new ConcurrentHashMap<String, CachedRateLimit>();
@@ -53,7 +56,7 @@ public class UserRateLimit implements Serializable, Patchable<UserRateLimit, Use
         this.leastRemainingLimit = null;
     }
 
-    private UserRateLimit(Map<String, CachedRateLimit> limitMap, Pair<ConfiguredRatelimit, CachedRateLimit> lowestLimit) {
+    UserRateLimit(Map<String, CachedRateLimit> limitMap, Pair<ConfiguredRatelimit, CachedRateLimit> lowestLimit) {
         this.limitMap = new ConcurrentHashMap<String, CachedRateLimit>(limitMap);
         this.leastRemainingLimit = lowestLimit;
     }
@@ -84,25 +87,19 @@ public class UserRateLimit implements Serializable, Patchable<UserRateLimit, Use
     }
 
     private CachedRateLimit adjustLimit(Pair<String, ConfiguredRatelimit> limitEntry) {
-        CachedRateLimit returnRateLimit;
+        final LimitAlgorithm algorithm = LimitAlgorithm.forConfig(limitEntry.getValue());
 
         while (true) {
-            CachedRateLimit newRateLimit = new CachedRateLimit(limitEntry.getValue(), 1);
-            CachedRateLimit oldRateLimit = limitMap.putIfAbsent(limitEntry.getKey(), newRateLimit);
+            final CachedRateLimit oldRateLimit = limitMap.get(limitEntry.getKey());
+            final CachedRateLimit newRateLimit = algorithm.hit(limitEntry.getValue(), oldRateLimit, System.currentTimeMillis());
 
             if (oldRateLimit == null) {
+                if (limitMap.putIfAbsent(limitEntry.getKey(), newRateLimit) == null) {
+                    return newRateLimit;
+                }
+            } else if (limitMap.replace(limitEntry.getKey(), oldRateLimit, newRateLimit)) {
                 return newRateLimit;
             }
-
-            if ((System.currentTimeMillis() - oldRateLimit.timestamp()) > oldRateLimit.unit()) {
-                returnRateLimit = newRateLimit;
-            } else {
-                returnRateLimit = new CachedRateLimit(limitEntry.getValue(), oldRateLimit.amount() + 1, oldRateLimit.timestamp());
-            }
-
-            if (limitMap.replace(limitEntry.getKey(), oldRateLimit, returnRateLimit)) {
-                return returnRateLimit;
-            }
         }
     }
 
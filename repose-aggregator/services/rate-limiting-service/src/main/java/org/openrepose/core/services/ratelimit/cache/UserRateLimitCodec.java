@@ -0,0 +1,203 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.core.services.ratelimit.cache;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.openrepose.core.services.datastore.codec.ValueCodec;
+import org.openrepose.core.services.ratelimit.config.ConfiguredRatelimit;
+import org.openrepose.core.services.ratelimit.config.HttpMethod;
+import org.openrepose.core.services.ratelimit.config.RateLimitAlgorithm;
+import org.openrepose.core.services.ratelimit.config.TimeUnit;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary datastore codec for {@link UserRateLimit}, also home to the field encodings shared with
+ * {@link UserRateLimitPatchCodec}.
+ */
+public class UserRateLimitCodec implements ValueCodec<UserRateLimit> {
+
+    public static final byte TYPE_ID = 4;
+
+    private static final byte FIXED_WINDOW = 0;
+    private static final byte SLIDING_WINDOW = 1;
+    private static final byte TOKEN_BUCKET = 2;
+
+    static void writeNullableString(String value, DataOutput out) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    static String readNullableString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    static void writeConfiguredRatelimit(ConfiguredRatelimit limit, DataOutput out) throws IOException {
+        out.writeBoolean(limit != null);
+        if (limit == null) {
+            return;
+        }
+
+        writeNullableString(limit.getId(), out);
+        writeNullableString(limit.getUri(), out);
+        writeNullableString(limit.getUriRegex(), out);
+        out.writeInt(limit.getValue());
+        writeNullableString(limit.getUnit() == null ? null : limit.getUnit().name(), out);
+        writeNullableString(limit.getAlgorithm() == null ? null : limit.getAlgorithm().name(), out);
+
+        final List<HttpMethod> httpMethods = limit.getHttpMethods();
+        out.writeInt(httpMethods.size());
+        for (HttpMethod httpMethod : httpMethods) {
+            out.writeUTF(httpMethod.name());
+        }
+
+        final List<String> queryParamNames = limit.getQueryParamNames();
+        out.writeInt(queryParamNames.size());
+        for (String queryParamName : queryParamNames) {
+            out.writeUTF(queryParamName);
+        }
+    }
+
+    static ConfiguredRatelimit readConfiguredRatelimit(DataInput in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+
+        final ConfiguredRatelimit limit = new ConfiguredRatelimit();
+        limit.setId(readNullableString(in));
+        limit.setUri(readNullableString(in));
+        limit.setUriRegex(readNullableString(in));
+        limit.setValue(in.readInt());
+
+        final String unit = readNullableString(in);
+        limit.setUnit(unit == null ? null : TimeUnit.valueOf(unit));
+
+        final String algorithm = readNullableString(in);
+        limit.setAlgorithm(algorithm == null ? null : RateLimitAlgorithm.valueOf(algorithm));
+
+        for (int i = in.readInt(); i > 0; i--) {
+            limit.getHttpMethods().add(HttpMethod.valueOf(in.readUTF()));
+        }
+
+        for (int i = in.readInt(); i > 0; i--) {
+            limit.getQueryParamNames().add(in.readUTF());
+        }
+
+        return limit;
+    }
+
+    static void writeCachedRateLimit(CachedRateLimit limit, DataOutput out) throws IOException {
+        if (limit instanceof SlidingWindowRateLimit) {
+            final SlidingWindowRateLimit.Window window = ((SlidingWindowRateLimit) limit).window();
+            out.writeByte(SLIDING_WINDOW);
+            writeLimitFields(limit, out);
+            out.writeLong(window.bucketStart);
+            out.writeInt(window.currentCount);
+            out.writeInt(window.previousCount);
+        } else if (limit instanceof TokenBucketRateLimit) {
+            final long state = ((TokenBucketRateLimit) limit).state();
+            out.writeByte(TOKEN_BUCKET);
+            writeLimitFields(limit, out);
+            out.writeLong(TokenBucketAlgorithm.theoreticalArrivalOf(state));
+            out.writeBoolean(TokenBucketAlgorithm.isRejected(state));
+        } else {
+            out.writeByte(FIXED_WINDOW);
+            writeLimitFields(limit, out);
+            out.writeInt(limit.amount());
+            out.writeLong(limit.timestamp());
+        }
+    }
+
+    private static void writeLimitFields(CachedRateLimit limit, DataOutput out) throws IOException {
+        out.writeInt(limit.maxAmount());
+        out.writeLong(limit.unit());
+        writeNullableString(limit.getConfigId(), out);
+    }
+
+    static CachedRateLimit readCachedRateLimit(DataInput in) throws IOException {
+        final byte algorithm = in.readByte();
+        final int maxCount = in.readInt();
+        final long unit = in.readLong();
+        final String configId = readNullableString(in);
+
+        switch (algorithm) {
+            case FIXED_WINDOW:
+                return new CachedRateLimit(maxCount, unit, configId, in.readInt(), in.readLong());
+            case SLIDING_WINDOW:
+                return new SlidingWindowRateLimit(maxCount, unit, configId, in.readLong(), in.readInt(), in.readInt());
+            case TOKEN_BUCKET:
+                return new TokenBucketRateLimit(maxCount, unit, configId, in.readLong(), in.readBoolean());
+            default:
+                throw new IOException("Unknown rate limit algorithm: " + algorithm);
+        }
+    }
+
+    @Override
+    public byte typeId() {
+        return TYPE_ID;
+    }
+
+    @Override
+    public Class<UserRateLimit> valueType() {
+        return UserRateLimit.class;
+    }
+
+    @Override
+    public void write(UserRateLimit value, DataOutput out) throws IOException {
+        final Map<String, CachedRateLimit> limitMap = value.getLimitMap();
+        out.writeInt(limitMap.size());
+        for (Map.Entry<String, CachedRateLimit> limitEntry : limitMap.entrySet()) {
+            out.writeUTF(limitEntry.getKey());
+            writeCachedRateLimit(limitEntry.getValue(), out);
+        }
+
+        final Pair<ConfiguredRatelimit, CachedRateLimit> lowestLimit = value.getLowestLimit();
+        out.writeBoolean(lowestLimit != null);
+        if (lowestLimit != null) {
+            writeConfiguredRatelimit(lowestLimit.getKey(), out);
+            writeCachedRateLimit(lowestLimit.getValue(), out);
+        }
+    }
+
+    @Override
+    public UserRateLimit read(DataInput in) throws IOException {
+        final int limitCount = in.readInt();
+        final Map<String, CachedRateLimit> limitMap = new HashMap<>(limitCount);
+        for (int i = 0; i < limitCount; i++) {
+            final String key = in.readUTF();
+            limitMap.put(key, readCachedRateLimit(in));
+        }
+
+        Pair<ConfiguredRatelimit, CachedRateLimit> lowestLimit = null;
+        if (in.readBoolean()) {
+            final ConfiguredRatelimit configuredLimit = readConfiguredRatelimit(in);
+            lowestLimit = Pair.of(configuredLimit, readCachedRateLimit(in));
+        }
+
+        return new UserRateLimit(limitMap, lowestLimit);
+    }
+}
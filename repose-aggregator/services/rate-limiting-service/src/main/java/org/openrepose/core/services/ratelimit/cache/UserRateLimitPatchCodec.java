@@ -0,0 +1,70 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.core.services.ratelimit.cache;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.openrepose.core.services.datastore.codec.ValueCodec;
+import org.openrepose.core.services.ratelimit.config.ConfiguredRatelimit;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary datastore codec for {@link UserRateLimit.Patch}, which is sent on every distributed rate limit check.
+ */
+public class UserRateLimitPatchCodec implements ValueCodec<UserRateLimit.Patch> {
+
+    public static final byte TYPE_ID = 5;
+
+    @Override
+    public byte typeId() {
+        return TYPE_ID;
+    }
+
+    @Override
+    public Class<UserRateLimit.Patch> valueType() {
+        return UserRateLimit.Patch.class;
+    }
+
+    @Override
+    public void write(UserRateLimit.Patch patch, DataOutput out) throws IOException {
+        final List<Pair<String, ConfiguredRatelimit>> limits = patch.getLimitMap();
+        out.writeInt(limits.size());
+        for (Pair<String, ConfiguredRatelimit> limit : limits) {
+            out.writeUTF(limit.getKey());
+            UserRateLimitCodec.writeConfiguredRatelimit(limit.getValue(), out);
+        }
+    }
+
+    @Override
+    public UserRateLimit.Patch read(DataInput in) throws IOException {
+        final int limitCount = in.readInt();
+        final List<Pair<String, ConfiguredRatelimit>> limits = new ArrayList<>(limitCount);
+        for (int i = 0; i < limitCount; i++) {
+            final String key = in.readUTF();
+            limits.add(Pair.of(key, UserRateLimitCodec.readConfiguredRatelimit(in)));
+        }
+
+        return new UserRateLimit.Patch(limits);
+    }
+}
@@ -93,6 +93,16 @@ public class ConfiguredRateLimitWrapper extends ConfiguredRatelimit {
         configuredRateLimit.setUnit(value);
     }
 
+    @Override
+    public RateLimitAlgorithm getAlgorithm() {
+        return configuredRateLimit.getAlgorithm();
+    }
+
+    @Override
+    public void setAlgorithm(RateLimitAlgorithm value) {
+        configuredRateLimit.setAlgorithm(value);
+    }
+
     @Override
     public List<String> getQueryParamNames() {
         return configuredRateLimit.getQueryParamNames();
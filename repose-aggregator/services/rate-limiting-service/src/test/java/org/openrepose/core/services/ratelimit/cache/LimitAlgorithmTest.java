@@ -0,0 +1,261 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.core.services.ratelimit.cache;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Before;
+import org.junit.Test;
+import org.openrepose.core.services.ratelimit.config.ConfiguredRatelimit;
+import org.openrepose.core.services.ratelimit.config.RateLimitAlgorithm;
+import org.openrepose.core.services.ratelimit.config.TimeUnit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class LimitAlgorithmTest {
+
+    private static final int LIMIT = 10;
+    private static final long MINUTE = 60000;
+
+    private ConfiguredRatelimit fixed;
+    private ConfiguredRatelimit sliding;
+    private ConfiguredRatelimit tokenBucket;
+
+    @Before
+    public void setUp() {
+        fixed = limit(RateLimitAlgorithm.FIXED_WINDOW);
+        sliding = limit(RateLimitAlgorithm.SLIDING_WINDOW);
+        tokenBucket = limit(RateLimitAlgorithm.TOKEN_BUCKET);
+    }
+
+    private static ConfiguredRatelimit limit(RateLimitAlgorithm algorithm) {
+        final ConfiguredRatelimit limit = new ConfiguredRatelimit();
+        limit.setId(algorithm.value());
+        limit.setUri(".*");
+        limit.setUriRegex(".*");
+        limit.setValue(LIMIT);
+        limit.setUnit(TimeUnit.MINUTE);
+        limit.setAlgorithm(algorithm);
+        return limit;
+    }
+
+    /**
+     * Sends a number of requests at the given time through the long form of an algorithm.
+     *
+     * @return the number of requests that were allowed
+     */
+    private static int burst(long[] state, ConfiguredRatelimit config, long now, int requests) {
+        final LimitAlgorithm algorithm = LimitAlgorithm.forConfig(config);
+        int allowed = 0;
+
+        for (int i = 0; i < requests; i++) {
+            state[0] = algorithm.hit(state[0], config, now);
+            if (algorithm.amount(state[0], config, now) <= config.getValue()) {
+                allowed++;
+            }
+        }
+
+        return allowed;
+    }
+
+    @Test
+    public void shouldSelectTheConfiguredAlgorithm() {
+        assertSame(FixedWindowAlgorithm.INSTANCE, LimitAlgorithm.forConfig(fixed));
+        assertSame(SlidingWindowAlgorithm.INSTANCE, LimitAlgorithm.forConfig(sliding));
+        assertSame(TokenBucketAlgorithm.INSTANCE, LimitAlgorithm.forConfig(tokenBucket));
+        assertSame(FixedWindowAlgorithm.INSTANCE, LimitAlgorithm.forConfig(new ConfiguredRatelimit()));
+    }
+
+    @Test
+    public void fixedWindowShouldAllowDoubleTheLimitAcrossAWindowBoundary() {
+        final long[] state = new long[1];
+
+        assertEquals(LIMIT, burst(state, fixed, MINUTE - 1000, LIMIT * 2));
+        assertEquals(LIMIT, burst(state, fixed, 2 * MINUTE - 500, LIMIT * 2));
+    }
+
+    @Test
+    public void slidingWindowShouldNotAllowBurstsAcrossABucketBoundary() {
+        final long[] state = new long[1];
+
+        assertEquals(LIMIT, burst(state, sliding, MINUTE - 1000, LIMIT * 2));
+        assertTrue(burst(state, sliding, MINUTE + 500, LIMIT * 2) <= 1);
+
+        // Halfway through the next bucket, half of the previous bucket still counts
+        final long[] quiet = new long[1];
+        assertEquals(LIMIT, burst(quiet, sliding, MINUTE - 1000, LIMIT));
+        assertEquals(LIMIT / 2, burst(quiet, sliding, MINUTE + MINUTE / 2, LIMIT));
+    }
+
+    @Test
+    public void slidingWindowShouldForgetBucketsOlderThanTheLastUnit() {
+        final long[] state = new long[1];
+
+        burst(state, sliding, 0, LIMIT * 2);
+
+        assertFalse(SlidingWindowAlgorithm.INSTANCE.isExpired(state[0], sliding, MINUTE + 1));
+        assertTrue(SlidingWindowAlgorithm.INSTANCE.isExpired(state[0], sliding, 2 * MINUTE));
+        assertEquals(LIMIT, burst(state, sliding, 2 * MINUTE, LIMIT * 2));
+    }
+
+    @Test
+    public void tokenBucketShouldAllowABurstThenSpaceRequestsEvenly() {
+        final long[] state = new long[1];
+        final long emissionInterval = MINUTE / LIMIT;
+
+        assertEquals(LIMIT, burst(state, tokenBucket, 0, LIMIT * 2));
+        assertEquals(0, burst(state, tokenBucket, emissionInterval - 1, 1));
+        assertEquals(1, burst(state, tokenBucket, emissionInterval, 2));
+        assertEquals(1, burst(state, tokenBucket, 2 * emissionInterval, 2));
+    }
+
+    @Test
+    public void tokenBucketShouldNotPunishRejectedRequests() {
+        final long[] state = new long[1];
+
+        burst(state, tokenBucket, 0, LIMIT);
+        assertEquals(0, burst(state, tokenBucket, 1000, 1000));
+
+        assertEquals(1, burst(state, tokenBucket, MINUTE / LIMIT, 1));
+    }
+
+    @Test
+    public void tokenBucketShouldRefillCompletelyAfterOneUnit() {
+        final long[] state = new long[1];
+
+        burst(state, tokenBucket, 0, LIMIT);
+
+        assertFalse(TokenBucketAlgorithm.INSTANCE.isExpired(state[0], tokenBucket, MINUTE - 1));
+        assertTrue(TokenBucketAlgorithm.INSTANCE.isExpired(state[0], tokenBucket, MINUTE));
+        assertEquals(LIMIT, burst(state, tokenBucket, MINUTE, LIMIT * 2));
+    }
+
+    @Test
+    public void tokenBucketShouldReportWhenTheNextRequestIsAllowed() {
+        final long now = System.currentTimeMillis();
+        CachedRateLimit limit = null;
+
+        for (int i = 0; i <= LIMIT; i++) {
+            limit = TokenBucketAlgorithm.INSTANCE.hit(tokenBucket, limit, now);
+        }
+
+        final TokenBucketRateLimit rejected = (TokenBucketRateLimit) limit;
+        assertEquals(LIMIT + 1, rejected.amount(now));
+        assertEquals(now + MINUTE / LIMIT, rejected.nextExpirationTime(now));
+        assertEquals(LIMIT - 1, rejected.amount(now + MINUTE / LIMIT));
+    }
+
+    @Test
+    public void datastoreAndLocalFormsShouldAgree() {
+        final long epoch = 1000 * MINUTE;
+        final long[] times = {0, 10, 10, 2000, 5999, 6000, 30000, 59000, 59999, 60000, 60001, 61000, 90000, 119000,
+                125000, 125000, 125000, 180000, 250000};
+
+        for (ConfiguredRatelimit config : new ConfiguredRatelimit[]{sliding, tokenBucket}) {
+            final LimitAlgorithm algorithm = LimitAlgorithm.forConfig(config);
+            long state = 0;
+            CachedRateLimit limit = null;
+
+            for (long time : times) {
+                for (int i = 0; i < 4; i++) {
+                    state = algorithm.hit(state, config, time);
+                    limit = algorithm.hit(config, limit, epoch + time);
+
+                    final int localAmount = algorithm.amount(state, config, time);
+                    final int datastoreAmount = limit instanceof SlidingWindowRateLimit ?
+                            ((SlidingWindowRateLimit) limit).amount(epoch + time) :
+                            ((TokenBucketRateLimit) limit).amount(epoch + time);
+
+                    assertEquals(config.getId() + " at " + time, datastoreAmount, localAmount);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void userRateLimitShouldEnforceTheConfiguredAlgorithm() {
+        tokenBucket.setValue(2);
+        final List<Pair<String, ConfiguredRatelimit>> matchingLimits = new ArrayList<>();
+        matchingLimits.add(Pair.of("token-bucket", tokenBucket));
+        final UserRateLimit.Patch patch = new UserRateLimit.Patch(matchingLimits);
+
+        final UserRateLimit userLimit = patch.newFromPatch();
+        assertTrue(new NextAvailableResponse(userLimit.applyPatch(patch).getLowestLimit()).hasRequestsRemaining());
+
+        final NextAvailableResponse overLimit = new NextAvailableResponse(userLimit.applyPatch(patch).getLowestLimit());
+        assertFalse(overLimit.hasRequestsRemaining());
+        assertTrue(overLimit.getLimitPair().getValue() instanceof TokenBucketRateLimit);
+    }
+
+    @Test
+    public void slidingWindowLimitShouldLogHitsLikeItsAlgorithm() {
+        // The bucket starts now rather than on the minute, so it cannot roll over while the test runs
+        final CachedRateLimit limit = new SlidingWindowRateLimit(LIMIT, MINUTE, "sliding", System.currentTimeMillis(), 1, 0);
+
+        for (int i = 1; i < LIMIT; i++) {
+            limit.logHit();
+        }
+
+        assertEquals(LIMIT, limit.amount());
+        limit.logHit();
+        assertEquals(LIMIT + 1, limit.amount());
+    }
+
+    @Test
+    public void tokenBucketLimitShouldLogHitsLikeItsAlgorithm() {
+        final long now = System.currentTimeMillis();
+        final TokenBucketRateLimit limit =
+                (TokenBucketRateLimit) TokenBucketAlgorithm.INSTANCE.hit(tokenBucket, null, now);
+
+        for (int i = 1; i < LIMIT; i++) {
+            limit.logHit();
+        }
+
+        assertFalse(limit.isRejected());
+        limit.logHit();
+        assertTrue(limit.isRejected());
+        assertEquals(LIMIT + 1, limit.amount());
+    }
+
+    @Test
+    public void limitsShouldNotLoseConcurrentlyLoggedHits() throws InterruptedException {
+        final CachedRateLimit limit = new SlidingWindowRateLimit(LIMIT, MINUTE, "sliding", System.currentTimeMillis(), 1, 0);
+        final Thread[] threads = new Thread[4];
+
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 1000; j++) {
+                        limit.logHit();
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(1 + threads.length * 1000, limit.amount());
+    }
+}
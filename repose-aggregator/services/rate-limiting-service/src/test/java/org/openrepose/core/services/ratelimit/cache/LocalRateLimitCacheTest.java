@@ -0,0 +1,197 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.core.services.ratelimit.cache;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Before;
+import org.junit.Test;
+import org.openrepose.core.services.ratelimit.config.ConfiguredRatelimit;
+import org.openrepose.core.services.ratelimit.config.HttpMethod;
+import org.openrepose.core.services.ratelimit.config.RateLimitAlgorithm;
+import org.openrepose.core.services.ratelimit.config.TimeUnit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class LocalRateLimitCacheTest {
+
+    private static final String USER = "12345";
+    private static final int WARN_LIMIT = 1000;
+
+    // CachedRateLimit checks its window against the real clock, so the test clock starts now
+    private long start;
+    private LocalRateLimitCache cache;
+    private ConfiguredRatelimit perMinute;
+    private ConfiguredRatelimit perHour;
+
+    @Before
+    public void setUp() {
+        start = System.currentTimeMillis();
+        cache = new LocalRateLimitCache(start);
+        perMinute = limit("per-minute", 2, TimeUnit.MINUTE);
+        perHour = limit("per-hour", 3, TimeUnit.HOUR);
+    }
+
+    private static ConfiguredRatelimit limit(String id, int value, TimeUnit unit) {
+        final ConfiguredRatelimit limit = new ConfiguredRatelimit();
+        limit.setId(id);
+        limit.setUri(".*");
+        limit.setUriRegex(".*");
+        limit.setValue(value);
+        limit.setUnit(unit);
+        limit.getHttpMethods().add(HttpMethod.GET);
+        return limit;
+    }
+
+    private NextAvailableResponse hit(long now, ConfiguredRatelimit... limits) {
+        final List<Pair<String, ConfiguredRatelimit>> matchingLimits = new ArrayList<>();
+        for (ConfiguredRatelimit limit : limits) {
+            matchingLimits.add(Pair.of(limit.getId(), limit));
+        }
+        return cache.updateLimit(USER, matchingLimits, WARN_LIMIT, now);
+    }
+
+    @Test
+    public void shouldAllowRequestsUpToTheLimit() {
+        assertTrue(hit(start, perMinute).hasRequestsRemaining());
+        assertTrue(hit(start + 1, perMinute).hasRequestsRemaining());
+
+        final NextAvailableResponse overLimit = hit(start + 2, perMinute);
+        assertFalse(overLimit.hasRequestsRemaining());
+        assertEquals(3, overLimit.getCurrentLimitAmount());
+        assertEquals("per-minute", overLimit.getLimitPair().getLeft().getId());
+        assertEquals(start + 60000, overLimit.getLimitPair().getRight().timestamp() + overLimit.getLimitPair().getRight().unit());
+    }
+
+    @Test
+    public void shouldStartANewWindowOnceTheOldOneExpires() {
+        hit(start, perMinute);
+        hit(start + 1, perMinute);
+        assertFalse(hit(start + 2, perMinute).hasRequestsRemaining());
+
+        assertTrue(hit(start + 60001, perMinute).hasRequestsRemaining());
+        assertEquals(1, cache.getUserRateLimits(USER).get("per-minute").amount());
+    }
+
+    @Test
+    public void shouldReportTheLimitWithTheFewestRequestsRemaining() {
+        hit(start, perMinute, perHour);
+        hit(start + 60001, perMinute, perHour);
+        hit(start + 60002, perMinute, perHour);
+
+        final NextAvailableResponse overLimit = hit(start + 60003, perMinute, perHour);
+        assertFalse(overLimit.hasRequestsRemaining());
+        assertEquals("per-minute", overLimit.getLimitPair().getLeft().getId());
+    }
+
+    @Test
+    public void shouldStopCountingOnceALimitIsExceeded() {
+        final ConfiguredRatelimit first = limit("first", 1, TimeUnit.HOUR);
+
+        hit(start, first, perHour);
+        assertFalse(hit(start + 1, first, perHour).hasRequestsRemaining());
+
+        final Map<String, CachedRateLimit> limits = cache.getUserRateLimits(USER);
+        assertEquals(2, limits.get("first").amount());
+        assertEquals(1, limits.get("per-hour").amount());
+    }
+
+    @Test
+    public void shouldEnforceTheConfiguredAlgorithm() {
+        final ConfiguredRatelimit tokenBucket = limit("per-minute", 2, TimeUnit.MINUTE);
+        tokenBucket.setAlgorithm(RateLimitAlgorithm.TOKEN_BUCKET);
+
+        hit(start, tokenBucket);
+        hit(start, tokenBucket);
+        final NextAvailableResponse overLimit = hit(start, tokenBucket);
+
+        assertFalse(overLimit.hasRequestsRemaining());
+        assertEquals(start + 30000, overLimit.getResetTime().getTime());
+        assertTrue(hit(start + 30000, tokenBucket).hasRequestsRemaining());
+    }
+
+    @Test
+    public void shouldStartOverWhenALimitsAlgorithmChanges() {
+        hit(start, perMinute);
+        hit(start, perMinute);
+        assertFalse(hit(start, perMinute).hasRequestsRemaining());
+
+        final ConfiguredRatelimit reconfigured = limit("per-minute", 2, TimeUnit.MINUTE);
+        reconfigured.setAlgorithm(RateLimitAlgorithm.SLIDING_WINDOW);
+
+        assertTrue(hit(start + 1, reconfigured).hasRequestsRemaining());
+    }
+
+    @Test
+    public void shouldReturnAnEmptyMapForUnknownUsers() {
+        assertTrue(cache.getUserRateLimits("nobody").isEmpty());
+    }
+
+    @Test
+    public void shouldSweepUsersWhoseWindowsHaveAllExpired() {
+        hit(start, perMinute);
+        hit(start, perHour);
+
+        cache.sweep(start + 60001);
+        assertEquals(1, cache.trackedUserCount());
+
+        cache.sweep(start + 3600001);
+        assertEquals(0, cache.trackedUserCount());
+    }
+
+    @Test
+    public void shouldNotLoseHitsUnderContention() throws Exception {
+        final ConfiguredRatelimit large = limit("large", 1000000, TimeUnit.HOUR);
+        final List<Pair<String, ConfiguredRatelimit>> matchingLimits = Collections.singletonList(Pair.of("large", large));
+        final int threads = 8;
+        final int hitsPerThread = 5000;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final CountDownLatch done = new CountDownLatch(threads);
+        final AtomicInteger overLimit = new AtomicInteger();
+
+        for (int t = 0; t < threads; t++) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < hitsPerThread; i++) {
+                        if (!cache.updateLimit(USER, matchingLimits, WARN_LIMIT, start + 1).hasRequestsRemaining()) {
+                            overLimit.incrementAndGet();
+                        }
+                    }
+                    done.countDown();
+                }
+            });
+        }
+
+        done.await();
+        executor.shutdown();
+
+        assertEquals(0, overLimit.get());
+        assertEquals(threads * hitsPerThread, cache.getUserRateLimits(USER).get("large").amount());
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.core.services.ratelimit.cache;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Before;
+import org.junit.Test;
+import org.openrepose.core.services.datastore.StringValue;
+import org.openrepose.core.services.datastore.codec.StringValueCodec;
+import org.openrepose.core.services.datastore.codec.StringValuePatchCodec;
+import org.openrepose.core.services.datastore.codec.ValueCodecRegistry;
+import org.openrepose.core.services.ratelimit.config.ConfiguredRatelimit;
+import org.openrepose.core.services.ratelimit.config.HttpMethod;
+import org.openrepose.core.services.ratelimit.config.RateLimitAlgorithm;
+import org.openrepose.core.services.ratelimit.config.TimeUnit;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class UserRateLimitCodecTest {
+    private ValueCodecRegistry registry;
+    private ConfiguredRatelimit cfg;
+
+    @Before
+    public void setup() {
+        registry = new ValueCodecRegistry();
+        registry.register(new StringValueCodec());
+        registry.register(new StringValuePatchCodec());
+        registry.register(new UserRateLimitCodec());
+        registry.register(new UserRateLimitPatchCodec());
+
+        cfg = new ConfiguredRatelimit();
+        cfg.setId("12345-ABCDE");
+        cfg.setUri("/v1/*");
+        cfg.setUriRegex("/v1/.*");
+        cfg.setValue(6);
+        cfg.setUnit(TimeUnit.MINUTE);
+        cfg.getHttpMethods().add(HttpMethod.GET);
+        cfg.getHttpMethods().add(HttpMethod.POST);
+        cfg.getQueryParamNames().add("tenant");
+    }
+
+    private Serializable roundTrip(Serializable value) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        registry.write(value, new DataOutputStream(bytes));
+
+        return registry.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+
+    @Test
+    public void shouldRoundTripAUserRateLimit() throws IOException {
+        final List<Pair<String, ConfiguredRatelimit>> patchList = new ArrayList<>();
+        patchList.add(Pair.of("12345-ABCDE", cfg));
+        final UserRateLimit original = new UserRateLimit.Patch(patchList).newFromPatch();
+
+        final UserRateLimit decoded = (UserRateLimit) roundTrip(original);
+
+        final CachedRateLimit originalLimit = original.getLimitMap().get("12345-ABCDE");
+        final CachedRateLimit decodedLimit = decoded.getLimitMap().get("12345-ABCDE");
+        assertEquals(originalLimit.maxAmount(), decodedLimit.maxAmount());
+        assertEquals(originalLimit.unit(), decodedLimit.unit());
+        assertEquals(originalLimit.getConfigId(), decodedLimit.getConfigId());
+        assertEquals(originalLimit.amount(), decodedLimit.amount());
+        assertEquals(originalLimit.timestamp(), decodedLimit.timestamp());
+
+        final ConfiguredRatelimit decodedCfg = decoded.getLowestLimit().getKey();
+        assertEquals(cfg.getId(), decodedCfg.getId());
+        assertEquals(cfg.getUri(), decodedCfg.getUri());
+        assertEquals(cfg.getUriRegex(), decodedCfg.getUriRegex());
+        assertEquals(cfg.getValue(), decodedCfg.getValue());
+        assertEquals(cfg.getUnit(), decodedCfg.getUnit());
+        assertEquals(cfg.getHttpMethods(), decodedCfg.getHttpMethods());
+        assertEquals(cfg.getQueryParamNames(), decodedCfg.getQueryParamNames());
+    }
+
+    @Test
+    public void shouldRoundTripLimitsOfEveryAlgorithm() throws IOException {
+        final long now = System.currentTimeMillis();
+        final UserRateLimit original = new UserRateLimit();
+        original.getLimitMap().put("fixed", new CachedRateLimit(cfg, 2, now));
+        original.getLimitMap().put("sliding", new SlidingWindowRateLimit(6, 60000, "sliding", now - now % 60000, 3, 4));
+        original.getLimitMap().put("token-bucket", new TokenBucketRateLimit(6, 60000, "token-bucket", now * 1000 + 25000000, true));
+
+        final UserRateLimit decoded = (UserRateLimit) roundTrip(original);
+
+        assertEquals(2, decoded.getLimitMap().get("fixed").amount());
+
+        final SlidingWindowRateLimit sliding = (SlidingWindowRateLimit) decoded.getLimitMap().get("sliding");
+        assertEquals(now - now % 60000, sliding.bucketStart());
+        assertEquals(3, sliding.currentCount());
+        assertEquals(4, sliding.previousCount());
+
+        final TokenBucketRateLimit tokenBucket = (TokenBucketRateLimit) decoded.getLimitMap().get("token-bucket");
+        assertEquals(now * 1000 + 25000000, tokenBucket.theoreticalArrival());
+        assertTrue(tokenBucket.isRejected());
+    }
+
+    @Test
+    public void shouldRoundTripTheConfiguredAlgorithm() throws IOException {
+        cfg.setAlgorithm(RateLimitAlgorithm.TOKEN_BUCKET);
+        final List<Pair<String, ConfiguredRatelimit>> patchList = new ArrayList<>();
+        patchList.add(Pair.of("12345-ABCDE", cfg));
+
+        final UserRateLimit.Patch decoded = (UserRateLimit.Patch) roundTrip(new UserRateLimit.Patch(patchList));
+
+        assertEquals(RateLimitAlgorithm.TOKEN_BUCKET, decoded.getLimitMap().get(0).getValue().getAlgorithm());
+    }
+
+    @Test
+    public void shouldRoundTripAUserRateLimitPatch() throws IOException {
+        final List<Pair<String, ConfiguredRatelimit>> patchList = new ArrayList<>();
+        patchList.add(Pair.of("12345-ABCDE", cfg));
+
+        final UserRateLimit.Patch decoded = (UserRateLimit.Patch) roundTrip(new UserRateLimit.Patch(patchList));
+
+        assertEquals(1, decoded.getLimitMap().size());
+        assertEquals("12345-ABCDE", decoded.getLimitMap().get(0).getKey());
+        assertEquals(cfg.getUriRegex(), decoded.getLimitMap().get(0).getValue().getUriRegex());
+    }
+
+    @Test
+    public void shouldRoundTripStringValues() throws IOException {
+        assertEquals("some value", ((StringValue) roundTrip(new StringValue("some value"))).getValue());
+        assertEquals("a patch", ((StringValue.Patch) roundTrip(new StringValue.Patch("a patch"))).newFromPatch().getValue());
+    }
+
+    @Test
+    public void shouldFallBackToJavaSerializationForUnknownTypes() throws IOException {
+        assertEquals(Integer.valueOf(42), roundTrip(42));
+        assertNull(roundTrip(null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotAllowReservedTypeIds() {
+        registry.register(new StringValueCodec() {
+            @Override
+            public byte typeId() {
+                return ValueCodecRegistry.JAVA_SERIALIZED_TYPE_ID;
+            }
+        });
+    }
+}
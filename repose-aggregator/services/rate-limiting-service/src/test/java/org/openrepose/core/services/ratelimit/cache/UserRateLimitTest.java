@@ -0,0 +1,47 @@
+/*
+ * _=_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=
+ * Repose
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Copyright (C) 2010 - 2015 Rackspace US, Inc.
+ * _-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_-_=_
+ */
+package org.openrepose.core.services.ratelimit.cache;
+
+import org.junit.Test;
+
+import java.io.ObjectInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class UserRateLimitTest {
+
+    @Test
+    public void shouldReadValuesSerializedBeforeTheRateLimitAlgorithmsWereAdded() throws Exception {
+        // Written by the UserRateLimit and CachedRateLimit classes of the previous release
+        try (ObjectInputStream in = new ObjectInputStream(
+                UserRateLimitTest.class.getResourceAsStream("baseline-user-rate-limit.ser"))) {
+            final UserRateLimit userRateLimit = (UserRateLimit) in.readObject();
+            final CachedRateLimit limit = userRateLimit.getLimitMap().get("12345-ABCDE");
+
+            assertEquals(1, userRateLimit.getLimitMap().size());
+            assertEquals("12345-ABCDE", limit.getConfigId());
+            assertEquals(10, limit.maxAmount());
+            assertEquals(3, limit.amount());
+            assertEquals(4102444800000L, limit.timestamp());
+            assertNull(userRateLimit.getLowestLimit());
+        }
+    }
+}
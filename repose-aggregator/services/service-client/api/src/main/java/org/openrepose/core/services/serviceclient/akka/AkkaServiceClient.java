@@ -19,6 +19,7 @@
  */
 package org.openrepose.core.services.serviceclient.akka;
 
+import com.google.common.util.concurrent.ListenableFuture;
 import org.openrepose.commons.utils.http.ServiceClientResponse;
 
 import javax.ws.rs.core.MediaType;
@@ -32,4 +33,19 @@ public interface AkkaServiceClient {
     ServiceClientResponse get(String token, String uri, Map<String, String> headers) throws AkkaServiceClientException;
 
     ServiceClientResponse post(String requestKey, String uri, Map<String, String> headers, String payload, MediaType contentMediaType) throws AkkaServiceClientException;
+
+    /**
+     * Sends a GET request without waiting for the response. While a request is outstanding, requests made with the
+     * same key are given its future instead of being sent again.
+     * <p/>
+     * A service that cannot be reached completes the future with a 500 response, as the blocking call would return.
+     * A request that times out fails the future with a {@link java.util.concurrent.TimeoutException}.
+     */
+    ListenableFuture<ServiceClientResponse> getAsync(String token, String uri, Map<String, String> headers);
+
+    /**
+     * Sends a POST request without waiting for the response, sharing outstanding requests the same way as
+     * {@link #getAsync(String, String, Map)}.
+     */
+    ListenableFuture<ServiceClientResponse> postAsync(String requestKey, String uri, Map<String, String> headers, String payload, MediaType contentMediaType);
 }
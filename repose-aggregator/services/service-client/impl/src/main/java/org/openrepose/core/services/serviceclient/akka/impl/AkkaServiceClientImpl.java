@@ -19,119 +19,254 @@
  */
 package org.openrepose.core.services.serviceclient.akka.impl;
 
-import akka.actor.*;
-import akka.routing.RoundRobinRouter;
-import akka.util.Timeout;
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
-import com.typesafe.config.Config;
-import com.typesafe.config.ConfigFactory;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import org.apache.http.Header;
+import org.apache.http.message.BasicHeader;
+import org.apache.http.params.CoreConnectionPNames;
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.api.Request;
+import org.eclipse.jetty.client.api.Result;
+import org.eclipse.jetty.client.util.BufferingResponseListener;
+import org.eclipse.jetty.client.util.BytesContentProvider;
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.util.HttpCookieStore;
+import org.eclipse.jetty.util.ssl.SslContextFactory;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.openrepose.commons.utils.http.CommonHttpHeader;
 import org.openrepose.commons.utils.http.ServiceClient;
 import org.openrepose.commons.utils.http.ServiceClientResponse;
+import org.openrepose.core.services.httpclient.HttpClientNotFoundException;
+import org.openrepose.core.services.httpclient.HttpClientResponse;
 import org.openrepose.core.services.httpclient.HttpClientService;
 import org.openrepose.core.services.serviceclient.akka.AkkaServiceClient;
 import org.openrepose.core.services.serviceclient.akka.AkkaServiceClientException;
 import org.slf4j.Logger;
-import scala.concurrent.Await;
-import scala.concurrent.Future;
+import org.slf4j.MDC;
 
 import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 import javax.inject.Named;
+import javax.servlet.http.HttpServletResponse;
 import javax.ws.rs.core.MediaType;
+import java.io.ByteArrayInputStream;
 import java.util.Map;
-import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
-import static akka.pattern.Patterns.ask;
-import static akka.routing.ConsistentHashingRouter.ConsistentHashable;
-
+/**
+ * Sends requests with Jetty's non-blocking HTTP client, so no thread waits on a request unless the caller chooses to
+ * block on its future. Requests made with the same key while one is outstanding share its response.
+ * <p/>
+ * The client takes its timeouts and connection limit from the default connection pool.
+ */
 @Named
 public class AkkaServiceClientImpl implements AkkaServiceClient {
 
     private static final Logger LOG = org.slf4j.LoggerFactory.getLogger(AkkaServiceClientImpl.class);
-    private static final long FUTURE_CACHE_TTL = 500;
-    private static final TimeUnit FUTURE_CACHE_UNIT = TimeUnit.MILLISECONDS;
     private static final int CONNECTION_TIMEOUT_BUFFER_MILLIS = 1000;
+    private static final int DEFAULT_CONNECTION_TIMEOUT_MILLIS = 30000;
     private final ServiceClient serviceClient;
-    private final Cache<Object, Future> quickFutureCache;
-    private ActorSystem actorSystem;
-    private ActorRef tokenActorRef;
+    private final HttpClient httpClient;
+    private final ConcurrentMap<String, SettableFuture<ServiceClientResponse>> outstandingRequests = new ConcurrentHashMap<>();
 
     @Inject
     public AkkaServiceClientImpl(HttpClientService httpClientService) {
         this.serviceClient = getServiceClient(httpClientService);
-        final int numberOfActors = serviceClient.getPoolSize();
 
-        Config customConf = ConfigFactory.load();
-        Config baseConf = ConfigFactory.defaultReference();
-        Config conf = customConf.withFallback(baseConf);
-        actorSystem = ActorSystem.create("AuthClientActors", conf);
-        quickFutureCache = CacheBuilder.newBuilder()
-                .expireAfterWrite(FUTURE_CACHE_TTL, FUTURE_CACHE_UNIT)
-                .build();
+        final QueuedThreadPool threadPool = new QueuedThreadPool();
+        threadPool.setName("service-client");
+        threadPool.setDaemon(true);
 
+        // Services are trusted the same way by the default connection pool
+        httpClient = new HttpClient(new SslContextFactory(true));
+        httpClient.setExecutor(threadPool);
+        httpClient.setConnectTimeout(getConnectionTimeout(httpClientService));
+        httpClient.setMaxConnectionsPerDestination(Math.max(1, serviceClient.getPoolSize()));
+        httpClient.setFollowRedirects(false);
+        httpClient.setCookieStore(new HttpCookieStore.Empty());
+
+        try {
+            httpClient.start();
+        } catch (Exception e) {
+            throw new IllegalStateException("Unable to start the service client", e);
+        }
+    }
 
-        tokenActorRef = actorSystem.actorOf(new Props(new UntypedActorFactory() {
-            public UntypedActor create() {
+    private static int getConnectionTimeout(HttpClientService httpClientService) {
+        HttpClientResponse clientResponse = null;
 
-                return new AuthTokenFutureActor(serviceClient);
+        try {
+            clientResponse = httpClientService.getClient(null);
+            return clientResponse.getHttpClient().getParams()
+                    .getIntParameter(CoreConnectionPNames.CONNECTION_TIMEOUT, DEFAULT_CONNECTION_TIMEOUT_MILLIS);
+        } catch (HttpClientNotFoundException e) {
+            LOG.warn("Failed to obtain the default HTTP client - using a connection timeout of {} millis",
+                    DEFAULT_CONNECTION_TIMEOUT_MILLIS);
+            return DEFAULT_CONNECTION_TIMEOUT_MILLIS;
+        } finally {
+            if (clientResponse != null) {
+                httpClientService.releaseClient(clientResponse);
             }
-        }).withRouter(new RoundRobinRouter(numberOfActors)), "authRequestRouter");
+        }
     }
 
-
     @PreDestroy
     public void destroy() {
-        //Tie this actor system to our bean lifecycle
-        actorSystem.shutdown();
+        //Tie this client to our bean lifecycle
+        try {
+            httpClient.stop();
+        } catch (Exception e) {
+            LOG.warn("Failed to stop the service client", e);
+        }
     }
 
     @Override
     public ServiceClientResponse get(String hashKey, String uri, Map<String, String> headers) throws AkkaServiceClientException {
-        AuthGetRequest authGetRequest = new AuthGetRequest(hashKey, uri, headers);
-        try {
-            Timeout timeout = new Timeout(serviceClient.getSocketTimeout() + CONNECTION_TIMEOUT_BUFFER_MILLIS, TimeUnit.MILLISECONDS);
-            Future<ServiceClientResponse> future = getFuture(authGetRequest, timeout);
-            return Await.result(future, timeout.duration());
-        } catch (Exception e) {
-            LOG.error("Error acquiring value from akka (GET) or the cache. Reason: {}", e.getLocalizedMessage());
-            LOG.trace("", e);
-            throw new AkkaServiceClientException("Error acquiring value from akka (GET) or the cache.", e);
-        }
+        return await(getAsync(hashKey, uri, headers), "GET");
     }
 
     @Override
     public ServiceClientResponse post(String hashKey, String uri, Map<String, String> headers, String payload, MediaType contentMediaType) throws AkkaServiceClientException {
-        AuthPostRequest authPostRequest = new AuthPostRequest(hashKey, uri, headers, payload, contentMediaType);
-        try {
-            Timeout timeout = new Timeout(serviceClient.getSocketTimeout() + CONNECTION_TIMEOUT_BUFFER_MILLIS, TimeUnit.MILLISECONDS);
-            Future<ServiceClientResponse> future = getFuture(authPostRequest, timeout);
-            return Await.result(future, timeout.duration());
-        } catch (Exception e) {
-            LOG.error("Error acquiring value from akka (POST) or the cache. Reason: {}", e.getLocalizedMessage());
-            LOG.trace("", e);
-            throw new AkkaServiceClientException("Error acquiring value from akka (POST) or the cache.", e);
+        return await(postAsync(hashKey, uri, headers, payload, contentMediaType), "POST");
+    }
+
+    @Override
+    public ListenableFuture<ServiceClientResponse> getAsync(String hashKey, final String uri, final Map<String, String> headers) {
+        return send(hashKey, new RequestFactory() {
+            @Override
+            public Request newRequest() {
+                final Request request = httpClient.newRequest(uri).method("GET");
+                setHeaders(request, headers);
+                return request;
+            }
+        });
+    }
+
+    @Override
+    public ListenableFuture<ServiceClientResponse> postAsync(String hashKey, final String uri, final Map<String, String> headers,
+                                                             final String payload, final MediaType contentMediaType) {
+        return send(hashKey, new RequestFactory() {
+            @Override
+            public Request newRequest() {
+                final Request request = httpClient.newRequest(uri).method("POST");
+                setHeaders(request, headers);
+                request.header(CommonHttpHeader.CONTENT_TYPE.toString(),
+                        contentMediaType.getType() + "/" + contentMediaType.getSubtype());
+
+                if (!headers.containsKey(CommonHttpHeader.ACCEPT.toString())) {
+                    request.header(CommonHttpHeader.ACCEPT.toString(), MediaType.APPLICATION_XML);
+                }
+
+                if (payload != null && !payload.isEmpty()) {
+                    request.content(new BytesContentProvider(payload.getBytes()));
+                }
+                return request;
+            }
+        });
+    }
+
+    private static void setHeaders(Request request, Map<String, String> headers) {
+        for (Map.Entry<String, String> entry : headers.entrySet()) {
+            request.header(entry.getKey(), entry.getValue());
         }
     }
 
-    private Future getFuture(final ConsistentHashable hashableRequest, final Timeout timeout) throws ExecutionException {
-        Object hashKey = hashableRequest.consistentHashKey();
+    private ListenableFuture<ServiceClientResponse> send(final String hashKey, RequestFactory requestFactory) {
+        final SettableFuture<ServiceClientResponse> future = SettableFuture.create();
+        final SettableFuture<ServiceClientResponse> outstanding = outstandingRequests.putIfAbsent(hashKey, future);
+        if (outstanding != null) {
+            LOG.trace("Sharing the outstanding request for key {}", hashKey);
+            return outstanding;
+        }
 
-        //http://docs.guava-libraries.googlecode.com/git/javadoc/com/google/common/cache/Cache.html#get%28K,%20java.util.concurrent.Callable%29
-        // Using this method, according to guava, is the right way to do the "cache pattern"
-        return quickFutureCache.get(hashKey, new Callable<Future<Object>>() {
+        final Request request;
+        try {
+            request = requestFactory.newRequest();
+        } catch (RuntimeException e) {
+            outstandingRequests.remove(hashKey, future);
+            future.setException(e);
+            return future;
+        }
 
+        final int socketTimeout = serviceClient.getSocketTimeout();
+        if (socketTimeout > 0) {
+            request.idleTimeout(socketTimeout, TimeUnit.MILLISECONDS);
+        }
+        request.timeout(socketTimeout + CONNECTION_TIMEOUT_BUFFER_MILLIS, TimeUnit.MILLISECONDS);
+
+        //Carry the logging context of the caller over to the client threads
+        final Map loggingContext = MDC.getCopyOfContextMap();
+        request.send(new BufferingResponseListener(Integer.MAX_VALUE) {
             @Override
-            public Future<Object> call() throws Exception {
+            public void onComplete(Result result) {
+                if (loggingContext != null) {
+                    MDC.setContextMap(loggingContext);
+                }
+                LOG.trace("Service client request completed: {} {}", request.getMethod(), request.getURI());
+
+                outstandingRequests.remove(hashKey, future);
+                if (!result.isFailed()) {
+                    future.set(new ReusableServiceClientResponse(result.getResponse().getStatus(),
+                            toHeaders(result.getResponse().getHeaders()), new ByteArrayInputStream(getContent())));
+                } else if (result.getFailure() instanceof TimeoutException) {
+                    future.setException(result.getFailure());
+                } else {
+                    LOG.error("Error executing request", result.getFailure());
+                    future.set(new ReusableServiceClientResponse(HttpServletResponse.SC_INTERNAL_SERVER_ERROR,
+                            new ByteArrayInputStream(new byte[0])));
+                }
 
-                return ask(tokenActorRef, hashableRequest, timeout);
+                MDC.clear();
             }
         });
+
+        return future;
+    }
+
+    private static Header[] toHeaders(HttpFields fields) {
+        final Header[] headers = new Header[fields.size()];
+        int index = 0;
+        for (HttpField field : fields) {
+            headers[index++] = new BasicHeader(field.getName(), field.getValue());
+        }
+        return headers;
+    }
+
+    private ServiceClientResponse await(Future<ServiceClientResponse> future, String method) throws AkkaServiceClientException {
+        final long timeout = serviceClient.getSocketTimeout() + CONNECTION_TIMEOUT_BUFFER_MILLIS;
+
+        Throwable failure;
+        try {
+            return future.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            failure = e.getCause();
+        } catch (TimeoutException e) {
+            failure = e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure = e;
+        }
+
+        if (failure instanceof TimeoutException) {
+            failure = new TimeoutException("Futures timed out after [" + timeout + " milliseconds]").initCause(failure);
+        }
+
+        LOG.error("Error acquiring value from akka ({}) or the cache. Reason: {}", method, failure.getLocalizedMessage());
+        LOG.trace("", failure);
+        throw new AkkaServiceClientException("Error acquiring value from akka (" + method + ") or the cache.", failure);
     }
 
     public ServiceClient getServiceClient(HttpClientService httpClientService) {
         return new ServiceClient(null, httpClientService);
     }
+
+    private interface RequestFactory {
+        Request newRequest();
+    }
 }
@@ -45,6 +45,7 @@ import org.scalatest.mock.MockitoSugar
 import org.scalatest.{BeforeAndAfter, FunSpec, Matchers}
 
 import scala.collection.JavaConversions._
+import scala.collection.mutable.ListBuffer
 
 @RunWith(classOf[JUnitRunner])
 class AkkaServiceClientImplTest extends FunSpec with BeforeAndAfter with Matchers with MockitoSugar with LazyLogging {
@@ -60,6 +61,14 @@ class AkkaServiceClientImplTest extends FunSpec with BeforeAndAfter with Matcher
   var request: HttpGet = _
   var app: ListAppender = _
   var uri: String = _
+  val akkaServiceClients = ListBuffer[AkkaServiceClientImpl]()
+
+  // The client starts its own HTTP client threads, so every one a test makes is destroyed after it
+  def newAkkaServiceClient(): AkkaServiceClientImpl = {
+    val client = new AkkaServiceClientImpl(httpClientService)
+    akkaServiceClients += client
+    client
+  }
 
   before {
     val ctx = LogManager.getContext(false).asInstanceOf[LoggerContext]
@@ -96,6 +105,8 @@ class AkkaServiceClientImplTest extends FunSpec with BeforeAndAfter with Matcher
   }
 
   after {
+    akkaServiceClients.foreach(_.destroy())
+    akkaServiceClients.clear()
     originServer.stop()
   }
 
@@ -112,14 +123,14 @@ class AkkaServiceClientImplTest extends FunSpec with BeforeAndAfter with Matcher
           val headers = Map[String, String]()
 
           it("should Validate Token") {
-            val akkaServiceClientImpl = new AkkaServiceClientImpl(httpClientService)
+            val akkaServiceClientImpl = newAkkaServiceClient()
             val serviceClientResponse = akkaServiceClientImplDo(akkaServiceClientImpl, headers)
             serviceClientResponse should not be null
             serviceClientResponse.getStatus shouldBe HttpServletResponse.SC_OK
           }
 
           it("should Reuse Service Response") {
-            val akkaServiceClientImpl = new AkkaServiceClientImpl(httpClientService)
+            val akkaServiceClientImpl = newAkkaServiceClient()
             val serviceClientResponse1 = akkaServiceClientImplDo(akkaServiceClientImpl, headers)
             val serviceClientResponse2 = akkaServiceClientImplDo(akkaServiceClientImpl, headers)
 
@@ -139,7 +150,7 @@ class AkkaServiceClientImplTest extends FunSpec with BeforeAndAfter with Matcher
         describe("with a log it header") {
           val headers = Map(HEADER_LOG -> true.toString)
           it("should Expire Item In Future Map") {
-            val akkaServiceClientImpl = new AkkaServiceClientImpl(httpClientService)
+            val akkaServiceClientImpl = newAkkaServiceClient()
             akkaServiceClientImplDo(akkaServiceClientImpl, headers)
 
             Thread.sleep(500)
@@ -165,7 +176,7 @@ class AkkaServiceClientImplTest extends FunSpec with BeforeAndAfter with Matcher
               params.setParameter(CoreConnectionPNames.SO_TIMEOUT, timeout)
               httpClientDefault.setParams(params)
               val headers = Map(HEADER_SLEEP -> (timeout - 2000).toString, HttpHeaders.ACCEPT -> MediaType.APPLICATION_XML)
-              val akkaServiceClientImpl = new AkkaServiceClientImpl(httpClientService)
+              val akkaServiceClientImpl = newAkkaServiceClient()
               val serviceClientResponse = akkaServiceClientImplDo(akkaServiceClientImpl, headers)
               serviceClientResponse should not be null
               serviceClientResponse.getStatus shouldBe HttpServletResponse.SC_OK
@@ -180,7 +191,7 @@ class AkkaServiceClientImplTest extends FunSpec with BeforeAndAfter with Matcher
               params.setParameter(CoreConnectionPNames.SO_TIMEOUT, timeout)
               httpClientDefault.setParams(params)
               val headers = Map(HEADER_SLEEP -> (timeout + 5000).toString, HttpHeaders.ACCEPT -> MediaType.APPLICATION_XML)
-              val akkaServiceClientImpl = new AkkaServiceClientImpl(httpClientService)
+              val akkaServiceClientImpl = newAkkaServiceClient()
               intercept[AkkaServiceClientException] {
                 val serviceClientResponse = akkaServiceClientImplDo(akkaServiceClientImpl, headers)
               }
@@ -191,5 +202,39 @@ class AkkaServiceClientImplTest extends FunSpec with BeforeAndAfter with Matcher
         }
       }
     }
+
+    describe("sending requests asynchronously") {
+      it("should not wait for the response") {
+        val akkaServiceClientImpl = newAkkaServiceClient()
+        val future = akkaServiceClientImpl.getAsync(hashKey, uri, Map(HEADER_SLEEP -> "500"))
+
+        future.isDone shouldBe false
+        future.get().getStatus shouldBe HttpServletResponse.SC_OK
+      }
+
+      it("should share the response of an outstanding request with the same key") {
+        val akkaServiceClientImpl = newAkkaServiceClient()
+        val headers = Map(HEADER_SLEEP -> "500", HEADER_LOG -> true.toString)
+        val first = akkaServiceClientImpl.getAsync(hashKey, uri, headers)
+        val second = akkaServiceClientImpl.getAsync(hashKey, uri, headers)
+
+        first.get().getStatus shouldBe HttpServletResponse.SC_OK
+        second.get().getStatus shouldBe HttpServletResponse.SC_OK
+        val events = app.getEvents.toList.map(_.getMessage.getFormattedMessage)
+        events.count(_.contains("Origin Server Log Message.")) shouldBe 1
+      }
+
+      it("should send requests with different keys separately") {
+        val akkaServiceClientImpl = newAkkaServiceClient()
+        val headers = Map(HEADER_SLEEP -> "500", HEADER_LOG -> true.toString)
+        val first = akkaServiceClientImpl.getAsync(hashKey, uri, headers)
+        val second = akkaServiceClientImpl.postAsync("otherKey", uri, headers, BODY_STRING, MediaType.APPLICATION_XML_TYPE)
+
+        first.get().getStatus shouldBe HttpServletResponse.SC_OK
+        second.get().getStatus shouldBe HttpServletResponse.SC_OK
+        val events = app.getEvents.toList.map(_.getMessage.getFormattedMessage)
+        events.count(_.contains("Origin Server Log Message.")) shouldBe 2
+      }
+    }
   }
 }